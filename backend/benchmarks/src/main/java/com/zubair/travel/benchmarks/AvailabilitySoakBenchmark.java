@@ -0,0 +1,211 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.TourService;
+import com.zubair.travel.service.inventory.AvailabilityStreamHub;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Soak test of GET /api/availability/stream. Boots the backend (profile "bench") in this
+ * JVM and opens the streams from a separate client JVM, so the heap measured here is the
+ * server's alone: used heap after GC is sampled before and after the connections are
+ * established and divided by their number. Then bookings and releases on the hot tours
+ * run for a while, and the heap is sampled again to check that it doesn't grow with the
+ * number of updates, while the client counts the events it received.
+ *
+ * Sizes: -Dbench.soak.connections (10000), -Dbench.soak.seconds (60), -Dbench.soak.writers (4).
+ * The client needs as many file descriptors as connections (ulimit -n).
+ * Run with "mvn compile exec:exec@availability-soak".
+ */
+public final class AvailabilitySoakBenchmark {
+
+    private static final String CONNECTED_PREFIX = "CONNECTED ";
+    private static final String EVENTS_PREFIX = "EVENTS ";
+
+    private AvailabilitySoakBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("client")) {
+            runClient(args[1], Integer.parseInt(args[2]), args[3]);
+            return;
+        }
+
+        int connections = Integer.getInteger("bench.soak.connections", 10_000);
+        int seconds = Integer.getInteger("bench.soak.seconds", 60);
+        int writers = Integer.getInteger("bench.soak.writers", 4);
+
+        ConfigurableApplicationContext context = BenchmarkContext.get(
+                "app.availability.stream.max-connections=" + (connections + 100),
+                "server.tomcat.max-connections=" + (connections + 200));
+        TourService tourService = context.getBean(TourService.class);
+        AvailabilityStreamHub hub = context.getBean(AvailabilityStreamHub.class);
+        DatasetGenerator.Dataset dataset = BenchmarkContext.dataset();
+        StringBuilder tourIds = new StringBuilder();
+        for (int i = 0; i < dataset.hotTourIds().size(); i++) {
+            tourIds.append(i == 0 ? "" : ",").append(dataset.hotTourId(i));
+        }
+
+        long baseline = usedHeapAfterGc();
+        Process client = new ProcessBuilder(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-cp", System.getProperty("java.class.path"),
+                AvailabilitySoakBenchmark.class.getName(), "client",
+                BenchmarkContext.baseUrl(), String.valueOf(connections), tourIds.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        BufferedReader clientOut = new BufferedReader(new InputStreamReader(client.getInputStream()));
+        PrintWriter clientIn = new PrintWriter(client.getOutputStream(), true);
+
+        readPrefixed(clientOut, CONNECTED_PREFIX);
+        long connected = hub.getConnectionCount();
+        long withConnections = usedHeapAfterGc();
+        System.out.printf("%d streams open, server heap %d -> %d MB, %.1f KB per connection%n",
+                connected, baseline >> 20, withConnections >> 20,
+                (withConnections - baseline) / 1024.0 / Math.max(1, connected));
+
+        // Churn on the watched tours; every change makes its tour dirty for the next tick
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong changes = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int offset = w;
+            Thread writer = new Thread(() -> {
+                int i = offset;
+                while (running.get()) {
+                    Long tourId = dataset.hotTourId(i++);
+                    tourService.bookSeat(tourId, 1);
+                    tourService.releaseSeat(tourId, 1);
+                    changes.addAndGet(2);
+                }
+            });
+            writer.start();
+            threads.add(writer);
+        }
+        long start = System.nanoTime();
+        for (int s = 5; s <= seconds; s += 5) {
+            TimeUnit.SECONDS.sleep(5);
+            System.out.printf("  %3ds: %d streams, heap %d MB, %d seat changes%n",
+                    s, hub.getConnectionCount(), ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20,
+                    changes.get());
+        }
+        running.set(false);
+        for (Thread writer : threads) {
+            writer.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        // Let the last tick reach the client before asking for its count
+        TimeUnit.SECONDS.sleep(2);
+
+        clientIn.println("report");
+        long events = readPrefixed(clientOut, EVENTS_PREFIX);
+        long afterChurn = usedHeapAfterGc();
+        clientIn.close();
+        client.waitFor(1, TimeUnit.MINUTES);
+        BenchmarkContext.close();
+
+        System.out.printf("%d seat changes in %.0fs fanned out as %d events (%.0f events/s)%n",
+                changes.get(), elapsed, events, events / elapsed);
+        System.out.printf("server heap after churn %d MB (%+.1f KB per connection)%n",
+                afterChurn >> 20, (afterChurn - withConnections) / 1024.0 / Math.max(1, connected));
+    }
+
+    // Opens the streams, reports once every stream got its initial event and again on "report"
+    private static void runClient(String baseUrl, int connections, String tourIds) throws Exception {
+        String[] tours = tourIds.split(",");
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        CountDownLatch opened = new CountDownLatch(connections);
+        AtomicLong events = new AtomicLong();
+        for (int i = 0; i < connections; i++) {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create(baseUrl + "/api/availability/stream?tours=" + tours[i % tours.length])).build();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(new EventCounter(opened, events)));
+        }
+        opened.await();
+        System.out.println(CONNECTED_PREFIX + connections);
+
+        BufferedReader commands = new BufferedReader(new InputStreamReader(System.in));
+        String command;
+        while ((command = commands.readLine()) != null) {
+            if (command.equals("report")) {
+                System.out.println(EVENTS_PREFIX + events.get());
+            }
+        }
+        System.exit(0);
+    }
+
+    private static long readPrefixed(BufferedReader reader, String prefix) throws Exception {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return Long.parseLong(line.substring(prefix.length()).trim());
+            }
+        }
+        throw new IllegalStateException("Client JVM exited before reporting " + prefix.trim());
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // Counts "availability" events; the first one of a stream is its initial snapshot
+    private static final class EventCounter implements Flow.Subscriber<String> {
+
+        private final CountDownLatch opened;
+        private final AtomicLong events;
+        private boolean first = true;
+
+        private EventCounter(CountDownLatch opened, AtomicLong events) {
+            this.opened = opened;
+            this.events = events;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith("event:")) {
+                return;
+            }
+            if (first) {
+                first = false;
+                opened.countDown();
+            } else {
+                events.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            System.err.println("Stream failed: " + throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
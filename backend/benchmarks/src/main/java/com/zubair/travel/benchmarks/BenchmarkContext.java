@@ -0,0 +1,62 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.TravelBookingApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the full backend once per JMH fork with the "bench" profile (in-memory H2,
+ * Flyway schema, random HTTP port) and seeds it with the DatasetGenerator.
+ * Benchmarks pull their beans from here in a Level.Trial setup method.
+ */
+public final class BenchmarkContext {
+
+    private static ConfigurableApplicationContext context;
+
+    private static DatasetGenerator.Dataset dataset;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext get() {
+        return get(new String[0]);
+    }
+
+    /**
+     * Boots the context with extra "key=value" properties, e.g. to compare a feature switched
+     * on and off via a JMH @Param. Only the first call in a fork decides the properties.
+     */
+    public static synchronized ConfigurableApplicationContext get(String... properties) {
+        if (context == null) {
+            context = new SpringApplicationBuilder(TravelBookingApplication.class)
+                    .profiles("bench")
+                    .properties(properties)
+                    .run();
+            dataset = new DatasetGenerator(context).seed();
+        }
+        return context;
+    }
+
+    public static <T> T bean(Class<T> type) {
+        return get().getBean(type);
+    }
+
+    public static DatasetGenerator.Dataset dataset() {
+        get();
+        return dataset;
+    }
+
+    public static String baseUrl() {
+        int port = ((WebServerApplicationContext) get()).getWebServer().getPort();
+        return "http://localhost:" + port;
+    }
+
+    public static synchronized void close() {
+        if (context != null) {
+            context.close();
+            context = null;
+            dataset = null;
+        }
+    }
+}
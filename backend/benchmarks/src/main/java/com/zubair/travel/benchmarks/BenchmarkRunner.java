@@ -0,0 +1,40 @@
+package com.zubair.travel.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+
+/**
+ * Entry point for the benchmark suites.
+ * Runs every benchmark matching the first argument (a regex, default all) with the GC
+ * profiler attached, so allocation per operation is reported next to the timings, and
+ * writes the results as JSON (default target/jmh-result.json, override with -Dbench.result)
+ * for comparison across releases.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        // Forked benchmark JVMs don't inherit system properties, so pass the dataset sizes on
+        List<String> datasetProperties = System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("bench.") && !name.equals("bench.result"))
+                .map(name -> "-D" + name + "=" + System.getProperty(name))
+                .toList();
+        Options options = new OptionsBuilder()
+                .include(include)
+                .jvmArgsAppend(datasetProperties.toArray(new String[0]))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("bench.result", "target/jmh-result.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
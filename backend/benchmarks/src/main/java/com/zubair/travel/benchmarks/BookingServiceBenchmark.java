@@ -0,0 +1,67 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.User;
+import com.zubair.travel.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of BookingService.createBooking: validation, user/tour lookups,
+ * availability check, seat reservation, insert and summary refresh in one transaction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookingServiceBenchmark {
+
+    private BookingService bookingService;
+
+    private DatasetGenerator.Dataset dataset;
+
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookingService = BenchmarkContext.bean(BookingService.class);
+        dataset = BenchmarkContext.dataset();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public Booking createBooking() {
+        int n = sequence++;
+        User user = new User();
+        user.setId(dataset.userId(n));
+        Tour tour = new Tour();
+        tour.setId(dataset.hotTourId(n));
+
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setTour(tour);
+        booking.setNumberOfPeople(2);
+        booking.setTotalAmount(BigDecimal.valueOf(250));
+        return bookingService.createBooking(booking);
+    }
+}
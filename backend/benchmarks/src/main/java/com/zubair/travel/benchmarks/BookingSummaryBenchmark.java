@@ -0,0 +1,72 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.dto.BookingDto;
+import com.zubair.travel.entity.BookingSummary;
+import com.zubair.travel.service.BookingService;
+import com.zubair.travel.service.BookingSummaryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The user dashboard query: the booking_summaries read model versus loading the Booking
+ * entities (with their user and tour) and mapping them, for users with 10, 1k and 10k bookings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookingSummaryBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int bookingsPerUser;
+
+    private BookingSummaryService bookingSummaryService;
+
+    private BookingService bookingService;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookingSummaryService = BenchmarkContext.bean(BookingSummaryService.class);
+        bookingService = BenchmarkContext.bean(BookingService.class);
+        readOnlyTransaction = new TransactionTemplate(BenchmarkContext.bean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        userId = DatasetGenerator.seedUserWithBookings(BenchmarkContext.get(), "dashboard" + bookingsPerUser, bookingsPerUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public List<BookingSummary> summaryReadModel() {
+        return bookingSummaryService.getSummariesByUser(userId);
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingEntities() {
+        return readOnlyTransaction.execute(status -> BookingDto.fromList(bookingService.getBookingsByUser(userId)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.zubair.travel.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zubair.travel.dto.TourDto;
+import com.zubair.travel.service.CatalogSnapshotPublisher;
+import com.zubair.travel.service.CatalogSnapshotPublisher.SnapshotKey;
+import com.zubair.travel.service.TourService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serving /api/tours/available from the pre-rendered snapshot versus querying and
+ * serializing the available tours for every request. Run with the GC profiler (the
+ * runner's default) to compare allocation per request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogSnapshotBenchmark {
+
+    private CatalogSnapshotPublisher snapshotPublisher;
+
+    private TourService tourService;
+
+    private ObjectMapper objectMapper;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshotPublisher = BenchmarkContext.bean(CatalogSnapshotPublisher.class);
+        tourService = BenchmarkContext.bean(TourService.class);
+        objectMapper = BenchmarkContext.bean(ObjectMapper.class);
+        readOnlyTransaction = new TransactionTemplate(BenchmarkContext.bean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public byte[] snapshot() {
+        return snapshotPublisher.getSnapshot(SnapshotKey.AVAILABLE_TOURS).select(null, "gzip").body();
+    }
+
+    @Benchmark
+    public byte[] perRequestSerialization() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(
+                readOnlyTransaction.execute(status -> TourDto.fromList(tourService.getAvailableTours())));
+    }
+}
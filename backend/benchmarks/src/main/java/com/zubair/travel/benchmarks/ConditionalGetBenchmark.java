@@ -0,0 +1,75 @@
+package com.zubair.travel.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog GETs over HTTP from a cold client (no validators) versus a warm client that
+ * revalidates with If-None-Match and gets a 304. Reports latency and response body size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConditionalGetBenchmark {
+
+    @Param({"/api/tours", "/api/lodges", "/api/tours/1"})
+    public String path;
+
+    private HttpClient client;
+
+    private URI uri;
+
+    private String eTag;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        client = HttpClient.newHttpClient();
+        uri = URI.create(BenchmarkContext.baseUrl() + path);
+        eTag = client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding())
+                .headers()
+                .firstValue("ETag")
+                .orElseThrow(() -> new IllegalStateException("No ETag on " + path));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public int coldClient(PayloadSize payload) throws IOException, InterruptedException {
+        return send(payload, HttpRequest.newBuilder(uri).GET().build());
+    }
+
+    @Benchmark
+    public int revalidatingClient(PayloadSize payload) throws IOException, InterruptedException {
+        return send(payload, HttpRequest.newBuilder(uri).header("If-None-Match", eTag).GET().build());
+    }
+
+    private int send(PayloadSize payload, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        payload.bytes = response.body().length;
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,179 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.BookingSummaryService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds the benchmark database with a deterministic, production-shaped dataset.
+ * Rows go in through JDBC batches (seeding 20k bookings through the services would take
+ * longer than the benchmarks), then the booking summary read model is rebuilt from them.
+ *
+ * Sizes can be overridden with -Dbench.users, -Dbench.tours, -Dbench.lodges and -Dbench.bookings.
+ */
+public class DatasetGenerator {
+
+    public static final String PASSWORD = "bench-password";
+
+    // Upcoming tours with effectively unlimited seats, so write benchmarks never sell out
+    private static final int HOT_TOURS = 50;
+    private static final int HOT_TOUR_SEATS = 10_000_000;
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final BookingSummaryService bookingSummaryService;
+    private final Random random = new Random(42);
+
+    private final int users = Integer.getInteger("bench.users", 1_000);
+    private final int tours = Integer.getInteger("bench.tours", 2_000);
+    private final int lodges = Integer.getInteger("bench.lodges", 2_000);
+    private final int bookings = Integer.getInteger("bench.bookings", 20_000);
+
+    public DatasetGenerator(ApplicationContext context) {
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.passwordEncoder = context.getBean(PasswordEncoder.class);
+        this.bookingSummaryService = context.getBean(BookingSummaryService.class);
+    }
+
+    public Dataset seed() {
+        LocalDate today = LocalDate.now();
+        // One hash for every user, BCrypt would otherwise dominate seeding
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            userRows.add(new Object[]{"bench" + i, "bench" + i + "@example.com", passwordHash, "USER",
+                    Timestamp.valueOf(LocalDateTime.now())});
+        }
+        batch("INSERT INTO users (username, email, password, role, created_at) VALUES (?, ?, ?, ?, ?)", userRows);
+
+        List<Object[]> tourRows = new ArrayList<>(tours);
+        for (int i = 1; i <= tours; i++) {
+            boolean hot = i <= HOT_TOURS;
+            LocalDate date = hot ? today.plusDays(180) : today.plusDays(random.nextInt(730) - 365);
+            int seats = hot ? HOT_TOUR_SEATS : date.isAfter(today) ? random.nextInt(40) : 0;
+            int totalSeats = hot ? HOT_TOUR_SEATS : 40;
+            tourRows.add(new Object[]{"Tour " + i, "Guided tour number " + i, "City " + random.nextInt(200),
+                    "City " + random.nextInt(200), Date.valueOf(date), 50.0 + random.nextInt(2_000), seats, totalSeats,
+                    "Guide " + random.nextInt(100)});
+        }
+        batch("INSERT INTO tours (name, description, from_location, to_location, date, price, available_seats, "
+                + "total_seats, guide) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", tourRows);
+
+        List<Object[]> lodgeRows = new ArrayList<>(lodges);
+        for (int i = 1; i <= lodges; i++) {
+            int rooms = 10 + random.nextInt(90);
+            lodgeRows.add(new Object[]{"Lodge " + i, i + " Main Street", 20.0 + random.nextInt(800),
+                    "Lodge number " + i, rooms, rooms});
+        }
+        batch("INSERT INTO lodges (name, address, price_per_night, description, total_rooms, available_rooms) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", lodgeRows);
+
+        long firstUserId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        long firstTourId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM tours", Long.class);
+        insertBookings(firstUserId, users, firstTourId, tours, bookings, today);
+        bookingSummaryService.rebuild();
+
+        List<Long> hotTourIds = new ArrayList<>(HOT_TOURS);
+        for (int i = 0; i < HOT_TOURS; i++) {
+            hotTourIds.add(firstTourId + i);
+        }
+        return new Dataset(firstUserId, users, "bench1", hotTourIds);
+    }
+
+    /**
+     * Creates a fresh user owning exactly {@code count} bookings, together with their
+     * payments and summary rows. Used by the per-user dashboard benchmarks.
+     */
+    public static long seedUserWithBookings(ApplicationContext context, String username, int count) {
+        DatasetGenerator generator = new DatasetGenerator(context);
+        Number userId = new SimpleJdbcInsert(generator.jdbcTemplate)
+                .withTableName("users")
+                .usingGeneratedKeyColumns("id")
+                .executeAndReturnKey(Map.of(
+                        "username", username,
+                        "email", username + "@example.com",
+                        "password", "$2a$10$unused",
+                        "role", "USER",
+                        "created_at", Timestamp.valueOf(LocalDateTime.now())));
+        long firstTourId = generator.jdbcTemplate.queryForObject("SELECT MIN(id) FROM tours", Long.class);
+        generator.insertBookings(userId.longValue(), 1, firstTourId, HOT_TOURS, count, LocalDate.now());
+        generator.jdbcTemplate.update(
+                "INSERT INTO booking_summaries (booking_id, user_id, tour_name, tour_date, booking_date, "
+                        + "total_passengers, total_amount, status, payment_status) "
+                        + "SELECT b.id, b.user_id, t.name, t.date, b.booking_date, b.total_passengers, b.total_amount, "
+                        + "b.status, 'COMPLETED' FROM bookings b JOIN tours t ON t.id = b.tour_id WHERE b.user_id = ?",
+                userId.longValue());
+        return userId.longValue();
+    }
+
+    // Helpers
+
+    private void insertBookings(long firstUserId, int userCount, long firstTourId, int tourCount,
+                                int count, LocalDate today) {
+        long firstBookingId = nextId("bookings");
+        List<Object[]> bookingRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> paymentRows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            int roll = random.nextInt(100);
+            String status = roll < 5 ? "PENDING" : roll < 15 ? "CANCELLED" : "CONFIRMED";
+            String paymentStatus = roll < 5 ? "PENDING" : roll < 15 ? "REFUNDED" : "COMPLETED";
+            Timestamp bookedAt = Timestamp.valueOf(today.atStartOfDay().minusMinutes(random.nextInt(500_000)));
+            BigDecimal amount = BigDecimal.valueOf(100 + random.nextInt(5_000));
+
+            bookingRows.add(new Object[]{firstUserId + random.nextInt(userCount), firstTourId + random.nextInt(tourCount),
+                    bookedAt, 1 + random.nextInt(4), amount, status});
+            paymentRows.add(new Object[]{firstBookingId + i, amount, bookedAt, paymentStatus, "CARD",
+                    "bench-txn-" + (firstBookingId + i)});
+
+            if (bookingRows.size() == BATCH_SIZE || i == count - 1) {
+                batch("INSERT INTO bookings (user_id, tour_id, booking_date, total_passengers, total_amount, status) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)", bookingRows);
+                batch("INSERT INTO payments (booking_id, amount, payment_date, payment_status, payment_method, "
+                        + "transaction_id) VALUES (?, ?, ?, ?, ?, ?)", paymentRows);
+                bookingRows.clear();
+                paymentRows.clear();
+            }
+        }
+    }
+
+    // Seeding runs single-threaded against a private database, so the next identity value is predictable
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+    }
+
+    /**
+     * Identifiers the benchmarks need from the seeded data.
+     */
+    public record Dataset(long firstUserId, int userCount, String username, List<Long> hotTourIds) {
+
+        public long userId(int index) {
+            return firstUserId + Math.floorMod(index, userCount);
+        }
+
+        public long hotTourId(int index) {
+            return hotTourIds.get(Math.floorMod(index, hotTourIds.size()));
+        }
+    }
+}
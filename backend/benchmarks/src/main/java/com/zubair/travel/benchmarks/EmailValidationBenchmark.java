@@ -0,0 +1,38 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService.isValidEmail on typical, long and invalid addresses. Pure CPU, so no
+ * Spring context is started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EmailValidationBenchmark {
+
+    @Param({"jane.doe@example.com", "a.very.long.local.part+travel-newsletter@mail.subdomain.example.co.uk", "not-an-email"})
+    public String email;
+
+    private final UserService userService = new UserService();
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return userService.isValidEmail(email);
+    }
+}
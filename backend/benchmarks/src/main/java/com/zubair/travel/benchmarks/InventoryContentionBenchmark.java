@@ -0,0 +1,131 @@
+package com.zubair.travel.benchmarks;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-JVM contention test for the Redis inventory scripts (app.inventory.backend=redis).
+ * JMH runs one JVM per fork, but the point of the Redis backend is several replicas selling
+ * the same tour, so this runner starts N worker JVMs that each reserve one seat at a time
+ * on the same counter (with T threads each) until it is sold out. It then checks that
+ * exactly the initial seats were sold and the pending delta matches, and prints the
+ * aggregate reservation throughput.
+ *
+ * Needs a running Redis (-Dbench.redis.host, -Dbench.redis.port, default localhost:6379);
+ * the test keys are deleted afterwards. Sizes: -Dbench.workers (4), -Dbench.threads (8),
+ * -Dbench.seats (200000). Run with "mvn compile exec:exec@inventory-contention".
+ */
+public final class InventoryContentionBenchmark {
+
+    private static final String COUNTER = "inventory:{tour}:contention-bench";
+    private static final String PENDING = "inventory:{tour}:pending-contention-bench";
+    private static final String ID = "contention-bench";
+    private static final String RESULT_PREFIX = "SOLD ";
+
+    private InventoryContentionBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("worker")) {
+            runWorker();
+            return;
+        }
+
+        int workers = Integer.getInteger("bench.workers", 4);
+        int threads = Integer.getInteger("bench.threads", 8);
+        long seats = Long.getLong("bench.seats", 200_000);
+
+        LettuceConnectionFactory connectionFactory = connectionFactory();
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.delete(List.of(COUNTER, PENDING));
+        redisTemplate.opsForValue().set(COUNTER, String.valueOf(seats));
+
+        List<Process> processes = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < workers; i++) {
+            processes.add(new ProcessBuilder(
+                    ProcessHandle.current().info().command().orElse("java"),
+                    "-cp", System.getProperty("java.class.path"),
+                    "-Dbench.redis.host=" + System.getProperty("bench.redis.host", "localhost"),
+                    "-Dbench.redis.port=" + System.getProperty("bench.redis.port", "6379"),
+                    "-Dbench.threads=" + threads,
+                    InventoryContentionBenchmark.class.getName(), "worker")
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+
+        long sold = 0;
+        for (Process process : processes) {
+            // Worker stdout also carries client library logging, the result line is prefixed
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(RESULT_PREFIX)) {
+                        sold += Long.parseLong(line.substring(RESULT_PREFIX.length()).trim());
+                    }
+                }
+            }
+            if (!process.waitFor(10, TimeUnit.MINUTES) || process.exitValue() != 0) {
+                throw new IllegalStateException("Worker JVM failed");
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long remaining = Long.parseLong(redisTemplate.opsForValue().get(COUNTER));
+        long pending = Long.parseLong(String.valueOf(redisTemplate.opsForHash().get(PENDING, ID)));
+        redisTemplate.delete(List.of(COUNTER, PENDING));
+        connectionFactory.destroy();
+
+        System.out.printf("%d JVMs x %d threads sold %d of %d seats in %.2fs (%.0f reservations/s)%n",
+                workers, threads, sold, seats, seconds, sold / seconds);
+        if (sold != seats || remaining != 0 || pending != -seats) {
+            System.out.printf("INCONSISTENT: sold=%d remaining=%d pendingDelta=%d%n", sold, remaining, pending);
+            System.exit(1);
+        }
+    }
+
+    // Reserves until sold out and prints the number of seats this JVM got
+    private static void runWorker() throws InterruptedException {
+        LettuceConnectionFactory connectionFactory = connectionFactory();
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        DefaultRedisScript<Long> reserve = new DefaultRedisScript<>();
+        reserve.setLocation(new ClassPathResource("redis/inventory-reserve.lua"));
+        reserve.setResultType(Long.class);
+
+        int threads = Integer.getInteger("bench.threads", 8);
+        long[] sold = new long[threads];
+        List<Thread> buyers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int slot = t;
+            Thread buyer = new Thread(() -> {
+                while (redisTemplate.execute(reserve, List.of(COUNTER, PENDING), "1", ID) >= 0) {
+                    sold[slot]++;
+                }
+            });
+            buyer.start();
+            buyers.add(buyer);
+        }
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            buyers.get(t).join();
+            total += sold[t];
+        }
+        connectionFactory.destroy();
+        System.out.println(RESULT_PREFIX + total);
+    }
+
+    private static LettuceConnectionFactory connectionFactory() {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                System.getProperty("bench.redis.host", "localhost"), Integer.getInteger("bench.redis.port", 6379));
+        connectionFactory.afterPropertiesSet();
+        return connectionFactory;
+    }
+}
@@ -0,0 +1,161 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.location.LocationHierarchy;
+import com.zubair.travel.service.location.LocationHierarchy.Branch;
+import com.zubair.travel.service.location.LocationHierarchy.Entry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LocationHierarchy with 1,000,000 locations in 200 countries of 20 states each. A few countries
+ * and, within a state, a few cities hold most locations, which leaves about half a million
+ * distinct cities, the expensive case for the tree's memory. Queries pick places the way a
+ * random location would, so busy places come up most:
+ * - countByCountry: getLocationCountByCountry
+ * - states: the hierarchy endpoint listing a country's states
+ * - idsByCity: the ids behind getLocationsByCity
+ * - countryIds: the ids behind getLocationsByCountry
+ * - popularIds: the ids behind getPopularLocations, a fifth of all locations
+ * - update: a location moving to another city, what an admin edit costs
+ * - scanCountByCountry, scanIdsByCity: the same answers from a pass over every location
+ * Setup prints how much heap the loaded tree takes. Pure CPU, so no Spring context is started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LocationHierarchyBenchmark {
+
+    private static final int LOCATIONS = 1_000_000;
+
+    private static final int COUNTRIES = 200;
+
+    private static final int STATES_PER_COUNTRY = 20;
+
+    private static final int CITIES_PER_STATE = 500;
+
+    private LocationHierarchy hierarchy;
+
+    private Entry[] entries;
+
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom setup = new SplittableRandom(42);
+        entries = new Entry[LOCATIONS];
+        for (int i = 0; i < LOCATIONS; i++) {
+            entries[i] = place(i + 1, setup);
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        long started = System.nanoTime();
+        hierarchy = new LocationHierarchy();
+        for (Entry entry : entries) {
+            hierarchy.add(entry);
+        }
+        long loadMillis = (System.nanoTime() - started) / 1_000_000;
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("%nLocation hierarchy: %d locations loaded in %d ms, about %.1f MB of heap%n",
+                hierarchy.size(), loadMillis, (after - before) / 1e6);
+    }
+
+    @Benchmark
+    public int countByCountry() {
+        return hierarchy.count(anyLocation().country(), null, null);
+    }
+
+    @Benchmark
+    public List<Branch> states() {
+        return hierarchy.children(anyLocation().country(), null);
+    }
+
+    @Benchmark
+    public long[] idsByCity() {
+        return hierarchy.idsByCity(anyLocation().city());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long[] countryIds() {
+        return hierarchy.ids(anyLocation().country(), null, null);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long[] popularIds() {
+        return hierarchy.popularIds();
+    }
+
+    @Benchmark
+    public void update() {
+        int i = random.nextInt(LOCATIONS);
+        Entry moved = place(entries[i].id(), random);
+        hierarchy.update(entries[i], moved);
+        entries[i] = moved;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int scanCountByCountry() {
+        String country = anyLocation().country();
+        int count = 0;
+        for (Entry entry : entries) {
+            if (entry.country().equalsIgnoreCase(country)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long[] scanIdsByCity() {
+        String city = anyLocation().city();
+        long[] ids = new long[16];
+        int found = 0;
+        for (Entry entry : entries) {
+            if (entry.city().equalsIgnoreCase(city)) {
+                if (found == ids.length) {
+                    ids = Arrays.copyOf(ids, found * 2);
+                }
+                ids[found++] = entry.id();
+            }
+        }
+        return Arrays.copyOf(ids, found);
+    }
+
+    private Entry anyLocation() {
+        return entries[random.nextInt(LOCATIONS)];
+    }
+
+    // Squaring and cubing uniform numbers make low country and city numbers much more likely
+    private static Entry place(long id, SplittableRandom random) {
+        double u = random.nextDouble();
+        double v = random.nextDouble();
+        int country = (int) (u * u * COUNTRIES);
+        int state = random.nextInt(STATES_PER_COUNTRY);
+        int city = (int) (v * v * v * CITIES_PER_STATE);
+        return new Entry(id, "Country " + country, "State " + country + "-" + state,
+                "City " + country + "-" + state + "-" + city, random.nextInt(5) == 0);
+    }
+}
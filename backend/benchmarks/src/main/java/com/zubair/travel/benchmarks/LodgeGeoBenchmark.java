@@ -0,0 +1,140 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.geo.GeoGrid;
+import com.zubair.travel.service.geo.GeoGrid.Entry;
+import com.zubair.travel.service.geo.GeoGrid.Filter;
+import com.zubair.travel.service.geo.GeoGrid.Hit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeoGrid with 1,000,000 lodges: 90% spread around 500 cities (about 15 km standard deviation),
+ * the rest anywhere between 60S and 70N. Queries are centred near random cities, where lodge
+ * density and therefore the work per query is highest:
+ * - nearest: the 10 nearest lodges, with and without a price/rooms filter
+ * - radius: all lodges within 5 km (limit 100), and within 25 km filtered to the cheapest third
+ * - box: a 0.2 x 0.2 degree box
+ * - scan: the 5 km radius query as a linear scan over all lodges, the baseline the grid replaces
+ * - updateRooms: the write a booking makes
+ * Pure CPU, so no Spring context is started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LodgeGeoBenchmark {
+
+    private static final int LODGES = 1_000_000;
+
+    private static final int CITIES = 500;
+
+    private static final Filter CHEAP_WITH_ROOMS = new Filter(100, 2);
+
+    @Param({"0.05", "0.1", "0.5"})
+    public double cellDegrees;
+
+    private GeoGrid grid;
+
+    private Entry[] entries;
+
+    private double[][] cities;
+
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom setup = new SplittableRandom(42);
+        cities = new double[CITIES][];
+        for (int i = 0; i < CITIES; i++) {
+            cities[i] = new double[]{-45 + setup.nextDouble() * 105, -180 + setup.nextDouble() * 360};
+        }
+        grid = new GeoGrid(cellDegrees);
+        entries = new Entry[LODGES];
+        for (int id = 0; id < LODGES; id++) {
+            double[] point = id % 10 == 0
+                    ? new double[]{-60 + setup.nextDouble() * 130, -180 + setup.nextDouble() * 360}
+                    : nearCity(setup, 15);
+            entries[id] = new Entry(id, point[0], point[1], 30 + setup.nextInt(270), setup.nextInt(20));
+        }
+        grid.putAll(List.of(entries));
+    }
+
+    @Benchmark
+    public List<Hit> nearest() {
+        double[] point = nearCity(random, 5);
+        return grid.nearest(point[0], point[1], 10, 500, Filter.ANY);
+    }
+
+    @Benchmark
+    public List<Hit> nearestFiltered() {
+        double[] point = nearCity(random, 5);
+        return grid.nearest(point[0], point[1], 10, 500, CHEAP_WITH_ROOMS);
+    }
+
+    @Benchmark
+    public List<Hit> radius5km() {
+        double[] point = nearCity(random, 5);
+        return grid.withinRadius(point[0], point[1], 5, Filter.ANY, 100);
+    }
+
+    @Benchmark
+    public List<Hit> radius25kmFiltered() {
+        double[] point = nearCity(random, 5);
+        return grid.withinRadius(point[0], point[1], 25, CHEAP_WITH_ROOMS, 100);
+    }
+
+    @Benchmark
+    public List<Hit> box() {
+        double[] point = nearCity(random, 5);
+        return grid.withinBox(point[0] - 0.1, point[1] - 0.1, point[0] + 0.1, point[1] + 0.1, Filter.ANY, 100);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int scan5km() {
+        double[] point = nearCity(random, 5);
+        int found = 0;
+        for (Entry entry : entries) {
+            if (GeoGrid.distanceKm(point[0], point[1], entry.latitude(), entry.longitude()) <= 5) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean updateRooms() {
+        return grid.updateRooms(random.nextInt(LODGES), random.nextInt(20));
+    }
+
+    // A point around a random city, sigmaKm standard deviation per axis
+    private double[] nearCity(SplittableRandom random, double sigmaKm) {
+        double[] city = cities[random.nextInt(CITIES)];
+        double sigmaDegrees = sigmaKm / 111.2;
+        double latitude = Math.max(-90, Math.min(90, city[0] + gaussian(random) * sigmaDegrees));
+        double longitude = city[1] + gaussian(random) * sigmaDegrees / Math.cos(Math.toRadians(city[0]));
+        return new double[]{latitude, ((longitude + 540) % 360) - 180};
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
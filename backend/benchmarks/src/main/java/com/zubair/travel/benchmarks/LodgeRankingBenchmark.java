@@ -0,0 +1,119 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.ranking.LodgeRankings;
+import com.zubair.travel.service.ranking.LodgeRankings.Entry;
+import com.zubair.travel.service.ranking.LodgeRankings.Snapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LodgeRankings with 1,000,000 lodges spread over 1,000 locations, against computing the same
+ * answers from a location's lodges the way the full-scan implementation did (filter, sort,
+ * average), minus the database round trip it also paid:
+ * - rankings: top 10 rated, 10 cheapest available and the average price of a random location
+ * - scan: the same three answers from the location's lodge list
+ * - bookRoom: a room change, which only touches the rankings when availability flips
+ * - updateLodge: a new price and rating, moving the lodge in both rankings
+ * Pure CPU, so no Spring context is started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LodgeRankingBenchmark {
+
+    private static final int LOCATIONS = 1_000;
+
+    private static final int LIMIT = 10;
+
+    @Param({"100000", "1000000"})
+    public int lodges;
+
+    private LodgeRankings rankings;
+
+    private List<List<Entry>> byLocation;
+
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom setup = new SplittableRandom(42);
+        rankings = new LodgeRankings(20);
+        byLocation = new ArrayList<>();
+        for (int i = 0; i < LOCATIONS; i++) {
+            byLocation.add(new ArrayList<>());
+        }
+        List<Entry> entries = new ArrayList<>(lodges);
+        for (int id = 0; id < lodges; id++) {
+            Entry entry = randomEntry(setup, id);
+            entries.add(entry);
+            byLocation.get(entry.locationId().intValue()).add(entry);
+        }
+        rankings.putAll(entries);
+    }
+
+    @Benchmark
+    public double rankings() {
+        Snapshot snapshot = rankings.snapshot((long) random.nextInt(LOCATIONS));
+        long[] topRated = snapshot.topRated();
+        long[] cheapest = snapshot.cheapestAvailable();
+        return topRated[Math.min(LIMIT, topRated.length) - 1] + cheapest[Math.min(LIMIT, cheapest.length) - 1]
+                + snapshot.averagePrice();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double scan() {
+        List<Entry> lodges = byLocation.get(random.nextInt(LOCATIONS));
+        long[] topRated = lodges.stream()
+                .filter(entry -> !Double.isNaN(entry.rating()))
+                .sorted(Comparator.comparingDouble((Entry entry) -> -entry.rating()).thenComparingLong(Entry::id))
+                .limit(LIMIT)
+                .mapToLong(Entry::id)
+                .toArray();
+        long[] cheapest = lodges.stream()
+                .filter(entry -> entry.availableRooms() > 0)
+                .sorted(Comparator.comparingDouble(Entry::price).thenComparingLong(Entry::id))
+                .limit(LIMIT)
+                .mapToLong(Entry::id)
+                .toArray();
+        double average = lodges.stream().mapToDouble(Entry::price).average().orElse(0.0);
+        return topRated[topRated.length - 1] + cheapest[cheapest.length - 1] + average;
+    }
+
+    @Benchmark
+    public boolean bookRoom() {
+        return rankings.updateRooms(random.nextInt(lodges), random.nextInt(20));
+    }
+
+    @Benchmark
+    public int updateLodge() {
+        Entry entry = randomEntry(random, random.nextInt(lodges));
+        rankings.put(entry);
+        return entry.availableRooms();
+    }
+
+    // Location fixed by id so that updates don't move lodges between locations
+    private static Entry randomEntry(SplittableRandom random, long id) {
+        return new Entry(id, id % LOCATIONS, random.nextInt(50) / 10.0, 30 + random.nextInt(27_000) / 100.0,
+                random.nextInt(20));
+    }
+}
@@ -0,0 +1,68 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.TourService;
+import com.zubair.travel.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the service-layer instrumentation (timer aspect plus JDBC statement counting),
+ * measured with app.metrics.instrumentation.enabled on and off. isValidEmail is the worst
+ * case (a trivial method behind the aspect); isTourAvailable is a typical database-backed call.
+ * The budget is a few percent on isTourAvailable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetricsOverheadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private UserService userService;
+
+    private TourService tourService;
+
+    private DatasetGenerator.Dataset dataset;
+
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkContext.get("app.metrics.instrumentation.enabled=" + instrumented);
+        userService = BenchmarkContext.bean(UserService.class);
+        tourService = BenchmarkContext.bean(TourService.class);
+        dataset = BenchmarkContext.dataset();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return userService.isValidEmail("jane.doe@example.com");
+    }
+
+    @Benchmark
+    public boolean isTourAvailable() {
+        return tourService.isTourAvailable(dataset.hotTourId(sequence++), 2);
+    }
+}
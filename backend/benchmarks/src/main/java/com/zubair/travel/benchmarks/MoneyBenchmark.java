@@ -0,0 +1,103 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import com.zubair.travel.service.money.QuoteCalculator.LineItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QuoteCalculator (long minor units) vs. the same computation in naive BigDecimal arithmetic:
+ * a package quote of tour seats, lodge nights and transport tickets with a discount and tax,
+ * and the revenue sum over 10 000 stored booking amounts. Pure CPU, so no Spring context is
+ * started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MoneyBenchmark {
+
+    private static final long DISCOUNT_BP = 1_000;
+    private static final long TAX_BP = 825;
+    private static final int AMOUNTS = 10_000;
+
+    private final QuoteCalculator calculator = new QuoteCalculator(TAX_BP);
+
+    private List<LineItem> items;
+
+    private BigDecimal seatPrice;
+    private BigDecimal nightPrice;
+    private BigDecimal fare;
+
+    private BigDecimal[] amounts;
+
+    @Setup
+    public void setUp() {
+        seatPrice = new BigDecimal("249.99");
+        nightPrice = new BigDecimal("87.45");
+        fare = new BigDecimal("32.10");
+        items = List.of(
+                LineItem.tourSeats(Money.of(seatPrice), 3),
+                LineItem.lodgeNights(Money.of(nightPrice), 2, 4),
+                LineItem.transportTickets(Money.of(fare), 6));
+
+        Random random = new Random(42);
+        amounts = new BigDecimal[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextInt(500_000), 2);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal quoteMinorUnits() {
+        return calculator.calculate(items, DISCOUNT_BP).total().toBigDecimal();
+    }
+
+    @Benchmark
+    public BigDecimal quoteBigDecimal() {
+        BigDecimal subtotal = seatPrice.multiply(BigDecimal.valueOf(3))
+                .add(nightPrice.multiply(BigDecimal.valueOf(2 * 4)))
+                .add(fare.multiply(BigDecimal.valueOf(6)));
+        BigDecimal discount = subtotal.multiply(BigDecimal.valueOf(DISCOUNT_BP))
+                .divide(BigDecimal.valueOf(Money.BASIS_POINTS)).setScale(2, RoundingMode.HALF_EVEN);
+        BigDecimal taxable = subtotal.subtract(discount);
+        BigDecimal tax = taxable.multiply(BigDecimal.valueOf(TAX_BP))
+                .divide(BigDecimal.valueOf(Money.BASIS_POINTS)).setScale(2, RoundingMode.HALF_EVEN);
+        return taxable.add(tax);
+    }
+
+    @Benchmark
+    public BigDecimal revenueMinorUnits() {
+        long total = 0;
+        for (BigDecimal amount : amounts) {
+            total = Math.addExact(total, Money.of(amount).minorUnits());
+        }
+        return Money.ofMinor(total).toBigDecimal();
+    }
+
+    @Benchmark
+    public BigDecimal revenueBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,136 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.dto.PackageBookingRequest;
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.User;
+import com.zubair.travel.service.BookingService;
+import com.zubair.travel.service.LodgeService;
+import com.zubair.travel.service.PackageBookingService;
+import com.zubair.travel.service.TransportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A tour + lodge + transport trip booked end to end:
+ * - packageBooking: PackageBookingService.bookPackage, parallel checks and one transaction
+ * - threeCalls: what a client stitching the trip together does today, createBooking, then
+ *   bookRoom, then bookTransportSeat, each in its own transaction
+ * - the same two with 4 threads booking over the 50 hot tours and 10 lodges and transports,
+ *   where packages queue on the row locks they hold for the whole transaction
+ * The services are called directly, so the three HTTP round trips the client would also pay
+ * on top of threeCalls are not included. Seeds lodges and transports with effectively
+ * unlimited capacity so nothing sells out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PackageBookingBenchmark {
+
+    private static final int HOT = 10;
+    private static final int CAPACITY = 10_000_000;
+
+    private PackageBookingService packageBookingService;
+
+    private BookingService bookingService;
+
+    private LodgeService lodgeService;
+
+    private TransportService transportService;
+
+    private DatasetGenerator.Dataset dataset;
+
+    private List<Long> lodgeIds;
+
+    private List<Long> transportIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        packageBookingService = BenchmarkContext.bean(PackageBookingService.class);
+        bookingService = BenchmarkContext.bean(BookingService.class);
+        lodgeService = BenchmarkContext.bean(LodgeService.class);
+        transportService = BenchmarkContext.bean(TransportService.class);
+        dataset = BenchmarkContext.dataset();
+
+        JdbcTemplate jdbcTemplate = BenchmarkContext.bean(JdbcTemplate.class);
+        List<Object[]> lodgeRows = new ArrayList<>();
+        List<Object[]> transportRows = new ArrayList<>();
+        for (int i = 0; i < HOT; i++) {
+            lodgeRows.add(new Object[]{"Package lodge " + i, i + " Harbour Road", 120.0, CAPACITY, CAPACITY});
+            transportRows.add(new Object[]{"Package coach " + i, "BUS", 35.0, CAPACITY, CAPACITY});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO lodges (name, address, price_per_night, total_rooms, available_rooms) "
+                + "VALUES (?, ?, ?, ?, ?)", lodgeRows);
+        jdbcTemplate.batchUpdate("INSERT INTO transport (name, type, price_per_ticket, capacity, available_seats) "
+                + "VALUES (?, ?, ?, ?, ?)", transportRows);
+        lodgeIds = jdbcTemplate.queryForList("SELECT id FROM lodges WHERE name LIKE 'Package lodge %' ORDER BY id", Long.class);
+        transportIds = jdbcTemplate.queryForList("SELECT id FROM transport WHERE name LIKE 'Package coach %' ORDER BY id", Long.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Trips {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public Booking packageBooking(Trips trips) {
+        int n = trips.random.nextInt(1 << 20);
+        return packageBookingService.bookPackage(new PackageBookingRequest(dataset.userId(n), dataset.hotTourId(n), 2,
+                null, lodgeIds.get(n % HOT), 1, 2, transportIds.get(n % HOT), null, null));
+    }
+
+    @Benchmark
+    public Booking threeCalls(Trips trips) {
+        int n = trips.random.nextInt(1 << 20);
+        User user = new User();
+        user.setId(dataset.userId(n));
+        Tour tour = new Tour();
+        tour.setId(dataset.hotTourId(n));
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setTour(tour);
+        booking.setNumberOfPeople(2);
+
+        Booking created = bookingService.createBooking(booking);
+        lodgeService.bookRoom(lodgeIds.get(n % HOT), 1);
+        transportService.bookTransportSeat(transportIds.get(n % HOT), 2);
+        return created;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Booking packageBookingContended(Trips trips) {
+        return packageBooking(trips);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Booking threeCallsContended(Trips trips) {
+        return threeCalls(trips);
+    }
+}
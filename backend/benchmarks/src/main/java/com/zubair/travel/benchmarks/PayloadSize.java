@@ -0,0 +1,16 @@
+package com.zubair.travel.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH metric reporting the size of the last payload produced by a benchmark,
+ * so response sizes land in the JSON results next to the timings.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class PayloadSize {
+
+    public long bytes;
+}
@@ -0,0 +1,93 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.entity.Payment;
+import com.zubair.travel.service.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaymentService.processPayment on a fresh PENDING payment: completes the payment,
+ * confirms the booking and updates the summary row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PaymentServiceBenchmark {
+
+    private PaymentService paymentService;
+
+    private DatasetGenerator.Dataset dataset;
+
+    private SimpleJdbcInsert bookingInsert;
+
+    private SimpleJdbcInsert paymentInsert;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private int sequence;
+
+    private long pendingPaymentId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        paymentService = BenchmarkContext.bean(PaymentService.class);
+        dataset = BenchmarkContext.dataset();
+        jdbcTemplate = BenchmarkContext.bean(JdbcTemplate.class);
+        bookingInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("bookings").usingGeneratedKeyColumns("id");
+        paymentInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("payments").usingGeneratedKeyColumns("id");
+    }
+
+    // Each invocation needs its own PENDING payment; inserted outside the measurement
+    @Setup(Level.Invocation)
+    public void createPendingPayment() {
+        int n = sequence++;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long bookingId = bookingInsert.executeAndReturnKey(Map.of(
+                "user_id", dataset.userId(n),
+                "tour_id", dataset.hotTourId(n),
+                "booking_date", now,
+                "total_passengers", 2,
+                "total_amount", BigDecimal.valueOf(250),
+                "status", "PENDING")).longValue();
+        jdbcTemplate.update("INSERT INTO booking_summaries (booking_id, user_id, booking_date, status, payment_status) "
+                + "VALUES (?, ?, ?, 'PENDING', 'PENDING')", bookingId, dataset.userId(n), now);
+        pendingPaymentId = paymentInsert.executeAndReturnKey(Map.of(
+                "booking_id", bookingId,
+                "amount", BigDecimal.valueOf(250),
+                "payment_date", now,
+                "payment_status", "PENDING",
+                "payment_method", "CARD",
+                "transaction_id", "bench-pay-" + bookingId)).longValue();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public Payment processPayment() {
+        return paymentService.processPayment(pendingPaymentId);
+    }
+}
@@ -0,0 +1,93 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.config.metrics.RequestQueryStats;
+import com.zubair.travel.dto.TourDto;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.service.PricingService;
+import com.zubair.travel.service.TourService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dynamic pricing on the catalog read path: a 200-tour page rendered to DTOs with
+ * list prices only vs. with current prices, plus issuing and verifying a quote token.
+ * The setup runs the priced page inside a RequestQueryStats scope and fails the trial if
+ * pricing issued any SQL statement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PricingBenchmark {
+
+    private static final int PAGE_SIZE = 200;
+
+    private PricingService pricingService;
+
+    private List<Tour> tours;
+
+    private Tour tour;
+
+    private String quoteToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pricingService = BenchmarkContext.bean(PricingService.class);
+        pricingService.refresh();
+        List<Tour> allTours = BenchmarkContext.bean(TourService.class).getAllTours();
+        tours = List.copyOf(allTours.subList(0, Math.min(PAGE_SIZE, allTours.size())));
+        tour = tours.get(0);
+        quoteToken = pricingService.quoteTour(tour, 2).token();
+
+        RequestQueryStats stats = RequestQueryStats.begin();
+        try {
+            TourDto.fromList(tours, pricingService::currentTourPrice);
+            pricingService.unitPriceForBooking(tour, 2, quoteToken);
+            if (stats.getStatements() != 0) {
+                throw new IllegalStateException("Pricing issued SQL on the read path:" + stats.describeStatements());
+            }
+        } finally {
+            RequestQueryStats.end();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public List<TourDto> listPricePage() {
+        return TourDto.fromList(tours);
+    }
+
+    @Benchmark
+    public List<TourDto> currentPricePage() {
+        return TourDto.fromList(tours, pricingService::currentTourPrice);
+    }
+
+    @Benchmark
+    public PricingService.Quote issueQuote() {
+        return pricingService.quoteTour(tour, 2);
+    }
+
+    @Benchmark
+    public long verifyQuote() {
+        return pricingService.unitPriceForBooking(tour, 2, quoteToken).minorUnits();
+    }
+}
@@ -0,0 +1,99 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.config.ratelimit.RateLimitFilter;
+import com.zubair.travel.config.ratelimit.RateLimitPolicy;
+import com.zubair.travel.config.ratelimit.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the rate limit filter: a catalog GET over HTTP with app.rate-limit.enabled off and
+ * on, plus the bucket update alone for 10,000 clients and for one client hit by 4 threads.
+ * The limits are raised so that every request is admitted and does the full update.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RateLimitBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    @Param({"false", "true"})
+    public boolean limited;
+
+    private HttpClient client;
+
+    private URI uri;
+
+    private RateLimiter rateLimiter;
+
+    private RateLimitPolicy policy;
+
+    private String[] clientKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkContext.get("app.rate-limit.enabled=" + limited,
+                "app.rate-limit.api.rate=1000000000", "app.rate-limit.api.burst=1000000");
+        client = HttpClient.newHttpClient();
+        uri = URI.create(BenchmarkContext.baseUrl() + "/api/tours/" + BenchmarkContext.dataset().hotTourId(0));
+        rateLimiter = BenchmarkContext.bean(RateLimiter.class);
+        policy = BenchmarkContext.bean(RateLimitFilter.class).policyFor("GET", "/api/tours/1");
+        clientKeys = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clientKeys[i] = "ip:10.0." + (i >> 8) + "." + (i & 0xFF);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Clients {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int getTour() throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long acquireManyClients(Clients clients) {
+        return rateLimiter.acquire(policy, clientKeys[clients.random.nextInt(CLIENTS)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long acquireOneClient() {
+        return rateLimiter.acquire(policy, clientKeys[0]);
+    }
+}
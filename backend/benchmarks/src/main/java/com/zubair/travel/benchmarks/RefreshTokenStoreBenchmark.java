@@ -0,0 +1,120 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.auth.InMemoryRefreshTokenStore;
+import com.zubair.travel.service.auth.RefreshTokenStore.Rotation;
+import com.zubair.travel.service.auth.RefreshTokenStore.TokenHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InMemoryRefreshTokenStore filled with one family per session: heap per session (printed
+ * once per trial), a million rotations of random sessions and lookups of tokens that were
+ * never issued. Every iteration starts from a freshly filled store, so the rotations can't
+ * run it out of capacity. Pure CPU, so no Spring context is started; the fork gets a heap
+ * large enough for the biggest store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RefreshTokenStoreBenchmark {
+
+    private static final int ROTATIONS = 1_000_000;
+
+    @Param({"1000000", "4000000"})
+    public int sessions;
+
+    private InMemoryRefreshTokenStore store;
+
+    private long now;
+
+    // Token each session currently holds
+    private long[] current;
+
+    private long nextToken;
+
+    private boolean reported;
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        store = null;
+        current = null;
+        long before = usedHeap();
+        // A token and a family per session, plus the tokens rotated in one iteration
+        store = new InMemoryRefreshTokenStore(2L * sessions + ROTATIONS);
+        now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < sessions; i++) {
+            store.register(token(i), i, now + 86_400, now);
+        }
+        if (!reported) {
+            long bytes = usedHeap() - before;
+            System.out.printf("%n%d sessions: %d entries, %.1f bytes per session%n",
+                    sessions, store.size(), (double) bytes / sessions);
+            reported = true;
+        }
+        current = new long[sessions];
+        for (int i = 0; i < sessions; i++) {
+            current[i] = i;
+        }
+        nextToken = sessions;
+    }
+
+    @State(Scope.Thread)
+    public static class Sessions {
+        final SplittableRandom random = new SplittableRandom(7);
+    }
+
+    /**
+     * Time per million rotations; each marks the presented token used and stores its successor.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, batchSize = ROTATIONS)
+    @Measurement(iterations = 5, batchSize = ROTATIONS)
+    public Rotation rotate(Sessions sessions) {
+        int session = sessions.random.nextInt(this.sessions);
+        long next = nextToken++;
+        Rotation rotation = store.rotate(token(current[session]), token(next), session, now + 86_400, now);
+        current[session] = next;
+        return rotation;
+    }
+
+    /**
+     * A forged token id of a live family: one probe for the family, one for the token.
+     */
+    @Benchmark
+    @Threads(4)
+    public Rotation rejectUnknown(Sessions sessions) {
+        int session = sessions.random.nextInt(this.sessions);
+        return store.rotate(token(-1L - session), token(0), session, now + 86_400, now);
+    }
+
+    private static TokenHash token(long id) {
+        return new TokenHash(id * 0x9E3779B97F4A7C15L, id ^ 0x5DEECE66DL);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,163 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.seating.SeatMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat allocation on 64 coaches of 500 seats in rows of 5, 4 threads seating groups of 1 to
+ * 6 people on random coaches. Each coach is locked while a group is seated, standing in for
+ * the transport row lock, and the oldest groups get off again whenever fewer than 50 seats
+ * are left, so the maps stay about 90% full and fragmented:
+ * - allocate: SeatMap.allocate on a map kept in memory
+ * - allocatePersisted: what TransportService does per booking, the map read from its 63
+ *   stored bytes, allocated in and written back
+ * - naive: a boolean per seat and a linear scan for a free run in a row, then anywhere,
+ *   then the first free seats, the baseline the word-at-a-time search replaces
+ * Pure CPU, so no Spring context is started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SeatMapBenchmark {
+
+    private static final int VEHICLES = 64;
+    private static final int SEATS = 500;
+    private static final int SEATS_PER_ROW = 5;
+    private static final int LOW_WATER = 50;
+
+    // Mostly couples and small families
+    private static final int[] GROUP_SIZES = {1, 1, 2, 2, 2, 2, 3, 3, 4, 4, 5, 6};
+
+    private Vehicle[] vehicles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        vehicles = new Vehicle[VEHICLES];
+        for (int i = 0; i < VEHICLES; i++) {
+            vehicles[i] = new Vehicle();
+        }
+    }
+
+    static final class Vehicle {
+        final SeatMap seatMap = new SeatMap(SEATS, SEATS_PER_ROW);
+        byte[] stored = seatMap.toBytes();
+        final boolean[] naive = new boolean[SEATS];
+        int naiveAvailable = SEATS;
+        final ArrayDeque<int[]> groups = new ArrayDeque<>();
+    }
+
+    @State(Scope.Thread)
+    public static class Groups {
+        final SplittableRandom random = new SplittableRandom();
+
+        Vehicle vehicle(Vehicle[] vehicles) {
+            return vehicles[random.nextInt(VEHICLES)];
+        }
+
+        int size() {
+            return GROUP_SIZES[random.nextInt(GROUP_SIZES.length)];
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int[] allocate(Groups groups) {
+        Vehicle vehicle = groups.vehicle(vehicles);
+        int size = groups.size();
+        synchronized (vehicle) {
+            while (vehicle.seatMap.available() < LOW_WATER) {
+                vehicle.seatMap.release(vehicle.groups.poll());
+            }
+            int[] seats = vehicle.seatMap.allocate(size);
+            vehicle.groups.add(seats);
+            return seats;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int[] allocatePersisted(Groups groups) {
+        Vehicle vehicle = groups.vehicle(vehicles);
+        int size = groups.size();
+        synchronized (vehicle) {
+            SeatMap seatMap = SeatMap.fromBytes(vehicle.stored, SEATS, SEATS_PER_ROW);
+            while (seatMap.available() < LOW_WATER) {
+                seatMap.release(vehicle.groups.poll());
+            }
+            int[] seats = seatMap.allocate(size);
+            vehicle.groups.add(seats);
+            vehicle.stored = seatMap.toBytes();
+            return seats;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int[] naive(Groups groups) {
+        Vehicle vehicle = groups.vehicle(vehicles);
+        int size = groups.size();
+        synchronized (vehicle) {
+            while (vehicle.naiveAvailable < LOW_WATER) {
+                int[] group = vehicle.groups.poll();
+                for (int seat : group) {
+                    vehicle.naive[seat - 1] = false;
+                }
+                vehicle.naiveAvailable += group.length;
+            }
+            int[] seats = naiveAllocate(vehicle.naive, size);
+            vehicle.naiveAvailable -= size;
+            vehicle.groups.add(seats);
+            return seats;
+        }
+    }
+
+    private static int[] naiveAllocate(boolean[] taken, int count) {
+        int start = -1;
+        for (int seat = 0; seat + count <= taken.length && start < 0; seat++) {
+            if (seat / SEATS_PER_ROW == (seat + count - 1) / SEATS_PER_ROW && free(taken, seat, count)) {
+                start = seat;
+            }
+        }
+        for (int seat = 0; seat + count <= taken.length && start < 0; seat++) {
+            if (free(taken, seat, count)) {
+                start = seat;
+            }
+        }
+        int[] seats = new int[count];
+        int n = 0;
+        for (int seat = Math.max(start, 0); n < count; seat++) {
+            if (!taken[seat]) {
+                taken[seat] = true;
+                seats[n++] = seat + 1;
+            }
+        }
+        return seats;
+    }
+
+    private static boolean free(boolean[] taken, int from, int count) {
+        for (int seat = from; seat < from + count; seat++) {
+            if (taken[seat]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.config.security.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests through the security filter chain over HTTP, with the JWT fast path for preflights
+ * and public GETs (app.security.jwt.skip-public-requests) off and on:
+ * - a CORS preflight, answered by the CORS filter
+ * - a public catalog GET, anonymous and from a logged-in client sending its token
+ * - an authenticated GET
+ * The controller work is the same in both settings, so the difference is the chain's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SecurityFilterChainBenchmark {
+
+    @Param({"false", "true"})
+    public boolean skipPublicRequests;
+
+    private HttpClient client;
+
+    private HttpRequest preflight;
+
+    private HttpRequest publicGet;
+
+    private HttpRequest publicGetWithToken;
+
+    private HttpRequest authenticatedGet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkContext.get("app.security.jwt.skip-public-requests=" + skipPublicRequests);
+        DatasetGenerator.Dataset dataset = BenchmarkContext.dataset();
+        String token = BenchmarkContext.bean(JwtUtil.class).generateToken(dataset.username());
+        String baseUrl = BenchmarkContext.baseUrl();
+        URI tour = URI.create(baseUrl + "/api/tours/" + dataset.hotTourId(0));
+
+        client = HttpClient.newHttpClient();
+        preflight = HttpRequest.newBuilder(tour)
+                .method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+                .header("Origin", "http://localhost:3000")
+                .header("Access-Control-Request-Method", "GET")
+                .header("Access-Control-Request-Headers", "Authorization")
+                .build();
+        publicGet = HttpRequest.newBuilder(tour).GET().build();
+        publicGetWithToken = HttpRequest.newBuilder(tour).header("Authorization", "Bearer " + token).GET().build();
+        authenticatedGet = HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/" + dataset.userId(0)))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public int preflight() throws IOException, InterruptedException {
+        return send(preflight);
+    }
+
+    @Benchmark
+    public int publicGet() throws IOException, InterruptedException {
+        return send(publicGet);
+    }
+
+    @Benchmark
+    public int publicGetWithToken() throws IOException, InterruptedException {
+        return send(publicGetWithToken);
+    }
+
+    @Benchmark
+    public int authenticatedGet() throws IOException, InterruptedException {
+        return send(authenticatedGet);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,136 @@
+package com.zubair.travel.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.zubair.travel.dto.BookingDto;
+import com.zubair.travel.dto.TourDto;
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of Tour and Booking lists, as entities and as the wire DTOs,
+ * in each response format the API offers. The mappers are configured like the
+ * Boot-managed ones (JavaTimeModule, ISO dates, NON_NULL) without starting a context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+
+    private List<Tour> tours;
+
+    private List<Booking> bookings;
+
+    private List<TourDto> tourDtos;
+
+    private List<BookingDto> bookingDtos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper = switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            default -> builder.build();
+        };
+
+        Random random = new Random(42);
+        tours = new ArrayList<>(size);
+        bookings = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Tour tour = new Tour();
+            tour.setId((long) i);
+            tour.setName("Tour " + i);
+            tour.setDescription("A guided day tour through the old town and the river valley, number " + i);
+            tour.setFromLocation("City " + random.nextInt(200));
+            tour.setToLocation("City " + random.nextInt(200));
+            tour.setDate(LocalDate.now().plusDays(random.nextInt(365)));
+            tour.setPrice(50.0 + random.nextInt(2_000));
+            tour.setAvailableSeats(random.nextInt(40));
+            tour.setGuide("Guide " + random.nextInt(100));
+            tours.add(tour);
+
+            User user = new User();
+            user.setId((long) random.nextInt(1_000));
+            user.setUsername("bench" + user.getId());
+            user.setEmail("bench" + user.getId() + "@example.com");
+            user.setRole("USER");
+            user.setCreatedAt(LocalDateTime.now());
+
+            Booking booking = new Booking();
+            booking.setId((long) i);
+            booking.setUser(user);
+            booking.setTour(tour);
+            booking.setBookingDate(LocalDateTime.now().minusMinutes(random.nextInt(500_000)));
+            booking.setTotalPassengers(1 + random.nextInt(4));
+            booking.setTotalAmount(BigDecimal.valueOf(100 + random.nextInt(5_000)));
+            booking.setStatus("CONFIRMED");
+            bookings.add(booking);
+        }
+        tourDtos = TourDto.fromList(tours);
+        bookingDtos = BookingDto.fromList(bookings);
+    }
+
+    @Benchmark
+    public byte[] tourEntities(PayloadSize payload) throws JsonProcessingException {
+        return measure(payload, tours);
+    }
+
+    @Benchmark
+    public byte[] tourDtos(PayloadSize payload) throws JsonProcessingException {
+        return measure(payload, tourDtos);
+    }
+
+    @Benchmark
+    public byte[] bookingEntities(PayloadSize payload) throws JsonProcessingException {
+        return measure(payload, bookings);
+    }
+
+    @Benchmark
+    public byte[] bookingDtos(PayloadSize payload) throws JsonProcessingException {
+        return measure(payload, bookingDtos);
+    }
+
+    private byte[] measure(PayloadSize payload, Object body) throws JsonProcessingException {
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        payload.bytes = bytes.length;
+        return bytes;
+    }
+}
@@ -0,0 +1,60 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.service.TourService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking throughput of a single very hot tour with 16 concurrent threads, by inventory
+ * shard count. 0 is the unsharded tours row every booking serializes on; throughput should
+ * grow with the shard count until the threads stop colliding on shard rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShardedInventoryBenchmark {
+
+    @Param({"0", "1", "4", "16"})
+    public int shards;
+
+    private TourService tourService;
+
+    private Long tourId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tourService = BenchmarkContext.bean(TourService.class);
+        tourId = BenchmarkContext.dataset().hotTourId(0);
+        tourService.setInventoryShards(tourId, shards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public Tour bookAndReleaseSeat() {
+        tourService.bookSeat(tourId, 1);
+        return tourService.releaseSeat(tourId, 1);
+    }
+}
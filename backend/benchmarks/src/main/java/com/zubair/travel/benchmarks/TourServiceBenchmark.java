@@ -0,0 +1,60 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.service.TourService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat inventory paths of TourService. bookSeat is paired with releaseSeat so the hot
+ * tours keep a constant seat count across iterations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TourServiceBenchmark {
+
+    private TourService tourService;
+
+    private DatasetGenerator.Dataset dataset;
+
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tourService = BenchmarkContext.bean(TourService.class);
+        dataset = BenchmarkContext.dataset();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public Tour bookAndReleaseSeat() {
+        Long tourId = dataset.hotTourId(sequence++);
+        tourService.bookSeat(tourId, 1);
+        return tourService.releaseSeat(tourId, 1);
+    }
+
+    @Benchmark
+    public boolean isTourAvailable() {
+        return tourService.isTourAvailable(dataset.hotTourId(sequence++), 2);
+    }
+}
@@ -0,0 +1,137 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.service.route.TransportRoutes;
+import com.zubair.travel.service.route.TransportRoutes.Entry;
+import com.zubair.travel.service.route.TransportRoutes.Fare;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransportRoutes with 100,000 transports between 300 locations. Routes are drawn so that a few
+ * city pairs carry most of the transports, and queries hit the busy pairs most, like searches do:
+ * - route: every transport of a route, cheapest first
+ * - routeFiltered: those with 2 seats left costing at most 150
+ * - costRange: transports of any route costing between two prices 10 apart (about 1% of them)
+ * - scan: the filtered route query as a pass over all transports, the baseline the index replaces
+ * - updateSeats: the write every booking makes; reprice: an admin changing a cost
+ * - contended: route on 4 threads while updateSeats runs on another 4
+ * Pure CPU, so no Spring context is started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransportRouteBenchmark {
+
+    private static final int TRANSPORTS = 100_000;
+
+    private static final int LOCATIONS = 300;
+
+    private TransportRoutes routes;
+
+    private Entry[] entries;
+
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom setup = new SplittableRandom(42);
+        entries = new Entry[TRANSPORTS];
+        for (int id = 0; id < TRANSPORTS; id++) {
+            entries[id] = new Entry(id, location(setup), location(setup), 20 + setup.nextInt(98_000) / 100.0,
+                    setup.nextInt(60));
+        }
+        routes = new TransportRoutes();
+        routes.putAll(List.of(entries));
+    }
+
+    @Benchmark
+    public List<Fare> route() {
+        return routes.route(location(random), location(random), 0, Double.MAX_VALUE, 0, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Fare> routeFiltered() {
+        return routes.route(location(random), location(random), 0, 150, 2, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Fare> costRange() {
+        double minCost = 20 + random.nextInt(970);
+        return routes.all(minCost, minCost + 10, 0, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Fare> scan() {
+        long from = location(random);
+        long to = location(random);
+        List<Fare> fares = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.fromLocationId() == from && entry.toLocationId() == to && entry.cost() <= 150
+                    && entry.availableSeats() >= 2) {
+                fares.add(new Fare(entry.id(), entry.cost(), entry.availableSeats()));
+            }
+        }
+        fares.sort(Comparator.comparingDouble(Fare::cost).thenComparingLong(Fare::transportId));
+        return fares;
+    }
+
+    @Benchmark
+    public boolean updateSeats() {
+        return routes.updateSeats(random.nextInt(TRANSPORTS), random.nextInt(60));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void reprice() {
+        Entry entry = entries[random.nextInt(TRANSPORTS)];
+        routes.put(new Entry(entry.id(), entry.fromLocationId(), entry.toLocationId(),
+                20 + random.nextInt(98_000) / 100.0, entry.availableSeats()));
+    }
+
+    @State(Scope.Thread)
+    public static class Searches {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public List<Fare> contendedRoute(Searches searches) {
+        return routes.route(location(searches.random), location(searches.random), 0, Double.MAX_VALUE, 0, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public boolean contendedUpdateSeats(Searches searches) {
+        return routes.updateSeats(searches.random.nextInt(TRANSPORTS), searches.random.nextInt(60));
+    }
+
+    // Squaring a uniform number makes low location ids, the busy cities, much more likely
+    private static long location(SplittableRandom random) {
+        double u = random.nextDouble();
+        return (long) (u * u * LOCATIONS);
+    }
+}
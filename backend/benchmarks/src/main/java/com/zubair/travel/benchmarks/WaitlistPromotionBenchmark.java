@@ -0,0 +1,87 @@
+package com.zubair.travel.benchmarks;
+
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.service.TourService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a seat release that promotes {@code released} one-seat waitlist entries of a
+ * sold-out hot tour, by promotion batch size. Batch size 1 locks the queue head, reserves
+ * seats and inserts a booking once per entry; larger batches do it once per batch.
+ * Each invocation first queues {@code released} entries and takes the seats away again,
+ * so the tour stays sold out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WaitlistPromotionBenchmark {
+
+    @Param({"1", "50"})
+    public int promotionBatchSize;
+
+    @Param({"1", "10", "100"})
+    public int released;
+
+    private TourService tourService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private DatasetGenerator.Dataset dataset;
+
+    private Long tourId;
+
+    private int nextUser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkContext.get("app.waitlist.promotion-batch-size=" + promotionBatchSize);
+        tourService = BenchmarkContext.bean(TourService.class);
+        jdbcTemplate = BenchmarkContext.bean(JdbcTemplate.class);
+        dataset = BenchmarkContext.dataset();
+        tourId = dataset.hotTourId(0);
+        jdbcTemplate.update("UPDATE tours SET available_seats = 0 WHERE id = ?", tourId);
+    }
+
+    @Setup(Level.Invocation)
+    public void queueEntries() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(released);
+        for (int i = 0; i < released; i++) {
+            rows.add(new Object[]{tourId, dataset.userId(nextUser++ % dataset.userCount()), now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO waitlist_entries (tour_id, user_id, seats, priority, status, created_at) "
+                + "VALUES (?, ?, 1, 0, 'WAITING', ?)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public Tour releaseAndPromote() {
+        return tourService.releaseSeat(tourId, released);
+    }
+}
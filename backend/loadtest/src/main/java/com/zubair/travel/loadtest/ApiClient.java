@@ -0,0 +1,112 @@
+package com.zubair.travel.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Thin JSON client for the booking API. Every call is timed into the LatencyReport under
+ * a caller-chosen endpoint name (e.g. "POST /api/bookings"), so path variables don't split
+ * one endpoint into many histograms. Transport failures come back as status -1.
+ */
+public class ApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+
+    private final URI baseUrl;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LatencyReport report;
+
+    public ApiClient(URI baseUrl, LatencyReport report) {
+        this.baseUrl = baseUrl;
+        this.report = report;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public Response get(String endpoint, String path, String token) {
+        return send(endpoint, request(path, token).GET().build());
+    }
+
+    public Response post(String endpoint, String path, String token, Object body) {
+        return send(endpoint, request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(toJson(body)))
+                .build());
+    }
+
+    public Response put(String endpoint, String path, String token) {
+        return send(endpoint, request(path, token).PUT(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUrl.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Response send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            report.record(endpoint, System.nanoTime() - start, response.statusCode() >= 500);
+            return new Response(response.statusCode(), parse(response.body()));
+        } catch (IOException e) {
+            report.record(endpoint, System.nanoTime() - start, true);
+            return new Response(-1, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Response(-1, null);
+        }
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request body is not serializable", e);
+        }
+    }
+
+    private JsonNode parse(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            // Error pages are not always JSON; the status code is enough for the caller
+            return null;
+        }
+    }
+
+    /**
+     * Status -1 means the request never got a response (connect failure, timeout).
+     */
+    public record Response(int status, JsonNode body) {
+
+        public boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        public boolean isUnknownOutcome() {
+            return status < 0 || status >= 500;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.zubair.travel.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side record of the seats each tour should have lost during the run, used to
+ * check the server for oversold or leaked inventory afterwards.
+ */
+public class InventoryLedger {
+
+    private final Map<Long, Integer> initialSeats = new ConcurrentHashMap<>();
+
+    private final Map<Long, LongAdder> seatsTaken = new ConcurrentHashMap<>();
+
+    private final LongAdder unknownOutcomes = new LongAdder();
+
+    public void registerTour(long tourId, int availableSeats) {
+        initialSeats.put(tourId, availableSeats);
+    }
+
+    public void booked(long tourId, int seats) {
+        seatsTaken.computeIfAbsent(tourId, id -> new LongAdder()).add(seats);
+    }
+
+    public void cancelled(long tourId, int seats) {
+        seatsTaken.computeIfAbsent(tourId, id -> new LongAdder()).add(-seats);
+    }
+
+    // A timeout or 5xx on a write may or may not have committed, so exact matching is off
+    public void unknownOutcome() {
+        unknownOutcomes.increment();
+    }
+
+    public long unknownOutcomes() {
+        return unknownOutcomes.sum();
+    }
+
+    /**
+     * Compares one tour's server-side seat count with the ledger.
+     *
+     * @return a description of the violation, or null if the tour is consistent
+     */
+    public String verify(long tourId, int availableSeatsNow) {
+        int initial = initialSeats.getOrDefault(tourId, 0);
+        long expected = initial - seatsTaken.getOrDefault(tourId, new LongAdder()).sum();
+        if (availableSeatsNow < 0) {
+            return "tour " + tourId + " is oversold: availableSeats=" + availableSeatsNow;
+        }
+        if (expected < 0) {
+            return "tour " + tourId + " is oversold: " + (initial - expected) + " seats sold out of " + initial;
+        }
+        if (unknownOutcomes.sum() == 0 && availableSeatsNow != expected) {
+            return "tour " + tourId + " has availableSeats=" + availableSeatsNow + " but the bookings imply " + expected;
+        }
+        return null;
+    }
+
+    public List<Long> tourIds() {
+        return new ArrayList<>(seatsTaken.keySet());
+    }
+}
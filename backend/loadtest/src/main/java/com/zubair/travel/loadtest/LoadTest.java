@@ -0,0 +1,226 @@
+package com.zubair.travel.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+/**
+ * Headless load generator for the booking API.
+ *
+ * Sessions arrive as a Poisson process at --rate per second (an open model, so a slow
+ * server faces a growing backlog instead of a politely waiting client), each running the
+ * UserSession script. At the end it prints per-endpoint latency percentiles, writes a JSON
+ * report and checks every touched tour for oversold or leaked seats. Exits with 1 if the
+ * inventory check fails. With --login-storm-rate a second Poisson stream of bare logins runs
+ * alongside the sessions, to measure logins/s and the latency the other endpoints keep meanwhile.
+ *
+ * Expects the backend started with the "embedded" profile (mvn spring-boot:run -Pembedded),
+ * whose seeded users loadtest1..N have ids 1..N.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        LatencyReport report = new LatencyReport();
+        ApiClient client = new ApiClient(config.baseUrl(), report);
+        InventoryLedger ledger = new InventoryLedger();
+
+        // The catalog reads below need an authenticated user; the first seeded one does
+        String token = login(client, config);
+        UserSession.Catalog catalog = loadCatalog(client, token, ledger);
+        UserSession.Context context = new UserSession.Context(config, client, catalog,
+                new ZipfSampler(catalog.tourIds().length, config.zipfExponent()), ledger, report,
+                new UserSession.Outcomes());
+
+        System.out.printf("Running %.1f sessions/s for %ds against %s (%d tours, zipf s=%.2f)%n",
+                config.arrivalRate(), config.duration().toSeconds(), config.baseUrl(),
+                catalog.tourIds().length, config.zipfExponent());
+        if (config.loginStormRate() > 0) {
+            System.out.printf("Plus a login storm of %.1f logins/s%n", config.loginStormRate());
+        }
+        double elapsedSeconds = generateLoad(config, context);
+
+        System.out.println();
+        report.print(System.out, elapsedSeconds);
+        if (config.loginStormRate() > 0) {
+            UserSession.Outcomes outcomes = context.outcomes();
+            System.out.printf("Login storm: %.1f successful logins/s, %d throttled (429), %d failed, %d dropped%n",
+                    outcomes.stormLogins.sum() / elapsedSeconds, outcomes.throttledStormLogins.sum(),
+                    outcomes.failedStormLogins.sum(), outcomes.droppedStormLogins.sum());
+        }
+        List<String> violations = verifyInventory(client, login(client, config), ledger);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("config", Map.of(
+                "baseUrl", config.baseUrl().toString(),
+                "arrivalRate", config.arrivalRate(),
+                "durationSeconds", config.duration().toSeconds(),
+                "users", config.users(),
+                "zipfExponent", config.zipfExponent(),
+                "cancelRatio", config.cancelRatio(),
+                "maxConcurrency", config.maxConcurrency(),
+                "loginStormRate", config.loginStormRate(),
+                "seed", config.seed()));
+        json.put("elapsedSeconds", elapsedSeconds);
+        json.put("outcomes", context.outcomes().toMap());
+        json.put("endpoints", report.toMap(elapsedSeconds));
+        json.put("unknownWriteOutcomes", ledger.unknownOutcomes());
+        json.put("inventoryViolations", violations);
+        LatencyReport.writeJson(config.reportFile(), json);
+
+        System.out.println();
+        System.out.println("Outcomes: " + context.outcomes().toMap());
+        System.out.println("Report written to " + config.reportFile());
+        if (!violations.isEmpty()) {
+            violations.forEach(violation -> System.out.println("INVENTORY VIOLATION: " + violation));
+            System.exit(1);
+        }
+        System.out.println("Inventory check passed for " + ledger.tourIds().size() + " tours");
+    }
+
+    // Catalog discovery
+
+    private static String login(ApiClient client, LoadTestConfig config) {
+        ApiClient.Response response = client.post("POST /api/auth/login", "/api/auth/login", null,
+                Map.of("username", "loadtest1", "password", config.password()));
+        if (!response.isSuccess() || response.body() == null) {
+            throw new IllegalStateException("Could not log in as loadtest1, status " + response.status());
+        }
+        return response.body().path("accessToken").asText();
+    }
+
+    private static UserSession.Catalog loadCatalog(ApiClient client, String token, InventoryLedger ledger) {
+        ApiClient.Response response = client.get("GET /api/tours", "/api/tours", token);
+        if (!response.isSuccess() || response.body() == null || !response.body().isArray()) {
+            throw new IllegalStateException("Could not load the tour catalog, status " + response.status());
+        }
+
+        List<JsonNode> tours = new ArrayList<>();
+        response.body().forEach(tours::add);
+        if (tours.isEmpty()) {
+            throw new IllegalStateException("The tour catalog is empty; start the backend with the embedded profile");
+        }
+        // Popularity rank follows the id order, so the hot set is stable between runs
+        tours.sort(Comparator.comparingLong(tour -> tour.path("id").asLong()));
+
+        long[] tourIds = new long[tours.size()];
+        double[] tourPrices = new double[tours.size()];
+        for (int i = 0; i < tours.size(); i++) {
+            JsonNode tour = tours.get(i);
+            tourIds[i] = tour.path("id").asLong();
+            tourPrices[i] = tour.path("price").asDouble();
+            ledger.registerTour(tourIds[i], tour.path("availableSeats").asInt());
+        }
+        return new UserSession.Catalog(tourIds, tourPrices);
+    }
+
+    // Load generation
+
+    private static double generateLoad(LoadTestConfig config, UserSession.Context context) throws InterruptedException {
+        ThreadPoolExecutor workers = workerPool("loadtest", config.maxConcurrency());
+        SplittableRandom arrivals = new SplittableRandom(config.seed());
+        long start = System.nanoTime();
+        long end = start + config.duration().toNanos();
+
+        // The storm has its own pool, so saturated sessions don't throttle it and vice versa
+        ThreadPoolExecutor stormWorkers = null;
+        Thread storm = null;
+        if (config.loginStormRate() > 0) {
+            ThreadPoolExecutor pool = workerPool("login-storm", config.maxConcurrency());
+            SplittableRandom stormArrivals = arrivals.split();
+            storm = new Thread(() -> arrive(config.loginStormRate(), stormArrivals, start, end, pool,
+                    (random, intended) -> new LoginStorm(context, random),
+                    context.outcomes().droppedStormLogins), "login-storm");
+            storm.setDaemon(true);
+            storm.start();
+            stormWorkers = pool;
+        }
+
+        arrive(config.arrivalRate(), arrivals, start, end, workers,
+                (random, intended) -> new UserSession(context, random, intended),
+                context.outcomes().droppedArrivals);
+
+        if (storm != null) {
+            storm.join();
+            awaitTermination(stormWorkers);
+        }
+        awaitTermination(workers);
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    // Starts a task per Poisson arrival at the given rate between start and end
+    private static void arrive(double rate, SplittableRandom arrivals, long start, long end, ThreadPoolExecutor workers,
+                               BiFunction<SplittableRandom, Long, Runnable> task, LongAdder dropped) {
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = start;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            try {
+                workers.execute(task.apply(arrivals.split(), next));
+            } catch (RejectedExecutionException e) {
+                dropped.increment();
+            }
+            // Exponential inter-arrival times give Poisson arrivals
+            next += (long) (-Math.log(1 - arrivals.nextDouble()) * meanGapNanos);
+        }
+    }
+
+    private static ThreadPoolExecutor workerPool(String name, int size) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void awaitTermination(ThreadPoolExecutor workers) throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(2, TimeUnit.MINUTES)) {
+            System.out.println("Some sessions were still running after 2 minutes and were abandoned");
+            workers.shutdownNow();
+        }
+    }
+
+    // Correctness
+
+    private static List<String> verifyInventory(ApiClient client, String token, InventoryLedger ledger) {
+        List<String> violations = new ArrayList<>();
+        for (long tourId : ledger.tourIds()) {
+            ApiClient.Response response = client.get("verify GET /api/tours/{id}", "/api/tours/" + tourId, token);
+            if (!response.isSuccess() || response.body() == null) {
+                violations.add("tour " + tourId + " could not be read back, status " + response.status());
+                continue;
+            }
+            String violation = ledger.verify(tourId, response.body().path("availableSeats").asInt());
+            if (violation != null) {
+                violations.add(violation);
+            }
+        }
+        if (ledger.unknownOutcomes() > 0) {
+            System.out.println(ledger.unknownOutcomes() + " writes had an unknown outcome (timeout or 5xx); "
+                    + "only checking for negative inventory");
+        }
+        return violations;
+    }
+}
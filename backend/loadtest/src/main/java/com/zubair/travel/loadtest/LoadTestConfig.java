@@ -0,0 +1,83 @@
+package com.zubair.travel.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load generator, all given as --name=value.
+ *
+ * @param baseUrl        API under test
+ * @param arrivalRate    new user sessions per second (open model, Poisson arrivals)
+ * @param duration       how long sessions keep arriving
+ * @param users          size of the seeded user population (loadtest1..N with ids 1..N)
+ * @param password       shared password of the seeded users
+ * @param zipfExponent   skew of tour popularity; 0 is uniform, ~1 is a typical hot-set
+ * @param cancelRatio    share of paid bookings that are cancelled again
+ * @param maxConcurrency upper bound of in-flight sessions; arrivals beyond it are dropped and counted
+ * @param loginStormRate extra bare logins per second on top of the sessions (0 = none), to see
+ *                       how hashing load affects the other endpoints
+ * @param reportFile     where the JSON report is written
+ * @param seed           random seed for a reproducible traffic mix
+ */
+public record LoadTestConfig(
+        URI baseUrl,
+        double arrivalRate,
+        Duration duration,
+        int users,
+        String password,
+        double zipfExponent,
+        double cancelRatio,
+        int maxConcurrency,
+        double loginStormRate,
+        String reportFile,
+        long seed) {
+
+    public static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestConfig config = new LoadTestConfig(
+                URI.create(options.getOrDefault("base-url", "http://localhost:8080")),
+                Double.parseDouble(options.getOrDefault("rate", "20")),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60"))),
+                Integer.parseInt(options.getOrDefault("users", "1000")),
+                options.getOrDefault("password", "loadtest-password"),
+                Double.parseDouble(options.getOrDefault("zipf", "1.1")),
+                Double.parseDouble(options.getOrDefault("cancel-ratio", "0.1")),
+                Integer.parseInt(options.getOrDefault("max-concurrency", "256")),
+                Double.parseDouble(options.getOrDefault("login-storm-rate", "0")),
+                options.getOrDefault("report", "target/loadtest-report.json"),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+        config.validate();
+        return config;
+    }
+
+    private void validate() {
+        if (arrivalRate <= 0) {
+            throw new IllegalArgumentException("--rate must be positive");
+        }
+        if (users <= 0) {
+            throw new IllegalArgumentException("--users must be positive");
+        }
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("--zipf must not be negative");
+        }
+        if (cancelRatio < 0 || cancelRatio > 1) {
+            throw new IllegalArgumentException("--cancel-ratio must be between 0 and 1");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("--max-concurrency must be positive");
+        }
+        if (loginStormRate < 0) {
+            throw new IllegalArgumentException("--login-storm-rate must not be negative");
+        }
+    }
+}
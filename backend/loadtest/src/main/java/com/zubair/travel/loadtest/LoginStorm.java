@@ -0,0 +1,37 @@
+package com.zubair.travel.loadtest;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * One bare login of the --login-storm-rate stream, e.g. a campaign mail sending everyone to
+ * the sign-in page at once. Timed under its own endpoint name, so the report separates it from
+ * the logins of regular sessions; 429 answers (hashing pool saturated) are counted as throttled.
+ */
+public class LoginStorm implements Runnable {
+
+    static final String ENDPOINT = "POST /api/auth/login (storm)";
+
+    private final UserSession.Context context;
+
+    private final SplittableRandom random;
+
+    public LoginStorm(UserSession.Context context, SplittableRandom random) {
+        this.context = context;
+        this.random = random;
+    }
+
+    @Override
+    public void run() {
+        long userId = 1 + random.nextInt(context.config().users());
+        ApiClient.Response login = context.client().post(ENDPOINT, "/api/auth/login", null,
+                Map.of("username", "loadtest" + userId, "password", context.config().password()));
+        if (login.isSuccess()) {
+            context.outcomes().stormLogins.increment();
+        } else if (login.status() == 429) {
+            context.outcomes().throttledStormLogins.increment();
+        } else {
+            context.outcomes().failedStormLogins.increment();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.zubair.travel.loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One simulated visitor: logs in, browses the catalog, books a tour picked from the
+ * Zipf-skewed popularity distribution, pays for it and cancels a fraction of bookings.
+ */
+public class UserSession implements Runnable {
+
+    /**
+     * Shared, read-only state of a run plus the outcome counters all sessions add to.
+     */
+    public record Context(LoadTestConfig config, ApiClient client, Catalog catalog, ZipfSampler tourPopularity,
+                          InventoryLedger ledger, LatencyReport report, Outcomes outcomes) {
+    }
+
+    /**
+     * Tour ids ordered by popularity rank, with their prices for the booking amount.
+     */
+    public record Catalog(long[] tourIds, double[] tourPrices) {
+    }
+
+    public static final class Outcomes {
+        final LongAdder sessions = new LongAdder();
+        final LongAdder loginFailures = new LongAdder();
+        final LongAdder bookings = new LongAdder();
+        final LongAdder rejectedBookings = new LongAdder();
+        final LongAdder payments = new LongAdder();
+        final LongAdder failedPayments = new LongAdder();
+        final LongAdder cancellations = new LongAdder();
+        final LongAdder droppedArrivals = new LongAdder();
+        final LongAdder stormLogins = new LongAdder();
+        final LongAdder throttledStormLogins = new LongAdder();
+        final LongAdder failedStormLogins = new LongAdder();
+        final LongAdder droppedStormLogins = new LongAdder();
+
+        Map<String, Long> toMap() {
+            Map<String, Long> map = new LinkedHashMap<>();
+            map.put("sessions", sessions.sum());
+            map.put("loginFailures", loginFailures.sum());
+            map.put("bookings", bookings.sum());
+            map.put("rejectedBookings", rejectedBookings.sum());
+            map.put("payments", payments.sum());
+            map.put("failedPayments", failedPayments.sum());
+            map.put("cancellations", cancellations.sum());
+            map.put("droppedArrivals", droppedArrivals.sum());
+            map.put("stormLogins", stormLogins.sum());
+            map.put("throttledStormLogins", throttledStormLogins.sum());
+            map.put("failedStormLogins", failedStormLogins.sum());
+            map.put("droppedStormLogins", droppedStormLogins.sum());
+            return map;
+        }
+    }
+
+    private final Context context;
+
+    private final SplittableRandom random;
+
+    private final long intendedStartNanos;
+
+    public UserSession(Context context, SplittableRandom random, long intendedStartNanos) {
+        this.context = context;
+        this.random = random;
+        this.intendedStartNanos = intendedStartNanos;
+    }
+
+    @Override
+    public void run() {
+        try {
+            runScript();
+        } finally {
+            // Measured from the scheduled arrival, so queueing delay in a saturated run is not hidden
+            context.report().record("session (end-to-end)", System.nanoTime() - intendedStartNanos, false);
+            context.outcomes().sessions.increment();
+        }
+    }
+
+    private void runScript() {
+        ApiClient client = context.client();
+        Outcomes outcomes = context.outcomes();
+
+        // Login
+        long userId = 1 + random.nextInt(context.config().users());
+        ApiClient.Response login = client.post("POST /api/auth/login", "/api/auth/login", null,
+                Map.of("username", "loadtest" + userId, "password", context.config().password()));
+        if (!login.isSuccess() || login.body() == null) {
+            outcomes.loginFailures.increment();
+            return;
+        }
+        String token = login.body().path("accessToken").asText();
+
+        // Browse
+        client.get("GET /api/tours/available", "/api/tours/available", token);
+        client.get("GET /api/lodges/available", "/api/lodges/available", token);
+        int rank = context.tourPopularity().sample(random);
+        long tourId = context.catalog().tourIds()[rank];
+        client.get("GET /api/tours/{id}", "/api/tours/" + tourId, token);
+
+        // Book
+        int people = 1 + random.nextInt(4);
+        BigDecimal amount = BigDecimal.valueOf(context.catalog().tourPrices()[rank])
+                .multiply(BigDecimal.valueOf(people))
+                .setScale(2, RoundingMode.HALF_EVEN);
+        ApiClient.Response booking = client.post("POST /api/bookings", "/api/bookings", token, Map.of(
+                "user", Map.of("id", userId),
+                "tour", Map.of("id", tourId),
+                "numberOfPeople", people,
+                "totalAmount", amount));
+        if (booking.isUnknownOutcome()) {
+            context.ledger().unknownOutcome();
+            return;
+        }
+        if (!booking.isSuccess() || booking.body() == null) {
+            outcomes.rejectedBookings.increment();
+            return;
+        }
+        outcomes.bookings.increment();
+        context.ledger().booked(tourId, people);
+        long bookingId = booking.body().path("id").asLong();
+        // The server charges the current price, which can differ from the list price sent above
+        BigDecimal total = booking.body().path("totalAmount").isNumber()
+                ? booking.body().path("totalAmount").decimalValue().setScale(2, RoundingMode.HALF_EVEN)
+                : amount;
+
+        // Pay
+        ApiClient.Response payment = client.post("POST /api/payments", "/api/payments", token, Map.of(
+                "booking", Map.of("id", bookingId),
+                "amount", total,
+                "paymentMethod", "CARD"));
+        if (payment.isSuccess()) {
+            outcomes.payments.increment();
+        } else {
+            outcomes.failedPayments.increment();
+        }
+
+        // Cancel a fraction
+        if (random.nextDouble() < context.config().cancelRatio()) {
+            ApiClient.Response cancel = client.put("PUT /api/bookings/{id}/cancel",
+                    "/api/bookings/" + bookingId + "/cancel", token);
+            if (cancel.isSuccess()) {
+                outcomes.cancellations.increment();
+                context.ledger().cancelled(tourId, people);
+            } else if (cancel.isUnknownOutcome()) {
+                context.ledger().unknownOutcome();
+            }
+        }
+    }
+}
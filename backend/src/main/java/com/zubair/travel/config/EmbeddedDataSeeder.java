@@ -0,0 +1,94 @@
+package com.zubair.travel.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds the in-memory database of the "embedded" profile with users, upcoming tours and
+ * lodges, so the API can be load tested without any external setup. Runs before the
+ * application reports ready and only when the users table is still empty.
+ */
+@Component
+@Profile("embedded")
+public class EmbeddedDataSeeder implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedDataSeeder.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${app.embedded.seed.users:1000}")
+    private int users;
+
+    @Value("${app.embedded.seed.password:loadtest-password}")
+    private String password;
+
+    @Value("${app.embedded.seed.tours:500}")
+    private int tours;
+
+    @Value("${app.embedded.seed.seats-per-tour:40}")
+    private int seatsPerTour;
+
+    @Value("${app.embedded.seed.lodges:200}")
+    private int lodges;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        if (existing != null && existing > 0) {
+            return;
+        }
+
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        // One hash shared by every user, BCrypt would otherwise dominate startup
+        String passwordHash = passwordEncoder.encode(password);
+
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            userRows.add(new Object[]{"loadtest" + i, "loadtest" + i + "@example.com", passwordHash, "USER",
+                    Timestamp.valueOf(LocalDateTime.now())});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, email, password, role, created_at) VALUES (?, ?, ?, ?, ?)",
+                userRows);
+
+        List<Object[]> tourRows = new ArrayList<>(tours);
+        for (int i = 1; i <= tours; i++) {
+            tourRows.add(new Object[]{"Tour " + i, "Guided tour number " + i, "City " + random.nextInt(100),
+                    "City " + random.nextInt(100), Date.valueOf(today.plusDays(7 + random.nextInt(180))),
+                    50.0 + random.nextInt(2_000), seatsPerTour, seatsPerTour, "Guide " + random.nextInt(50)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tours (name, description, from_location, to_location, date, price, "
+                + "available_seats, total_seats, guide) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", tourRows);
+
+        List<Object[]> lodgeRows = new ArrayList<>(lodges);
+        for (int i = 1; i <= lodges; i++) {
+            int rooms = 10 + random.nextInt(90);
+            lodgeRows.add(new Object[]{"Lodge " + i, i + " Main Street", 20.0 + random.nextInt(800), "Lodge number " + i,
+                    rooms, rooms});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO lodges (name, address, price_per_night, description, total_rooms, "
+                + "available_rooms) VALUES (?, ?, ?, ?, ?, ?)", lodgeRows);
+
+        logger.info("Seeded embedded database with " + users + " users, " + tours + " tours and " + lodges + " lodges");
+    }
+}
@@ -1,8 +1,14 @@
 package com.zubair.travel.config;
 
+import com.zubair.travel.config.ratelimit.IpRateLimitFilter;
+import com.zubair.travel.config.ratelimit.RateLimitFilter;
+import com.zubair.travel.config.security.BoundedPasswordEncoder;
+import com.zubair.travel.config.security.RouteAuthorizationTable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -12,14 +18,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
-import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
@@ -32,6 +36,7 @@ import java.util.List;
  * - Authorization rules
  * - Password encoding
  * - Session management (stateless)
+ * - Rate limiting per client
  */
 @Configuration
 @EnableWebSecurity
@@ -41,9 +46,24 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthFilter;
 
+    @Autowired
+    private IpRateLimitFilter ipRateLimitFilter;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private RouteAuthorizationTable routeAuthorizationTable;
+
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private UserDetailsPasswordService userDetailsPasswordService;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
     /**
      * Configure security filter chain with JWT authentication
      * Sets up authorization rules, CORS, CSRF, and session management
@@ -53,7 +73,28 @@ public class SecurityConfig {
         http
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
-            .authorizeHttpRequests(auth -> auth
+            // One table lookup per request instead of a chain of Ant matchers
+            .authorizeHttpRequests(auth -> auth.anyRequest().access(routeAuthorizationTable))
+            .sessionManagement(session -> session
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            )
+            .authenticationProvider(authenticationProvider())
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // Per address before the JWT filter, so floods of bad tokens are refused unparsed
+            .addFilterBefore(ipRateLimitFilter, JwtAuthenticationFilter.class)
+            // After the JWT filter so authenticated clients are limited by their subject
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
+
+        return http.build();
+    }
+
+    /**
+     * Authorization rules, first match wins. Static, since the JWT filter injected above uses
+     * the table to skip public requests
+     */
+    @Bean
+    public static RouteAuthorizationTable routeAuthorizationTable() {
+        return RouteAuthorizationTable.builder()
                 // Public endpoints
                 .requestMatchers(
                     "/api/auth/**",
@@ -61,16 +102,25 @@ public class SecurityConfig {
                     "/v3/api-docs/**",
                     "/swagger-ui/**",
                     "/swagger-ui.html",
-                    "/actuator/health"
+                    "/actuator/health",
+                    // Only reachable on the internal management port
+                    "/actuator/prometheus"
                 ).permitAll()
-                
+
+                // Pre-rendered catalog snapshots and live availability, browsable before login
+                .requestMatchers(HttpMethod.GET,
+                    "/api/tours/available",
+                    "/api/lodges/available",
+                    "/api/availability/**"
+                ).permitAll()
+
                 // Admin-only endpoints
                 .requestMatchers(
                     "/api/admin/**",
                     "/api/users/all",
                     "/actuator/**"
                 ).hasRole("ADMIN")
-                
+
                 // User and Admin endpoints
                 .requestMatchers(
                     "/api/bookings/**",
@@ -78,17 +128,35 @@ public class SecurityConfig {
                     "/api/hotels/**",
                     "/api/packages/**"
                 ).hasAnyRole("USER", "ADMIN")
-                
+
                 // All other requests need authentication
-                .anyRequest().authenticated()
-            )
-            .sessionManagement(session -> session
-                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
-            )
-            .authenticationProvider(authenticationProvider())
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .build();
+    }
 
-        return http.build();
+    /**
+     * Keep the filters below out of the servlet filter chain. As beans they would otherwise run
+     * there first, ahead of CORS and the security chain (so even preflights parsed the JWT),
+     * and then be skipped in the security chain
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthFilterRegistration(JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<IpRateLimitFilter> ipRateLimitFilterRegistration(IpRateLimitFilter filter) {
+        FilterRegistrationBean<IpRateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
     }
 
     /**
@@ -127,19 +195,20 @@ public class SecurityConfig {
         // Cache preflight response for 1 hour
         configuration.setMaxAge(3600L);
         
-        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", configuration);
-        return source;
+        // Same configuration for every path, so no per-request pattern matching
+        return request -> configuration;
     }
 
     /**
      * Configure authentication provider with UserDetailsService and password encoder
+     * Hashes with an outdated BCrypt cost are re-hashed on successful login
      */
     @Bean
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -151,13 +220,4 @@ public class SecurityConfig {
             throws Exception {
         return config.getAuthenticationManager();
     }
-
-    /**
-     * Configure password encoder using BCrypt
-     * BCrypt automatically handles salting and is considered secure
-     */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
@@ -0,0 +1,46 @@
+package com.zubair.travel.config.metrics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource with datasource-proxy so statements, fetched rows and
+ * database time are attributed to the current request (see RequestQueryStats). Result sets
+ * are proxied too, which is what makes row counting possible. The proxy unwraps to the
+ * Hikari pool, so the Actuator pool gauges (hikaricp.connections.*) keep working.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.metrics.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcMetricsConfig {
+
+    // Static so the post-processor doesn't force early creation of this configuration
+    @Bean
+    public static BeanPostProcessor queryStatsDataSourcePostProcessor(
+            @Value("${app.query-log.sample-rate:0}") double logSampleRate,
+            @Value("${app.query-budget.slow-statement-ms:100}") long slowStatementMs) {
+        RequestQueryStats.setLogSampleRate(logSampleRate);
+        RequestQueryStats.setSlowStatementThresholdMs(slowStatementMs);
+        RequestQueryStats.Listener listener = new RequestQueryStats.Listener();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener)
+                            .methodListener(listener)
+                            .proxyResultSet()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
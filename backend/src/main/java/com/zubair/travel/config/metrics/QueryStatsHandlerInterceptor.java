@@ -0,0 +1,22 @@
+package com.zubair.travel.config.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Labels the current request's query stats with the controller method handling it,
+ * e.g. "BookingController.getBookingsByTourId", for the budget log lines.
+ */
+public class QueryStatsHandlerInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null && handler instanceof HandlerMethod handlerMethod) {
+            stats.setHandler(handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,239 @@
+package com.zubair.travel.config.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * JDBC activity of the unit of work currently running on this thread: statements executed,
+ * rows fetched, time spent in the database and the distinct SQL strings with their counts.
+ *
+ * Scopes nest. RequestQueryStatsFilter opens one per HTTP request and tests can open an
+ * outer one around a MockMvc call; when a scope ends its numbers are added to the enclosing
+ * scope. Statements run outside any scope (startup, scheduled jobs) are not attributed.
+ */
+public final class RequestQueryStats {
+
+    private static final Logger sqlLogger = LoggerFactory.getLogger("travel.sql");
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    // Enough to show an N+1 pattern without letting a runaway request hold thousands of strings
+    private static final int MAX_DISTINCT_STATEMENTS = 50;
+
+    private static volatile double logSampleRate;
+
+    private static volatile long slowStatementNanos = Long.MAX_VALUE;
+
+    private final RequestQueryStats parent;
+
+    private String handler;
+
+    private int statements;
+
+    private long rows;
+
+    private long dbNanos;
+
+    private long queryStart;
+
+    private final Map<String, StatementStats> statementStats = new LinkedHashMap<>();
+
+    private RequestQueryStats(RequestQueryStats parent) {
+        this.parent = parent;
+    }
+
+    public static RequestQueryStats begin() {
+        RequestQueryStats stats = new RequestQueryStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Ends the innermost scope and folds its numbers into the enclosing one, if any.
+     */
+    public static void end() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats == null) {
+            return;
+        }
+        if (stats.parent != null) {
+            stats.parent.absorb(stats);
+            CURRENT.set(stats.parent);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Share of statements (0..1) logged to the "travel.sql" logger, replacing show-sql.
+     */
+    public static void setLogSampleRate(double rate) {
+        logSampleRate = rate;
+    }
+
+    /**
+     * Statements slower than this are always logged to "travel.sql", whatever the sample rate.
+     */
+    public static void setSlowStatementThresholdMs(long thresholdMs) {
+        slowStatementNanos = thresholdMs > 0 ? thresholdMs * 1_000_000 : Long.MAX_VALUE;
+    }
+
+    // Accessors
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    public Map<String, StatementStats> getStatementStats() {
+        return Collections.unmodifiableMap(statementStats);
+    }
+
+    /**
+     * Distinct statements, most frequent first, one per line, e.g. "12x 3.1ms select ... where tour_id=?".
+     */
+    public String describeStatements() {
+        StringBuilder description = new StringBuilder();
+        statementStats.entrySet().stream()
+                .sorted((a, b) -> Integer.compare(b.getValue().count, a.getValue().count))
+                .forEach(entry -> description.append("\n  ")
+                        .append(entry.getValue().count).append("x ")
+                        .append(String.format("%.1fms ", entry.getValue().nanos / 1_000_000.0))
+                        .append(entry.getKey()));
+        if (statementStats.size() == MAX_DISTINCT_STATEMENTS) {
+            description.append("\n  (further distinct statements not captured)");
+        }
+        return description.toString();
+    }
+
+    // Recording
+
+    private void recordStatement(String sql, long nanos) {
+        statements++;
+        dbNanos += nanos;
+        StatementStats stats = statementStats.get(sql);
+        if (stats == null && statementStats.size() < MAX_DISTINCT_STATEMENTS) {
+            stats = new StatementStats();
+            statementStats.put(sql, stats);
+        }
+        if (stats != null) {
+            stats.count++;
+            stats.nanos += nanos;
+        }
+    }
+
+    private void absorb(RequestQueryStats child) {
+        statements += child.statements;
+        rows += child.rows;
+        dbNanos += child.dbNanos;
+        if (handler == null) {
+            handler = child.handler;
+        }
+        child.statementStats.forEach((sql, stats) -> {
+            StatementStats target = statementStats.get(sql);
+            if (target == null && statementStats.size() < MAX_DISTINCT_STATEMENTS) {
+                target = new StatementStats();
+                statementStats.put(sql, target);
+            }
+            if (target != null) {
+                target.count += stats.count;
+                target.nanos += stats.nanos;
+            }
+        });
+    }
+
+    public static final class StatementStats {
+        private int count;
+        private long nanos;
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    /**
+     * datasource-proxy listener feeding the stats of the current thread. Rows are counted
+     * from ResultSet.next() calls that returned true.
+     */
+    public static class Listener implements QueryExecutionListener, MethodExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            RequestQueryStats stats = CURRENT.get();
+            if (stats != null) {
+                stats.queryStart = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            RequestQueryStats stats = CURRENT.get();
+            long nanos = stats != null ? System.nanoTime() - stats.queryStart : 0;
+            for (QueryInfo queryInfo : queryInfoList) {
+                if (stats != null) {
+                    stats.recordStatement(queryInfo.getQuery(), nanos / queryInfoList.size());
+                }
+                if (nanos >= slowStatementNanos) {
+                    sqlLogger.warn("slow sql handler={} elapsedMicros={} success={} batch={} statement=\"{}\"",
+                            stats != null ? stats.handler : null, nanos / 1_000, execInfo.isSuccess(),
+                            execInfo.isBatch(), queryInfo.getQuery());
+                } else if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                    sqlLogger.info("sql handler={} elapsedMicros={} success={} batch={} statement=\"{}\"",
+                            stats != null ? stats.handler : null, nanos / 1_000, execInfo.isSuccess(),
+                            execInfo.isBatch(), queryInfo.getQuery());
+                }
+            }
+        }
+
+        @Override
+        public void beforeMethod(MethodExecutionContext executionContext) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext executionContext) {
+            if (executionContext.getTarget() instanceof ResultSet
+                    && "next".equals(executionContext.getMethod().getName())
+                    && Boolean.TRUE.equals(executionContext.getResult())) {
+                RequestQueryStats stats = CURRENT.get();
+                if (stats != null) {
+                    stats.rows++;
+                }
+            }
+        }
+    }
+}
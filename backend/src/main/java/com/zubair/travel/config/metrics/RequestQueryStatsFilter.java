@@ -0,0 +1,137 @@
+package com.zubair.travel.config.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a RequestQueryStats scope per HTTP request and, when the request completes:
+ * - exports statements, rows and DB time per method and URI pattern
+ *   ("http.server.requests.jdbc.statements", ".rows" and ".time")
+ * - checks the query budget (app.query-budget.*) and, if it is exceeded, logs the handler
+ *   and its distinct SQL with counts and counts the violation.
+ * Ordered ahead of Spring Security so the JWT filter's user lookup is included.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.metrics.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestQueryStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger budgetLogger = LoggerFactory.getLogger("travel.sql.budget");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.query-budget.max-statements:20}")
+    private int maxStatements;
+
+    @Value("${app.query-budget.max-rows:1000}")
+    private long maxRows;
+
+    @Value("${app.query-budget.max-db-time-ms:200}")
+    private long maxDbTimeMs;
+
+    private final Map<String, RequestMeters> meters = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestQueryStats stats = RequestQueryStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.end();
+            complete(request, stats);
+        }
+    }
+
+    private void complete(HttpServletRequest request, RequestQueryStats stats) {
+        String method = request.getMethod();
+        String uri = uriPattern(request);
+        RequestMeters requestMeters = meters.computeIfAbsent(method + ' ' + uri, key -> new RequestMeters(method, uri));
+        requestMeters.statements.record(stats.getStatements());
+        requestMeters.rows.record(stats.getRows());
+        requestMeters.dbTime.record(stats.getDbNanos(), TimeUnit.NANOSECONDS);
+
+        List<String> exceeded = exceededBudgets(stats);
+        if (!exceeded.isEmpty()) {
+            requestMeters.budgetExceeded.increment();
+            budgetLogger.warn("query budget exceeded budgets={} handler={} method={} uri={} statements={} rows={} dbTimeMs={}{}",
+                    exceeded, stats.getHandler(), method, uri, stats.getStatements(), stats.getRows(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getDbNanos()), stats.describeStatements());
+        }
+    }
+
+    private List<String> exceededBudgets(RequestQueryStats stats) {
+        List<String> exceeded = new ArrayList<>(3);
+        if (stats.getStatements() > maxStatements) {
+            exceeded.add("statements>" + maxStatements);
+        }
+        if (stats.getRows() > maxRows) {
+            exceeded.add("rows>" + maxRows);
+        }
+        if (TimeUnit.NANOSECONDS.toMillis(stats.getDbNanos()) > maxDbTimeMs) {
+            exceeded.add("dbTimeMs>" + maxDbTimeMs);
+        }
+        return exceeded;
+    }
+
+    // Raw paths would explode the tag cardinality; unmapped requests share one series
+    private static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    private final class RequestMeters {
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+        private final Timer dbTime;
+        private final Counter budgetExceeded;
+
+        private RequestMeters(String method, String uri) {
+            statements = DistributionSummary.builder("http.server.requests.jdbc.statements")
+                    .description("JDBC statements executed per request")
+                    .baseUnit("statements")
+                    .tags("method", method, "uri", uri)
+                    .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                    .register(meterRegistry);
+            rows = DistributionSummary.builder("http.server.requests.jdbc.rows")
+                    .description("Rows fetched from JDBC result sets per request")
+                    .baseUnit("rows")
+                    .tags("method", method, "uri", uri)
+                    .serviceLevelObjectives(1, 10, 100, 1_000, 10_000)
+                    .register(meterRegistry);
+            dbTime = Timer.builder("http.server.requests.jdbc.time")
+                    .description("Time spent executing JDBC statements per request")
+                    .tags("method", method, "uri", uri)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            budgetExceeded = Counter.builder("http.server.requests.query.budget.exceeded")
+                    .description("Requests that exceeded the query budget")
+                    .tags("method", method, "uri", uri)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.zubair.travel.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the business services as "travel.service", tagged with the
+ * service class, the method and the outcome: "success" or the simple name of the thrown
+ * exception (e.g. InsufficientSeatsException), so business rejections and failures show up
+ * as their own series. Timers publish a percentile histogram for Prometheus to aggregate.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.metrics.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceMetricsAspect {
+
+    private static final String METRIC_NAME = "travel.service";
+
+    private static final String SUCCESS = "success";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Registry lookups build a Meter.Id per call, so resolved timers are kept here
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.zubair.travel.service.BookingService.*(..))"
+            + " || execution(public * com.zubair.travel.service.PaymentService.*(..))"
+            + " || execution(public * com.zubair.travel.service.TourService.*(..))"
+            + " || execution(public * com.zubair.travel.service.LodgeService.*(..))"
+            + " || execution(public * com.zubair.travel.service.TransportService.*(..))"
+            + " || execution(public * com.zubair.travel.service.LocationService.*(..))"
+            + " || execution(public * com.zubair.travel.service.UserService.*(..))")
+    public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = SUCCESS;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            timer(joinPoint.getSignature(), outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Signature signature, String outcome) {
+        TimerKey key = new TimerKey(signature.getDeclaringType(), signature.getName(), outcome);
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, this::register);
+        }
+        return timer;
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(METRIC_NAME)
+                .description("Service-layer operation latency")
+                .tag("class", key.type().getSimpleName())
+                .tag("method", key.method())
+                .tag("outcome", key.outcome())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    private static String outcome(Throwable e) {
+        String name = e.getClass().getSimpleName();
+        return name.isEmpty() ? e.getClass().getName() : name;
+    }
+
+    private record TimerKey(Class<?> type, String method, String outcome) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.zubair.travel.config.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets of a single node.
+ *
+ * A bucket is one AtomicLong (its theoretical arrival time) updated by compare-and-set, so
+ * clients never wait for each other and a hot client only contends on its own bucket. A
+ * bucket whose arrival time has passed is full again and carries no state, so the sweep drops
+ * it. Each policy holds at most app.rate-limit.max-keys buckets; until the sweep makes room,
+ * further new clients share one overflow bucket instead of evicting tracked ones.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiter implements RateLimiter {
+
+    @Value("${app.rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    private final Map<String, Buckets> policies = new ConcurrentHashMap<>();
+
+    public InMemoryRateLimiter() {
+    }
+
+    public InMemoryRateLimiter(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public long acquire(RateLimitPolicy policy, String key) {
+        return acquire(policy, key, System.nanoTime());
+    }
+
+    public long acquire(RateLimitPolicy policy, String key, long now) {
+        AtomicLong bucket = buckets(policy, now).get(key, now);
+        while (true) {
+            long arrival = bucket.get();
+            // nanoTime values are only compared by difference
+            long next = (arrival - now > 0 ? arrival : now) + policy.intervalNanos();
+            long excess = next - now - policy.capacityNanos();
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:10000}")
+    public void sweepIdle() {
+        sweep(System.nanoTime());
+    }
+
+    /**
+     * Drops the buckets that are full again. A request racing with the removal may take its
+     * token from the dropped bucket, which lets that client through once more at most.
+     *
+     * @return the number of buckets dropped
+     */
+    public long sweep(long now) {
+        long removed = 0;
+        for (Buckets buckets : policies.values()) {
+            removed += buckets.sweep(now);
+        }
+        return removed;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Buckets buckets : policies.values()) {
+            size += buckets.map.mappingCount();
+        }
+        return size;
+    }
+
+    private Buckets buckets(RateLimitPolicy policy, long now) {
+        Buckets buckets = policies.get(policy.name());
+        return buckets != null ? buckets : policies.computeIfAbsent(policy.name(), name -> new Buckets(now));
+    }
+
+    private final class Buckets {
+
+        final ConcurrentHashMap<String, AtomicLong> map = new ConcurrentHashMap<>();
+
+        final AtomicLong overflow;
+
+        Buckets(long now) {
+            overflow = new AtomicLong(now);
+        }
+
+        AtomicLong get(String key, long now) {
+            AtomicLong bucket = map.get(key);
+            if (bucket != null) {
+                return bucket;
+            }
+            if (map.mappingCount() >= maxKeys) {
+                return overflow;
+            }
+            return map.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        long sweep(long now) {
+            long before = map.mappingCount();
+            map.values().removeIf(bucket -> bucket.get() - now <= 0);
+            return before - map.mappingCount();
+        }
+    }
+}
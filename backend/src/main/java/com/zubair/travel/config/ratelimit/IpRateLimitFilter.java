@@ -0,0 +1,70 @@
+package com.zubair.travel.config.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rate limits /api requests per remote address, ahead of JWT authentication in the security
+ * filter chain, so a client flooding the API with made-up or expired tokens is refused before
+ * any of them is parsed and verified. RateLimitFilter still limits per subject and endpoint
+ * group after authentication; this bucket ("ip") is a coarse ceiling above those limits.
+ */
+@Component
+public class IpRateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.ip.rate:50}")
+    private double ipRate;
+
+    @Value("${app.rate-limit.ip.burst:200}")
+    private int ipBurst;
+
+    private RateLimitPolicy ip;
+
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        ip = RateLimitPolicy.of("ip", ipRate, ipBurst);
+        rejected = Counter.builder("http.server.requests.rate_limited")
+                .description("Requests refused with 429 by the rate limiter")
+                .tag("group", ip.name())
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equals(request.getMethod()) || !RateLimitFilter.isApi(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long waitNanos = rateLimiter.acquire(ip, "ip:" + request.getRemoteAddr());
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        rejected.increment();
+        RateLimitFilter.reject(response, waitNanos);
+    }
+}
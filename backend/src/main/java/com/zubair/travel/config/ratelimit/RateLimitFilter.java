@@ -0,0 +1,164 @@
+package com.zubair.travel.config.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits /api requests per client and endpoint group, right after JWT authentication in
+ * the security filter chain. The client is the JWT subject, or the remote address for
+ * anonymous requests, public catalog GETs (JwtAuthenticationFilter skips those) and /api/auth
+ * (where the subject is what's being guessed). IpRateLimitFilter has already applied a coarser
+ * per-address limit before the JWT was looked at. Groups:
+ * - search: GET /api/{resource}/search
+ * - booking: writes under /api/bookings
+ * - auth: POST /api/auth/**
+ * - api: everything else under /api
+ * Refused requests get 429 with Retry-After and count in http.server.requests.rate_limited.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String API = "/api/";
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.search.rate:5}")
+    private double searchRate;
+
+    @Value("${app.rate-limit.search.burst:20}")
+    private int searchBurst;
+
+    @Value("${app.rate-limit.booking.rate:1}")
+    private double bookingRate;
+
+    @Value("${app.rate-limit.booking.burst:5}")
+    private int bookingBurst;
+
+    @Value("${app.rate-limit.auth.rate:2}")
+    private double authRate;
+
+    @Value("${app.rate-limit.auth.burst:10}")
+    private int authBurst;
+
+    @Value("${app.rate-limit.api.rate:20}")
+    private double apiRate;
+
+    @Value("${app.rate-limit.api.burst:50}")
+    private int apiBurst;
+
+    private RateLimitPolicy search;
+    private RateLimitPolicy booking;
+    private RateLimitPolicy auth;
+    private RateLimitPolicy api;
+
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        search = RateLimitPolicy.of("search", searchRate, searchBurst);
+        booking = RateLimitPolicy.of("booking", bookingRate, bookingBurst);
+        auth = RateLimitPolicy.of("auth", authRate, authBurst);
+        api = RateLimitPolicy.of("api", apiRate, apiBurst);
+        for (RateLimitPolicy policy : new RateLimitPolicy[]{search, booking, auth, api}) {
+            rejected.put(policy.name(), Counter.builder("http.server.requests.rate_limited")
+                    .description("Requests refused with 429 by the rate limiter")
+                    .tag("group", policy.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // CORS preflights carry no credentials and are answered before reaching a controller
+        return !enabled || "OPTIONS".equals(request.getMethod()) || !isApi(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitPolicy policy = policyFor(request.getMethod(), path(request));
+        long waitNanos = rateLimiter.acquire(policy, clientKey(policy, request));
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        rejected.get(policy.name()).increment();
+        reject(response, waitNanos);
+    }
+
+    // 429 with the whole seconds until the bucket admits the request again
+    static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many requests, retry in " + retryAfter + "s\"}");
+    }
+
+    /**
+     * Endpoint group of an /api request.
+     */
+    public RateLimitPolicy policyFor(String method, String path) {
+        if (path.startsWith("/api/auth/")) {
+            return "POST".equals(method) ? auth : api;
+        }
+        if (path.startsWith("/api/bookings")) {
+            return "GET".equals(method) ? api : booking;
+        }
+        // /api/{resource}/search
+        int slash = path.indexOf('/', API.length());
+        if ("GET".equals(method) && slash > 0 && path.startsWith("/search", slash)
+                && (path.length() == slash + 7 || path.charAt(slash + 7) == '/')) {
+            return search;
+        }
+        return api;
+    }
+
+    private String clientKey(RateLimitPolicy policy, HttpServletRequest request) {
+        if (policy != auth) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    static boolean isApi(HttpServletRequest request) {
+        return path(request).startsWith(API);
+    }
+
+    private static String path(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        return contextPath.isEmpty() ? uri : uri.substring(contextPath.length());
+    }
+}
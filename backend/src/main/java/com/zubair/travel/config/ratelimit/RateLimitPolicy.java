@@ -0,0 +1,22 @@
+package com.zubair.travel.config.ratelimit;
+
+/**
+ * Token bucket of an endpoint group: {@code burst} requests may arrive at once, after that
+ * one per {@code intervalNanos}.
+ */
+public record RateLimitPolicy(String name, long intervalNanos, int burst) {
+
+    public static RateLimitPolicy of(String name, double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate limit " + name + " needs a positive rate and burst");
+        }
+        return new RateLimitPolicy(name, Math.max(1, Math.round(1_000_000_000 / ratePerSecond)), burst);
+    }
+
+    /**
+     * How far ahead of now the bucket's schedule may run before requests are refused.
+     */
+    public long capacityNanos() {
+        return intervalNanos * burst;
+    }
+}
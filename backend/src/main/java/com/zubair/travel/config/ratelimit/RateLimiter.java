@@ -0,0 +1,19 @@
+package com.zubair.travel.config.ratelimit;
+
+/**
+ * Token buckets per (policy, client key), kept as GCRA state: a single "theoretical arrival
+ * time" per bucket instead of a token count and a refill timestamp. A request is admitted if
+ * it moves that time no further than the policy's capacity ahead of now.
+ *
+ * By default the buckets live in this node's memory (InMemoryRateLimiter); with
+ * app.rate-limit.store=redis they are shared by all replicas.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes a token from the client's bucket.
+     *
+     * @return 0 if the request is admitted, otherwise the nanoseconds until it would be
+     */
+    long acquire(RateLimitPolicy policy, String key);
+}
@@ -0,0 +1,71 @@
+package com.zubair.travel.config.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets shared by all replicas (app.rate-limit.store=redis).
+ *
+ * Each bucket is a key "ratelimit:<policy>:<client>" holding its arrival time in microseconds
+ * of the Redis clock, updated by a Lua script and expiring once the bucket is full again.
+ * Costs a round trip per request; if Redis can't be reached the request is admitted and
+ * counted in http.server.requests.rate_limit.errors rather than failing the API.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "redis")
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisRateLimiter.class);
+
+    private static final RedisScript<Long> ACQUIRE = script("redis/rate-limit.lua");
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter errorCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        errorCounter = Counter.builder("http.server.requests.rate_limit.errors")
+                .description("Requests admitted without a rate-limit check because Redis failed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long acquire(RateLimitPolicy policy, String key) {
+        try {
+            Long waitMicros = redisTemplate.execute(ACQUIRE, List.of("ratelimit:" + policy.name() + ":" + key),
+                    String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toMicros(policy.intervalNanos()))),
+                    String.valueOf(policy.burst()));
+            return waitMicros == null ? 0 : TimeUnit.MICROSECONDS.toNanos(waitMicros);
+        } catch (DataAccessException e) {
+            errorCounter.increment();
+            logger.debug("Rate limit check failed, admitting the request: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static RedisScript<Long> script(String location) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(location));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
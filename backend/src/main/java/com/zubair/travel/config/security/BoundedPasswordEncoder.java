@@ -0,0 +1,167 @@
+package com.zubair.travel.config.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a dedicated, bounded pool.
+ *
+ * Every hash (login, registration, password change, and the dummy check Spring Security
+ * runs for unknown usernames) is handed to app.security.password-hashing.threads workers,
+ * half the cores by default, so a login storm can't take the CPU from the other endpoints.
+ * Beyond queue-capacity waiting hashes, or when a hash waited longer than wait-timeout-ms,
+ * PasswordHashingBusyException is thrown and the caller answers 429 right away.
+ *
+ * The cost is app.security.bcrypt.strength. Hashes with a different cost report
+ * upgradeEncoding, so DaoAuthenticationProvider re-hashes them on the next successful login.
+ */
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.security.bcrypt.strength:10}")
+    private int strength;
+
+    @Value("${app.security.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${app.security.password-hashing.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.security.password-hashing.wait-timeout-ms:2000}")
+    private long waitTimeoutMs;
+
+    private BCryptPasswordEncoder delegate;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void start() {
+        delegate = new BCryptPasswordEncoder(strength);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        encodeTimer = hashTimer("encode");
+        matchesTimer = hashTimer("matches");
+        rejectedCounter = Counter.builder("security.password.hash.rejected")
+                .description("Password hashes refused because the hashing pool was saturated")
+                .register(meterRegistry);
+        Gauge.builder("security.password.hash.queue", queue, BlockingQueue::size)
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("security.password.hash")
+                .description("BCrypt time per hash, excluding the wait for a hashing thread")
+                .tag("operation", operation)
+                .tag("cost", String.valueOf(strength))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // PasswordEncoder
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * True for hashes whose cost differs from the configured strength, in either direction.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    // Execution
+
+    private <T> T run(Timer timer, Callable<T> hash) {
+        Future<T> result;
+        try {
+            result = executor.submit(() -> timer.recordCallable(hash));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException("Too many concurrent sign-ins, please retry shortly");
+        }
+        try {
+            return result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException("Too many concurrent sign-ins, please retry shortly");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for a password hash");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Business Exceptions
+
+    public static class PasswordHashingBusyException extends RuntimeException {
+        public PasswordHashingBusyException(String message) {
+            super(message);
+        }
+    }
+}
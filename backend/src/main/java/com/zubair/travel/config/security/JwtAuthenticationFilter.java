@@ -1,19 +1,25 @@
 package com.zubair.travel.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.servlet.FilterChain;
-import javax.servlet.ServletException;
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -24,10 +30,59 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RouteAuthorizationTable routeAuthorizationTable;
+
+    @Value("${app.security.jwt.skip-public-requests:true}")
+    private boolean skipPublicRequests;
+
+    // Time spent authenticating the request, excluding the rest of the filter chain
+    private Timer anonymousTimer;
+    private Timer authenticatedTimer;
+    private Timer rejectedTimer;
+
+    @PostConstruct
+    public void registerTimers() {
+        anonymousTimer = authenticationTimer("anonymous");
+        authenticatedTimer = authenticationTimer("authenticated");
+        rejectedTimer = authenticationTimer("rejected");
+    }
+
+    private Timer authenticationTimer(String outcome) {
+        return Timer.builder("security.jwt.authentication")
+                .description("JWT parsing, user lookup and validation per request")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Preflights carry no credentials, and public catalog GETs don't need the user, so neither
+     * pays for token parsing and the user lookup. Skipped requests aren't timed.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!skipPublicRequests) {
+            return false;
+        }
+        if (CorsUtils.isPreFlightRequest(request)) {
+            return true;
+        }
+        if (!"GET".equals(request.getMethod())) {
+            return false;
+        }
+        return routeAuthorizationTable.isPublic("GET", RouteAuthorizationTable.requestPath(request));
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
+        long start = System.nanoTime();
+        Timer timer = anonymousTimer;
         try {
             String authorizationHeader = request.getHeader("Authorization");
             String token = null;
@@ -38,6 +93,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 try {
                     username = jwtUtil.extractUsername(token);
                 } catch (Exception e) {
+                    timer = rejectedTimer;
                     logger.error("Error extracting username from JWT token: " + e.getMessage());
                 }
             }
@@ -50,11 +106,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                    timer = authenticatedTimer;
+                } else {
+                    timer = rejectedTimer;
                 }
             }
         } catch (Exception e) {
+            timer = rejectedTimer;
             logger.error("Cannot set user authentication: " + e.getMessage());
         }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
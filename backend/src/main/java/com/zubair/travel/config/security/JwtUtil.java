@@ -2,6 +2,7 @@ package com.zubair.travel.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,6 +26,10 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    public static final String TYPE_CLAIM = "typ";
+    public static final String FAMILY_CLAIM = "fam";
+    private static final String REFRESH_TYPE = "refresh";
+
     private SecretKey getSigningKey() {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         return Keys.hmacShaKeyFor(keyBytes);
@@ -74,9 +80,38 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Refresh token with a token id (jti) and family, see RefreshTokenService.
+     */
+    public String generateRefreshToken(String username, String tokenId, long familyId, Instant issuedAt, Instant expiresAt) {
+        return Jwts.builder()
+                .setSubject(username)
+                .setId(tokenId)
+                .claim(TYPE_CLAIM, REFRESH_TYPE)
+                .claim(FAMILY_CLAIM, Long.toString(familyId))
+                .setIssuedAt(Date.from(issuedAt))
+                .setExpiration(Date.from(expiresAt))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Verifies signature, expiry and type of a refresh token.
+     */
+    public Claims parseRefreshToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (!REFRESH_TYPE.equals(claims.get(TYPE_CLAIM, String.class))) {
+            throw new MalformedJwtException("Not a refresh token");
+        }
+        return claims;
+    }
+
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        // Refresh tokens are only accepted by /api/auth/refresh and /api/auth/logout
+        return claims.getSubject().equals(userDetails.getUsername())
+                && claims.getExpiration().after(new Date())
+                && !REFRESH_TYPE.equals(claims.get(TYPE_CLAIM, String.class));
     }
 
     public Boolean validateToken(String token) {
@@ -0,0 +1,219 @@
+package com.zubair.travel.config.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Authorization rules of the API, compiled at startup into a trie of path segments.
+ *
+ * Rules are declared like requestMatchers(...) and the first declared rule that matches wins,
+ * but a lookup walks the request path once instead of trying every Ant pattern in turn.
+ * Patterns are exact paths ("/actuator/health") or prefixes ("/api/tours/**", which also
+ * matches "/api/tours"). Requests no rule matches need an authenticated user.
+ */
+public class RouteAuthorizationTable implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private static final Rule AUTHENTICATED_DEFAULT = new Rule(Integer.MAX_VALUE, null, "/**", Set.of(), false);
+
+    private static final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    private final Node root = new Node();
+
+    private RouteAuthorizationTable() {
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * True if the request needs no authentication at all, so JWT parsing can be skipped.
+     */
+    public boolean isPublic(String method, String path) {
+        return match(method, path).permitAll;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Rule rule = match(context.getRequest().getMethod(), requestPath(context.getRequest()));
+        if (rule.permitAll) {
+            return GRANTED;
+        }
+        Authentication user = authentication.get();
+        if (user == null || !user.isAuthenticated() || trustResolver.isAnonymous(user)) {
+            return DENIED;
+        }
+        if (rule.authorities.isEmpty()) {
+            return GRANTED;
+        }
+        for (GrantedAuthority authority : user.getAuthorities()) {
+            if (rule.authorities.contains(authority.getAuthority())) {
+                return GRANTED;
+            }
+        }
+        return DENIED;
+    }
+
+    /**
+     * The path the rules are matched against: decoded, without ;parameters and the context path,
+     * as the handler mappings see it. The raw request URI would let "/api/%61dmin/..." slip past
+     * the "/api/admin/**" rule into the admin controller.
+     */
+    public static String requestPath(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    }
+
+    // Lookup
+
+    Rule match(String method, String path) {
+        Rule best = AUTHENTICATED_DEFAULT;
+        Node node = root;
+        best = node.first(node.prefixes, method, best);
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                node = node.children.get(path.substring(start, end));
+                if (node == null) {
+                    return best;
+                }
+                best = node.first(node.prefixes, method, best);
+            }
+            start = end + 1;
+        }
+        return node.first(node.exact, method, best);
+    }
+
+    record Rule(int order, HttpMethod method, String pattern, Set<String> authorities, boolean permitAll) {
+
+        boolean matches(String requestMethod) {
+            return method == null || method.matches(requestMethod);
+        }
+    }
+
+    private static final class Node {
+
+        final Map<String, Node> children = new HashMap<>();
+
+        // Sorted by declaration order
+        Rule[] prefixes = new Rule[0];
+        Rule[] exact = new Rule[0];
+
+        Rule first(Rule[] rules, String method, Rule best) {
+            for (Rule rule : rules) {
+                if (rule.order >= best.order) {
+                    return best;
+                }
+                if (rule.matches(method)) {
+                    return rule;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Collects the rules in order; mirrors the authorizeHttpRequests DSL.
+     */
+    public static final class Builder {
+
+        private final List<Rule> rules = new ArrayList<>();
+
+        public Routes requestMatchers(String... patterns) {
+            return new Routes(null, patterns);
+        }
+
+        public Routes requestMatchers(HttpMethod method, String... patterns) {
+            return new Routes(method, patterns);
+        }
+
+        public RouteAuthorizationTable build() {
+            RouteAuthorizationTable table = new RouteAuthorizationTable();
+            for (Rule rule : rules) {
+                boolean prefix = rule.pattern.endsWith("/**");
+                String literal = prefix ? rule.pattern.substring(0, rule.pattern.length() - 3) : rule.pattern;
+                Node node = table.root;
+                for (String segment : literal.split("/")) {
+                    if (!segment.isEmpty()) {
+                        node = node.children.computeIfAbsent(segment, key -> new Node());
+                    }
+                }
+                if (prefix) {
+                    node.prefixes = append(node.prefixes, rule);
+                } else {
+                    node.exact = append(node.exact, rule);
+                }
+            }
+            return table;
+        }
+
+        private Builder add(HttpMethod method, String[] patterns, Set<String> authorities, boolean permitAll) {
+            for (String pattern : patterns) {
+                String literal = pattern.endsWith("/**") ? pattern.substring(0, pattern.length() - 3) : pattern;
+                if (!pattern.startsWith("/") || literal.contains("*") || literal.contains("{")) {
+                    throw new IllegalArgumentException("Only exact paths and /** prefixes are supported: " + pattern);
+                }
+                rules.add(new Rule(rules.size(), method, pattern, authorities, permitAll));
+            }
+            return this;
+        }
+
+        private static Rule[] append(Rule[] rules, Rule rule) {
+            Rule[] appended = Arrays.copyOf(rules, rules.length + 1);
+            appended[rules.length] = rule;
+            return appended;
+        }
+
+        public final class Routes {
+
+            private final HttpMethod method;
+            private final String[] patterns;
+
+            private Routes(HttpMethod method, String[] patterns) {
+                this.method = method;
+                this.patterns = patterns;
+            }
+
+            public Builder permitAll() {
+                return add(method, patterns, Set.of(), true);
+            }
+
+            public Builder authenticated() {
+                return add(method, patterns, Set.of(), false);
+            }
+
+            public Builder hasRole(String role) {
+                return hasAnyRole(role);
+            }
+
+            public Builder hasAnyRole(String... roles) {
+                Set<String> authorities = Arrays.stream(roles).map(role -> "ROLE_" + role).collect(Collectors.toSet());
+                return add(method, patterns, authorities, false);
+            }
+        }
+    }
+}
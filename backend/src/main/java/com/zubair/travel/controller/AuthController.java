@@ -1,9 +1,15 @@
 package com.zubair.travel.controller;
 
-import com.zubair.travel.config.security.JwtUtil;
+import com.zubair.travel.config.security.BoundedPasswordEncoder.PasswordHashingBusyException;
 import com.zubair.travel.entity.User;
 import com.zubair.travel.service.UserService;
+import com.zubair.travel.service.auth.InMemoryRefreshTokenStore.RefreshTokenCapacityException;
+import com.zubair.travel.service.auth.RefreshTokenService;
+import com.zubair.travel.service.auth.RefreshTokenService.InvalidRefreshTokenException;
+import com.zubair.travel.service.auth.RefreshTokenService.RefreshTokenReusedException;
+import com.zubair.travel.service.auth.RefreshTokenService.TokenPair;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,7 +17,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -19,20 +24,16 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api/auth")
-@CrossOrigin(origins = "*")
 public class AuthController {
 
     @Autowired
     private AuthenticationManager authenticationManager;
 
     @Autowired
-    private UserDetailsService userDetailsService;
-
-    @Autowired
-    private JwtUtil jwtUtil;
+    private UserService userService;
 
     @Autowired
-    private UserService userService;
+    private RefreshTokenService refreshTokenService;
 
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody User user) {
@@ -43,6 +44,8 @@ public class AuthController {
             response.put("userId", registeredUser.getId());
             response.put("username", registeredUser.getUsername());
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (PasswordHashingBusyException e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Registration failed: " + e.getMessage());
@@ -60,49 +63,90 @@ public class AuthController {
                     new UsernamePasswordAuthenticationToken(username, password)
             );
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            String accessToken = jwtUtil.generateToken(userDetails.getUsername());
-            String refreshToken = jwtUtil.generateRefreshToken(userDetails.getUsername());
+            // Loaded by the authentication provider already
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            TokenPair tokens = refreshTokenService.login(userDetails.getUsername());
 
             Map<String, Object> response = new HashMap<>();
-            response.put("accessToken", accessToken);
-            response.put("refreshToken", refreshToken);
-            response.put("username", userDetails.getUsername());
+            response.put("accessToken", tokens.accessToken());
+            response.put("refreshToken", tokens.refreshToken());
+            response.put("username", tokens.username());
             response.put("message", "Login successful");
 
             return ResponseEntity.ok(response);
         } catch (AuthenticationException e) {
+            // Unknown usernames still hash a dummy password, and the provider wraps what that throws
+            PasswordHashingBusyException busy = hashingBusyCause(e);
+            if (busy != null) {
+                return hashingBusy(busy);
+            }
             Map<String, String> error = new HashMap<>();
             error.put("error", "Invalid username or password");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        } catch (PasswordHashingBusyException e) {
+            return hashingBusy(e);
+        } catch (RefreshTokenCapacityException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").body(error);
         }
     }
 
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token; the
+     * presented one can't be used again.
+     */
     @PostMapping("/refresh")
     public ResponseEntity<?> refreshToken(@RequestBody Map<String, String> request) {
         try {
-            String refreshToken = request.get("refreshToken");
-            
-            if (refreshToken != null && jwtUtil.validateToken(refreshToken)) {
-                String username = jwtUtil.extractUsername(refreshToken);
-                String newAccessToken = jwtUtil.generateToken(username);
-                String newRefreshToken = jwtUtil.generateRefreshToken(username);
-
-                Map<String, Object> response = new HashMap<>();
-                response.put("accessToken", newAccessToken);
-                response.put("refreshToken", newRefreshToken);
-                response.put("message", "Token refreshed successfully");
-
-                return ResponseEntity.ok(response);
-            } else {
-                Map<String, String> error = new HashMap<>();
-                error.put("error", "Invalid or expired refresh token");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
-            }
-        } catch (Exception e) {
+            TokenPair tokens = refreshTokenService.refresh(request.get("refreshToken"));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("accessToken", tokens.accessToken());
+            response.put("refreshToken", tokens.refreshToken());
+            response.put("message", "Token refreshed successfully");
+
+            return ResponseEntity.ok(response);
+        } catch (InvalidRefreshTokenException | RefreshTokenReusedException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("error", "Token refresh failed: " + e.getMessage());
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        } catch (RefreshTokenCapacityException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").body(error);
+        }
+    }
+
+    /**
+     * Revokes the session the refresh token belongs to. Access tokens already issued stay
+     * valid until they expire.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody Map<String, String> request) {
+        try {
+            refreshTokenService.logout(request.get("refreshToken"));
+            return ResponseEntity.noContent().build();
+        } catch (InvalidRefreshTokenException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         }
     }
+
+    private static PasswordHashingBusyException hashingBusyCause(Throwable e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof PasswordHashingBusyException busy) {
+                return busy;
+            }
+        }
+        return null;
+    }
+
+    // Password hashing pool saturated, the client should back off briefly
+    private ResponseEntity<?> hashingBusy(PasswordHashingBusyException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
 }
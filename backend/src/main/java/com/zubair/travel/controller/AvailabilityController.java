@@ -0,0 +1,47 @@
+package com.zubair.travel.controller;
+
+import com.zubair.travel.service.inventory.AvailabilityStreamHub;
+import com.zubair.travel.service.inventory.AvailabilityStreamHub.InvalidSubscriptionException;
+import com.zubair.travel.service.inventory.AvailabilityStreamHub.TooManySubscribersException;
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/availability")
+public class AvailabilityController {
+
+    @Autowired
+    private AvailabilityStreamHub availabilityStreamHub;
+
+    // Live seat/room counts as server-sent events, e.g. /stream?tours=1,2&lodges=7
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailability(
+            @RequestParam(required = false) List<Long> tours,
+            @RequestParam(required = false) List<Long> lodges,
+            @RequestParam(required = false) List<Long> transports) {
+        Map<Resource, List<Long>> requested = new EnumMap<>(Resource.class);
+        requested.put(Resource.TOUR, tours != null ? tours : List.of());
+        requested.put(Resource.LODGE, lodges != null ? lodges : List.of());
+        requested.put(Resource.TRANSPORT, transports != null ? transports : List.of());
+        try {
+            return ResponseEntity.ok()
+                    // Tells nginx-style proxies not to buffer the stream
+                    .header("X-Accel-Buffering", "no")
+                    .body(availabilityStreamHub.subscribe(requested));
+        } catch (InvalidSubscriptionException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (TooManySubscribersException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+}
@@ -1,83 +1,117 @@
 package com.zubair.travel.controller;
 
+import com.zubair.travel.dto.BookingDto;
+import com.zubair.travel.dto.BookingSummaryDto;
+import com.zubair.travel.dto.PackageBookingRequest;
 import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.BookingSummary;
 import com.zubair.travel.service.BookingService;
+import com.zubair.travel.service.BookingSummaryService;
+import com.zubair.travel.service.PackageBookingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/bookings")
-@CrossOrigin(origins = "*")
 public class BookingController {
 
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private BookingSummaryService bookingSummaryService;
+
+    @Autowired
+    private PackageBookingService packageBookingService;
+
     // Create new booking
     @PostMapping
-    public ResponseEntity<Booking> createBooking(@RequestBody Booking booking) {
+    public ResponseEntity<BookingDto> createBooking(@RequestBody Booking booking) {
         Booking createdBooking = bookingService.createBooking(booking);
-        return new ResponseEntity<>(createdBooking, HttpStatus.CREATED);
+        return new ResponseEntity<>(BookingDto.from(createdBooking), HttpStatus.CREATED);
+    }
+
+    // Book a tour with lodge rooms and transport seats, all or nothing
+    @PostMapping("/package")
+    public ResponseEntity<BookingDto> createPackageBooking(@RequestBody PackageBookingRequest request) {
+        Booking createdBooking = packageBookingService.bookPackage(request);
+        return new ResponseEntity<>(BookingDto.from(createdBooking), HttpStatus.CREATED);
     }
 
     // Get all bookings (admin)
     @GetMapping
-    public ResponseEntity<List<Booking>> getAllBookings() {
+    public ResponseEntity<List<BookingDto>> getAllBookings() {
         List<Booking> bookings = bookingService.getAllBookings();
-        return new ResponseEntity<>(bookings, HttpStatus.OK);
+        return new ResponseEntity<>(BookingDto.fromList(bookings), HttpStatus.OK);
     }
 
     // Get booking by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Booking> getBookingById(@PathVariable Long id) {
+    public ResponseEntity<BookingDto> getBookingById(@PathVariable Long id) {
         Booking booking = bookingService.getBookingById(id);
-        return new ResponseEntity<>(booking, HttpStatus.OK);
+        return new ResponseEntity<>(BookingDto.from(booking), HttpStatus.OK);
     }
 
     // Get bookings by user ID
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Booking>> getBookingsByUserId(@PathVariable Long userId) {
-        List<Booking> bookings = bookingService.getBookingsByUserId(userId);
-        return new ResponseEntity<>(bookings, HttpStatus.OK);
+    public ResponseEntity<List<BookingDto>> getBookingsByUserId(@PathVariable Long userId) {
+        List<Booking> bookings = bookingService.getBookingsByUser(userId);
+        return new ResponseEntity<>(BookingDto.fromList(bookings), HttpStatus.OK);
+    }
+
+    // Get a user's dashboard rows (served from the booking summary read model)
+    @GetMapping("/user/{userId}/summaries")
+    public ResponseEntity<List<BookingSummaryDto>> getBookingSummariesByUserId(@PathVariable Long userId) {
+        List<BookingSummary> summaries = bookingSummaryService.getSummariesByUser(userId);
+        return new ResponseEntity<>(BookingSummaryDto.fromList(summaries), HttpStatus.OK);
     }
 
     // Get bookings by tour ID
     @GetMapping("/tour/{tourId}")
-    public ResponseEntity<List<Booking>> getBookingsByTourId(@PathVariable Long tourId) {
+    public ResponseEntity<List<BookingDto>> getBookingsByTourId(@PathVariable Long tourId) {
         List<Booking> bookings = bookingService.getBookingsByTourId(tourId);
-        return new ResponseEntity<>(bookings, HttpStatus.OK);
+        return new ResponseEntity<>(BookingDto.fromList(bookings), HttpStatus.OK);
     }
 
     // Get bookings by status
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Booking>> getBookingsByStatus(@PathVariable String status) {
+    public ResponseEntity<List<BookingDto>> getBookingsByStatus(@PathVariable String status) {
         List<Booking> bookings = bookingService.getBookingsByStatus(status);
-        return new ResponseEntity<>(bookings, HttpStatus.OK);
+        return new ResponseEntity<>(BookingDto.fromList(bookings), HttpStatus.OK);
     }
 
     // Update booking
     @PutMapping("/{id}")
-    public ResponseEntity<Booking> updateBooking(@PathVariable Long id, @RequestBody Booking booking) {
+    public ResponseEntity<BookingDto> updateBooking(@PathVariable Long id, @RequestBody Booking booking) {
         Booking updatedBooking = bookingService.updateBooking(id, booking);
-        return new ResponseEntity<>(updatedBooking, HttpStatus.OK);
+        return new ResponseEntity<>(BookingDto.from(updatedBooking), HttpStatus.OK);
     }
 
     // Cancel booking
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<Booking> cancelBooking(@PathVariable Long id) {
+    public ResponseEntity<BookingDto> cancelBooking(@PathVariable Long id) {
         Booking cancelledBooking = bookingService.cancelBooking(id);
-        return new ResponseEntity<>(cancelledBooking, HttpStatus.OK);
+        return new ResponseEntity<>(BookingDto.from(cancelledBooking), HttpStatus.OK);
     }
 
     // Confirm booking
     @PutMapping("/{id}/confirm")
-    public ResponseEntity<Booking> confirmBooking(@PathVariable Long id) {
+    public ResponseEntity<BookingDto> confirmBooking(@PathVariable Long id) {
         Booking confirmedBooking = bookingService.confirmBooking(id);
-        return new ResponseEntity<>(confirmedBooking, HttpStatus.OK);
+        return new ResponseEntity<>(BookingDto.from(confirmedBooking), HttpStatus.OK);
+    }
+
+    // Rebuild booking summaries from bookings and payments (admin)
+    @PostMapping("/summaries/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Long> rebuildBookingSummaries() {
+        long rebuilt = bookingSummaryService.rebuild();
+        return new ResponseEntity<>(rebuilt, HttpStatus.OK);
     }
 
     // Delete booking (admin)
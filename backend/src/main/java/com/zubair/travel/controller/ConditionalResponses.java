@@ -0,0 +1,31 @@
+package com.zubair.travel.controller;
+
+import com.zubair.travel.service.CatalogVersionService.Stamp;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GETs of the catalog endpoints: a 304 when the request's validators match the
+ * stamp, before the body is built; otherwise the body, to be revalidated on every use.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Returns null once checkNotModified has prepared the 304, the same as a handler doing it itself.
+     */
+    static <T> ResponseEntity<T> ifModified(Stamp stamp, WebRequest request, Supplier<T> body) {
+        Stamp negotiated = stamp.forAccept(request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(negotiated.eTag(), negotiated.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .body(body.get());
+    }
+}
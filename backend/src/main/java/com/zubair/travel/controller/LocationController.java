@@ -2,21 +2,27 @@ package com.zubair.travel.controller;
 
 import com.zubair.travel.entity.Location;
 import com.zubair.travel.service.LocationService;
+import com.zubair.travel.service.CatalogVersionService;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.location.LocationHierarchy.Branch;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/locations")
-@CrossOrigin(origins = "*")
 public class LocationController {
 
     @Autowired
     private LocationService locationService;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
     // Create new location (admin)
     @PostMapping
     public ResponseEntity<Location> createLocation(@RequestBody Location location) {
@@ -26,44 +32,53 @@ public class LocationController {
 
     // Get all locations
     @GetMapping
-    public ResponseEntity<List<Location>> getAllLocations() {
-        List<Location> locations = locationService.getAllLocations();
-        return new ResponseEntity<>(locations, HttpStatus.OK);
+    public ResponseEntity<List<Location>> getAllLocations(WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LOCATIONS), request,
+                () -> locationService.getAllLocations());
     }
 
     // Get location by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Location> getLocationById(@PathVariable Long id) {
-        Location location = locationService.getLocationById(id);
-        return new ResponseEntity<>(location, HttpStatus.OK);
+    public ResponseEntity<Location> getLocationById(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.entityStamp(Catalog.LOCATIONS, id), request,
+                () -> locationService.getLocationById(id));
     }
 
     // Get locations by city
     @GetMapping("/city/{city}")
-    public ResponseEntity<List<Location>> getLocationsByCity(@PathVariable String city) {
-        List<Location> locations = locationService.getLocationsByCity(city);
-        return new ResponseEntity<>(locations, HttpStatus.OK);
+    public ResponseEntity<List<Location>> getLocationsByCity(@PathVariable String city, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LOCATIONS), request,
+                () -> locationService.getLocationsByCity(city));
     }
 
     // Get locations by country
     @GetMapping("/country/{country}")
-    public ResponseEntity<List<Location>> getLocationsByCountry(@PathVariable String country) {
-        List<Location> locations = locationService.getLocationsByCountry(country);
-        return new ResponseEntity<>(locations, HttpStatus.OK);
+    public ResponseEntity<List<Location>> getLocationsByCountry(@PathVariable String country, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LOCATIONS), request,
+                () -> locationService.getLocationsByCountry(country));
+    }
+
+    // Browse countries, their states and the states' cities with location counts
+    @GetMapping("/hierarchy")
+    public ResponseEntity<List<Branch>> getLocationHierarchy(@RequestParam(required = false) String country,
+                                                             @RequestParam(required = false) String state,
+                                                             WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LOCATIONS), request,
+                () -> locationService.getLocationHierarchy(country, state));
     }
 
     // Get locations by type
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<Location>> getLocationsByType(@PathVariable String type) {
-        List<Location> locations = locationService.getLocationsByType(type);
-        return new ResponseEntity<>(locations, HttpStatus.OK);
+    public ResponseEntity<List<Location>> getLocationsByType(@PathVariable String type, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LOCATIONS), request,
+                () -> locationService.getLocationsByType(type));
     }
 
     // Search locations by keyword
     @GetMapping("/search")
-    public ResponseEntity<List<Location>> searchLocations(@RequestParam String keyword) {
-        List<Location> locations = locationService.searchLocations(keyword);
-        return new ResponseEntity<>(locations, HttpStatus.OK);
+    public ResponseEntity<List<Location>> searchLocations(@RequestParam String keyword, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LOCATIONS), request,
+                () -> locationService.searchLocations(keyword));
     }
 
     // Update location (admin)
@@ -1,92 +1,207 @@
 package com.zubair.travel.controller;
 
+import com.zubair.travel.dto.LodgeDto;
 import com.zubair.travel.entity.Lodge;
 import com.zubair.travel.service.LodgeService;
+import com.zubair.travel.service.LodgeService.NearbyLodge;
+import com.zubair.travel.service.CatalogSnapshotPublisher;
+import com.zubair.travel.service.CatalogSnapshotPublisher.SnapshotKey;
+import com.zubair.travel.service.CatalogVersionService;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.PricingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/lodges")
-@CrossOrigin(origins = "*")
 public class LodgeController {
 
     @Autowired
     private LodgeService lodgeService;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private CatalogSnapshotPublisher catalogSnapshotPublisher;
+
+    @Autowired
+    private PricingService pricingService;
+
     // Create new lodge (admin)
     @PostMapping
-    public ResponseEntity<Lodge> createLodge(@RequestBody Lodge lodge) {
+    public ResponseEntity<LodgeDto> createLodge(@RequestBody Lodge lodge) {
         Lodge createdLodge = lodgeService.createLodge(lodge);
-        return new ResponseEntity<>(createdLodge, HttpStatus.CREATED);
+        return new ResponseEntity<>(LodgeDto.from(createdLodge), HttpStatus.CREATED);
     }
 
     // Get all lodges
     @GetMapping
-    public ResponseEntity<List<Lodge>> getAllLodges() {
-        List<Lodge> lodges = lodgeService.getAllLodges();
-        return new ResponseEntity<>(lodges, HttpStatus.OK);
+    public ResponseEntity<List<LodgeDto>> getAllLodges(WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.getAllLodges(), pricingService::currentLodgePrice));
     }
 
     // Get lodge by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Lodge> getLodgeById(@PathVariable Long id) {
-        Lodge lodge = lodgeService.getLodgeById(id);
-        return new ResponseEntity<>(lodge, HttpStatus.OK);
+    public ResponseEntity<LodgeDto> getLodgeById(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.entityStamp(Catalog.LODGES, id), request, () -> {
+            Lodge lodge = lodgeService.getLodgeById(id);
+            return LodgeDto.from(lodge, pricingService.currentLodgePrice(lodge));
+        });
     }
 
     // Get lodges by location
     @GetMapping("/location/{location}")
-    public ResponseEntity<List<Lodge>> getLodgesByLocation(@PathVariable String location) {
-        List<Lodge> lodges = lodgeService.getLodgesByLocation(location);
-        return new ResponseEntity<>(lodges, HttpStatus.OK);
+    public ResponseEntity<List<LodgeDto>> getLodgesByLocation(@PathVariable String location, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.getLodgesByLocation(location), pricingService::currentLodgePrice));
     }
 
     // Get lodges by type
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<Lodge>> getLodgesByType(@PathVariable String type) {
-        List<Lodge> lodges = lodgeService.getLodgesByType(type);
-        return new ResponseEntity<>(lodges, HttpStatus.OK);
+    public ResponseEntity<List<LodgeDto>> getLodgesByType(@PathVariable String type, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.getLodgesByType(type), pricingService::currentLodgePrice));
     }
 
     // Get lodges by tour ID
     @GetMapping("/tour/{tourId}")
-    public ResponseEntity<List<Lodge>> getLodgesByTourId(@PathVariable Long tourId) {
-        List<Lodge> lodges = lodgeService.getLodgesByTourId(tourId);
-        return new ResponseEntity<>(lodges, HttpStatus.OK);
+    public ResponseEntity<List<LodgeDto>> getLodgesByTourId(@PathVariable Long tourId, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.getLodgesByTourId(tourId), pricingService::currentLodgePrice));
     }
 
     // Get lodges by price range
     @GetMapping("/price-range")
-    public ResponseEntity<List<Lodge>> getLodgesByPriceRange(
+    public ResponseEntity<List<LodgeDto>> getLodgesByPriceRange(
             @RequestParam Double minPrice,
-            @RequestParam Double maxPrice) {
-        List<Lodge> lodges = lodgeService.getLodgesByPriceRange(minPrice, maxPrice);
-        return new ResponseEntity<>(lodges, HttpStatus.OK);
+            @RequestParam Double maxPrice,
+            WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.getLodgesByPriceRange(minPrice, maxPrice), pricingService::currentLodgePrice));
     }
 
-    // Get available lodges
-    @GetMapping("/available")
-    public ResponseEntity<List<Lodge>> getAvailableLodges() {
-        List<Lodge> lodges = lodgeService.getAvailableLodges();
-        return new ResponseEntity<>(lodges, HttpStatus.OK);
+    // Get available lodges (served from a pre-rendered snapshot shared by all requests)
+    @GetMapping(value = "/available", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<byte[]> getAvailableLodges(WebRequest request) {
+        CatalogSnapshotPublisher.Representation representation = catalogSnapshotPublisher
+                .getSnapshot(SnapshotKey.AVAILABLE_LODGES)
+                .select(request.getHeader(HttpHeaders.ACCEPT), request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (request.checkNotModified(representation.eTag(), representation.lastModified())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(representation.contentType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (representation.contentEncoding() != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, representation.contentEncoding());
+        }
+        return response.body(representation.body());
     }
 
     // Search lodges by keyword
     @GetMapping("/search")
-    public ResponseEntity<List<Lodge>> searchLodges(@RequestParam String keyword) {
-        List<Lodge> lodges = lodgeService.searchLodges(keyword);
-        return new ResponseEntity<>(lodges, HttpStatus.OK);
+    public ResponseEntity<List<LodgeDto>> searchLodges(@RequestParam String keyword, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.searchLodges(keyword), pricingService::currentLodgePrice));
+    }
+
+    // Best rated lodges of a location, or overall without locationId
+    @GetMapping("/top-rated")
+    public ResponseEntity<List<LodgeDto>> getTopRatedLodges(
+            @RequestParam(required = false) Long locationId,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.getTopRatedLodges(locationId, limit), pricingService::currentLodgePrice));
+    }
+
+    // Cheapest lodges with rooms available in a location, or overall without locationId
+    @GetMapping("/cheapest")
+    public ResponseEntity<List<LodgeDto>> getCheapestLodges(
+            @RequestParam(required = false) Long locationId,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.getCheapestAvailableLodges(locationId, limit), pricingService::currentLodgePrice));
+    }
+
+    // Lodges rated at least minRating, best first
+    @GetMapping("/rating")
+    public ResponseEntity<List<LodgeDto>> getLodgesByRating(@RequestParam Double minRating, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> LodgeDto.fromList(lodgeService.getLodgesByRating(minRating), pricingService::currentLodgePrice));
+    }
+
+    // Average list price per night of a location's lodges
+    @GetMapping("/average-price")
+    public ResponseEntity<Double> getAveragePrice(@RequestParam Long locationId, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> lodgeService.calculateAveragePriceByLocation(locationId));
+    }
+
+    // Lodges near a point or a location, nearest first
+    @GetMapping("/nearby")
+    public ResponseEntity<List<LodgeDto>> getNearbyLodges(
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(required = false) Long locationId,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer minRooms,
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request, () -> {
+            List<NearbyLodge> lodges = locationId != null
+                    ? lodgeService.findNearLocation(locationId, radiusKm, maxPrice, minRooms, limit)
+                    : lodgeService.findNearby(lat, lon, radiusKm, maxPrice, minRooms, limit);
+            return toDtos(lodges);
+        });
+    }
+
+    // Lodges inside a bounding box, nearest to its center first
+    @GetMapping("/within")
+    public ResponseEntity<List<LodgeDto>> getLodgesWithin(
+            @RequestParam Double minLat,
+            @RequestParam Double minLon,
+            @RequestParam Double maxLat,
+            @RequestParam Double maxLon,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer minRooms,
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> toDtos(lodgeService.findWithin(minLat, minLon, maxLat, maxLon, maxPrice, minRooms, limit)));
+    }
+
+    // The k lodges nearest to a point
+    @GetMapping("/nearest")
+    public ResponseEntity<List<LodgeDto>> getNearestLodges(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer minRooms,
+            WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.LODGES), request,
+                () -> toDtos(lodgeService.findNearest(lat, lon, k, maxPrice, minRooms)));
     }
 
     // Update lodge (admin)
     @PutMapping("/{id}")
-    public ResponseEntity<Lodge> updateLodge(@PathVariable Long id, @RequestBody Lodge lodge) {
+    public ResponseEntity<LodgeDto> updateLodge(@PathVariable Long id, @RequestBody Lodge lodge) {
         Lodge updatedLodge = lodgeService.updateLodge(id, lodge);
-        return new ResponseEntity<>(updatedLodge, HttpStatus.OK);
+        return new ResponseEntity<>(LodgeDto.from(updatedLodge), HttpStatus.OK);
     }
 
     // Delete lodge (admin)
@@ -95,4 +210,11 @@ public class LodgeController {
         lodgeService.deleteLodge(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    private List<LodgeDto> toDtos(List<NearbyLodge> lodges) {
+        return lodges.stream()
+                .map(nearby -> LodgeDto.from(nearby.lodge(), pricingService.currentLodgePrice(nearby.lodge()),
+                        Math.round(nearby.distanceKm() * 1000) / 1000.0))
+                .toList();
+    }
 }
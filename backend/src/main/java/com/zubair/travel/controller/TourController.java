@@ -1,71 +1,120 @@
 package com.zubair.travel.controller;
 
+import com.zubair.travel.dto.TourDto;
 import com.zubair.travel.entity.Tour;
 import com.zubair.travel.service.TourService;
+import com.zubair.travel.service.CatalogSnapshotPublisher;
+import com.zubair.travel.service.CatalogSnapshotPublisher.SnapshotKey;
+import com.zubair.travel.service.CatalogVersionService;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.PricingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/tours")
-@CrossOrigin(origins = "*")
 public class TourController {
 
     @Autowired
     private TourService tourService;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private CatalogSnapshotPublisher catalogSnapshotPublisher;
+
+    @Autowired
+    private PricingService pricingService;
+
     // Create new tour (admin)
     @PostMapping
-    public ResponseEntity<Tour> createTour(@RequestBody Tour tour) {
+    public ResponseEntity<TourDto> createTour(@RequestBody Tour tour) {
         Tour createdTour = tourService.createTour(tour);
-        return new ResponseEntity<>(createdTour, HttpStatus.CREATED);
+        return new ResponseEntity<>(TourDto.from(createdTour), HttpStatus.CREATED);
     }
 
     // Get all tours
     @GetMapping
-    public ResponseEntity<List<Tour>> getAllTours() {
-        List<Tour> tours = tourService.getAllTours();
-        return new ResponseEntity<>(tours, HttpStatus.OK);
+    public ResponseEntity<List<TourDto>> getAllTours(WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TOURS), request,
+                () -> TourDto.fromList(tourService.getAllTours(), pricingService::currentTourPrice));
     }
 
     // Get tour by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Tour> getTourById(@PathVariable Long id) {
+    public ResponseEntity<TourDto> getTourById(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.entityStamp(Catalog.TOURS, id), request, () -> {
+            Tour tour = tourService.getTourWithAvailableSeats(id);
+            return TourDto.from(tour, pricingService.currentTourPrice(tour));
+        });
+    }
+
+    // Quote the current price for a number of seats; the token holds it for createBooking
+    @GetMapping("/{id}/quote")
+    public ResponseEntity<PricingService.Quote> quoteTour(@PathVariable Long id, @RequestParam(defaultValue = "1") int seats) {
         Tour tour = tourService.getTourById(id);
-        return new ResponseEntity<>(tour, HttpStatus.OK);
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(pricingService.quoteTour(tour, seats));
     }
 
     // Get tours by destination
     @GetMapping("/destination/{destination}")
-    public ResponseEntity<List<Tour>> getToursByDestination(@PathVariable String destination) {
-        List<Tour> tours = tourService.getToursByDestination(destination);
-        return new ResponseEntity<>(tours, HttpStatus.OK);
+    public ResponseEntity<List<TourDto>> getToursByDestination(@PathVariable String destination, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TOURS), request,
+                () -> TourDto.fromList(tourService.getToursByDestination(destination), pricingService::currentTourPrice));
     }
 
     // Get tours by price range
     @GetMapping("/price-range")
-    public ResponseEntity<List<Tour>> getToursByPriceRange(
+    public ResponseEntity<List<TourDto>> getToursByPriceRange(
             @RequestParam Double minPrice,
-            @RequestParam Double maxPrice) {
-        List<Tour> tours = tourService.getToursByPriceRange(minPrice, maxPrice);
-        return new ResponseEntity<>(tours, HttpStatus.OK);
+            @RequestParam Double maxPrice,
+            WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TOURS), request,
+                () -> TourDto.fromList(tourService.getToursByPriceRange(minPrice, maxPrice), pricingService::currentTourPrice));
     }
 
-    // Get available tours
-    @GetMapping("/available")
-    public ResponseEntity<List<Tour>> getAvailableTours() {
-        List<Tour> tours = tourService.getAvailableTours();
-        return new ResponseEntity<>(tours, HttpStatus.OK);
+    // Get available tours (served from a pre-rendered snapshot shared by all requests)
+    @GetMapping(value = "/available", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<byte[]> getAvailableTours(WebRequest request) {
+        CatalogSnapshotPublisher.Representation representation = catalogSnapshotPublisher
+                .getSnapshot(SnapshotKey.AVAILABLE_TOURS)
+                .select(request.getHeader(HttpHeaders.ACCEPT), request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (request.checkNotModified(representation.eTag(), representation.lastModified())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(representation.contentType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (representation.contentEncoding() != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, representation.contentEncoding());
+        }
+        return response.body(representation.body());
     }
 
     // Update tour (admin)
     @PutMapping("/{id}")
-    public ResponseEntity<Tour> updateTour(@PathVariable Long id, @RequestBody Tour tour) {
+    public ResponseEntity<TourDto> updateTour(@PathVariable Long id, @RequestBody Tour tour) {
         Tour updatedTour = tourService.updateTour(id, tour);
-        return new ResponseEntity<>(updatedTour, HttpStatus.OK);
+        return new ResponseEntity<>(TourDto.from(updatedTour), HttpStatus.OK);
+    }
+
+    // Split the seat inventory of a hot tour over N shard rows, 0 merges it back (admin)
+    @PutMapping("/{id}/inventory-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TourDto> setInventoryShards(@PathVariable Long id, @RequestParam int count) {
+        Tour tour = tourService.setInventoryShards(id, count);
+        return new ResponseEntity<>(TourDto.from(tour), HttpStatus.OK);
     }
 
     // Delete tour (admin)
@@ -77,8 +126,8 @@ public class TourController {
 
     // Search tours by keyword
     @GetMapping("/search")
-    public ResponseEntity<List<Tour>> searchTours(@RequestParam String keyword) {
-        List<Tour> tours = tourService.searchTours(keyword);
-        return new ResponseEntity<>(tours, HttpStatus.OK);
+    public ResponseEntity<List<TourDto>> searchTours(@RequestParam String keyword, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TOURS), request,
+                () -> TourDto.fromList(tourService.searchTours(keyword), pricingService::currentTourPrice));
     }
 }
@@ -1,22 +1,30 @@
 package com.zubair.travel.controller;
 
+import com.zubair.travel.dto.TransportSeatMapDto;
 import com.zubair.travel.entity.Transport;
 import com.zubair.travel.service.TransportService;
+import com.zubair.travel.service.route.TransportRoutes.Fare;
+import com.zubair.travel.service.CatalogVersionService;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/transports")
-@CrossOrigin(origins = "*")
 public class TransportController {
 
     @Autowired
     private TransportService transportService;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
     // Create new transport (admin)
     @PostMapping
     public ResponseEntity<Transport> createTransport(@RequestBody Transport transport) {
@@ -26,44 +34,71 @@ public class TransportController {
 
     // Get all transports
     @GetMapping
-    public ResponseEntity<List<Transport>> getAllTransports() {
-        List<Transport> transports = transportService.getAllTransports();
-        return new ResponseEntity<>(transports, HttpStatus.OK);
+    public ResponseEntity<List<Transport>> getAllTransports(WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TRANSPORTS), request,
+                () -> transportService.getAllTransports());
     }
 
     // Get transport by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Transport> getTransportById(@PathVariable Long id) {
-        Transport transport = transportService.getTransportById(id);
-        return new ResponseEntity<>(transport, HttpStatus.OK);
+    public ResponseEntity<Transport> getTransportById(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.entityStamp(Catalog.TRANSPORTS, id), request,
+                () -> transportService.getTransportById(id));
+    }
+
+    // Get the seat map of a transport with numbered seats
+    @GetMapping("/{id}/seats")
+    public ResponseEntity<TransportSeatMapDto> getSeatMap(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.entityStamp(Catalog.TRANSPORTS, id), request,
+                () -> TransportSeatMapDto.from(id, transportService.getSeatMap(id)));
+    }
+
+    // Transports between two locations, cheapest first
+    @GetMapping("/route")
+    public ResponseEntity<List<Transport>> getTransportsByRoute(@RequestParam Long from, @RequestParam Long to,
+                                                                WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TRANSPORTS), request,
+                () -> transportService.getTransportsByRoute(from, to));
+    }
+
+    // Cost and seats left of the transports between two locations, cheapest first
+    @GetMapping("/route/fares")
+    public ResponseEntity<List<Fare>> getRouteFares(
+            @RequestParam Long from,
+            @RequestParam Long to,
+            @RequestParam(required = false) Double maxCost,
+            @RequestParam(defaultValue = "1") int minSeats,
+            WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TRANSPORTS), request,
+                () -> transportService.getRouteFares(from, to, maxCost, minSeats));
     }
 
     // Get transports by type
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<Transport>> getTransportsByType(@PathVariable String type) {
-        List<Transport> transports = transportService.getTransportsByType(type);
-        return new ResponseEntity<>(transports, HttpStatus.OK);
+    public ResponseEntity<List<Transport>> getTransportsByType(@PathVariable String type, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TRANSPORTS), request,
+                () -> transportService.getTransportsByType(type));
     }
 
     // Get transports by tour ID
     @GetMapping("/tour/{tourId}")
-    public ResponseEntity<List<Transport>> getTransportsByTourId(@PathVariable Long tourId) {
-        List<Transport> transports = transportService.getTransportsByTourId(tourId);
-        return new ResponseEntity<>(transports, HttpStatus.OK);
+    public ResponseEntity<List<Transport>> getTransportsByTourId(@PathVariable Long tourId, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TRANSPORTS), request,
+                () -> transportService.getTransportsByTourId(tourId));
     }
 
     // Get available transports
     @GetMapping("/available")
-    public ResponseEntity<List<Transport>> getAvailableTransports() {
-        List<Transport> transports = transportService.getAvailableTransports();
-        return new ResponseEntity<>(transports, HttpStatus.OK);
+    public ResponseEntity<List<Transport>> getAvailableTransports(WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TRANSPORTS), request,
+                () -> transportService.getAvailableTransports());
     }
 
     // Search transports by keyword
     @GetMapping("/search")
-    public ResponseEntity<List<Transport>> searchTransports(@RequestParam String keyword) {
-        List<Transport> transports = transportService.searchTransports(keyword);
-        return new ResponseEntity<>(transports, HttpStatus.OK);
+    public ResponseEntity<List<Transport>> searchTransports(@RequestParam String keyword, WebRequest request) {
+        return ConditionalResponses.ifModified(catalogVersionService.collectionStamp(Catalog.TRANSPORTS), request,
+                () -> transportService.searchTransports(keyword));
     }
 
     // Update transport (admin)
@@ -73,6 +108,14 @@ public class TransportController {
         return new ResponseEntity<>(updatedTransport, HttpStatus.OK);
     }
 
+    // Number the seats of a transport in rows, 0 removes the seat map (admin)
+    @PutMapping("/{id}/seat-map")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Transport> setSeatMap(@PathVariable Long id, @RequestParam int seatsPerRow) {
+        Transport updatedTransport = transportService.setSeatMap(id, seatsPerRow);
+        return new ResponseEntity<>(updatedTransport, HttpStatus.OK);
+    }
+
     // Delete transport (admin)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTransport(@PathVariable Long id) {
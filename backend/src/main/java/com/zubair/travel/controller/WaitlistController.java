@@ -0,0 +1,60 @@
+package com.zubair.travel.controller;
+
+import com.zubair.travel.dto.WaitlistEntryDto;
+import com.zubair.travel.dto.WaitlistRequest;
+import com.zubair.travel.entity.WaitlistEntry;
+import com.zubair.travel.service.WaitlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/bookings/waitlist")
+public class WaitlistController {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    // Join the waitlist of a sold-out tour; promoted entries become PENDING bookings
+    @PostMapping
+    public ResponseEntity<WaitlistEntryDto> joinWaitlist(@RequestBody WaitlistRequest request) {
+        WaitlistEntry entry = waitlistService.join(request.userId(), request.tourId(), request.seats());
+        return new ResponseEntity<>(toDto(entry), HttpStatus.CREATED);
+    }
+
+    // Get waitlist entry with its queue position
+    @GetMapping("/{id}")
+    public ResponseEntity<WaitlistEntryDto> getWaitlistEntry(@PathVariable Long id) {
+        return new ResponseEntity<>(toDto(waitlistService.getEntryById(id)), HttpStatus.OK);
+    }
+
+    // Get a user's waiting entries
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<WaitlistEntryDto>> getWaitlistEntriesByUser(@PathVariable Long userId) {
+        List<WaitlistEntryDto> entries = waitlistService.getWaitingEntriesByUser(userId).stream()
+                .map(this::toDto)
+                .toList();
+        return new ResponseEntity<>(entries, HttpStatus.OK);
+    }
+
+    // Leave the waitlist
+    @DeleteMapping("/{id}")
+    public ResponseEntity<WaitlistEntryDto> cancelWaitlistEntry(@PathVariable Long id) {
+        return new ResponseEntity<>(toDto(waitlistService.cancel(id)), HttpStatus.OK);
+    }
+
+    // Move an entry ahead of or behind others (admin)
+    @PutMapping("/{id}/priority")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<WaitlistEntryDto> setWaitlistPriority(@PathVariable Long id, @RequestParam int value) {
+        return new ResponseEntity<>(toDto(waitlistService.setPriority(id, value)), HttpStatus.OK);
+    }
+
+    private WaitlistEntryDto toDto(WaitlistEntry entry) {
+        return WaitlistEntryDto.from(entry, waitlistService.getPosition(entry));
+    }
+}
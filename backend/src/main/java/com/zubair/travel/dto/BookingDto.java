@@ -0,0 +1,55 @@
+package com.zubair.travel.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.service.seating.SeatMap;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Wire representation of a booking. The user and tour are flattened to their ids (plus the
+ * tour name) instead of embedding the full entities and their User.bookings / Tour.bookings
+ * back-references. The lodge and transport fields are only set for package bookings, the
+ * transport seat numbers only on transports with numbered seats.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookingDto(
+        Long id,
+        Long userId,
+        Long tourId,
+        String tourName,
+        LocalDateTime bookingDate,
+        Integer totalPassengers,
+        BigDecimal totalAmount,
+        String status,
+        Long lodgeId,
+        Integer lodgeRooms,
+        Integer lodgeNights,
+        Long transportId,
+        Integer transportSeats,
+        int[] transportSeatNumbers) {
+
+    public static BookingDto from(Booking booking) {
+        return new BookingDto(
+                booking.getId(),
+                booking.getUser() != null ? booking.getUser().getId() : null,
+                booking.getTour() != null ? booking.getTour().getId() : null,
+                booking.getTour() != null ? booking.getTour().getName() : null,
+                booking.getBookingDate(),
+                booking.getTotalPassengers(),
+                booking.getTotalAmount(),
+                booking.getStatus(),
+                booking.getLodge() != null ? booking.getLodge().getId() : null,
+                booking.getLodgeRooms(),
+                booking.getLodgeNights(),
+                booking.getTransport() != null ? booking.getTransport().getId() : null,
+                booking.getTransportSeats(),
+                booking.getTransportSeatNumbers() != null ? SeatMap.parse(booking.getTransportSeatNumbers()) : null);
+    }
+
+    public static List<BookingDto> fromList(List<Booking> bookings) {
+        return bookings.stream().map(BookingDto::from).toList();
+    }
+}
@@ -0,0 +1,43 @@
+package com.zubair.travel.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zubair.travel.entity.BookingSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Wire representation of a dashboard row from the booking summary read model; paymentStatus is
+ * left out until a payment exists for the booking.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookingSummaryDto(
+        Long bookingId,
+        Long userId,
+        String tourName,
+        LocalDate tourDate,
+        LocalDateTime bookingDate,
+        Integer totalPassengers,
+        BigDecimal totalAmount,
+        String status,
+        String paymentStatus) {
+
+    public static BookingSummaryDto from(BookingSummary summary) {
+        return new BookingSummaryDto(
+                summary.getBookingId(),
+                summary.getUserId(),
+                summary.getTourName(),
+                summary.getTourDate(),
+                summary.getBookingDate(),
+                summary.getTotalPassengers(),
+                summary.getTotalAmount(),
+                summary.getStatus(),
+                summary.getPaymentStatus());
+    }
+
+    public static List<BookingSummaryDto> fromList(List<BookingSummary> summaries) {
+        return summaries.stream().map(BookingSummaryDto::from).toList();
+    }
+}
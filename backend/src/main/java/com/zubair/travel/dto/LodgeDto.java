@@ -0,0 +1,56 @@
+package com.zubair.travel.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zubair.travel.entity.Lodge;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Wire representation of a lodge, omitting null fields. {@code currentPricePerNight} is the
+ * occupancy-adjusted price of PricingService; {@code distanceKm} is only set on proximity
+ * search results.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LodgeDto(
+        Long id,
+        String name,
+        String address,
+        Double pricePerNight,
+        Double currentPricePerNight,
+        String description,
+        Integer availableRooms,
+        Double latitude,
+        Double longitude,
+        Double distanceKm) {
+
+    public static LodgeDto from(Lodge lodge) {
+        return from(lodge, null);
+    }
+
+    public static LodgeDto from(Lodge lodge, Double currentPricePerNight) {
+        return from(lodge, currentPricePerNight, null);
+    }
+
+    public static LodgeDto from(Lodge lodge, Double currentPricePerNight, Double distanceKm) {
+        return new LodgeDto(
+                lodge.getId(),
+                lodge.getName(),
+                lodge.getAddress(),
+                lodge.getPricePerNight(),
+                currentPricePerNight,
+                lodge.getDescription(),
+                lodge.getAvailableRooms(),
+                lodge.getLatitude(),
+                lodge.getLongitude(),
+                distanceKm);
+    }
+
+    public static List<LodgeDto> fromList(List<Lodge> lodges) {
+        return lodges.stream().map(LodgeDto::from).toList();
+    }
+
+    public static List<LodgeDto> fromList(List<Lodge> lodges, Function<Lodge, Double> currentPricePerNight) {
+        return lodges.stream().map(lodge -> from(lodge, currentPricePerNight.apply(lodge))).toList();
+    }
+}
@@ -0,0 +1,21 @@
+package com.zubair.travel.dto;
+
+import java.util.List;
+
+/**
+ * Body of POST /api/bookings/package: tour seats plus, optionally, lodge rooms for a number
+ * of nights (default 1) and transport seats (default one per person). On a transport with
+ * numbered seats, transportSeatNumbers picks the seats; without them the group is seated together.
+ */
+public record PackageBookingRequest(
+        Long userId,
+        Long tourId,
+        Integer people,
+        String quoteToken,
+        Long lodgeId,
+        Integer rooms,
+        Integer nights,
+        Long transportId,
+        Integer transportSeats,
+        List<Integer> transportSeatNumbers) {
+}
@@ -0,0 +1,52 @@
+package com.zubair.travel.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zubair.travel.entity.Tour;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Wire representation of a tour. Leaves out the Tour.bookings back-reference and any null fields.
+ * {@code price} is the list price, {@code currentPrice} the occupancy-adjusted price of PricingService.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TourDto(
+        Long id,
+        String name,
+        String description,
+        String fromLocation,
+        String toLocation,
+        LocalDate date,
+        Double price,
+        Double currentPrice,
+        Integer availableSeats,
+        String guide) {
+
+    public static TourDto from(Tour tour) {
+        return from(tour, null);
+    }
+
+    public static TourDto from(Tour tour, Double currentPrice) {
+        return new TourDto(
+                tour.getId(),
+                tour.getName(),
+                tour.getDescription(),
+                tour.getFromLocation(),
+                tour.getToLocation(),
+                tour.getDate(),
+                tour.getPrice(),
+                currentPrice,
+                tour.getAvailableSeats(),
+                tour.getGuide());
+    }
+
+    public static List<TourDto> fromList(List<Tour> tours) {
+        return tours.stream().map(TourDto::from).toList();
+    }
+
+    public static List<TourDto> fromList(List<Tour> tours, Function<Tour, Double> currentPrice) {
+        return tours.stream().map(tour -> from(tour, currentPrice.apply(tour))).toList();
+    }
+}
@@ -0,0 +1,24 @@
+package com.zubair.travel.dto;
+
+import com.zubair.travel.service.seating.SeatMap;
+
+/**
+ * Wire representation of a transport's numbered seats; seat 1 is the first seat of the
+ * first row and takenSeats lists the seats already sold, ascending.
+ */
+public record TransportSeatMapDto(
+        Long transportId,
+        Integer seats,
+        Integer seatsPerRow,
+        Integer available,
+        int[] takenSeats) {
+
+    public static TransportSeatMapDto from(Long transportId, SeatMap seatMap) {
+        return new TransportSeatMapDto(
+                transportId,
+                seatMap.seats(),
+                seatMap.seatsPerRow(),
+                seatMap.available(),
+                seatMap.takenSeats());
+    }
+}
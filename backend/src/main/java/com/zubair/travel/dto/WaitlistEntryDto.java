@@ -0,0 +1,36 @@
+package com.zubair.travel.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zubair.travel.entity.WaitlistEntry;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wire representation of a waitlist entry; position is the number of waiting entries
+ * ahead of it and only set while it is WAITING.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WaitlistEntryDto(
+        Long id,
+        Long tourId,
+        Long userId,
+        Integer seats,
+        Integer priority,
+        String status,
+        LocalDateTime createdAt,
+        Long bookingId,
+        Long position) {
+
+    public static WaitlistEntryDto from(WaitlistEntry entry, Long position) {
+        return new WaitlistEntryDto(
+                entry.getId(),
+                entry.getTourId(),
+                entry.getUserId(),
+                entry.getSeats(),
+                entry.getPriority(),
+                entry.getStatus(),
+                entry.getCreatedAt(),
+                entry.getBookingId(),
+                position);
+    }
+}
@@ -0,0 +1,7 @@
+package com.zubair.travel.dto;
+
+/**
+ * Body of POST /api/bookings/waitlist.
+ */
+public record WaitlistRequest(Long userId, Long tourId, Integer seats) {
+}
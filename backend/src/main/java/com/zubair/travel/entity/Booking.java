@@ -37,4 +37,31 @@ public class Booking {
     
     @Column(name = "status", nullable = false)
     private String status;
+
+    // Package bookings only: the lodge rooms and transport seats reserved with the tour seats
+
+    @ManyToOne
+    @JoinColumn(name = "lodge_id")
+    private Lodge lodge;
+
+    @Column(name = "lodge_rooms")
+    private Integer lodgeRooms;
+
+    @Column(name = "lodge_nights")
+    private Integer lodgeNights;
+
+    @ManyToOne
+    @JoinColumn(name = "transport_id")
+    private Transport transport;
+
+    @Column(name = "transport_seats")
+    private Integer transportSeats;
+
+    // Seat numbers on a seat-mapped transport, as "12,13,14"
+    @Column(name = "transport_seat_numbers", length = 1024)
+    private String transportSeatNumbers;
+
+    // Token of a PricingService quote, only read when the booking is created
+    @Transient
+    private String quoteToken;
 }
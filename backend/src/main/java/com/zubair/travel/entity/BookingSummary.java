@@ -0,0 +1,53 @@
+package com.zubair.travel.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized, per-user view of a booking for the user dashboard.
+ * Maintained by BookingSummaryService from booking and payment state changes,
+ * so the dashboard is served by a single indexed query without joins.
+ */
+@Entity
+@Table(name = "booking_summaries", indexes = {
+        @Index(name = "idx_booking_summaries_user_date", columnList = "user_id, booking_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSummary {
+
+    @Id
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "tour_name")
+    private String tourName;
+
+    @Column(name = "tour_date")
+    private LocalDate tourDate;
+
+    @Column(name = "booking_date", nullable = false)
+    private LocalDateTime bookingDate;
+
+    @Column(name = "total_passengers")
+    private Integer totalPassengers;
+
+    @Column(name = "total_amount")
+    private BigDecimal totalAmount;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "payment_status")
+    private String paymentStatus;
+}
@@ -22,9 +22,20 @@ public class Location {
     @Column(columnDefinition = "TEXT")
     private String description;
     
+    private String city;
+    
     @Column(nullable = false)
     private String state;
     
     @Column(nullable = false)
     private String country;
+    
+    // WGS84 degrees, the center for "lodges near this location"
+    private Double latitude;
+    
+    private Double longitude;
+    
+    // Free text; a location listing any is one of the popular locations
+    @Column(columnDefinition = "TEXT")
+    private String popularAttractions;
 }
@@ -22,6 +22,24 @@ public class Lodge {
     @Column(columnDefinition = "TEXT")
     private String description;
     
+    @Column(nullable = false)
+    private Integer totalRooms = 0;
+    
+    @Column(nullable = false)
+    private Integer availableRooms = 0;
+    
+    // WGS84 degrees; lodges without coordinates aren't found by the proximity searches
+    private Double latitude;
+    
+    private Double longitude;
+    
+    // Guest rating from 0 to 5, null while unrated
+    private Double rating;
+    
+    @ManyToOne
+    @JoinColumn(name = "location_id")
+    private Location location;
+    
     // Constructors
     public Lodge() {
     }
@@ -73,4 +91,52 @@ public class Lodge {
     public void setDescription(String description) {
         this.description = description;
     }
+    
+    public Integer getTotalRooms() {
+        return totalRooms;
+    }
+    
+    public void setTotalRooms(Integer totalRooms) {
+        this.totalRooms = totalRooms;
+    }
+    
+    public Integer getAvailableRooms() {
+        return availableRooms;
+    }
+    
+    public void setAvailableRooms(Integer availableRooms) {
+        this.availableRooms = availableRooms;
+    }
+    
+    public Double getLatitude() {
+        return latitude;
+    }
+    
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+    
+    public Double getLongitude() {
+        return longitude;
+    }
+    
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+    
+    public Double getRating() {
+        return rating;
+    }
+    
+    public void setRating(Double rating) {
+        this.rating = rating;
+    }
+    
+    public Location getLocation() {
+        return location;
+    }
+    
+    public void setLocation(Location location) {
+        this.location = location;
+    }
 }
@@ -1,5 +1,6 @@
 package com.zubair.travel.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -40,8 +41,17 @@ public class Tour {
     @Column(nullable = false)
     private Integer availableSeats;
 
+    // Seat capacity, for occupancy-based pricing
+    @Column(nullable = false)
+    private Integer totalSeats = 0;
+
+    // Number of inventory shards holding the seats, 0 when availableSeats is the counter
+    @Column(nullable = false)
+    private Integer inventoryShards = 0;
+
     private String guide;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "tour", cascade = CascadeType.ALL)
     private List<Booking> bookings;
 }
@@ -0,0 +1,31 @@
+package com.zubair.travel.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One sub-counter of a sharded tour's seat inventory.
+ * The tour's available seats are the sum over its shards; see TourInventoryShardService.
+ */
+@Entity
+@Table(name = "tour_inventory_shards")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourInventoryShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tour_id", nullable = false)
+    private Long tourId;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(name = "available_seats", nullable = false)
+    private Integer availableSeats;
+}
@@ -1,5 +1,6 @@
 package com.zubair.travel.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -21,4 +22,26 @@ public class Transport {
     private Double pricePerTicket;
     
     private String description;
+
+    // Route ends, null until set; route searches only find transports with both
+    @ManyToOne
+    @JoinColumn(name = "from_location_id")
+    private Location fromLocation;
+
+    @ManyToOne
+    @JoinColumn(name = "to_location_id")
+    private Location toLocation;
+    
+    @Column(nullable = false)
+    private Integer capacity = 0;
+    
+    @Column(nullable = false)
+    private Integer availableSeats = 0;
+
+    // Numbered seats (SeatMap), null when seats are only counted; served by GET /api/transports/{id}/seats
+    private Integer seatsPerRow;
+
+    @JsonIgnore
+    @Column(length = 2048)
+    private byte[] seatMap;
 }
@@ -0,0 +1,49 @@
+package com.zubair.travel.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A request for seats on a sold-out tour, queued until seats are released.
+ * Status moves from WAITING to PROMOTED (with the created PENDING booking) or CANCELLED.
+ */
+@Entity
+@Table(name = "waitlist_entries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tour_id", nullable = false)
+    private Long tourId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer seats;
+
+    // Higher values are promoted first; entries of equal priority in arrival order
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "promoted_at")
+    private LocalDateTime promotedAt;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+}
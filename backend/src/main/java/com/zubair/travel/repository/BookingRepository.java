@@ -1,6 +1,7 @@
 package com.zubair.travel.repository;
 
 import com.zubair.travel.model.Booking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +12,7 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByUserId(Long userId);
     List<Booking> findByTourId(Long tourId);
     List<Booking> findByStatus(String status);
+
+    // Keyset page: the next bookings after the given id, in the pageable's order
+    List<Booking> findByIdGreaterThan(Long id, Pageable pageable);
 }
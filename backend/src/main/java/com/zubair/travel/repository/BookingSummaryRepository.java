@@ -0,0 +1,25 @@
+package com.zubair.travel.repository;
+
+import com.zubair.travel.entity.BookingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookingSummaryRepository extends JpaRepository<BookingSummary, Long> {
+    List<BookingSummary> findByUserIdOrderByBookingDateDesc(Long userId);
+
+    @Modifying
+    @Query("update BookingSummary s set s.paymentStatus = :paymentStatus where s.bookingId = :bookingId")
+    int updatePaymentStatus(@Param("bookingId") Long bookingId, @Param("paymentStatus") String paymentStatus);
+
+    // Summaries in (after, upTo] whose booking no longer exists, used by the rebuild; upTo null for no bound
+    @Modifying
+    @Query("delete from BookingSummary s where s.bookingId > :after and (:upTo is null or s.bookingId <= :upTo) " +
+           "and not exists (select b.id from Booking b where b.id = s.bookingId)")
+    int deleteOrphans(@Param("after") Long after, @Param("upTo") Long upTo);
+}
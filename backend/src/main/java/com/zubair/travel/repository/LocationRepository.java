@@ -1,7 +1,10 @@
 package com.zubair.travel.repository;
 
 import com.zubair.travel.model.Location;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,10 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
     List<Location> findByCountry(String country);
     List<Location> findByCity(String city);
     List<Location> findByNameContainingIgnoreCase(String name);
+
+    // id, country, state, city and whether attractions are listed, by id after afterId; hierarchy index rebuild only
+    @Query("select l.id, l.country, l.state, l.city, case when (l.popularAttractions is not null "
+            + "and trim(l.popularAttractions) <> '') then true else false end from Location l "
+            + "where l.id > :afterId order by l.id")
+    List<Object[]> findHierarchyInputs(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -1,14 +1,48 @@
 package com.zubair.travel.repository;
 
 import com.zubair.travel.model.Lodge;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LodgeRepository extends JpaRepository<Lodge, Long> {
     List<Lodge> findByLocationId(Long locationId);
     List<Lodge> findByType(String type);
     List<Lodge> findByAvailableTrue();
+    List<Lodge> findByPricePerNightBetween(Double minPrice, Double maxPrice);
+
+    // id, availableRooms, totalRooms of every lodge; pricing refresh only
+    @Query("select l.id, l.availableRooms, l.totalRooms from Lodge l")
+    List<Object[]> findPricingInputs();
+
+    // id, latitude, longitude, pricePerNight, availableRooms of lodges with coordinates; geo index rebuild only
+    @Query("select l.id, l.latitude, l.longitude, l.pricePerNight, l.availableRooms from Lodge l "
+            + "where l.latitude is not null and l.longitude is not null")
+    List<Object[]> findGeoInputs();
+
+    // findGeoInputs for one lodge, empty if it's gone or has no coordinates; remote changes only
+    @Query("select l.id, l.latitude, l.longitude, l.pricePerNight, l.availableRooms from Lodge l "
+            + "where l.id = :id and l.latitude is not null and l.longitude is not null")
+    List<Object[]> findGeoInputsById(@Param("id") Long id);
+
+    // id, location id, rating, pricePerNight, availableRooms of every lodge; ranking index rebuild only
+    @Query("select l.id, loc.id, l.rating, l.pricePerNight, l.availableRooms from Lodge l left join l.location loc")
+    List<Object[]> findRankingInputs();
+
+    // findRankingInputs for one lodge, empty if it's gone; remote changes only
+    @Query("select l.id, loc.id, l.rating, l.pricePerNight, l.availableRooms from Lodge l left join l.location loc "
+            + "where l.id = :id")
+    List<Object[]> findRankingInputsById(@Param("id") Long id);
+
+    // Row lock taken by PackageBookingService after the tour's and before the transport's
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Lodge l where l.id = :id")
+    Optional<Lodge> lockById(@Param("id") Long id);
 }
@@ -2,14 +2,26 @@ package com.zubair.travel.repository;
 
 import com.zubair.travel.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByTransactionId(String transactionId);
-    List<Payment> findByBookingId(Long bookingId);
+
+    // The booking association is mapped as bookingReference, so this can't be a derived query
+    @Query("select p from Payment p where p.bookingReference.id = :bookingId")
+    List<Payment> findByBookingId(@Param("bookingId") Long bookingId);
+
     List<Payment> findByPaymentStatus(String paymentStatus);
+
+    // [bookingId, paymentStatus] pairs, oldest first so the latest payment wins when folded
+    @Query("select p.bookingReference.id, p.paymentStatus from Payment p " +
+           "where p.bookingReference.id in :bookingIds order by p.paymentDate")
+    List<Object[]> findPaymentStatusesByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
 }
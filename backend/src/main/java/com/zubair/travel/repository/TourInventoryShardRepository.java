@@ -0,0 +1,44 @@
+package com.zubair.travel.repository;
+
+import com.zubair.travel.entity.TourInventoryShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TourInventoryShardRepository extends JpaRepository<TourInventoryShard, Long> {
+
+    @Modifying
+    @Query("update TourInventoryShard s set s.availableSeats = s.availableSeats - :seats "
+            + "where s.tourId = :tourId and s.shardIndex = :shardIndex and s.availableSeats >= :seats")
+    int takeSeats(@Param("tourId") Long tourId, @Param("shardIndex") int shardIndex, @Param("seats") int seats);
+
+    @Modifying
+    @Query("update TourInventoryShard s set s.availableSeats = s.availableSeats + :seats "
+            + "where s.tourId = :tourId and s.shardIndex = :shardIndex")
+    int giveSeats(@Param("tourId") Long tourId, @Param("shardIndex") int shardIndex, @Param("seats") int seats);
+
+    @Query("select coalesce(sum(s.availableSeats), 0) from TourInventoryShard s where s.tourId = :tourId")
+    long sumAvailableSeats(@Param("tourId") Long tourId);
+
+    @Query("select s.tourId, sum(s.availableSeats) from TourInventoryShard s where s.tourId in :tourIds group by s.tourId")
+    List<Object[]> sumAvailableSeatsByTourIds(@Param("tourIds") Collection<Long> tourIds);
+
+    List<TourInventoryShard> findByTourIdOrderByShardIndex(Long tourId);
+
+    // Always locks in shard order, so concurrent rebalances can't deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from TourInventoryShard s where s.tourId = :tourId order by s.shardIndex")
+    List<TourInventoryShard> lockByTourId(@Param("tourId") Long tourId);
+
+    @Modifying
+    @Query("delete from TourInventoryShard s where s.tourId = :tourId")
+    int deleteByTourId(@Param("tourId") Long tourId);
+}
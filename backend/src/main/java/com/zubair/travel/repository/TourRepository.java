@@ -1,14 +1,47 @@
 package com.zubair.travel.repository;
 
 import com.zubair.travel.model.Tour;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TourRepository extends JpaRepository<Tour, Long> {
     List<Tour> findByLocationId(Long locationId);
     List<Tour> findByNameContainingIgnoreCase(String name);
     List<Tour> findByAvailableTrue();
+    List<Tour> findByDateBetween(LocalDate from, LocalDate to);
+    List<Tour> findByPriceBetween(Double minPrice, Double maxPrice);
+    List<Tour> findByAvailableSeatsGreaterThan(Integer seats);
+
+    @Query("select t.id from Tour t where t.inventoryShards > 0")
+    List<Long> findShardedTourIds();
+
+    // id, availableSeats, totalSeats, date, inventoryShards of the tours still to run; pricing refresh only
+    @Query("select t.id, t.availableSeats, t.totalSeats, t.date, t.inventoryShards from Tour t where t.date >= :from")
+    List<Object[]> findPricingInputs(@Param("from") LocalDate from);
+
+    // Seat counter of an unsharded tour, changed in place so no update is lost; 0 rows if the seats
+    // aren't there or the tour has been sharded meanwhile
+    @Modifying
+    @Query("update Tour t set t.availableSeats = t.availableSeats - :seats "
+            + "where t.id = :id and t.inventoryShards = 0 and t.availableSeats >= :seats")
+    int takeSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    @Modifying
+    @Query("update Tour t set t.availableSeats = t.availableSeats + :seats where t.id = :id and t.inventoryShards = 0")
+    int giveSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    // Row lock for PackageBookingService and resharding; a package locks its tour, then its lodge, then its transport
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Tour t where t.id = :id")
+    Optional<Tour> lockById(@Param("id") Long id);
 }
@@ -1,14 +1,35 @@
 package com.zubair.travel.repository;
 
 import com.zubair.travel.model.Transport;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransportRepository extends JpaRepository<Transport, Long> {
     List<Transport> findByType(String type);
     List<Transport> findByTourId(Long tourId);
     List<Transport> findByAvailableTrue();
+
+    // id, from location id, to location id, pricePerTicket, availableSeats of every priced transport; route index rebuild only
+    @Query("select t.id, origin.id, destination.id, t.pricePerTicket, t.availableSeats from Transport t "
+            + "left join t.fromLocation origin left join t.toLocation destination where t.pricePerTicket is not null")
+    List<Object[]> findRouteInputs();
+
+    // findRouteInputs for one transport, empty if it's gone or unpriced; remote changes only
+    @Query("select t.id, origin.id, destination.id, t.pricePerTicket, t.availableSeats from Transport t "
+            + "left join t.fromLocation origin left join t.toLocation destination "
+            + "where t.id = :id and t.pricePerTicket is not null")
+    List<Object[]> findRouteInputsById(@Param("id") Long id);
+
+    // Row lock taken last by PackageBookingService, after the tour and lodge rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Transport t where t.id = :id")
+    Optional<Transport> lockById(@Param("id") Long id);
 }
@@ -0,0 +1,30 @@
+package com.zubair.travel.repository;
+
+import com.zubair.travel.entity.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // The next entries to promote, locked so concurrent releases promote disjoint entries
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from WaitlistEntry w where w.tourId = :tourId and w.status = 'WAITING' "
+            + "order by w.priority desc, w.id")
+    List<WaitlistEntry> lockHead(@Param("tourId") Long tourId, Pageable pageable);
+
+    @Query("select count(w) from WaitlistEntry w where w.tourId = :tourId and w.status = 'WAITING' "
+            + "and (w.priority > :priority or (w.priority = :priority and w.id < :id))")
+    long countAhead(@Param("tourId") Long tourId, @Param("priority") int priority, @Param("id") Long id);
+
+    List<WaitlistEntry> findByUserIdAndStatus(Long userId, String status);
+
+    boolean existsByTourIdAndUserIdAndStatus(Long tourId, Long userId, String status);
+}
@@ -6,10 +6,14 @@ import com.zubair.travel.entity.Tour;
 import com.zubair.travel.repository.BookingRepository;
 import com.zubair.travel.repository.UserRepository;
 import com.zubair.travel.repository.TourRepository;
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import com.zubair.travel.service.seating.SeatMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +34,21 @@ public class BookingService {
     @Autowired
     private TourService tourService;
 
+    @Autowired
+    private LodgeService lodgeService;
+
+    @Autowired
+    private TransportService transportService;
+
+    @Autowired
+    private BookingSummaryService bookingSummaryService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private QuoteCalculator quoteCalculator;
+
     // CRUD Operations
 
     public Booking createBooking(Booking booking) {
@@ -45,15 +64,21 @@ public class BookingService {
             throw new BookingNotAvailableException("Tour is not available for " + booking.getNumberOfPeople() + " people");
         }
         
+        // Multiplier table lookup (or the quoted price), no pricing query
+        Money unitPrice = pricingService.unitPriceForBooking(tour, booking.getNumberOfPeople(), booking.getQuoteToken());
+        
         booking.setUser(user);
         booking.setTour(tour);
+        booking.setTotalAmount(quoteCalculator.tourBooking(unitPrice, booking.getNumberOfPeople()).total().toBigDecimal());
         booking.setBookingDate(LocalDateTime.now());
         booking.setStatus("PENDING");
         
         // Reserve seats
         tourService.bookSeat(tour.getId(), booking.getNumberOfPeople());
         
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingSummaryService.refresh(savedBooking);
+        return savedBooking;
     }
 
     public Booking getBookingById(Long id) {
@@ -72,8 +97,11 @@ public class BookingService {
             throw new BookingUpdateNotAllowedException("Cannot update a " + booking.getStatus() + " booking");
         }
         
-        // If number of people changed, adjust seats
+        // If number of people changed, adjust seats and reprice the booking
         if (!booking.getNumberOfPeople().equals(bookingDetails.getNumberOfPeople())) {
+            if (booking.getLodge() != null || booking.getTransport() != null) {
+                throw new BookingUpdateNotAllowedException("Cannot change the number of people of a package booking");
+            }
             int difference = bookingDetails.getNumberOfPeople() - booking.getNumberOfPeople();
             if (difference > 0) {
                 tourService.bookSeat(booking.getTour().getId(), difference);
@@ -81,11 +109,16 @@ public class BookingService {
                 tourService.releaseSeat(booking.getTour().getId(), Math.abs(difference));
             }
             booking.setNumberOfPeople(bookingDetails.getNumberOfPeople());
+            // At today's price: a quote only holds for the seats it was made for
+            Money unitPrice = pricingService.tourUnitPrice(booking.getTour());
+            booking.setTotalAmount(quoteCalculator.tourBooking(unitPrice, booking.getNumberOfPeople()).total().toBigDecimal());
         }
         
         booking.setSpecialRequests(bookingDetails.getSpecialRequests());
         
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingSummaryService.refresh(savedBooking);
+        return savedBooking;
     }
 
     public void deleteBooking(Long id) {
@@ -96,10 +129,11 @@ public class BookingService {
         
         // Release seats if booking was pending
         if ("PENDING".equals(booking.getStatus())) {
-            tourService.releaseSeat(booking.getTour().getId(), booking.getNumberOfPeople());
+            releaseInventory(booking);
         }
         
         bookingRepository.delete(booking);
+        bookingSummaryService.remove(id);
     }
 
     // Main Business Flows
@@ -128,7 +162,9 @@ public class BookingService {
         }
         
         booking.setStatus("CONFIRMED");
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingSummaryService.refresh(savedBooking);
+        return savedBooking;
     }
 
     public Booking cancelBooking(Long bookingId) {
@@ -138,11 +174,13 @@ public class BookingService {
             throw new InvalidBookingStatusException("Booking is already cancelled");
         }
         
-        // Release seats
-        tourService.releaseSeat(booking.getTour().getId(), booking.getNumberOfPeople());
+        // Release seats, plus the rooms and transport seats of a package
+        releaseInventory(booking);
         
         booking.setStatus("CANCELLED");
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingSummaryService.refresh(savedBooking);
+        return savedBooking;
     }
 
     public List<Booking> getPendingBookings() {
@@ -153,11 +191,17 @@ public class BookingService {
         return bookingRepository.findByStatus("CONFIRMED");
     }
 
-    public Double calculateTotalRevenue() {
-        List<Booking> confirmedBookings = getConfirmedBookings();
-        return confirmedBookings.stream()
-                .mapToDouble(booking -> booking.getTour().getPrice() * booking.getNumberOfPeople())
-                .sum();
+    /**
+     * Sum of the amounts the confirmed bookings were charged, exact to the cent.
+     */
+    public BigDecimal calculateTotalRevenue() {
+        long total = 0;
+        for (Booking booking : getConfirmedBookings()) {
+            if (booking.getTotalAmount() != null) {
+                total = Math.addExact(total, Money.of(booking.getTotalAmount()).minorUnits());
+            }
+        }
+        return Money.ofMinor(total).toBigDecimal();
     }
 
     public Integer getTotalBookingCount() {
@@ -168,6 +212,19 @@ public class BookingService {
         return getBookingsByUser(userId).size();
     }
 
+    // Same tour, lodge, transport order as PackageBookingService takes its row locks in
+    private void releaseInventory(Booking booking) {
+        tourService.releaseSeat(booking.getTour().getId(), booking.getNumberOfPeople());
+        if (booking.getLodge() != null) {
+            lodgeService.releaseRoom(booking.getLodge().getId(), booking.getLodgeRooms());
+        }
+        if (booking.getTransport() != null && booking.getTransportSeatNumbers() != null) {
+            transportService.releaseTransportSeats(booking.getTransport().getId(), SeatMap.parse(booking.getTransportSeatNumbers()));
+        } else if (booking.getTransport() != null) {
+            transportService.releaseTransportSeat(booking.getTransport().getId(), booking.getTransportSeats());
+        }
+    }
+
     // Validation
 
     private void validateBooking(Booking booking) {
@@ -0,0 +1,156 @@
+package com.zubair.travel.service;
+
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.BookingSummary;
+import com.zubair.travel.repository.BookingRepository;
+import com.zubair.travel.repository.BookingSummaryRepository;
+import com.zubair.travel.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the booking_summaries read model behind the user dashboard.
+ * BookingService and PaymentService call into this service inside their own transactions,
+ * so a summary row always commits (or rolls back) together with the change it reflects.
+ */
+@Service
+@Transactional
+public class BookingSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingSummaryService.class);
+
+    @Autowired
+    private BookingSummaryRepository bookingSummaryRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.booking-summary.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    // Queries
+
+    @Transactional(readOnly = true)
+    public List<BookingSummary> getSummariesByUser(Long userId) {
+        return bookingSummaryRepository.findByUserIdOrderByBookingDateDesc(userId);
+    }
+
+    // Maintenance
+
+    public BookingSummary refresh(Booking booking) {
+        String paymentStatus = bookingSummaryRepository.findById(booking.getId())
+                .map(BookingSummary::getPaymentStatus)
+                .orElse(null);
+        return bookingSummaryRepository.save(toSummary(booking, paymentStatus));
+    }
+
+    public void updatePaymentStatus(Long bookingId, String paymentStatus) {
+        bookingSummaryRepository.updatePaymentStatus(bookingId, paymentStatus);
+    }
+
+    // Re-reads the status of the booking's latest payment, null once it has none
+    public void refreshPaymentStatus(Long bookingId) {
+        String paymentStatus = null;
+        for (Object[] row : paymentRepository.findPaymentStatusesByBookingIds(List.of(bookingId))) {
+            paymentStatus = (String) row[1];
+        }
+        bookingSummaryRepository.updatePaymentStatus(bookingId, paymentStatus);
+    }
+
+    public void remove(Long bookingId) {
+        if (bookingSummaryRepository.existsById(bookingId)) {
+            bookingSummaryRepository.deleteById(bookingId);
+        }
+    }
+
+    // Rebuild Job
+
+    /**
+     * Recomputes the whole read model from the bookings and payments tables, one keyset page of
+     * bookings per transaction. Each page upserts its summaries and drops the summaries of deleted
+     * bookings in its id range, so readers always see a complete dashboard; runs nightly to repair
+     * any drift and can be triggered by an admin.
+     */
+    @Scheduled(cron = "${app.booking-summary.rebuild-cron:0 30 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long rebuild() {
+        TransactionTemplate pageTransaction = new TransactionTemplate(transactionManager);
+        long rebuilt = 0;
+        long lastId = 0;
+        while (true) {
+            long after = lastId;
+            List<Long> bookingIds = pageTransaction.execute(status -> rebuildPage(after));
+            if (bookingIds.isEmpty()) {
+                break;
+            }
+            rebuilt += bookingIds.size();
+            lastId = bookingIds.get(bookingIds.size() - 1);
+        }
+        long end = lastId;
+        // Past the last booking only orphans are left, bookings created meanwhile keep their summaries
+        pageTransaction.executeWithoutResult(status -> bookingSummaryRepository.deleteOrphans(end, null));
+
+        logger.info("Rebuilt " + rebuilt + " booking summaries");
+        return rebuilt;
+    }
+
+    // Upserts the summaries of the next page of bookings after the given id and returns their ids
+    private List<Long> rebuildPage(long after) {
+        List<Booking> bookings = bookingRepository.findByIdGreaterThan(after,
+                PageRequest.of(0, rebuildBatchSize, Sort.by("id")));
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+        List<Long> bookingIds = bookings.stream().map(Booking::getId).toList();
+        Map<Long, String> paymentStatuses = new HashMap<>();
+        for (Object[] row : paymentRepository.findPaymentStatusesByBookingIds(bookingIds)) {
+            paymentStatuses.put((Long) row[0], (String) row[1]);
+        }
+        // save merges by booking id: existing rows are updated in place, missing ones inserted
+        bookingSummaryRepository.saveAll(bookings.stream()
+                .map(booking -> toSummary(booking, paymentStatuses.get(booking.getId())))
+                .toList());
+        bookingSummaryRepository.deleteOrphans(after, bookingIds.get(bookingIds.size() - 1));
+        bookingSummaryRepository.flush();
+        entityManager.clear();
+        return bookingIds;
+    }
+
+    private BookingSummary toSummary(Booking booking, String paymentStatus) {
+        return new BookingSummary(
+                booking.getId(),
+                booking.getUser().getId(),
+                booking.getTour().getName(),
+                booking.getTour().getDate(),
+                booking.getBookingDate(),
+                booking.getTotalPassengers(),
+                booking.getTotalAmount(),
+                booking.getStatus(),
+                paymentStatus);
+    }
+}
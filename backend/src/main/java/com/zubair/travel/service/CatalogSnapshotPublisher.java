@@ -0,0 +1,282 @@
+package com.zubair.travel.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zubair.travel.dto.LodgeDto;
+import com.zubair.travel.dto.TourDto;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.CatalogVersionService.CatalogChangedEvent;
+import com.zubair.travel.service.CatalogVersionService.Stamp;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Renders the hot anonymous catalog responses once per change into immutable byte arrays
+ * (JSON, gzipped JSON and CBOR) so the controllers can hand the same buffer to every
+ * request instead of re-serializing the entity lists. Regeneration runs on a background
+ * thread and is debounced, so a burst of seat changes costs a single render.
+ */
+@Service
+public class CatalogSnapshotPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotPublisher.class);
+
+    public enum SnapshotKey {
+        AVAILABLE_TOURS(Catalog.TOURS),
+        AVAILABLE_LODGES(Catalog.LODGES);
+
+        private final Catalog catalog;
+
+        SnapshotKey(Catalog catalog) {
+            this.catalog = catalog;
+        }
+    }
+
+    @Autowired
+    private TourService tourService;
+
+    @Autowired
+    private LodgeService lodgeService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.catalog.snapshot.debounce-ms:250}")
+    private long debounceMs;
+
+    private final Map<SnapshotKey, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final Map<SnapshotKey, AtomicBoolean> pendingRenders = new EnumMap<>(SnapshotKey.class);
+
+    private final ScheduledExecutorService renderExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogSnapshotPublisher() {
+        for (SnapshotKey key : SnapshotKey.values()) {
+            pendingRenders.put(key, new AtomicBoolean());
+        }
+    }
+
+    // Serving
+
+    /**
+     * Returns the current snapshot, rendering it on the caller's thread only if nothing
+     * has been published yet (e.g. a request arriving before the startup render finished).
+     */
+    public Snapshot getSnapshot(SnapshotKey key) {
+        Snapshot snapshot = snapshots.get(key);
+        return snapshot != null ? snapshot : render(key);
+    }
+
+    // Regeneration
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void renderAll() {
+        for (SnapshotKey key : SnapshotKey.values()) {
+            scheduleRender(key, 0);
+        }
+    }
+
+    // Remote events included, which is how writes on other replicas reach the snapshots
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        for (SnapshotKey key : SnapshotKey.values()) {
+            if (key.catalog.shownWith().contains(event.catalog())) {
+                scheduleRender(key, debounceMs);
+            }
+        }
+    }
+
+    private void scheduleRender(SnapshotKey key, long delayMs) {
+        AtomicBoolean pending = pendingRenders.get(key);
+        if (pending.compareAndSet(false, true)) {
+            renderExecutor.schedule(() -> {
+                // Cleared before rendering so changes committed meanwhile schedule another pass
+                pending.set(false);
+                try {
+                    render(key);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to render catalog snapshot " + key + ": " + e.getMessage(), e);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Snapshot render(SnapshotKey key) {
+        // Captured before the read so the stamp is never newer than the data it labels
+        Stamp stamp = catalogVersionService.collectionStamp(key.catalog);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Object body = transactionTemplate.execute(status -> load(key));
+        byte[] json = serialize(objectMapper, body);
+        byte[] cbor = serialize(cborConverter.getObjectMapper(), body);
+
+        Snapshot snapshot = new Snapshot(
+                new Representation(json, MediaType.APPLICATION_JSON, null, stamp.eTag(), stamp.lastModified()),
+                new Representation(gzip(json), MediaType.APPLICATION_JSON, "gzip", variantETag(stamp, "gzip"), stamp.lastModified()),
+                new Representation(cbor, MediaType.APPLICATION_CBOR, null, variantETag(stamp, "cbor"), stamp.lastModified()));
+        snapshots.put(key, snapshot);
+        return snapshot;
+    }
+
+    private Object load(SnapshotKey key) {
+        return switch (key) {
+            case AVAILABLE_TOURS -> TourDto.fromList(tourService.getAvailableTours(), pricingService::currentTourPrice);
+            case AVAILABLE_LODGES -> LodgeDto.fromList(lodgeService.getAvailableLodges(), pricingService::currentLodgePrice);
+        };
+    }
+
+    private static byte[] serialize(ObjectMapper mapper, Object body) {
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new SnapshotRenderException("Could not serialize catalog snapshot", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // Each representation needs its own strong ETag, e.g. "tours-42-L7" becomes "tours-42-L7-gzip"
+    private static String variantETag(Stamp stamp, String variant) {
+        return stamp.withVariant(variant).eTag();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * The pre-rendered representations of one catalog response.
+     */
+    public record Snapshot(Representation json, Representation gzipJson, Representation cbor) {
+
+        public Representation select(String accept, String acceptEncoding) {
+            if (prefersCbor(accept)) {
+                return cbor;
+            }
+            if (codingQuality(acceptEncoding, "gzip") > 0) {
+                return gzipJson;
+            }
+            return json;
+        }
+
+        // CBOR only when asked for with a higher quality than JSON, so */* and ties stay on JSON
+        private static boolean prefersCbor(String accept) {
+            if (accept == null) {
+                return false;
+            }
+            List<MediaType> types;
+            try {
+                types = MediaType.parseMediaTypes(accept);
+            } catch (InvalidMediaTypeException e) {
+                return false;
+            }
+            double cborQuality = 0;
+            double jsonQuality = 0;
+            for (MediaType type : types) {
+                if (type.includes(MediaType.APPLICATION_CBOR)) {
+                    cborQuality = Math.max(cborQuality, type.getQualityValue());
+                }
+                if (type.includes(MediaType.APPLICATION_JSON)) {
+                    jsonQuality = Math.max(jsonQuality, type.getQualityValue());
+                }
+            }
+            return cborQuality > 0 && cborQuality > jsonQuality;
+        }
+
+        // The q value Accept-Encoding gives a content coding, listed or through *; 0 if it isn't acceptable
+        private static double codingQuality(String acceptEncoding, String coding) {
+            if (acceptEncoding == null) {
+                return 0;
+            }
+            double wildcard = 0;
+            for (String element : acceptEncoding.split(",")) {
+                String[] parts = element.split(";");
+                String name = parts[0].trim();
+                double quality = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                        try {
+                            quality = Double.parseDouble(parameter.substring(2).trim());
+                        } catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+                if (name.equalsIgnoreCase(coding)) {
+                    return quality;
+                }
+                if (name.equals("*")) {
+                    wildcard = quality;
+                }
+            }
+            return wildcard;
+        }
+    }
+
+    /**
+     * An immutable pre-rendered response body. The array is shared by all requests and must
+     * never be modified.
+     */
+    public record Representation(byte[] body, MediaType contentType, String contentEncoding,
+                                 String eTag, long lastModified) {
+    }
+
+    // Business Exceptions
+
+    public static class SnapshotRenderException extends RuntimeException {
+        public SnapshotRenderException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
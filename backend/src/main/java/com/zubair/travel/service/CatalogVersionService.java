@@ -0,0 +1,398 @@
+package com.zubair.travel.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version stamps for the catalog collections (tours, lodges, transports, locations)
+ * and their individual entities. Services touch a stamp whenever they change catalog
+ * data, and controllers turn the stamps into strong ETags / Last-Modified headers so
+ * conditional GETs can be answered with 304 before the catalog query or serialization runs.
+ *
+ * The versions live in the catalog_versions table, so every replica hands out the same
+ * stamps, but they are read from memory: the catalog rows and the recently asked for entity
+ * rows are cached, and a poll brings in what other replicas wrote. Touches are collected and
+ * written every flush interval, one version per catalog and flush however many entities
+ * changed, so bookings never wait for the stamp row. A stamp therefore lags a change by up to
+ * the flush interval here and the poll interval on other replicas. Tours, lodges and
+ * transports are served with their locations, so their stamps also carry the locations version.
+ */
+@Service
+public class CatalogVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersionService.class);
+
+    // Response formats of the catalog endpoints, in the message converters' order of preference
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            new MediaType("application", "x-jackson-smile"));
+
+    private static final Version NEVER_CHANGED = new Version(0, 0);
+
+    public enum Catalog {
+        TOURS, LODGES, TRANSPORTS, LOCATIONS;
+
+        /**
+         * The catalogs whose data is part of this one's responses, itself included.
+         */
+        public Set<Catalog> shownWith() {
+            return this == LOCATIONS ? Set.of(LOCATIONS) : Set.of(this, LOCATIONS);
+        }
+    }
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.catalog.versions.max-cached-entities:100000}")
+    private int maxCachedEntities;
+
+    private TransactionTemplate flushTransaction;
+
+    // The entity_id 0 rows, replaced as flushes and polls see newer versions
+    private final Map<Catalog, Version> catalogVersions = new ConcurrentHashMap<>();
+
+    // Recently read entity rows, least recently used dropped first
+    private Map<Key, Version> entityVersions;
+
+    // Touched since the last flush
+    private final Set<Key> pending = ConcurrentHashMap.newKeySet();
+
+    // Highest version each catalog's poll has seen; poll thread only
+    private final Map<Catalog, Long> polledVersions = new EnumMap<>(Catalog.class);
+
+    // Versions written by this replica and not polled yet, which the poll doesn't report as remote
+    private final Map<Catalog, Set<Long>> ownVersions = new EnumMap<>(Catalog.class);
+
+    @PostConstruct
+    void init() {
+        flushTransaction = new TransactionTemplate(transactionManager);
+        entityVersions = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Version> eldest) {
+                return size() > maxCachedEntities;
+            }
+        });
+        for (Catalog catalog : Catalog.values()) {
+            ownVersions.put(catalog, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    // Stamps
+
+    public Stamp collectionStamp(Catalog catalog) {
+        return stamp(catalog, null);
+    }
+
+    public Stamp entityStamp(Catalog catalog, Long id) {
+        return stamp(catalog, id);
+    }
+
+    private Stamp stamp(Catalog catalog, Long id) {
+        // An entity nobody changed yet has no row and version 0
+        Version version = id != null ? entityVersion(new Key(catalog, id)) : catalogVersion(catalog);
+        long updatedAt = version.updatedAt();
+        StringBuilder tag = new StringBuilder(48)
+                .append('"')
+                .append(catalog.name().toLowerCase())
+                .append('-');
+        if (id != null) {
+            tag.append(id).append('-');
+        }
+        tag.append(version.version());
+        for (Catalog shown : catalog.shownWith()) {
+            if (shown != catalog) {
+                Version shownVersion = catalogVersion(shown);
+                tag.append('-').append(shown.name().charAt(0)).append(shownVersion.version());
+                updatedAt = Math.max(updatedAt, shownVersion.updatedAt());
+            }
+        }
+        return new Stamp(tag.append('"').toString(), lastModified(updatedAt));
+    }
+
+    // HTTP dates have whole seconds, so a second is only handed out once no more changes can land in it
+    private static long lastModified(long updatedAt) {
+        long second = updatedAt - updatedAt % 1000;
+        return updatedAt > 0 && System.currentTimeMillis() >= second + 1000 ? second : -1;
+    }
+
+    private Version catalogVersion(Catalog catalog) {
+        Version version = catalogVersions.get(catalog);
+        if (version == null) {
+            // Only until the first poll or flush has loaded the catalog rows
+            for (Map.Entry<Catalog, Version> row : readCatalogRows().entrySet()) {
+                catalogVersions.merge(row.getKey(), row.getValue(), CatalogVersionService::newer);
+            }
+            version = catalogVersions.getOrDefault(catalog, NEVER_CHANGED);
+        }
+        return version;
+    }
+
+    private Version entityVersion(Key key) {
+        Version version = entityVersions.get(key);
+        if (version == null) {
+            List<Version> rows = jdbcTemplate.query("SELECT version, updated_at FROM catalog_versions "
+                    + "WHERE catalog = ? AND entity_id = ?", (rs, rowNum) -> new Version(rs.getLong(1), rs.getLong(2)),
+                    key.catalog().name(), key.entityId());
+            // Merged, so a newer version a poll or flush cached meanwhile wins
+            version = entityVersions.merge(key, rows.isEmpty() ? NEVER_CHANGED : rows.get(0), CatalogVersionService::newer);
+        }
+        return version;
+    }
+
+    // Change tracking
+
+    /**
+     * Records a change to a catalog entity, or to the catalog as a whole for a null id. Inside a
+     * transaction the change is only queued after commit, so a client can never receive a new
+     * ETag together with stale data.
+     */
+    public void touch(Catalog catalog, Long id) {
+        Key key = new Key(catalog, id != null ? id : 0L);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.add(key);
+                }
+            });
+        } else {
+            pending.add(key);
+        }
+    }
+
+    /**
+     * Writes the queued touches, one new version per catalog, and publishes them locally.
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.versions.flush-ms:200}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Catalog, List<Long>> touched = new EnumMap<>(Catalog.class);
+        for (Iterator<Key> iterator = pending.iterator(); iterator.hasNext(); ) {
+            Key key = iterator.next();
+            // Removed before the write, so a touch arriving meanwhile is written next flush
+            iterator.remove();
+            touched.computeIfAbsent(key.catalog(), catalog -> new ArrayList<>()).add(key.entityId());
+        }
+        touched.forEach((catalog, ids) -> {
+            Version version;
+            try {
+                version = flushTransaction.execute(status -> write(catalog, ids));
+            } catch (DataAccessException e) {
+                logger.warn("Could not write the " + catalog + " stamp, retrying next flush: " + e.getMessage());
+                ids.forEach(id -> pending.add(new Key(catalog, id)));
+                return;
+            }
+            catalogVersions.merge(catalog, version, CatalogVersionService::newer);
+            for (Long id : ids) {
+                if (id != 0) {
+                    entityVersions.merge(new Key(catalog, id), version, CatalogVersionService::newer);
+                }
+                eventPublisher.publishEvent(new CatalogChangedEvent(catalog, id != 0 ? id : null, false));
+            }
+        });
+    }
+
+    private Version write(Catalog catalog, List<Long> ids) {
+        long now = System.currentTimeMillis();
+        // Locks the catalog row until commit, which serializes the flushes of all replicas per catalog
+        jdbcTemplate.update("UPDATE catalog_versions SET version = version + 1, updated_at = ? "
+                + "WHERE catalog = ? AND entity_id = 0", now, catalog.name());
+        long version = jdbcTemplate.queryForObject("SELECT version FROM catalog_versions "
+                + "WHERE catalog = ? AND entity_id = 0", Long.class, catalog.name());
+        ownVersions.get(catalog).add(version);
+
+        // Changed entities take the catalog's new version
+        List<Long> entityIds = ids.stream().filter(id -> id != 0).toList();
+        if (!entityIds.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate("UPDATE catalog_versions SET version = ?, updated_at = ? "
+                    + "WHERE catalog = ? AND entity_id = ?",
+                    entityIds.stream().map(id -> new Object[]{version, now, catalog.name(), id}).toList());
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    inserts.add(new Object[]{catalog.name(), entityIds.get(i), version, now});
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO catalog_versions (catalog, entity_id, version, updated_at) "
+                        + "VALUES (?, ?, ?, ?)", inserts);
+            }
+        }
+        return new Version(version, now);
+    }
+
+    /**
+     * Picks up the versions other replicas wrote and publishes their changes as remote
+     * CatalogChangedEvents, which is how snapshots, streams and in-memory indexes learn of them.
+     * A listener that throws leaves the stamps as they were, and the next poll tries again.
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.versions.poll-ms:1000}")
+    public void poll() {
+        for (Catalog catalog : Catalog.values()) {
+            try {
+                poll(catalog);
+            } catch (RuntimeException e) {
+                // Nothing of this poll was taken over, so the next one reads the same changes again
+                logger.warn("Could not poll the " + catalog + " stamps: " + e.getMessage());
+            }
+        }
+    }
+
+    private void poll(Catalog catalog) {
+        Long after = polledVersions.get(catalog);
+        if (after == null) {
+            // First poll: start from the current version, earlier changes are already in the data
+            Version current = readCatalogRows().getOrDefault(catalog, NEVER_CHANGED);
+            catalogVersions.merge(catalog, current, CatalogVersionService::newer);
+            polledVersions.put(catalog, current.version());
+            return;
+        }
+        List<Object[]> rows = jdbcTemplate.query("SELECT entity_id, version, updated_at FROM catalog_versions "
+                + "WHERE catalog = ? AND version > ?", (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)},
+                catalog.name(), after);
+        Set<Long> own = ownVersions.get(catalog);
+        long polled = after;
+        boolean remote = false;
+        List<Long> remoteIds = new ArrayList<>();
+        for (Object[] row : rows) {
+            long entityId = (Long) row[0];
+            long version = (Long) row[1];
+            polled = Math.max(polled, version);
+            if (!own.contains(version)) {
+                remote = true;
+                if (entityId != 0) {
+                    remoteIds.add(entityId);
+                }
+            }
+        }
+
+        // Published before the new versions are handed out, so whatever listeners refresh in
+        // memory (the indexes) is current by the time a client sees the new ETag
+        remoteIds.forEach(id -> eventPublisher.publishEvent(new CatalogChangedEvent(catalog, id, true)));
+        if (remote && remoteIds.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(catalog, null, true));
+        }
+
+        for (Object[] row : rows) {
+            long entityId = (Long) row[0];
+            Version version = new Version((Long) row[1], (Long) row[2]);
+            if (entityId == 0) {
+                catalogVersions.merge(catalog, version, CatalogVersionService::newer);
+            } else {
+                entityVersions.merge(new Key(catalog, entityId), version, CatalogVersionService::newer);
+            }
+        }
+        long polledVersion = polled;
+        polledVersions.put(catalog, polledVersion);
+        own.removeIf(version -> version <= polledVersion);
+    }
+
+    private Map<Catalog, Version> readCatalogRows() {
+        Map<Catalog, Version> versions = new EnumMap<>(Catalog.class);
+        jdbcTemplate.query("SELECT catalog, version, updated_at FROM catalog_versions WHERE entity_id = 0",
+                rs -> {
+                    versions.put(Catalog.valueOf(rs.getString(1)), new Version(rs.getLong(2), rs.getLong(3)));
+                });
+        return versions;
+    }
+
+    private static Version newer(Version a, Version b) {
+        return b.version() > a.version() ? b : a;
+    }
+
+    private record Key(Catalog catalog, long entityId) {
+    }
+
+    private record Version(long version, long updatedAt) {
+    }
+
+    /**
+     * Pre-rendered strong ETag plus Last-Modified time, ready for WebRequest.checkNotModified.
+     * lastModified is -1 while the second of the latest change isn't over yet, which leaves the
+     * header out and validates by ETag alone.
+     */
+    public record Stamp(String eTag, long lastModified) {
+
+        /**
+         * This stamp for the format the Accept header negotiates. Catalog responses come as JSON,
+         * CBOR or Smile, and each needs its own strong ETag; JSON keeps the plain one.
+         */
+        public Stamp forAccept(String accept) {
+            MediaType format = negotiatedFormat(accept);
+            return format.equals(MediaType.APPLICATION_JSON) ? this : withVariant(format.getSubtype());
+        }
+
+        public Stamp withVariant(String variant) {
+            return new Stamp(eTag.substring(0, eTag.length() - 1) + '-' + variant + '"', lastModified);
+        }
+
+        // The format with the highest quality in Accept, JSON on ties or when Accept can't be parsed
+        private static MediaType negotiatedFormat(String accept) {
+            if (accept == null) {
+                return MediaType.APPLICATION_JSON;
+            }
+            List<MediaType> accepted;
+            try {
+                accepted = MediaType.parseMediaTypes(accept);
+            } catch (InvalidMediaTypeException e) {
+                return MediaType.APPLICATION_JSON;
+            }
+            MediaType best = MediaType.APPLICATION_JSON;
+            double bestQuality = -1;
+            for (MediaType format : FORMATS) {
+                double quality = 0;
+                for (MediaType type : accepted) {
+                    if (type.includes(format)) {
+                        quality = Math.max(quality, type.getQualityValue());
+                    }
+                }
+                if (quality > bestQuality) {
+                    best = format;
+                    bestQuality = quality;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Published once a committed change has been written to the stamps (remote false), or when
+     * the poll finds a change another replica wrote (remote true). id is null for changes to the
+     * catalog as a whole.
+     */
+    public record CatalogChangedEvent(Catalog catalog, Long id, boolean remote) {
+    }
+}
@@ -2,10 +2,16 @@ package com.zubair.travel.service;
 
 import com.zubair.travel.entity.Location;
 import com.zubair.travel.repository.LocationRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.geo.GeoGrid;
+import com.zubair.travel.service.location.LocationHierarchy;
+import com.zubair.travel.service.location.LocationHierarchy.Branch;
+import com.zubair.travel.service.location.LocationHierarchyIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,14 +19,25 @@ import java.util.Optional;
 @Transactional
 public class LocationService {
 
+    private static final int FETCH_BATCH_SIZE = 1000;
+
     @Autowired
     private LocationRepository locationRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private LocationHierarchyIndex locationHierarchyIndex;
+
     // CRUD Operations
 
     public Location createLocation(Location location) {
         validateLocation(location);
-        return locationRepository.save(location);
+        Location savedLocation = locationRepository.save(location);
+        catalogVersionService.touch(Catalog.LOCATIONS, savedLocation.getId());
+        locationHierarchyIndex.add(savedLocation);
+        return savedLocation;
     }
 
     public Location getLocationById(Long id) {
@@ -35,6 +52,7 @@ public class LocationService {
     public Location updateLocation(Long id, Location locationDetails) {
         Location location = getLocationById(id);
         validateLocation(locationDetails);
+        LocationHierarchy.Entry previous = LocationHierarchyIndex.entry(location);
         
         location.setName(locationDetails.getName());
         location.setCountry(locationDetails.getCountry());
@@ -44,13 +62,20 @@ public class LocationService {
         location.setClimate(locationDetails.getClimate());
         location.setBestTimeToVisit(locationDetails.getBestTimeToVisit());
         location.setPopularAttractions(locationDetails.getPopularAttractions());
+        location.setLatitude(locationDetails.getLatitude());
+        location.setLongitude(locationDetails.getLongitude());
         
-        return locationRepository.save(location);
+        catalogVersionService.touch(Catalog.LOCATIONS, id);
+        Location savedLocation = locationRepository.save(location);
+        locationHierarchyIndex.update(previous, savedLocation);
+        return savedLocation;
     }
 
     public void deleteLocation(Long id) {
         Location location = getLocationById(id);
         locationRepository.delete(location);
+        catalogVersionService.touch(Catalog.LOCATIONS, id);
+        locationHierarchyIndex.remove(location);
     }
 
     // Main Business Flows
@@ -59,21 +84,21 @@ public class LocationService {
         if (country == null || country.trim().isEmpty()) {
             throw new InvalidInputException("Country cannot be empty");
         }
-        return locationRepository.findByCountry(country);
+        return findAllById(locationHierarchyIndex.hierarchy().ids(country, null, null));
     }
 
     public List<Location> getLocationsByState(String state) {
         if (state == null || state.trim().isEmpty()) {
             throw new InvalidInputException("State cannot be empty");
         }
-        return locationRepository.findByState(state);
+        return findAllById(locationHierarchyIndex.hierarchy().idsByState(state));
     }
 
     public List<Location> getLocationsByCity(String city) {
         if (city == null || city.trim().isEmpty()) {
             throw new InvalidInputException("City cannot be empty");
         }
-        return locationRepository.findByCity(city);
+        return findAllById(locationHierarchyIndex.hierarchy().idsByCity(city));
     }
 
     public List<Location> searchLocationsByName(String keyword) {
@@ -92,10 +117,23 @@ public class LocationService {
 
     public List<Location> getPopularLocations() {
         // Returns locations that have popular attractions listed
-        return locationRepository.findAll().stream()
-                .filter(location -> location.getPopularAttractions() != null && 
-                                  !location.getPopularAttractions().trim().isEmpty())
-                .toList();
+        return findAllById(locationHierarchyIndex.hierarchy().popularIds());
+    }
+
+    /**
+     * Countries with their location counts, or the states of a country, or the cities of one of
+     * its states. Served from the hierarchy index, in name order.
+     */
+    public List<Branch> getLocationHierarchy(String country, String state) {
+        if (state != null && country == null) {
+            throw new InvalidInputException("Country is required to list the cities of a state");
+        }
+        LocationHierarchy hierarchy = locationHierarchyIndex.hierarchy();
+        if (country != null && hierarchy.count(country, state, null) == 0) {
+            throw new LocationNotFoundException(state == null ? "No locations in country: " + country
+                    : "No locations in state: " + state + ", " + country);
+        }
+        return hierarchy.children(country, state);
     }
 
     public Location getLocationByName(String name) {
@@ -122,7 +160,23 @@ public class LocationService {
     }
 
     public Long getLocationCountByCountry(String country) {
-        return (long) getLocationsByCountry(country).size();
+        if (country == null || country.trim().isEmpty()) {
+            throw new InvalidInputException("Country cannot be empty");
+        }
+        return (long) locationHierarchyIndex.hierarchy().count(country, null, null);
+    }
+
+    // Loads index ids in chunks to keep IN lists short; ids deleted since the index saw them are dropped
+    private List<Location> findAllById(long[] ids) {
+        List<Location> locations = new ArrayList<>(ids.length);
+        for (int from = 0; from < ids.length; from += FETCH_BATCH_SIZE) {
+            List<Long> batch = new ArrayList<>(Math.min(FETCH_BATCH_SIZE, ids.length - from));
+            for (int i = from; i < Math.min(ids.length, from + FETCH_BATCH_SIZE); i++) {
+                batch.add(ids[i]);
+            }
+            locations.addAll(locationRepository.findAllById(batch));
+        }
+        return locations;
     }
 
     // Validation
@@ -140,6 +194,12 @@ public class LocationService {
         if (location.getCity() == null || location.getCity().trim().isEmpty()) {
             throw new InvalidInputException("City is required");
         }
+        if ((location.getLatitude() == null) != (location.getLongitude() == null)) {
+            throw new InvalidInputException("Latitude and longitude must be given together");
+        }
+        if (location.getLatitude() != null && !GeoGrid.isValid(location.getLatitude(), location.getLongitude())) {
+            throw new InvalidInputException("Latitude must be between -90 and 90, longitude between -180 and 180");
+        }
     }
 
     // Business Exceptions
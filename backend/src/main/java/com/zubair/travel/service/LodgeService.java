@@ -4,12 +4,26 @@ import com.zubair.travel.entity.Lodge;
 import com.zubair.travel.entity.Location;
 import com.zubair.travel.repository.LodgeRepository;
 import com.zubair.travel.repository.LocationRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.geo.GeoGrid;
+import com.zubair.travel.service.geo.LodgeGeoIndex;
+import com.zubair.travel.service.ranking.LodgeRankingIndex;
+import com.zubair.travel.service.ranking.LodgeRankings;
+import com.zubair.travel.service.inventory.InventoryBackend;
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -21,6 +35,24 @@ public class LodgeService {
     @Autowired
     private LocationRepository locationRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private InventoryBackend inventoryBackend;
+
+    @Autowired
+    private LodgeGeoIndex lodgeGeoIndex;
+
+    @Autowired
+    private LodgeRankingIndex lodgeRankingIndex;
+
+    @Value("${app.geo.max-radius-km:500}")
+    private double maxRadiusKm;
+
+    @Value("${app.geo.max-results:100}")
+    private int maxResults;
+
     // CRUD Operations
 
     public Lodge createLodge(Lodge lodge) {
@@ -32,7 +64,11 @@ public class LodgeService {
             lodge.setLocation(location);
         }
         
-        return lodgeRepository.save(lodge);
+        Lodge savedLodge = lodgeRepository.save(lodge);
+        lodgeGeoIndex.put(savedLodge);
+        lodgeRankingIndex.put(savedLodge);
+        catalogVersionService.touch(Catalog.LODGES, savedLodge.getId());
+        return savedLodge;
     }
 
     public Lodge getLodgeById(Long id) {
@@ -57,6 +93,8 @@ public class LodgeService {
         lodge.setAvailableRooms(lodgeDetails.getAvailableRooms());
         lodge.setAmenities(lodgeDetails.getAmenities());
         lodge.setRating(lodgeDetails.getRating());
+        lodge.setLatitude(lodgeDetails.getLatitude());
+        lodge.setLongitude(lodgeDetails.getLongitude());
         
         if (lodgeDetails.getLocation() != null && lodgeDetails.getLocation().getId() != null) {
             Location location = locationRepository.findById(lodgeDetails.getLocation().getId())
@@ -64,12 +102,19 @@ public class LodgeService {
             lodge.setLocation(location);
         }
         
+        lodgeGeoIndex.put(lodge);
+        lodgeRankingIndex.put(lodge);
+        catalogVersionService.touch(Catalog.LODGES, id);
+        inventoryBackend.resync(Resource.LODGE, id);
         return lodgeRepository.save(lodge);
     }
 
     public void deleteLodge(Long id) {
         Lodge lodge = getLodgeById(id);
         lodgeRepository.delete(lodge);
+        lodgeGeoIndex.remove(id);
+        lodgeRankingIndex.remove(id);
+        catalogVersionService.touch(Catalog.LODGES, id);
     }
 
     // Main Business Flows
@@ -105,11 +150,14 @@ public class LodgeService {
         return lodgeRepository.findByNameContainingIgnoreCase(keyword);
     }
 
+    /**
+     * Lodges rated at least {@code minRating}, best first.
+     */
     public List<Lodge> getLodgesByRating(Double minRating) {
         if (minRating < 0 || minRating > 5) {
             throw new InvalidInputException("Rating must be between 0 and 5");
         }
-        return lodgeRepository.findByRatingGreaterThanEqual(minRating);
+        return findAllInOrder(lodgeRankingIndex.rankings().ratedAtLeast(minRating));
     }
 
     public Lodge bookRoom(Long lodgeId, int numberOfRooms) {
@@ -119,11 +167,27 @@ public class LodgeService {
             throw new InvalidInputException("Number of rooms must be positive");
         }
         
+        // Rooms of tracked lodges are taken in the inventory backend; the row is left to the reconciler
+        if (inventoryBackend.isTracked(Resource.LODGE, lodgeId)) {
+            long remaining = inventoryBackend.reserve(Resource.LODGE, lodgeId, numberOfRooms);
+            if (remaining < 0) {
+                throw new InsufficientRoomsException("Only " + inventoryBackend.available(Resource.LODGE, lodgeId)
+                        + " rooms available");
+            }
+            lodgeGeoIndex.updateRooms(lodgeId, remaining);
+            lodgeRankingIndex.updateRooms(lodgeId, remaining);
+            catalogVersionService.touch(Catalog.LODGES, lodgeId);
+            return lodge;
+        }
+        
         if (lodge.getAvailableRooms() < numberOfRooms) {
             throw new InsufficientRoomsException("Only " + lodge.getAvailableRooms() + " rooms available");
         }
         
         lodge.setAvailableRooms(lodge.getAvailableRooms() - numberOfRooms);
+        lodgeGeoIndex.updateRooms(lodgeId, lodge.getAvailableRooms());
+        lodgeRankingIndex.updateRooms(lodgeId, lodge.getAvailableRooms());
+        catalogVersionService.touch(Catalog.LODGES, lodgeId);
         return lodgeRepository.save(lodge);
     }
 
@@ -134,37 +198,217 @@ public class LodgeService {
             throw new InvalidInputException("Number of rooms must be positive");
         }
         
+        if (inventoryBackend.isTracked(Resource.LODGE, lodgeId)) {
+            long remaining = inventoryBackend.release(Resource.LODGE, lodgeId, numberOfRooms, lodge.getTotalRooms());
+            if (remaining < 0) {
+                throw new InvalidInputException("Cannot exceed total rooms of " + lodge.getTotalRooms());
+            }
+            lodgeGeoIndex.updateRooms(lodgeId, remaining);
+            lodgeRankingIndex.updateRooms(lodgeId, remaining);
+            catalogVersionService.touch(Catalog.LODGES, lodgeId);
+            return lodge;
+        }
+        
         int newAvailableRooms = lodge.getAvailableRooms() + numberOfRooms;
         if (newAvailableRooms > lodge.getTotalRooms()) {
             throw new InvalidInputException("Cannot exceed total rooms of " + lodge.getTotalRooms());
         }
         
         lodge.setAvailableRooms(newAvailableRooms);
+        lodgeGeoIndex.updateRooms(lodgeId, newAvailableRooms);
+        lodgeRankingIndex.updateRooms(lodgeId, newAvailableRooms);
+        catalogVersionService.touch(Catalog.LODGES, lodgeId);
         return lodgeRepository.save(lodge);
     }
 
     public boolean isLodgeAvailable(Long lodgeId, int numberOfRooms) {
         Lodge lodge = getLodgeById(lodgeId);
+        if (inventoryBackend.isTracked(Resource.LODGE, lodgeId)) {
+            return inventoryBackend.available(Resource.LODGE, lodgeId) >= numberOfRooms;
+        }
         return lodge.getAvailableRooms() >= numberOfRooms;
     }
 
+    public long getAvailableRoomCount(Long lodgeId) {
+        if (inventoryBackend.isTracked(Resource.LODGE, lodgeId)) {
+            return inventoryBackend.available(Resource.LODGE, lodgeId);
+        }
+        return getLodgeById(lodgeId).getAvailableRooms();
+    }
+
+    // Rankings
+
+    /**
+     * The best rated lodges overall, rated 4 or more, best first; unrated lodges are left out.
+     */
     public List<Lodge> getTopRatedLodges() {
-        return lodgeRepository.findByRatingGreaterThanEqual(4.0);
+        return getTopRatedLodges(null, lodgeRankingIndex.rankings().k()).stream()
+                .filter(lodge -> lodge.getRating() != null && lodge.getRating() >= 4.0)
+                .toList();
+    }
+
+    /**
+     * The {@code limit} best rated lodges of a location, or overall for a null location.
+     */
+    public List<Lodge> getTopRatedLodges(Long locationId, int limit) {
+        return findAllInOrder(ranked(locationId, limit, LodgeRankings.Snapshot::topRated));
+    }
+
+    /**
+     * The {@code limit} cheapest lodges with rooms available in a location, or overall for a
+     * null location.
+     */
+    public List<Lodge> getCheapestAvailableLodges(Long locationId, int limit) {
+        return findAllInOrder(ranked(locationId, limit, LodgeRankings.Snapshot::cheapestAvailable));
     }
 
     public Double calculateAveragePriceByLocation(Long locationId) {
-        List<Lodge> lodges = getLodgesByLocation(locationId);
-        if (lodges.isEmpty()) {
-            return 0.0;
+        LodgeRankings.Snapshot snapshot = lodgeRankingIndex.rankings().snapshot(locationId);
+        if (snapshot.count() == 0 && !locationRepository.existsById(locationId)) {
+            throw new LocationNotFoundException("Location not found with id: " + locationId);
+        }
+        return snapshot.averagePrice();
+    }
+
+    private List<Long> ranked(Long locationId, int limit, Function<LodgeRankings.Snapshot, long[]> ranking) {
+        LodgeRankings rankings = lodgeRankingIndex.rankings();
+        if (limit <= 0 || limit > rankings.k()) {
+            throw new InvalidInputException("Limit must be between 1 and " + rankings.k());
+        }
+        LodgeRankings.Snapshot snapshot = rankings.snapshot(locationId);
+        if (locationId != null && snapshot.count() == 0 && !locationRepository.existsById(locationId)) {
+            throw new LocationNotFoundException("Location not found with id: " + locationId);
+        }
+        long[] ids = ranking.apply(snapshot);
+        return Arrays.stream(ids, 0, Math.min(limit, ids.length)).boxed().toList();
+    }
+
+    // Lodges in the order of the ids; ids deleted since an index saw them are dropped
+    private List<Lodge> findAllInOrder(List<Long> ids) {
+        Map<Long, Lodge> lodges = findAllById(ids);
+        List<Lodge> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Lodge lodge = lodges.get(id);
+            if (lodge != null) {
+                ordered.add(lodge);
+            }
+        }
+        return ordered;
+    }
+
+    private Map<Long, Lodge> findAllById(Collection<Long> ids) {
+        return lodgeRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Lodge::getId, Function.identity()));
+    }
+
+    // Proximity Search
+
+    /**
+     * Lodges within {@code radiusKm} of a point, nearest first. {@code maxPrice} is compared
+     * with the list price per night, like getLodgesByPriceRange.
+     */
+    public List<NearbyLodge> findNearby(Double latitude, Double longitude, double radiusKm,
+                                        Double maxPrice, Integer minRooms, int limit) {
+        validateCoordinates(latitude, longitude);
+        validateRadius(radiusKm);
+        validateLimit(limit);
+        return load(lodgeGeoIndex.grid().withinRadius(latitude, longitude, radiusKm, filter(maxPrice, minRooms), limit));
+    }
+
+    /**
+     * Lodges within {@code radiusKm} of a location's coordinates, nearest first.
+     */
+    public List<NearbyLodge> findNearLocation(Long locationId, double radiusKm, Double maxPrice, Integer minRooms, int limit) {
+        Location location = locationRepository.findById(locationId)
+                .orElseThrow(() -> new LocationNotFoundException("Location not found with id: " + locationId));
+        if (location.getLatitude() == null || location.getLongitude() == null) {
+            throw new InvalidInputException("Location " + locationId + " has no coordinates");
+        }
+        return findNearby(location.getLatitude(), location.getLongitude(), radiusKm, maxPrice, minRooms, limit);
+    }
+
+    /**
+     * Lodges inside a bounding box, nearest to its center first. A box whose west edge is east
+     * of its east edge crosses the antimeridian.
+     */
+    public List<NearbyLodge> findWithin(Double minLatitude, Double minLongitude, Double maxLatitude, Double maxLongitude,
+                                        Double maxPrice, Integer minRooms, int limit) {
+        validateCoordinates(minLatitude, minLongitude);
+        validateCoordinates(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new InvalidInputException("Minimum latitude cannot exceed maximum latitude");
+        }
+        // Diagonal of the box, so it can't be used to page through the whole index
+        double spanKm = GeoGrid.distanceKm(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        if (spanKm > 2 * maxRadiusKm) {
+            throw new InvalidInputException("Box cannot span more than " + 2 * maxRadiusKm + " km");
+        }
+        validateLimit(limit);
+        return load(lodgeGeoIndex.grid().withinBox(minLatitude, minLongitude, maxLatitude, maxLongitude,
+                filter(maxPrice, minRooms), limit));
+    }
+
+    /**
+     * The {@code k} lodges nearest to a point, searching at most app.geo.max-radius-km away.
+     */
+    public List<NearbyLodge> findNearest(Double latitude, Double longitude, int k, Double maxPrice, Integer minRooms) {
+        validateCoordinates(latitude, longitude);
+        validateLimit(k);
+        return load(lodgeGeoIndex.grid().nearest(latitude, longitude, k, maxRadiusKm, filter(maxPrice, minRooms)));
+    }
+
+    private GeoGrid.Filter filter(Double maxPrice, Integer minRooms) {
+        if (maxPrice != null && maxPrice < 0) {
+            throw new InvalidInputException("Maximum price must be non-negative");
+        }
+        if (minRooms != null && minRooms < 0) {
+            throw new InvalidInputException("Minimum rooms cannot be negative");
         }
-        return lodges.stream()
-                .mapToDouble(Lodge::getPricePerNight)
-                .average()
-                .orElse(0.0);
+        return new GeoGrid.Filter(maxPrice != null ? maxPrice : Double.MAX_VALUE, minRooms != null ? minRooms : 0);
+    }
+
+    // Hits keep their order; lodges deleted since the index saw them are dropped
+    private List<NearbyLodge> load(List<GeoGrid.Hit> hits) {
+        Map<Long, Lodge> lodges = findAllById(hits.stream().map(GeoGrid.Hit::id).toList());
+        List<NearbyLodge> nearby = new ArrayList<>(hits.size());
+        for (GeoGrid.Hit hit : hits) {
+            Lodge lodge = lodges.get(hit.id());
+            if (lodge != null) {
+                nearby.add(new NearbyLodge(lodge, hit.distanceKm()));
+            }
+        }
+        return nearby;
+    }
+
+    /**
+     * A proximity search result: the lodge and its distance from the search point.
+     */
+    public record NearbyLodge(Lodge lodge, double distanceKm) {
     }
 
     // Validation
 
+    private void validateCoordinates(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            throw new InvalidInputException("Latitude and longitude are required");
+        }
+        if (!GeoGrid.isValid(latitude, longitude)) {
+            throw new InvalidInputException("Latitude must be between -90 and 90, longitude between -180 and 180");
+        }
+    }
+
+    private void validateRadius(double radiusKm) {
+        if (!(radiusKm > 0) || radiusKm > maxRadiusKm) {
+            throw new InvalidInputException("Radius must be between 0 and " + maxRadiusKm + " km");
+        }
+    }
+
+    private void validateLimit(int limit) {
+        if (limit <= 0 || limit > maxResults) {
+            throw new InvalidInputException("Limit must be between 1 and " + maxResults);
+        }
+    }
+
     private void validateLodge(Lodge lodge) {
         if (lodge == null) {
             throw new InvalidInputException("Lodge cannot be null");
@@ -193,6 +437,12 @@ public class LodgeService {
         if (lodge.getRating() != null && (lodge.getRating() < 0 || lodge.getRating() > 5)) {
             throw new InvalidInputException("Rating must be between 0 and 5");
         }
+        if ((lodge.getLatitude() == null) != (lodge.getLongitude() == null)) {
+            throw new InvalidInputException("Latitude and longitude must be given together");
+        }
+        if (lodge.getLatitude() != null && !GeoGrid.isValid(lodge.getLatitude(), lodge.getLongitude())) {
+            throw new InvalidInputException("Latitude must be between -90 and 90, longitude between -180 and 180");
+        }
     }
 
     // Business Exceptions
@@ -0,0 +1,371 @@
+package com.zubair.travel.service;
+
+import com.zubair.travel.dto.PackageBookingRequest;
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.Lodge;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.Transport;
+import com.zubair.travel.entity.User;
+import com.zubair.travel.repository.BookingRepository;
+import com.zubair.travel.repository.LodgeRepository;
+import com.zubair.travel.repository.TourRepository;
+import com.zubair.travel.repository.TransportRepository;
+import com.zubair.travel.repository.UserRepository;
+import com.zubair.travel.service.TransportService.SeatAllocation;
+import com.zubair.travel.service.inventory.InventoryBackend;
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import com.zubair.travel.service.money.QuoteCalculator.LineItem;
+import com.zubair.travel.service.seating.SeatMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Books a tour together with lodge rooms and transport seats, all or nothing.
+ *
+ * The components are first checked in parallel, each lookup on its own, so a package that
+ * can't be served is turned away before any lock is taken. The reservations then run in one
+ * transaction, always in InventoryBackend.Resource order (tour, lodge, transport), with the
+ * rows of untracked resources locked up front in that same order: two packages sharing a
+ * tour and a lodge queue behind each other instead of deadlocking. A component failing
+ * rolls the whole package back; the rows roll back with the transaction and the inventory
+ * backend hands back what it had already reserved in Redis for the tracked ones.
+ */
+@Service
+public class PackageBookingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackageBookingService.class);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private LodgeRepository lodgeRepository;
+
+    @Autowired
+    private TransportRepository transportRepository;
+
+    @Autowired
+    private TourService tourService;
+
+    @Autowired
+    private LodgeService lodgeService;
+
+    @Autowired
+    private TransportService transportService;
+
+    @Autowired
+    private InventoryBackend inventoryBackend;
+
+    @Autowired
+    private BookingSummaryService bookingSummaryService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private QuoteCalculator quoteCalculator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.package-booking.check-threads:8}")
+    private int checkThreads;
+
+    @Value("${app.package-booking.check-timeout-ms:2000}")
+    private long checkTimeoutMs;
+
+    private ExecutorService checks;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        checks = Executors.newFixedThreadPool(checkThreads, runnable -> {
+            Thread thread = new Thread(runnable, "package-check-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checks.shutdownNow();
+    }
+
+    // Package Booking
+
+    /**
+     * Reserves the tour seats, lodge rooms and transport seats of the request and creates one
+     * PENDING booking holding all of them, or reserves nothing.
+     */
+    public Booking bookPackage(PackageBookingRequest request) {
+        validateRequest(request);
+        List<Component> components = checkAvailability(request);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            Booking booking = transactionTemplate.execute(status -> reserve(request, components));
+            count("booked");
+            return booking;
+        } catch (RuntimeException e) {
+            count("rolled_back");
+            logger.info("Package booking of tour " + request.tourId() + " rolled back: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up every component at the same time, outside the booking transaction so the
+     * lookups don't wait for connections while it holds one. Fails on the first component,
+     * in resource order, that can't be served.
+     */
+    private List<Component> checkAvailability(PackageBookingRequest request) {
+        List<CompletableFuture<Component>> futures = new ArrayList<>(3);
+        futures.add(CompletableFuture.supplyAsync(() -> checkTour(request), checks));
+        if (request.lodgeId() != null) {
+            futures.add(CompletableFuture.supplyAsync(() -> checkLodge(request), checks));
+        }
+        if (request.transportId() != null) {
+            futures.add(CompletableFuture.supplyAsync(() -> checkTransport(request), checks));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(checkTimeoutMs);
+        List<Component> components = new ArrayList<>(futures.size());
+        for (CompletableFuture<Component> future : futures) {
+            Component component = await(future, deadline);
+            if (!component.available()) {
+                count("unavailable");
+                throw new PackageNotAvailableException(component.resource().key() + " " + component.id()
+                        + " is not available for " + component.quantity());
+            }
+            components.add(component);
+        }
+        components.sort(Comparator.comparing(Component::resource));
+        return components;
+    }
+
+    private Component checkTour(PackageBookingRequest request) {
+        Tour tour = tourService.getTourById(request.tourId());
+        // Sharded tours take seats with conditional shard updates and never need the tour row
+        boolean rowLocked = !inventoryBackend.isTracked(Resource.TOUR, tour.getId()) && tour.getInventoryShards() <= 0;
+        return new Component(Resource.TOUR, tour.getId(), request.people(),
+                tourService.isTourAvailable(tour.getId(), request.people()), rowLocked,
+                pricingService.unitPriceForBooking(tour, request.people(), request.quoteToken()));
+    }
+
+    private Component checkLodge(PackageBookingRequest request) {
+        Lodge lodge = lodgeService.getLodgeById(request.lodgeId());
+        return new Component(Resource.LODGE, lodge.getId(), request.rooms(),
+                lodgeService.getAvailableRoomCount(lodge.getId()) >= request.rooms(),
+                !inventoryBackend.isTracked(Resource.LODGE, lodge.getId()), pricingService.lodgeUnitPrice(lodge));
+    }
+
+    private Component checkTransport(PackageBookingRequest request) {
+        Transport transport = transportService.getTransportById(request.transportId());
+        int seats = transportSeats(request);
+        return new Component(Resource.TRANSPORT, transport.getId(), seats,
+                transportService.getAvailableSeatCount(transport.getId()) >= seats,
+                !inventoryBackend.isTracked(Resource.TRANSPORT, transport.getId()), Money.of(transport.getPricePerTicket()));
+    }
+
+    private Component await(CompletableFuture<Component> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PackageNotAvailableException("Availability could not be checked within " + checkTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PackageNotAvailableException("Interrupted while checking availability");
+        }
+    }
+
+    /**
+     * Runs inside the booking transaction. Every row lock is taken before the first
+     * reservation, so a package never holds one component's lock while waiting for an
+     * earlier one's.
+     */
+    private Booking reserve(PackageBookingRequest request, List<Component> components) {
+        User user = userRepository.findById(request.userId())
+                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + request.userId()));
+
+        for (Component component : components) {
+            if (component.rowLocked()) {
+                lock(component);
+            }
+        }
+
+        // Each call loads the row locked above, or reserves in the inventory backend for tracked ids
+        Tour tour = tourService.bookSeat(request.tourId(), request.people());
+        Lodge lodge = request.lodgeId() != null ? lodgeService.bookRoom(request.lodgeId(), request.rooms()) : null;
+        SeatAllocation seating = request.transportId() != null ? bookTransport(request) : null;
+
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setTour(tour);
+        booking.setNumberOfPeople(request.people());
+        if (lodge != null) {
+            booking.setLodge(lodge);
+            booking.setLodgeRooms(request.rooms());
+            booking.setLodgeNights(nights(request));
+        }
+        if (seating != null) {
+            booking.setTransport(seating.transport());
+            booking.setTransportSeats(transportSeats(request));
+            if (seating.seatNumbers() != null) {
+                booking.setTransportSeatNumbers(SeatMap.format(seating.seatNumbers()));
+            }
+        }
+        booking.setTotalAmount(total(request, components).toBigDecimal());
+        booking.setBookingDate(LocalDateTime.now());
+        booking.setStatus("PENDING");
+
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingSummaryService.refresh(savedBooking);
+        return savedBooking;
+    }
+
+    private SeatAllocation bookTransport(PackageBookingRequest request) {
+        if (request.transportSeatNumbers() != null) {
+            int[] seatNumbers = request.transportSeatNumbers().stream().mapToInt(Integer::intValue).toArray();
+            return transportService.bookTransportSeats(request.transportId(), seatNumbers);
+        }
+        return transportService.bookTransportSeats(request.transportId(), transportSeats(request));
+    }
+
+    private void lock(Component component) {
+        switch (component.resource()) {
+            case TOUR -> tourRepository.lockById(component.id());
+            case LODGE -> lodgeRepository.lockById(component.id());
+            case TRANSPORT -> transportRepository.lockById(component.id());
+        }
+    }
+
+    // One line item per component, priced when it was checked
+    private Money total(PackageBookingRequest request, List<Component> components) {
+        List<LineItem> items = new ArrayList<>(components.size());
+        for (Component component : components) {
+            items.add(switch (component.resource()) {
+                case TOUR -> LineItem.tourSeats(component.unitPrice(), component.quantity());
+                case LODGE -> LineItem.lodgeNights(component.unitPrice(), component.quantity(), nights(request));
+                case TRANSPORT -> LineItem.transportTickets(component.unitPrice(), component.quantity());
+            });
+        }
+        return quoteCalculator.calculate(items, 0).total();
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("bookings.package", "outcome", outcome).increment();
+    }
+
+    private static int nights(PackageBookingRequest request) {
+        return request.nights() != null ? request.nights() : 1;
+    }
+
+    private static int transportSeats(PackageBookingRequest request) {
+        if (request.transportSeatNumbers() != null) {
+            return request.transportSeatNumbers().size();
+        }
+        return request.transportSeats() != null ? request.transportSeats() : request.people();
+    }
+
+    /**
+     * A checked component: its availability when checked, whether its database row has to be
+     * locked to reserve it, and its unit price.
+     */
+    private record Component(Resource resource, Long id, int quantity, boolean available, boolean rowLocked,
+                             Money unitPrice) {
+    }
+
+    // Validation
+
+    private void validateRequest(PackageBookingRequest request) {
+        if (request == null) {
+            throw new InvalidInputException("Package booking cannot be null");
+        }
+        if (request.userId() == null || request.tourId() == null) {
+            throw new InvalidInputException("User and tour are required");
+        }
+        if (request.people() == null || request.people() <= 0) {
+            throw new InvalidInputException("Number of people must be positive");
+        }
+        if (request.lodgeId() == null && (request.rooms() != null || request.nights() != null)) {
+            throw new InvalidInputException("Rooms and nights need a lodge");
+        }
+        if (request.lodgeId() != null && (request.rooms() == null || request.rooms() <= 0)) {
+            throw new InvalidInputException("Number of rooms must be positive");
+        }
+        if (request.nights() != null && request.nights() <= 0) {
+            throw new InvalidInputException("Number of nights must be positive");
+        }
+        if (request.transportId() == null && (request.transportSeats() != null || request.transportSeatNumbers() != null)) {
+            throw new InvalidInputException("Transport seats need a transport");
+        }
+        if (request.transportSeats() != null && request.transportSeats() <= 0) {
+            throw new InvalidInputException("Number of transport seats must be positive");
+        }
+        if (request.transportSeatNumbers() != null) {
+            if (request.transportSeatNumbers().isEmpty() || request.transportSeatNumbers().contains(null)) {
+                throw new InvalidInputException("Transport seat numbers cannot be empty");
+            }
+            if (request.transportSeats() != null && request.transportSeats() != request.transportSeatNumbers().size()) {
+                throw new InvalidInputException("Transport seats and seat numbers don't match");
+            }
+        }
+    }
+
+    // Business Exceptions
+
+    public static class UserNotFoundException extends RuntimeException {
+        public UserNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    public static class PackageNotAvailableException extends RuntimeException {
+        public PackageNotAvailableException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidInputException extends RuntimeException {
+        public InvalidInputException(String message) {
+            super(message);
+        }
+    }
+}
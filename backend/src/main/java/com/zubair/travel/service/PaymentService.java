@@ -4,10 +4,12 @@ import com.zubair.travel.entity.Payment;
 import com.zubair.travel.entity.Booking;
 import com.zubair.travel.repository.PaymentRepository;
 import com.zubair.travel.repository.BookingRepository;
+import com.zubair.travel.service.money.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +27,9 @@ public class PaymentService {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private BookingSummaryService bookingSummaryService;
+
     // CRUD Operations
 
     public Payment createPayment(Payment payment) {
@@ -37,6 +42,13 @@ public class PaymentService {
             throw new PaymentNotAllowedException("Cannot process payment for a cancelled booking");
         }
         
+        // Compared in cents, so 150.5 and 150.50 are the same amount
+        Money amount = Money.of(payment.getAmount());
+        if (booking.getTotalAmount() != null && !amount.equals(Money.of(booking.getTotalAmount()))) {
+            throw new PaymentAmountMismatchException("Payment amount " + amount + " does not match the booking total "
+                    + Money.of(booking.getTotalAmount()));
+        }
+        
         // Check if payment already exists for this booking
         Optional<Payment> existingPayment = paymentRepository.findByBooking(booking);
         if (existingPayment.isPresent() && "COMPLETED".equals(existingPayment.get().getPaymentStatus())) {
@@ -44,9 +56,11 @@ public class PaymentService {
         }
         
         payment.setBooking(booking);
+        payment.setAmount(amount.toBigDecimal());
         payment.setPaymentDate(LocalDateTime.now());
         payment.setPaymentStatus("PENDING");
         
+        bookingSummaryService.updatePaymentStatus(booking.getId(), "PENDING");
         return paymentRepository.save(payment);
     }
 
@@ -66,9 +80,21 @@ public class PaymentService {
             throw new PaymentUpdateNotAllowedException("Cannot update a completed payment");
         }
         
+        if (paymentDetails.getAmount() == null || paymentDetails.getAmount().signum() <= 0) {
+            throw new InvalidInputException("Payment amount must be positive");
+        }
+        // Held to the booking total like a new payment, compared in cents
+        Money amount = Money.of(paymentDetails.getAmount());
+        Booking booking = payment.getBooking();
+        if (booking.getTotalAmount() != null && !amount.equals(Money.of(booking.getTotalAmount()))) {
+            throw new PaymentAmountMismatchException("Payment amount " + amount + " does not match the booking total "
+                    + Money.of(booking.getTotalAmount()));
+        }
+        
         payment.setPaymentMethod(paymentDetails.getPaymentMethod());
-        payment.setAmount(paymentDetails.getAmount());
+        payment.setAmount(amount.toBigDecimal());
         
+        bookingSummaryService.updatePaymentStatus(payment.getBooking().getId(), payment.getPaymentStatus());
         return paymentRepository.save(payment);
     }
 
@@ -80,6 +106,8 @@ public class PaymentService {
         }
         
         paymentRepository.delete(payment);
+        // An earlier payment of the booking, if any, becomes the one the dashboard shows
+        bookingSummaryService.refreshPaymentStatus(payment.getBooking().getId());
     }
 
     // Main Business Flows
@@ -118,6 +146,7 @@ public class PaymentService {
             
             // Confirm the booking after successful payment
             bookingService.confirmBooking(payment.getBooking().getId());
+            bookingSummaryService.updatePaymentStatus(payment.getBooking().getId(), "COMPLETED");
             
             return paymentRepository.save(payment);
         } catch (Exception e) {
@@ -143,6 +172,7 @@ public class PaymentService {
         
         // Cancel the associated booking
         bookingService.cancelBooking(payment.getBooking().getId());
+        bookingSummaryService.updatePaymentStatus(payment.getBooking().getId(), "REFUNDED");
         
         return paymentRepository.save(payment);
     }
@@ -155,6 +185,7 @@ public class PaymentService {
         }
         
         payment.setPaymentStatus("FAILED");
+        bookingSummaryService.updatePaymentStatus(payment.getBooking().getId(), "FAILED");
         return paymentRepository.save(payment);
     }
 
@@ -166,16 +197,23 @@ public class PaymentService {
         return paymentRepository.findByPaymentStatus("COMPLETED");
     }
 
-    public Double calculateTotalRevenue() {
-        return getCompletedPayments().stream()
-                .mapToDouble(Payment::getAmount)
-                .sum();
+    public BigDecimal calculateTotalRevenue() {
+        return sumAmounts(getCompletedPayments());
     }
 
-    public Double calculatePendingAmount() {
-        return getPendingPayments().stream()
-                .mapToDouble(Payment::getAmount)
-                .sum();
+    public BigDecimal calculatePendingAmount() {
+        return sumAmounts(getPendingPayments());
+    }
+
+    // Summed in cents, exact however many payments there are
+    private static BigDecimal sumAmounts(List<Payment> payments) {
+        long total = 0;
+        for (Payment payment : payments) {
+            if (payment.getAmount() != null) {
+                total = Math.addExact(total, Money.of(payment.getAmount()).minorUnits());
+            }
+        }
+        return Money.ofMinor(total).toBigDecimal();
     }
 
     // Validation
@@ -187,7 +225,7 @@ public class PaymentService {
         if (payment.getBooking() == null || payment.getBooking().getId() == null) {
             throw new InvalidInputException("Booking is required for payment");
         }
-        if (payment.getAmount() == null || payment.getAmount() <= 0) {
+        if (payment.getAmount() == null || payment.getAmount().signum() <= 0) {
             throw new InvalidInputException("Payment amount must be positive");
         }
         if (payment.getPaymentMethod() == null || payment.getPaymentMethod().trim().isEmpty()) {
@@ -215,6 +253,12 @@ public class PaymentService {
         }
     }
 
+    public static class PaymentAmountMismatchException extends RuntimeException {
+        public PaymentAmountMismatchException(String message) {
+            super(message);
+        }
+    }
+
     public static class PaymentAlreadyExistsException extends RuntimeException {
         public PaymentAlreadyExistsException(String message) {
             super(message);
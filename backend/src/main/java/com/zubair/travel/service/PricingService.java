@@ -0,0 +1,346 @@
+package com.zubair.travel.service;
+
+import com.zubair.travel.entity.Lodge;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.repository.LodgeRepository;
+import com.zubair.travel.repository.TourRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.inventory.TourInventoryShardService;
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occupancy-based prices for tours and lodges, computed off the request path.
+ *
+ * A scheduled refresh reads the seat and room counters once, derives a multiplier per tour
+ * (occupancy and days until the tour date) and per lodge (occupancy) and publishes them as
+ * one immutable table behind a volatile reference. Catalog reads and bookings only look the
+ * multiplier up in that table, so pricing adds no query to them. Entities whose multiplier
+ * changed get their catalog stamp touched, which renews their ETags and cached snapshots.
+ *
+ * A quote fixes the price of a tour for app.pricing.quote-ttl-seconds: its token is an
+ * HMAC-signed (tour, seats, unit price, expiry) tuple that createBooking honours even if the
+ * multiplier moved in the meantime.
+ */
+@Service
+public class PricingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PricingService.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private LodgeRepository lodgeRepository;
+
+    @Autowired
+    private TourInventoryShardService tourInventoryShardService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private QuoteCalculator quoteCalculator;
+
+    @Value("${app.pricing.occupancy-threshold:0.6}")
+    private double occupancyThreshold;
+
+    @Value("${app.pricing.occupancy-surcharge:0.4}")
+    private double occupancySurcharge;
+
+    @Value("${app.pricing.lead-days:30}")
+    private int leadDays;
+
+    @Value("${app.pricing.lead-surcharge:0.15}")
+    private double leadSurcharge;
+
+    @Value("${app.pricing.last-minute-days:3}")
+    private int lastMinuteDays;
+
+    @Value("${app.pricing.last-minute-discount:0.2}")
+    private double lastMinuteDiscount;
+
+    @Value("${app.pricing.min-multiplier:0.8}")
+    private double minMultiplier;
+
+    @Value("${app.pricing.max-multiplier:1.6}")
+    private double maxMultiplier;
+
+    @Value("${app.pricing.quote-ttl-seconds:900}")
+    private long quoteTtlSeconds;
+
+    @Value("${app.pricing.quote-secret:}")
+    private String quoteSecret;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private volatile PriceTable priceTable = new PriceTable(Map.of(), Map.of(), null);
+
+    private ThreadLocal<Mac> macs;
+
+    @PostConstruct
+    void initQuoteKey() {
+        byte[] key;
+        if (quoteSecret == null || quoteSecret.isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            logger.warn("app.pricing.quote-secret is not set; quotes are only valid on this node until it restarts");
+        } else {
+            key = quoteSecret.getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(key, HMAC_ALGORITHM);
+        // Mac instances are not thread-safe
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
+
+    // Prices
+
+    public Money tourUnitPrice(Tour tour) {
+        return applyMultiplier(tour.getPrice(), priceTable.tours().getOrDefault(tour.getId(), 1.0));
+    }
+
+    public Money lodgeUnitPrice(Lodge lodge) {
+        return applyMultiplier(lodge.getPricePerNight(), priceTable.lodges().getOrDefault(lodge.getId(), 1.0));
+    }
+
+    public double currentTourPrice(Tour tour) {
+        return tourUnitPrice(tour).toDouble();
+    }
+
+    public double currentLodgePrice(Lodge lodge) {
+        return lodgeUnitPrice(lodge).toDouble();
+    }
+
+    public Instant getComputedAt() {
+        return priceTable.computedAt();
+    }
+
+    // Multipliers are whole percents, so the basis points are exact and only the cents round
+    private static Money applyMultiplier(Double price, double multiplier) {
+        return Money.of(price).applyRate(Math.round(multiplier * Money.BASIS_POINTS));
+    }
+
+    // Quotes
+
+    public Quote quoteTour(Tour tour, int seats) {
+        if (seats <= 0) {
+            throw new InvalidQuoteException("Number of seats must be positive");
+        }
+        Money unitPrice = tourUnitPrice(tour);
+        Instant expiresAt = clock.instant().plusSeconds(quoteTtlSeconds).truncatedTo(ChronoUnit.SECONDS);
+        String payload = tour.getId() + ":" + seats + ":" + unitPrice.minorUnits() + ":" + expiresAt.getEpochSecond();
+        String token = encode(payload.getBytes(StandardCharsets.UTF_8)) + "." + encode(sign(payload));
+        Money total = quoteCalculator.tourBooking(unitPrice, seats).total();
+        return new Quote(tour.getId(), seats, unitPrice.toBigDecimal(), total.toBigDecimal(), expiresAt, token);
+    }
+
+    /**
+     * The unit price a booking of {@code seats} seats pays: the quoted price if a valid quote
+     * token for exactly this tour and party size is given, otherwise the current price.
+     */
+    public Money unitPriceForBooking(Tour tour, int seats, String quoteToken) {
+        if (quoteToken == null || quoteToken.isBlank()) {
+            return tourUnitPrice(tour);
+        }
+        String[] parts = quoteToken.split("\\.");
+        if (parts.length != 2) {
+            throw new InvalidQuoteException("Malformed quote token");
+        }
+        String payload;
+        try {
+            payload = new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8);
+            if (!MessageDigest.isEqual(sign(payload), Base64.getUrlDecoder().decode(parts[1]))) {
+                throw new InvalidQuoteException("Quote token signature is invalid");
+            }
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQuoteException("Malformed quote token");
+        }
+        String[] fields = payload.split(":");
+        if (fields.length != 4 || !fields[0].equals(String.valueOf(tour.getId())) || !fields[1].equals(String.valueOf(seats))) {
+            throw new InvalidQuoteException("Quote was issued for a different tour or number of seats");
+        }
+        if (clock.instant().getEpochSecond() > Long.parseLong(fields[3])) {
+            throw new QuoteExpiredException("Quote has expired, please request a new one");
+        }
+        return Money.ofMinor(Long.parseLong(fields[2]));
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Refresh
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshOnStartup() {
+        refresh();
+    }
+
+    /**
+     * Recomputes every multiplier from the current counters and swaps in the new table.
+     */
+    @Scheduled(fixedDelayString = "${app.pricing.refresh-interval-ms:60000}", initialDelayString = "${app.pricing.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        PriceTable table = transactionTemplate.execute(status -> computeTable());
+        PriceTable previous = priceTable;
+        priceTable = table;
+
+        List<Long> changedTours = changedIds(previous.tours(), table.tours());
+        List<Long> changedLodges = changedIds(previous.lodges(), table.lodges());
+        changedTours.forEach(id -> catalogVersionService.touch(Catalog.TOURS, id));
+        changedLodges.forEach(id -> catalogVersionService.touch(Catalog.LODGES, id));
+        logger.debug("Pricing refreshed: " + table.tours().size() + " tours and " + table.lodges().size()
+                + " lodges off list price, " + (changedTours.size() + changedLodges.size()) + " changed");
+    }
+
+    private PriceTable computeTable() {
+        LocalDate today = LocalDate.now(clock);
+        List<Object[]> tourRows = tourRepository.findPricingInputs(today);
+        List<Long> shardedTourIds = new ArrayList<>();
+        for (Object[] row : tourRows) {
+            if (((Number) row[4]).intValue() > 0) {
+                shardedTourIds.add((Long) row[0]);
+            }
+        }
+        Map<Long, Long> shardedSeats = tourInventoryShardService.availableSeats(shardedTourIds);
+
+        // Only multipliers other than 1.0 are stored, most of the catalog sells at list price
+        Map<Long, Double> tours = new HashMap<>();
+        for (Object[] row : tourRows) {
+            Long id = (Long) row[0];
+            long available = shardedSeats.containsKey(id) ? shardedSeats.get(id) : ((Number) row[1]).longValue();
+            long daysLeft = ChronoUnit.DAYS.between(today, (LocalDate) row[3]);
+            double multiplier = tourMultiplier(available, ((Number) row[2]).longValue(), daysLeft);
+            if (multiplier != 1.0) {
+                tours.put(id, multiplier);
+            }
+        }
+        Map<Long, Double> lodges = new HashMap<>();
+        for (Object[] row : lodgeRepository.findPricingInputs()) {
+            double multiplier = clamp(1 + occupancyComponent(((Number) row[1]).longValue(), ((Number) row[2]).longValue()));
+            if (multiplier != 1.0) {
+                lodges.put((Long) row[0], multiplier);
+            }
+        }
+        return new PriceTable(Map.copyOf(tours), Map.copyOf(lodges), clock.instant());
+    }
+
+    double tourMultiplier(long available, long capacity, long daysLeft) {
+        double occupancy = capacity > 0 ? 1 - Math.min(available, capacity) / (double) capacity : 0;
+        double multiplier = 1 + occupancyComponent(available, capacity);
+        if (daysLeft < leadDays) {
+            multiplier += leadSurcharge * (leadDays - daysLeft) / leadDays;
+        }
+        // Seats left unsold just before departure are worth more at a discount than empty
+        if (daysLeft <= lastMinuteDays && occupancy < occupancyThreshold) {
+            multiplier -= lastMinuteDiscount;
+        }
+        return clamp(multiplier);
+    }
+
+    // Surcharge growing linearly from 0 at the threshold to occupancySurcharge when full
+    private double occupancyComponent(long available, long capacity) {
+        if (capacity <= 0) {
+            return 0;
+        }
+        double occupancy = 1 - Math.min(available, capacity) / (double) capacity;
+        if (occupancy <= occupancyThreshold) {
+            return 0;
+        }
+        return occupancySurcharge * (occupancy - occupancyThreshold) / (1 - occupancyThreshold);
+    }
+
+    // Clamped and rounded to whole percents, so small counter changes don't churn the ETags
+    private double clamp(double multiplier) {
+        double bounded = Math.max(minMultiplier, Math.min(maxMultiplier, multiplier));
+        return Math.round(bounded * 100) / 100.0;
+    }
+
+    private static List<Long> changedIds(Map<Long, Double> before, Map<Long, Double> after) {
+        List<Long> changed = new ArrayList<>();
+        after.forEach((id, multiplier) -> {
+            if (!multiplier.equals(before.get(id))) {
+                changed.add(id);
+            }
+        });
+        before.keySet().forEach(id -> {
+            if (!after.containsKey(id)) {
+                changed.add(id);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Multipliers of one refresh. Immutable; readers take the current instance without locking.
+     */
+    private record PriceTable(Map<Long, Double> tours, Map<Long, Double> lodges, Instant computedAt) {
+    }
+
+    /**
+     * A tour price fixed until {@code expiresAt}; pass {@code token} as Booking.quoteToken.
+     */
+    public record Quote(Long tourId, int seats, BigDecimal unitPrice, BigDecimal totalPrice, Instant expiresAt, String token) {
+    }
+
+    // Business Exceptions
+
+    public static class InvalidQuoteException extends RuntimeException {
+        public InvalidQuoteException(String message) {
+            super(message);
+        }
+    }
+
+    public static class QuoteExpiredException extends RuntimeException {
+        public QuoteExpiredException(String message) {
+            super(message);
+        }
+    }
+}
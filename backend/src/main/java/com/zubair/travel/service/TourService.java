@@ -4,12 +4,22 @@ import com.zubair.travel.entity.Tour;
 import com.zubair.travel.entity.Location;
 import com.zubair.travel.repository.TourRepository;
 import com.zubair.travel.repository.LocationRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.inventory.InventoryBackend;
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import com.zubair.travel.service.inventory.TourInventoryShardService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -22,6 +32,24 @@ public class TourService {
     @Autowired
     private LocationRepository locationRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private InventoryBackend inventoryBackend;
+
+    @Autowired
+    private TourInventoryShardService tourInventoryShardService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.inventory.shards.max:64}")
+    private int maxInventoryShards;
+
     // CRUD Operations
 
     public Tour createTour(Tour tour) {
@@ -31,7 +59,12 @@ public class TourService {
                     .orElseThrow(() -> new LocationNotFoundException("Location not found with id: " + tour.getLocation().getId()));
             tour.setLocation(location);
         }
-        return tourRepository.save(tour);
+        if (tour.getTotalSeats() == null || tour.getTotalSeats() < tour.getAvailableSeats()) {
+            tour.setTotalSeats(tour.getAvailableSeats());
+        }
+        Tour savedTour = tourRepository.save(tour);
+        catalogVersionService.touch(Catalog.TOURS, savedTour.getId());
+        return savedTour;
     }
 
     public Tour getTourById(Long id) {
@@ -51,7 +84,14 @@ public class TourService {
         tour.setDescription(tourDetails.getDescription());
         tour.setDuration(tourDetails.getDuration());
         tour.setPrice(tourDetails.getPrice());
-        tour.setAvailableSeats(tourDetails.getAvailableSeats());
+        if (tour.getInventoryShards() > 0) {
+            tourInventoryShardService.resetSeats(tour, tourDetails.getAvailableSeats());
+        } else {
+            tour.setAvailableSeats(tourDetails.getAvailableSeats());
+        }
+        if (tourDetails.getTotalSeats() != null && tourDetails.getTotalSeats() > 0) {
+            tour.setTotalSeats(tourDetails.getTotalSeats());
+        }
         tour.setStartDate(tourDetails.getStartDate());
         tour.setEndDate(tourDetails.getEndDate());
         
@@ -61,12 +101,15 @@ public class TourService {
             tour.setLocation(location);
         }
         
+        catalogVersionService.touch(Catalog.TOURS, id);
+        inventoryBackend.resync(Resource.TOUR, id);
         return tourRepository.save(tour);
     }
 
     public void deleteTour(Long id) {
         Tour tour = getTourById(id);
         tourRepository.delete(tour);
+        catalogVersionService.touch(Catalog.TOURS, id);
     }
 
     // Main Business Flows
@@ -77,8 +120,38 @@ public class TourService {
         return tourRepository.findByLocation(location);
     }
 
+    /**
+     * Sharded tours keep 0 in their row, so the indexed finder only returns unsharded tours;
+     * sharded ones are added from their shard sums. Read-only, so the sums filled into the
+     * entities are never flushed back to the rows.
+     */
+    @Transactional(readOnly = true)
     public List<Tour> getAvailableTours() {
-        return tourRepository.findByAvailableSeatsGreaterThan(0);
+        List<Tour> tours = new ArrayList<>(tourRepository.findByAvailableSeatsGreaterThan(0));
+        List<Long> shardedTourIds = tourRepository.findShardedTourIds();
+        if (!shardedTourIds.isEmpty()) {
+            Map<Long, Long> seats = tourInventoryShardService.availableSeats(shardedTourIds);
+            for (Tour tour : tourRepository.findAllById(seats.keySet())) {
+                long available = seats.get(tour.getId());
+                if (available > 0) {
+                    tour.setAvailableSeats((int) available);
+                    tours.add(tour);
+                }
+            }
+        }
+        return tours;
+    }
+
+    /**
+     * The tour with the seat count of a sharded tour filled in, for display.
+     */
+    @Transactional(readOnly = true)
+    public Tour getTourWithAvailableSeats(Long id) {
+        Tour tour = getTourById(id);
+        if (tour.getInventoryShards() > 0) {
+            tour.setAvailableSeats((int) tourInventoryShardService.availableSeats(id));
+        }
+        return tour;
     }
 
     public List<Tour> getToursByPriceRange(Double minPrice, Double maxPrice) {
@@ -92,7 +165,7 @@ public class TourService {
         if (startDate.isAfter(endDate)) {
             throw new InvalidInputException("Start date must be before end date");
         }
-        return tourRepository.findByStartDateBetween(startDate, endDate);
+        return tourRepository.findByDateBetween(startDate, endDate);
     }
 
     public List<Tour> searchToursByName(String keyword) {
@@ -109,16 +182,26 @@ public class TourService {
             throw new InvalidInputException("Number of seats must be positive");
         }
         
-        if (tour.getAvailableSeats() < numberOfSeats) {
-            throw new InsufficientSeatsException("Only " + tour.getAvailableSeats() + " seats available");
-        }
-        
         if (tour.getStartDate().isBefore(LocalDate.now())) {
             throw new TourExpiredException("Tour has already started");
         }
         
-        tour.setAvailableSeats(tour.getAvailableSeats() - numberOfSeats);
-        return tourRepository.save(tour);
+        if (!takeSeats(tour, numberOfSeats)) {
+            throw new InsufficientSeatsException("Only " + availableSeats(tour) + " seats available");
+        }
+        return tour;
+    }
+
+    /**
+     * Like bookSeat, but returns false instead of throwing when the seats can't be taken, so
+     * a caller running inside another transaction (e.g. waitlist promotion) doesn't mark it
+     * rollback-only.
+     */
+    public boolean tryBookSeat(Long tourId, int numberOfSeats) {
+        Tour tour = getTourById(tourId);
+        return numberOfSeats > 0
+                && !tour.getStartDate().isBefore(LocalDate.now())
+                && takeSeats(tour, numberOfSeats);
     }
 
     public Tour releaseSeat(Long tourId, int numberOfSeats) {
@@ -128,16 +211,82 @@ public class TourService {
             throw new InvalidInputException("Number of seats must be positive");
         }
         
-        tour.setAvailableSeats(tour.getAvailableSeats() + numberOfSeats);
-        return tourRepository.save(tour);
+        if (inventoryBackend.isTracked(Resource.TOUR, tourId)) {
+            inventoryBackend.release(Resource.TOUR, tourId, numberOfSeats, -1);
+        } else if (tour.getInventoryShards() > 0) {
+            tourInventoryShardService.release(tour, numberOfSeats);
+        } else if (tourRepository.giveSeats(tourId, numberOfSeats) == 1) {
+            entityManager.refresh(tour);
+        } else {
+            // Sharded since it was read
+            entityManager.refresh(tour);
+            tourInventoryShardService.release(tour, numberOfSeats);
+        }
+        catalogVersionService.touch(Catalog.TOURS, tourId);
+        eventPublisher.publishEvent(new SeatsReleasedEvent(tourId, numberOfSeats));
+        return tour;
     }
 
     public boolean isTourAvailable(Long tourId, int numberOfSeats) {
         Tour tour = getTourById(tourId);
-        return tour.getAvailableSeats() >= numberOfSeats && 
+        return availableSeats(tour) >= numberOfSeats && 
                !tour.getStartDate().isBefore(LocalDate.now());
     }
 
+    public long getAvailableSeatCount(Long tourId) {
+        return availableSeats(getTourById(tourId));
+    }
+
+    /**
+     * Takes the seats from wherever the tour's counter lives: the inventory backend for
+     * tracked tours, a shard row for sharded tours, otherwise the tours row.
+     */
+    private boolean takeSeats(Tour tour, int numberOfSeats) {
+        boolean taken;
+        if (inventoryBackend.isTracked(Resource.TOUR, tour.getId())) {
+            taken = inventoryBackend.reserve(Resource.TOUR, tour.getId(), numberOfSeats) >= 0;
+        } else if (tour.getInventoryShards() > 0) {
+            taken = tourInventoryShardService.reserve(tour, numberOfSeats);
+        } else {
+            // Conditional update, so concurrent bookings and a reshard never overwrite each other's counts
+            taken = tourRepository.takeSeats(tour.getId(), numberOfSeats) == 1;
+            entityManager.refresh(tour);
+            if (!taken && tour.getInventoryShards() > 0) {
+                taken = tourInventoryShardService.reserve(tour, numberOfSeats);
+            }
+        }
+        if (taken) {
+            catalogVersionService.touch(Catalog.TOURS, tour.getId());
+        }
+        return taken;
+    }
+
+    private long availableSeats(Tour tour) {
+        if (inventoryBackend.isTracked(Resource.TOUR, tour.getId())) {
+            return inventoryBackend.available(Resource.TOUR, tour.getId());
+        }
+        if (tour.getInventoryShards() > 0) {
+            return tourInventoryShardService.availableSeats(tour.getId());
+        }
+        return tour.getAvailableSeats();
+    }
+
+    /**
+     * Spreads the tour's seats over {@code shardCount} inventory shards for high booking
+     * concurrency, or merges them back into the tour row with 0.
+     */
+    public Tour setInventoryShards(Long tourId, int shardCount) {
+        if (shardCount < 0 || shardCount > maxInventoryShards) {
+            throw new InvalidInputException("Shard count must be between 0 and " + maxInventoryShards);
+        }
+        // Locked before anything reads it, so the seats reshard moves are current and stay put
+        Tour tour = tourRepository.lockById(tourId)
+                .orElseThrow(() -> new TourNotFoundException("Tour not found with id: " + tourId));
+        Tour resharded = tourInventoryShardService.reshard(tour, shardCount);
+        catalogVersionService.touch(Catalog.TOURS, tourId);
+        return resharded;
+    }
+
     // Validation
 
     private void validateTour(Tour tour) {
@@ -164,6 +313,13 @@ public class TourService {
         }
     }
 
+    /**
+     * Published inside the transaction that gave seats back to a tour, so listeners can hand
+     * them on (see WaitlistService) before the seats become visible to other bookings.
+     */
+    public record SeatsReleasedEvent(Long tourId, int seats) {
+    }
+
     // Business Exceptions
 
     public static class TourNotFoundException extends RuntimeException {
@@ -4,23 +4,55 @@ import com.zubair.travel.entity.Transport;
 import com.zubair.travel.entity.Location;
 import com.zubair.travel.repository.TransportRepository;
 import com.zubair.travel.repository.LocationRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.inventory.InventoryBackend;
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import com.zubair.travel.service.route.TransportRouteIndex;
+import com.zubair.travel.service.route.TransportRoutes.Fare;
+import com.zubair.travel.service.seating.SeatMap;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
 
 @Service
 @Transactional
 public class TransportService {
 
+    // What fits into the 2048 bytes of transport.seat_map
+    private static final int MAX_MAPPED_SEATS = 2048 * 8;
+
+    // Ids per query when transports found in the route index are loaded
+    private static final int FETCH_BATCH_SIZE = 1000;
+
     @Autowired
     private TransportRepository transportRepository;
 
     @Autowired
     private LocationRepository locationRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private InventoryBackend inventoryBackend;
+
+    @Autowired
+    private TransportRouteIndex transportRouteIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // CRUD Operations
 
     public Transport createTransport(Transport transport) {
@@ -38,7 +70,10 @@ public class TransportService {
             transport.setToLocation(toLocation);
         }
         
-        return transportRepository.save(transport);
+        Transport savedTransport = transportRepository.save(transport);
+        transportRouteIndex.put(savedTransport);
+        catalogVersionService.touch(Catalog.TRANSPORTS, savedTransport.getId());
+        return savedTransport;
     }
 
     public Transport getTransportById(Long id) {
@@ -57,9 +92,16 @@ public class TransportService {
         transport.setType(transportDetails.getType());
         transport.setProvider(transportDetails.getProvider());
         transport.setVehicleNumber(transportDetails.getVehicleNumber());
-        transport.setCost(transportDetails.getCost());
-        transport.setCapacity(transportDetails.getCapacity());
-        transport.setAvailableSeats(transportDetails.getAvailableSeats());
+        transport.setPricePerTicket(transportDetails.getPricePerTicket());
+        if (transport.getSeatMap() != null) {
+            // Available seats follow the seat map, which is sized to the capacity
+            if (!transport.getCapacity().equals(transportDetails.getCapacity())) {
+                throw new InvalidInputException("Remove the seat map before changing the capacity");
+            }
+        } else {
+            transport.setCapacity(transportDetails.getCapacity());
+            transport.setAvailableSeats(transportDetails.getAvailableSeats());
+        }
         
         if (transportDetails.getFromLocation() != null && transportDetails.getFromLocation().getId() != null) {
             Location fromLocation = locationRepository.findById(transportDetails.getFromLocation().getId())
@@ -73,12 +115,18 @@ public class TransportService {
             transport.setToLocation(toLocation);
         }
         
-        return transportRepository.save(transport);
+        catalogVersionService.touch(Catalog.TRANSPORTS, id);
+        inventoryBackend.resync(Resource.TRANSPORT, id);
+        Transport savedTransport = transportRepository.save(transport);
+        transportRouteIndex.put(savedTransport);
+        return savedTransport;
     }
 
     public void deleteTransport(Long id) {
         Transport transport = getTransportById(id);
         transportRepository.delete(transport);
+        transportRouteIndex.remove(id);
+        catalogVersionService.touch(Catalog.TRANSPORTS, id);
     }
 
     // Main Business Flows
@@ -97,12 +145,36 @@ public class TransportService {
         return transportRepository.findByProvider(provider);
     }
 
+    /**
+     * Transports from one location to another, cheapest first.
+     */
     public List<Transport> getTransportsByRoute(Long fromLocationId, Long toLocationId) {
-        Location fromLocation = locationRepository.findById(fromLocationId)
-                .orElseThrow(() -> new LocationNotFoundException("From location not found with id: " + fromLocationId));
-        Location toLocation = locationRepository.findById(toLocationId)
-                .orElseThrow(() -> new LocationNotFoundException("To location not found with id: " + toLocationId));
-        return transportRepository.findByFromLocationAndToLocation(fromLocation, toLocation);
+        return findAllInOrder(getRouteFares(fromLocationId, toLocationId, null, 0));
+    }
+
+    /**
+     * Cost and seats left of the transports from one location to another with at least
+     * {@code minSeats} seats left, costing at most {@code maxCost} if given, cheapest first.
+     * Served from the route index; the locations are only looked up when nothing matches.
+     */
+    public List<Fare> getRouteFares(Long fromLocationId, Long toLocationId, Double maxCost, int minSeats) {
+        if (fromLocationId == null || toLocationId == null) {
+            throw new InvalidInputException("Both locations of a route are required");
+        }
+        if ((maxCost != null && maxCost < 0) || minSeats < 0) {
+            throw new InvalidInputException("Maximum cost and minimum seats cannot be negative");
+        }
+        List<Fare> fares = transportRouteIndex.routes().route(fromLocationId, toLocationId, 0,
+                maxCost != null ? maxCost : Double.MAX_VALUE, minSeats, Integer.MAX_VALUE);
+        if (fares.isEmpty()) {
+            if (!locationRepository.existsById(fromLocationId)) {
+                throw new LocationNotFoundException("From location not found with id: " + fromLocationId);
+            }
+            if (!locationRepository.existsById(toLocationId)) {
+                throw new LocationNotFoundException("To location not found with id: " + toLocationId);
+            }
+        }
+        return fares;
     }
 
     public List<Transport> getAvailableTransports() {
@@ -113,45 +185,127 @@ public class TransportService {
         if (minCost < 0 || maxCost < 0 || minCost > maxCost) {
             throw new InvalidInputException("Invalid cost range");
         }
-        return transportRepository.findByCostBetween(minCost, maxCost);
+        return findAllInOrder(transportRouteIndex.routes().all(minCost, maxCost, 0, Integer.MAX_VALUE));
     }
 
     public Transport bookTransportSeat(Long transportId, int numberOfSeats) {
-        Transport transport = getTransportById(transportId);
-        
+        return bookTransportSeats(transportId, numberOfSeats).transport();
+    }
+
+    /**
+     * Takes seats for a group. On a transport with numbered seats they are allocated as close
+     * together as the seat map allows and returned; otherwise only the counter changes.
+     */
+    public SeatAllocation bookTransportSeats(Long transportId, int numberOfSeats) {
         if (numberOfSeats <= 0) {
             throw new InvalidInputException("Number of seats must be positive");
         }
         
+        // Seats of tracked transports are taken in the inventory backend; the row is left to the reconciler
+        if (inventoryBackend.isTracked(Resource.TRANSPORT, transportId)) {
+            Transport transport = getTransportById(transportId);
+            long remaining = inventoryBackend.reserve(Resource.TRANSPORT, transportId, numberOfSeats);
+            if (remaining < 0) {
+                throw new InsufficientSeatsException("Only " + inventoryBackend.available(Resource.TRANSPORT, transportId)
+                        + " seats available");
+            }
+            transportRouteIndex.updateSeats(transportId, remaining);
+            catalogVersionService.touch(Catalog.TRANSPORTS, transportId);
+            return new SeatAllocation(transport, null);
+        }
+        
+        Transport transport = lockTransport(transportId);
+        if (transport.getSeatMap() != null) {
+            SeatMap seatMap = seatMap(transport);
+            int[] seatNumbers = seatMap.allocate(numberOfSeats);
+            if (seatNumbers == null) {
+                throw new InsufficientSeatsException("Only " + seatMap.available() + " seats available");
+            }
+            return new SeatAllocation(storeSeatMap(transport, seatMap), seatNumbers);
+        }
+        
         if (transport.getAvailableSeats() < numberOfSeats) {
             throw new InsufficientSeatsException("Only " + transport.getAvailableSeats() + " seats available");
         }
         
         transport.setAvailableSeats(transport.getAvailableSeats() - numberOfSeats);
-        return transportRepository.save(transport);
+        transportRouteIndex.updateSeats(transportId, transport.getAvailableSeats());
+        catalogVersionService.touch(Catalog.TRANSPORTS, transportId);
+        return new SeatAllocation(transportRepository.save(transport), null);
+    }
+
+    /**
+     * Takes exactly the given seats of a transport with numbered seats, or none of them.
+     */
+    public SeatAllocation bookTransportSeats(Long transportId, int[] seatNumbers) {
+        Transport transport = lockTransport(transportId);
+        SeatMap seatMap = requireSeatMap(transport);
+        if (!seatMapChange(() -> seatMap.claim(seatNumbers))) {
+            throw new SeatTakenException("Seats " + SeatMap.format(seatNumbers) + " are not all free");
+        }
+        return new SeatAllocation(storeSeatMap(transport, seatMap), seatNumbers.clone());
     }
 
     public Transport releaseTransportSeat(Long transportId, int numberOfSeats) {
-        Transport transport = getTransportById(transportId);
-        
         if (numberOfSeats <= 0) {
             throw new InvalidInputException("Number of seats must be positive");
         }
         
+        if (inventoryBackend.isTracked(Resource.TRANSPORT, transportId)) {
+            Transport transport = getTransportById(transportId);
+            long remaining = inventoryBackend.release(Resource.TRANSPORT, transportId, numberOfSeats, transport.getCapacity());
+            if (remaining < 0) {
+                throw new InvalidInputException("Cannot exceed capacity of " + transport.getCapacity());
+            }
+            transportRouteIndex.updateSeats(transportId, remaining);
+            catalogVersionService.touch(Catalog.TRANSPORTS, transportId);
+            return transport;
+        }
+        
+        Transport transport = lockTransport(transportId);
+        if (transport.getSeatMap() != null) {
+            throw new InvalidInputException("Transport " + transportId + " has numbered seats, release them by number");
+        }
+        
         int newAvailableSeats = transport.getAvailableSeats() + numberOfSeats;
         if (newAvailableSeats > transport.getCapacity()) {
             throw new InvalidInputException("Cannot exceed capacity of " + transport.getCapacity());
         }
         
         transport.setAvailableSeats(newAvailableSeats);
+        transportRouteIndex.updateSeats(transportId, newAvailableSeats);
+        catalogVersionService.touch(Catalog.TRANSPORTS, transportId);
         return transportRepository.save(transport);
     }
 
+    public Transport releaseTransportSeats(Long transportId, int[] seatNumbers) {
+        Transport transport = lockTransport(transportId);
+        // The seat map was removed since the seats were booked; they go back to the counter
+        if (transport.getSeatMap() == null) {
+            return releaseTransportSeat(transportId, seatNumbers.length);
+        }
+        SeatMap seatMap = seatMap(transport);
+        if (!seatMapChange(() -> seatMap.release(seatNumbers))) {
+            throw new InvalidInputException("Seats " + SeatMap.format(seatNumbers) + " are not all taken");
+        }
+        return storeSeatMap(transport, seatMap);
+    }
+
     public boolean isTransportAvailable(Long transportId, int numberOfSeats) {
         Transport transport = getTransportById(transportId);
+        if (inventoryBackend.isTracked(Resource.TRANSPORT, transportId)) {
+            return inventoryBackend.available(Resource.TRANSPORT, transportId) >= numberOfSeats;
+        }
         return transport.getAvailableSeats() >= numberOfSeats;
     }
 
+    public long getAvailableSeatCount(Long transportId) {
+        if (inventoryBackend.isTracked(Resource.TRANSPORT, transportId)) {
+            return inventoryBackend.available(Resource.TRANSPORT, transportId);
+        }
+        return getTransportById(transportId).getAvailableSeats();
+    }
+
     public List<Transport> getTransportsFromLocation(Long locationId) {
         Location location = locationRepository.findById(locationId)
                 .orElseThrow(() -> new LocationNotFoundException("Location not found with id: " + locationId));
@@ -164,6 +318,111 @@ public class TransportService {
         return transportRepository.findByToLocation(location);
     }
 
+    // Seat Maps
+
+    @Transactional(readOnly = true)
+    public SeatMap getSeatMap(Long transportId) {
+        return requireSeatMap(getTransportById(transportId));
+    }
+
+    /**
+     * Gives the transport numbered seats in rows of {@code seatsPerRow}, changes the row
+     * layout of an existing seat map, or removes it for 0. A seat map can only be added while
+     * no seat is sold, so every booking holding seats on it knows their numbers.
+     */
+    public Transport setSeatMap(Long transportId, int seatsPerRow) {
+        if (seatsPerRow < 0 || seatsPerRow > 64) {
+            throw new InvalidInputException("Seats per row must be between 0 and 64");
+        }
+        if (inventoryBackend.isTracked(Resource.TRANSPORT, transportId)) {
+            throw new InvalidInputException("Transport " + transportId + " is counted in the inventory backend and can't have a seat map");
+        }
+        Transport transport = lockTransport(transportId);
+        if (seatsPerRow == 0) {
+            transport.setSeatMap(null);
+            transport.setSeatsPerRow(null);
+        } else if (transport.getSeatMap() != null) {
+            // Only the row layout changes, taken seats keep their numbers
+            transport.setSeatsPerRow(seatsPerRow);
+        } else {
+            if (!transport.getAvailableSeats().equals(transport.getCapacity())) {
+                throw new InvalidInputException("A seat map can only be added while no seats are sold");
+            }
+            if (transport.getCapacity() > MAX_MAPPED_SEATS) {
+                throw new InvalidInputException("Seat maps hold at most " + MAX_MAPPED_SEATS + " seats");
+            }
+            transport.setSeatMap(new SeatMap(transport.getCapacity(), seatsPerRow).toBytes());
+            transport.setSeatsPerRow(seatsPerRow);
+        }
+        catalogVersionService.touch(Catalog.TRANSPORTS, transportId);
+        return transportRepository.save(transport);
+    }
+
+    // Re-reads the row under the lock: a booking being cancelled has loaded its transport already
+    private Transport lockTransport(Long transportId) {
+        Transport transport = getTransportById(transportId);
+        entityManager.refresh(transport, LockModeType.PESSIMISTIC_WRITE);
+        return transport;
+    }
+
+    private SeatMap requireSeatMap(Transport transport) {
+        if (transport.getSeatMap() == null) {
+            throw new InvalidInputException("Transport " + transport.getId() + " has no numbered seats");
+        }
+        return seatMap(transport);
+    }
+
+    private static SeatMap seatMap(Transport transport) {
+        return SeatMap.fromBytes(transport.getSeatMap(), transport.getCapacity(), transport.getSeatsPerRow());
+    }
+
+    // The seat map keeps available_seats in step, so counts and searches need no special case
+    private Transport storeSeatMap(Transport transport, SeatMap seatMap) {
+        transport.setSeatMap(seatMap.toBytes());
+        transport.setAvailableSeats(seatMap.available());
+        transportRouteIndex.updateSeats(transport.getId(), seatMap.available());
+        catalogVersionService.touch(Catalog.TRANSPORTS, transport.getId());
+        return transportRepository.save(transport);
+    }
+
+    // Unknown or repeated seat numbers are the caller's mistake
+    private static boolean seatMapChange(BooleanSupplier change) {
+        try {
+            return change.getAsBoolean();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException(e.getMessage());
+        }
+    }
+
+    /**
+     * Seats taken by a booking: the transport, plus the seat numbers if it has numbered seats.
+     */
+    public record SeatAllocation(Transport transport, int[] seatNumbers) {
+    }
+
+    // Transports in the order of the fares; ids deleted since the index saw them are dropped
+    private List<Transport> findAllInOrder(List<Fare> fares) {
+        List<Long> ids = fares.stream().map(Fare::transportId).toList();
+        Map<Long, Transport> transports = findAllById(ids);
+        List<Transport> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Transport transport = transports.get(id);
+            if (transport != null) {
+                ordered.add(transport);
+            }
+        }
+        return ordered;
+    }
+
+    private Map<Long, Transport> findAllById(List<Long> ids) {
+        Map<Long, Transport> transports = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += FETCH_BATCH_SIZE) {
+            Collection<Long> batch = ids.subList(from, Math.min(ids.size(), from + FETCH_BATCH_SIZE));
+            transportRepository.findAllById(batch).forEach(transport -> transports.put(transport.getId(), transport));
+        }
+        return transports;
+    }
+
     // Validation
 
     private void validateTransport(Transport transport) {
@@ -176,8 +435,8 @@ public class TransportService {
         if (transport.getProvider() == null || transport.getProvider().trim().isEmpty()) {
             throw new InvalidInputException("Provider is required");
         }
-        if (transport.getCost() == null || transport.getCost() < 0) {
-            throw new InvalidInputException("Cost must be non-negative");
+        if (transport.getPricePerTicket() == null || transport.getPricePerTicket() < 0) {
+            throw new InvalidInputException("Ticket price must be non-negative");
         }
         if (transport.getCapacity() == null || transport.getCapacity() <= 0) {
             throw new InvalidInputException("Capacity must be positive");
@@ -210,6 +469,12 @@ public class TransportService {
         }
     }
 
+    public static class SeatTakenException extends RuntimeException {
+        public SeatTakenException(String message) {
+            super(message);
+        }
+    }
+
     public static class InvalidInputException extends RuntimeException {
         public InvalidInputException(String message) {
             super(message);
@@ -3,6 +3,7 @@ package com.zubair.travel.service;
 import com.zubair.travel.entity.User;
 import com.zubair.travel.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +17,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     // CRUD Operations
 
     public User createUser(User user) {
@@ -23,6 +27,7 @@ public class UserService {
         if (userRepository.existsByEmail(user.getEmail())) {
             throw new UserAlreadyExistsException("User with email " + user.getEmail() + " already exists");
         }
+        user.setPassword(passwordEncoder.encode(user.getPassword()));
         return userRepository.save(user);
     }
 
@@ -71,21 +76,26 @@ public class UserService {
 
     public User authenticateUser(String email, String password) {
         User user = getUserByEmail(email);
-        if (!user.getPassword().equals(password)) {
+        if (password == null || !passwordEncoder.matches(password, user.getPassword())) {
             throw new InvalidCredentialsException("Invalid email or password");
         }
+        // Hash stored with a different BCrypt cost than configured
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            user.setPassword(passwordEncoder.encode(password));
+            userRepository.save(user);
+        }
         return user;
     }
 
     public void changePassword(Long userId, String oldPassword, String newPassword) {
         User user = getUserById(userId);
-        if (!user.getPassword().equals(oldPassword)) {
-            throw new InvalidCredentialsException("Current password is incorrect");
-        }
         if (newPassword == null || newPassword.trim().isEmpty()) {
             throw new InvalidInputException("New password cannot be empty");
         }
-        user.setPassword(newPassword);
+        if (oldPassword == null || !passwordEncoder.matches(oldPassword, user.getPassword())) {
+            throw new InvalidCredentialsException("Current password is incorrect");
+        }
+        user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
     }
 
@@ -123,7 +133,7 @@ public class UserService {
         }
     }
 
-    private boolean isValidEmail(String email) {
+    public boolean isValidEmail(String email) {
         return email != null && email.matches("^[A-Za-z0-9+_.-]+@(.+)$");
     }
 
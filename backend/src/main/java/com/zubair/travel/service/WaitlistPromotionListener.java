@@ -0,0 +1,25 @@
+package com.zubair.travel.service;
+
+import com.zubair.travel.service.TourService.SeatsReleasedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Hands released seats to the tour's waitlist just before the releasing transaction commits
+ * (cancelBooking, deleteBooking, a booking shrinking its party, ...), so the promotions commit
+ * or roll back together with the release. Kept apart from WaitlistService because transactional
+ * event listeners may not themselves be @Transactional.
+ */
+@Component
+public class WaitlistPromotionListener {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onSeatsReleased(SeatsReleasedEvent event) {
+        waitlistService.promote(event.tourId());
+    }
+}
@@ -0,0 +1,250 @@
+package com.zubair.travel.service;
+
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.WaitlistEntry;
+import com.zubair.travel.repository.BookingRepository;
+import com.zubair.travel.repository.TourRepository;
+import com.zubair.travel.repository.UserRepository;
+import com.zubair.travel.repository.WaitlistEntryRepository;
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Waitlist for sold-out tours.
+ *
+ * Each tour's queue is the range of idx_waitlist_entries_queue for (tour, WAITING), already
+ * in promotion order, so taking the head is an index range read. When seats are released,
+ * WaitlistPromotionListener calls promote inside the releasing transaction: the head entries
+ * that fit into the free seats are locked and turned into PENDING bookings in batches, and
+ * their seats are taken before the release commits, so no direct booking can overtake them.
+ * Promotion is strictly in order; an entry needing more seats than are free holds back the
+ * entries behind it.
+ */
+@Service
+@Transactional
+public class WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    public static final String WAITING = "WAITING";
+    public static final String PROMOTED = "PROMOTED";
+    public static final String CANCELLED = "CANCELLED";
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private TourService tourService;
+
+    @Autowired
+    private BookingSummaryService bookingSummaryService;
+
+    @Autowired
+    private QuoteCalculator quoteCalculator;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Value("${app.waitlist.promotion-batch-size:50}")
+    private int promotionBatchSize;
+
+    @Value("${app.waitlist.max-seats:10}")
+    private int maxSeats;
+
+    // Queue Operations
+
+    public WaitlistEntry join(Long userId, Long tourId, Integer seats) {
+        if (userId == null || tourId == null) {
+            throw new InvalidInputException("User and tour are required");
+        }
+        if (seats == null || seats <= 0 || seats > maxSeats) {
+            throw new InvalidInputException("Seats must be between 1 and " + maxSeats);
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User not found with id: " + userId);
+        }
+        if (!tourRepository.existsById(tourId)) {
+            throw new TourNotFoundException("Tour not found with id: " + tourId);
+        }
+        if (waitlistEntryRepository.existsByTourIdAndUserIdAndStatus(tourId, userId, WAITING)) {
+            throw new AlreadyWaitlistedException("User " + userId + " is already on the waitlist of tour " + tourId);
+        }
+
+        WaitlistEntry entry = waitlistEntryRepository.save(
+                new WaitlistEntry(null, tourId, userId, seats, 0, WAITING, LocalDateTime.now(), null, null));
+        // Seats released between the sold-out answer and this call would otherwise wait for the next release
+        if (tourService.isTourAvailable(tourId, seats)) {
+            promote(tourId);
+        }
+        return entry;
+    }
+
+    @Transactional(readOnly = true)
+    public WaitlistEntry getEntryById(Long id) {
+        return waitlistEntryRepository.findById(id)
+                .orElseThrow(() -> new WaitlistEntryNotFoundException("Waitlist entry not found with id: " + id));
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> getWaitingEntriesByUser(Long userId) {
+        return waitlistEntryRepository.findByUserIdAndStatus(userId, WAITING);
+    }
+
+    /**
+     * @return the number of waiting entries ahead of this one, or null if it isn't waiting
+     */
+    @Transactional(readOnly = true)
+    public Long getPosition(WaitlistEntry entry) {
+        if (!WAITING.equals(entry.getStatus())) {
+            return null;
+        }
+        return waitlistEntryRepository.countAhead(entry.getTourId(), entry.getPriority(), entry.getId());
+    }
+
+    public WaitlistEntry cancel(Long id) {
+        WaitlistEntry entry = getEntryById(id);
+        if (!WAITING.equals(entry.getStatus())) {
+            throw new InvalidWaitlistStatusException("Only WAITING entries can be cancelled");
+        }
+        entry.setStatus(CANCELLED);
+        return waitlistEntryRepository.save(entry);
+    }
+
+    public WaitlistEntry setPriority(Long id, int priority) {
+        WaitlistEntry entry = getEntryById(id);
+        if (!WAITING.equals(entry.getStatus())) {
+            throw new InvalidWaitlistStatusException("Only WAITING entries can be reprioritized");
+        }
+        entry.setPriority(priority);
+        return waitlistEntryRepository.save(entry);
+    }
+
+    // Promotion
+
+    /**
+     * Promotes head entries of the tour's queue while their seats fit into the free seats.
+     * Runs in the caller's transaction; never throws for a sold-out or started tour, so it
+     * can't roll back the release that triggered it.
+     *
+     * @return the number of promoted entries
+     */
+    public int promote(Long tourId) {
+        Tour tour = tourRepository.findById(tourId).orElse(null);
+        if (tour == null) {
+            return 0;
+        }
+        int promoted = 0;
+        while (true) {
+            List<WaitlistEntry> head = waitlistEntryRepository.lockHead(tourId, PageRequest.of(0, promotionBatchSize));
+            if (head.isEmpty()) {
+                break;
+            }
+            long available = tourService.getAvailableSeatCount(tourId);
+            int seats = 0;
+            int count = 0;
+            for (WaitlistEntry entry : head) {
+                if (seats + entry.getSeats() > available) {
+                    break;
+                }
+                seats += entry.getSeats();
+                count++;
+            }
+            // One seat reservation for the whole batch
+            if (count == 0 || !tourService.tryBookSeat(tourId, seats)) {
+                break;
+            }
+            promoteBatch(tour, head.subList(0, count));
+            promoted += count;
+            if (count < head.size()) {
+                break;
+            }
+        }
+        if (promoted > 0) {
+            logger.debug("Promoted " + promoted + " waitlist entries of tour " + tourId);
+        }
+        return promoted;
+    }
+
+    private void promoteBatch(Tour tour, List<WaitlistEntry> entries) {
+        LocalDateTime now = LocalDateTime.now();
+        Money unitPrice = pricingService.tourUnitPrice(tour);
+        List<Booking> bookings = new ArrayList<>(entries.size());
+        for (WaitlistEntry entry : entries) {
+            Booking booking = new Booking();
+            booking.setUser(userRepository.getReferenceById(entry.getUserId()));
+            booking.setTour(tour);
+            booking.setNumberOfPeople(entry.getSeats());
+            booking.setTotalAmount(quoteCalculator.tourBooking(unitPrice, entry.getSeats()).total().toBigDecimal());
+            booking.setBookingDate(now);
+            booking.setStatus("PENDING");
+            bookings.add(booking);
+        }
+        List<Booking> savedBookings = bookingRepository.saveAll(bookings);
+        for (int i = 0; i < entries.size(); i++) {
+            WaitlistEntry entry = entries.get(i);
+            entry.setStatus(PROMOTED);
+            entry.setPromotedAt(now);
+            entry.setBookingId(savedBookings.get(i).getId());
+            bookingSummaryService.refresh(savedBookings.get(i));
+        }
+    }
+
+    // Business Exceptions
+
+    public static class WaitlistEntryNotFoundException extends RuntimeException {
+        public WaitlistEntryNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    public static class UserNotFoundException extends RuntimeException {
+        public UserNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    public static class TourNotFoundException extends RuntimeException {
+        public TourNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    public static class AlreadyWaitlistedException extends RuntimeException {
+        public AlreadyWaitlistedException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidWaitlistStatusException extends RuntimeException {
+        public InvalidWaitlistStatusException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidInputException extends RuntimeException {
+        public InvalidInputException(String message) {
+            super(message);
+        }
+    }
+}
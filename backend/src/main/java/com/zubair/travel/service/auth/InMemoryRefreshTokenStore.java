@@ -0,0 +1,316 @@
+package com.zubair.travel.service.auth;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Refresh-token state of a single node in compact open-addressing tables.
+ *
+ * Entries are spread over segments by family id, so a rotation only locks the segment that
+ * holds both the token and its family. Each segment is a set of parallel primitive arrays
+ * (two key longs, the family id, a 32-bit expiry and a state byte: 29 bytes per slot, 39 to
+ * 77 bytes per entry depending on the load) probed linearly, so a lookup is a few array reads
+ * and no objects are kept per session. Tables grow by doubling up to their share of
+ * app.security.refresh-tokens.max-entries (rounded up to a power of two); a full segment is
+ * swept first and then refuses new logins.
+ *
+ * A family is an entry (familyId, 0) next to its tokens; token keys never have a zero low half.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.refresh-tokens.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRefreshTokenStore implements RefreshTokenStore {
+
+    private static final int SEGMENTS = 64;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final double MAX_LOAD = 0.75;
+
+    private static final byte EMPTY = 0;
+    private static final byte ACTIVE = 1;
+    private static final byte USED = 2;
+    private static final byte FAMILY = 3;
+    private static final byte FAMILY_REVOKED = 4;
+
+    private static final long FAMILY_LOW = 0;
+
+    @Value("${app.security.refresh-tokens.max-entries:4000000}")
+    private long maxEntries;
+
+    private Segment[] segments;
+
+    // Expiries are stored as 32-bit seconds relative to this
+    private long epochBase;
+
+    public InMemoryRefreshTokenStore() {
+    }
+
+    public InMemoryRefreshTokenStore(long maxEntries) {
+        this.maxEntries = maxEntries;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        epochBase = System.currentTimeMillis() / 1000 - 1;
+        long slotsPerSegment = Math.max(INITIAL_SLOTS, (long) Math.ceil(maxEntries / MAX_LOAD / SEGMENTS));
+        // Next power of two
+        int maxSlots = Integer.highestOneBit((int) Math.min(1 << 30, slotsPerSegment * 2 - 1));
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.min(INITIAL_SLOTS, maxSlots), maxSlots);
+        }
+    }
+
+    // RefreshTokenStore
+
+    @Override
+    public void register(TokenHash token, long familyId, long expiresAt, long now) {
+        Segment segment = segmentOf(familyId);
+        int expiry = relative(expiresAt);
+        segment.lock.lock();
+        try {
+            segment.reserve(2, relative(now));
+            segment.put(familyId, FAMILY_LOW, familyId, expiry, FAMILY);
+            segment.put(token.high(), tokenLow(token), familyId, expiry, ACTIVE);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public Rotation rotate(TokenHash presented, TokenHash next, long familyId, long nextExpiresAt, long now) {
+        Segment segment = segmentOf(familyId);
+        int current = relative(now);
+        segment.lock.lock();
+        try {
+            int family = segment.find(familyId, FAMILY_LOW);
+            if (family < 0) {
+                return Rotation.UNKNOWN;
+            }
+            if (segment.states[family] == FAMILY_REVOKED) {
+                return Rotation.REVOKED;
+            }
+            int slot = segment.find(presented.high(), tokenLow(presented));
+            if (slot < 0 || segment.values[slot] != familyId || segment.expiries[slot] < current) {
+                return Rotation.UNKNOWN;
+            }
+            if (segment.states[slot] == USED) {
+                segment.states[family] = FAMILY_REVOKED;
+                return Rotation.REUSED;
+            }
+            int expiry = relative(nextExpiresAt);
+            // May rehash or sweep, so the slots are looked up again afterwards
+            segment.reserve(1, current);
+            segment.states[segment.find(presented.high(), tokenLow(presented))] = USED;
+            family = segment.find(familyId, FAMILY_LOW);
+            segment.expiries[family] = Math.max(segment.expiries[family], expiry);
+            segment.put(next.high(), tokenLow(next), familyId, expiry, ACTIVE);
+            return Rotation.ROTATED;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public void revokeFamily(long familyId) {
+        Segment segment = segmentOf(familyId);
+        segment.lock.lock();
+        try {
+            int family = segment.find(familyId, FAMILY_LOW);
+            if (family >= 0) {
+                segment.states[family] = FAMILY_REVOKED;
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Sweeps one segment at a time, so logins and refreshes only ever wait for one segment.
+     */
+    @Override
+    public long sweep(long now) {
+        int current = relative(now);
+        long removed = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                removed += segment.sweep(current);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    // Helpers
+
+    private Segment segmentOf(long familyId) {
+        return segments[(int) (mix(familyId) >>> 58) & (SEGMENTS - 1)];
+    }
+
+    private int relative(long epochSeconds) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, epochSeconds - epochBase));
+    }
+
+    private static long tokenLow(TokenHash token) {
+        return token.low() == FAMILY_LOW ? 1 : token.low();
+    }
+
+    private static long mix(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return mixed ^ (mixed >>> 32);
+    }
+
+    /**
+     * One open-addressing table. All access is under {@code lock}.
+     */
+    private static final class Segment {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final int maxSlots;
+
+        long[] keyHigh;
+        long[] keyLow;
+        long[] values;
+        int[] expiries;
+        byte[] states;
+        int mask;
+        int size;
+
+        Segment(int slots, int maxSlots) {
+            this.maxSlots = maxSlots;
+            allocate(slots);
+        }
+
+        void allocate(int slots) {
+            keyHigh = new long[slots];
+            keyLow = new long[slots];
+            values = new long[slots];
+            expiries = new int[slots];
+            states = new byte[slots];
+            mask = slots - 1;
+            size = 0;
+        }
+
+        int index(long high, long low) {
+            return (int) mix(high ^ mix(low)) & mask;
+        }
+
+        int find(long high, long low) {
+            int i = index(high, low);
+            while (states[i] != EMPTY) {
+                if (keyHigh[i] == high && keyLow[i] == low) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long high, long low, long value, int expiry, byte state) {
+            int i = index(high, low);
+            while (states[i] != EMPTY) {
+                if (keyHigh[i] == high && keyLow[i] == low) {
+                    break;
+                }
+                i = (i + 1) & mask;
+            }
+            if (states[i] == EMPTY) {
+                size++;
+            }
+            keyHigh[i] = high;
+            keyLow[i] = low;
+            values[i] = value;
+            expiries[i] = expiry;
+            states[i] = state;
+        }
+
+        // Makes room for {@code count} more entries: grows, or sweeps once at the size limit
+        void reserve(int count, int now) {
+            if (size + count <= (int) (states.length * MAX_LOAD)) {
+                return;
+            }
+            if (states.length < maxSlots) {
+                rehash(states.length * 2);
+                return;
+            }
+            sweep(now);
+            if (size + count > (int) (states.length * MAX_LOAD)) {
+                throw new RefreshTokenCapacityException("Too many active sessions, please retry later");
+            }
+        }
+
+        void rehash(int slots) {
+            long[] oldHigh = keyHigh;
+            long[] oldLow = keyLow;
+            long[] oldValues = values;
+            int[] oldExpiries = expiries;
+            byte[] oldStates = states;
+            allocate(slots);
+            for (int i = 0; i < oldStates.length; i++) {
+                if (oldStates[i] != EMPTY) {
+                    put(oldHigh[i], oldLow[i], oldValues[i], oldExpiries[i], oldStates[i]);
+                }
+            }
+        }
+
+        int sweep(int now) {
+            int removed = 0;
+            int i = 0;
+            while (i < states.length) {
+                if (states[i] != EMPTY && expiries[i] < now) {
+                    removeAt(i);
+                    removed++;
+                    // An entry may have been shifted into slot i, check it again
+                } else {
+                    i++;
+                }
+            }
+            return removed;
+        }
+
+        // Backward-shift deletion keeps every probe chain unbroken without tombstones
+        void removeAt(int hole) {
+            states[hole] = EMPTY;
+            size--;
+            int i = (hole + 1) & mask;
+            while (states[i] != EMPTY) {
+                int home = index(keyHigh[i], keyLow[i]);
+                // Move the entry into the hole unless its home lies cyclically in (hole, i]
+                boolean stays = hole <= i ? (home > hole && home <= i) : (home > hole || home <= i);
+                if (!stays) {
+                    keyHigh[hole] = keyHigh[i];
+                    keyLow[hole] = keyLow[i];
+                    values[hole] = values[i];
+                    expiries[hole] = expiries[i];
+                    states[hole] = states[i];
+                    states[i] = EMPTY;
+                    hole = i;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+    }
+
+    // Business Exceptions
+
+    public static class RefreshTokenCapacityException extends RuntimeException {
+        public RefreshTokenCapacityException(String message) {
+            super(message);
+        }
+    }
+}
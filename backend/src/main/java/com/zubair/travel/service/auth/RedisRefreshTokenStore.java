@@ -0,0 +1,83 @@
+package com.zubair.travel.service.auth;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Refresh-token state shared by all replicas (app.security.refresh-tokens.store=redis).
+ *
+ * Each family is one hash, "refresh:{<familyId>}", with a field per token hash ("A" active,
+ * "U" used) and a "revoked" field once revoked. Rotation is a Lua script, so a token
+ * presented concurrently on two replicas is rotated once and the second attempt counts as
+ * reuse. The hash expires with the family's newest token, so Redis does the sweeping.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.refresh-tokens.store", havingValue = "redis")
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+
+    private static final RedisScript<Long> REGISTER = script("redis/refresh-register.lua");
+    private static final RedisScript<Long> ROTATE = script("redis/refresh-rotate.lua");
+    private static final RedisScript<Long> REVOKE = script("redis/refresh-revoke.lua");
+
+    private static final Rotation[] ROTATIONS = {Rotation.ROTATED, Rotation.REUSED, Rotation.REVOKED, Rotation.UNKNOWN};
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Override
+    public void register(TokenHash token, long familyId, long expiresAt, long now) {
+        redisTemplate.execute(REGISTER, List.of(familyKey(familyId)), field(token), ttl(expiresAt, now));
+    }
+
+    @Override
+    public Rotation rotate(TokenHash presented, TokenHash next, long familyId, long nextExpiresAt, long now) {
+        Long result = redisTemplate.execute(ROTATE, List.of(familyKey(familyId)), field(presented), field(next),
+                ttl(nextExpiresAt, now));
+        return result == null ? Rotation.UNKNOWN : ROTATIONS[result.intValue()];
+    }
+
+    @Override
+    public void revokeFamily(long familyId) {
+        redisTemplate.execute(REVOKE, List.of(familyKey(familyId)));
+    }
+
+    @Override
+    public long sweep(long now) {
+        // Families expire by their TTL
+        return 0;
+    }
+
+    @Override
+    public long size() {
+        // Would need a SCAN over the families
+        return -1;
+    }
+
+    // Keys
+
+    private static String familyKey(long familyId) {
+        return "refresh:{" + Long.toUnsignedString(familyId, 16) + "}";
+    }
+
+    private static String field(TokenHash token) {
+        return Long.toUnsignedString(token.high(), 16) + ":" + Long.toUnsignedString(token.low(), 16);
+    }
+
+    private static String ttl(long expiresAt, long now) {
+        return String.valueOf(Math.max(1, expiresAt - now));
+    }
+
+    private static RedisScript<Long> script(String location) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(location));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
@@ -0,0 +1,191 @@
+package com.zubair.travel.service.auth;
+
+import com.zubair.travel.config.security.JwtUtil;
+import com.zubair.travel.service.auth.RefreshTokenStore.Rotation;
+import com.zubair.travel.service.auth.RefreshTokenStore.TokenHash;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Issues, rotates and revokes refresh tokens.
+ *
+ * A refresh token is a JWT carrying a random token id (jti) and the id of its family; the
+ * RefreshTokenStore keeps only a hash of the token id. Every refresh rotates: the presented
+ * token is marked used and a new one of the same family is returned. Presenting a used token
+ * again revokes the family, logging out both the legitimate client and whoever copied it.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.refresh.expiration}")
+    private long refreshExpirationMs;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private Counter reuseCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        reuseCounter = Counter.builder("security.refresh_tokens.reuse")
+                .description("Refresh tokens presented again after rotation; their families were revoked")
+                .register(meterRegistry);
+        Gauge.builder("security.refresh_tokens.entries", refreshTokenStore, RefreshTokenStore::size)
+                .description("Refresh tokens and families held by the store")
+                .register(meterRegistry);
+    }
+
+    // Token Lifecycle
+
+    /**
+     * Starts a new family for a successful login.
+     */
+    public TokenPair login(String username) {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plusMillis(refreshExpirationMs);
+        long familyId = random.nextLong();
+        String tokenId = newTokenId();
+        refreshTokenStore.register(hash(tokenId), familyId, expiresAt.getEpochSecond(), now.getEpochSecond());
+        return new TokenPair(jwtUtil.generateToken(username),
+                jwtUtil.generateRefreshToken(username, tokenId, familyId, now, expiresAt), username);
+    }
+
+    public TokenPair refresh(String refreshToken) {
+        Claims claims = parse(refreshToken);
+        Instant now = clock.instant();
+        Instant expiresAt = now.plusMillis(refreshExpirationMs);
+        long familyId = familyId(claims);
+        String nextTokenId = newTokenId();
+
+        Rotation rotation = refreshTokenStore.rotate(hash(claims.getId()), hash(nextTokenId), familyId,
+                expiresAt.getEpochSecond(), now.getEpochSecond());
+        switch (rotation) {
+            case ROTATED:
+                String username = claims.getSubject();
+                return new TokenPair(jwtUtil.generateToken(username),
+                        jwtUtil.generateRefreshToken(username, nextTokenId, familyId, now, expiresAt), username);
+            case REUSED:
+                reuseCounter.increment();
+                logger.warn("Refresh token of " + claims.getSubject() + " was reused, its session family is revoked");
+                throw new RefreshTokenReusedException("Refresh token was already used; please log in again");
+            default:
+                throw new InvalidRefreshTokenException("Refresh token is revoked or unknown");
+        }
+    }
+
+    /**
+     * Revokes the family of the given token. Expired tokens are accepted, their family may
+     * still have a live successor.
+     */
+    public void logout(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseRefreshToken(refreshToken);
+        } catch (ExpiredJwtException e) {
+            claims = e.getClaims();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+        refreshTokenStore.revokeFamily(familyId(claims));
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.refresh-tokens.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        long removed = refreshTokenStore.sweep(clock.instant().getEpochSecond());
+        if (removed > 0) {
+            logger.debug("Swept " + removed + " expired refresh tokens and families");
+        }
+    }
+
+    // Helpers
+
+    private Claims parse(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token is required");
+        }
+        try {
+            return jwtUtil.parseRefreshToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidRefreshTokenException("Invalid or expired refresh token");
+        }
+    }
+
+    private static long familyId(Claims claims) {
+        try {
+            return Long.parseLong(claims.get(JwtUtil.FAMILY_CLAIM, String.class));
+        } catch (NumberFormatException e) {
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+    }
+
+    private String newTokenId() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private TokenHash hash(String tokenId) {
+        if (tokenId == null) {
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+        ByteBuffer digest = ByteBuffer.wrap(digests.get().digest(tokenId.getBytes(StandardCharsets.UTF_8)));
+        return new TokenHash(digest.getLong(), digest.getLong());
+    }
+
+    public record TokenPair(String accessToken, String refreshToken, String username) {
+    }
+
+    // Business Exceptions
+
+    public static class InvalidRefreshTokenException extends RuntimeException {
+        public InvalidRefreshTokenException(String message) {
+            super(message);
+        }
+    }
+
+    public static class RefreshTokenReusedException extends RuntimeException {
+        public RefreshTokenReusedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.zubair.travel.service.auth;
+
+/**
+ * Server-side state of issued refresh tokens, keyed by a hash of the token id (jti) and
+ * grouped in families: a login starts a family and every refresh replaces the presented
+ * token with a new one of the same family. A token presented a second time means it was
+ * copied, so the whole family is revoked.
+ *
+ * By default the state is kept in this node's memory (InMemoryRefreshTokenStore); with
+ * app.security.refresh-tokens.store=redis it is shared by all replicas. Times are epoch seconds.
+ */
+public interface RefreshTokenStore {
+
+    enum Rotation {
+        ROTATED,
+        /** The token was already rotated; its family is revoked now */
+        REUSED,
+        REVOKED,
+        /** Never issued, expired or swept */
+        UNKNOWN
+    }
+
+    /**
+     * First 128 bits of SHA-256 over the token id.
+     */
+    record TokenHash(long high, long low) {
+    }
+
+    /**
+     * Stores the first token of a new family.
+     */
+    void register(TokenHash token, long familyId, long expiresAt, long now);
+
+    /**
+     * Atomically marks {@code presented} used and stores {@code next} in its place.
+     */
+    Rotation rotate(TokenHash presented, TokenHash next, long familyId, long nextExpiresAt, long now);
+
+    /**
+     * Revokes every token of the family, e.g. on logout.
+     */
+    void revokeFamily(long familyId);
+
+    /**
+     * Drops expired entries.
+     *
+     * @return the number of entries dropped
+     */
+    long sweep(long now);
+
+    /**
+     * Tokens and families currently stored, expired ones included until swept, or -1 if the
+     * store can't count them cheaply.
+     */
+    long size();
+}
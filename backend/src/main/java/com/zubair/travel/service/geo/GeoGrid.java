@@ -0,0 +1,431 @@
+package com.zubair.travel.service.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Points on a fixed latitude/longitude grid, for radius, bounding-box and nearest-neighbour
+ * queries with price and room filters.
+ *
+ * Each non-empty cell is an immutable array of entries, replaced on every change, so queries
+ * read without locking while writers (serialized on the grid) copy only the cell they touch.
+ * A query visits the cells overlapping its area; next to the entries a cell keeps their unit
+ * vectors, so most candidates are rejected with a dot product and only the rest pay for the
+ * haversine distance. Nearest-neighbour queries scan rings of cells outwards and stop once
+ * the next ring can't hold anything closer than the k-th hit. Longitude wraps at the
+ * antimeridian.
+ */
+public final class GeoGrid {
+
+    /** Mean Earth radius */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    // Slack for the dot product prefilter, so rounding can't reject what haversine would accept
+    private static final double DOT_SLACK = 1e-9;
+
+    private static final Cell EMPTY = new Cell(new Entry[0], new double[0]);
+
+    private final int latCells;
+    private final int lonCells;
+    // The requested size, stretched so that the cells tile the globe exactly
+    private final double latCellDegrees;
+    private final double lonCellDegrees;
+
+    private final ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public GeoGrid(double cellDegrees) {
+        if (!(cellDegrees > 0) || cellDegrees > 90) {
+            throw new IllegalArgumentException("Cell size must be in (0, 90] degrees");
+        }
+        this.latCells = (int) Math.round(180 / cellDegrees);
+        this.lonCells = (int) Math.round(360 / cellDegrees);
+        this.latCellDegrees = 180.0 / latCells;
+        this.lonCellDegrees = 360.0 / lonCells;
+    }
+
+    public static boolean isValid(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    // Updates
+
+    public synchronized void put(Entry entry) {
+        if (!isValid(entry.latitude(), entry.longitude())) {
+            throw new IllegalArgumentException("Invalid coordinates for " + entry.id());
+        }
+        Entry previous = entries.put(entry.id(), entry);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+        long key = cellKey(latIndex(entry.latitude()), lonIndex(entry.longitude()));
+        cells.put(key, cells.getOrDefault(key, EMPTY).with(List.of(entry)));
+    }
+
+    /**
+     * Adds or replaces many entries, copying each touched cell once rather than per entry.
+     */
+    public synchronized void putAll(Collection<Entry> batch) {
+        Map<Long, List<Entry>> byCell = new HashMap<>();
+        for (Entry entry : batch) {
+            if (!isValid(entry.latitude(), entry.longitude())) {
+                throw new IllegalArgumentException("Invalid coordinates for " + entry.id());
+            }
+            Entry previous = entries.put(entry.id(), entry);
+            if (previous != null) {
+                removeFromCell(previous);
+                // An earlier entry of the same batch isn't in its cell yet
+                List<Entry> pending = byCell.get(cellKey(latIndex(previous.latitude()), lonIndex(previous.longitude())));
+                if (pending != null) {
+                    pending.removeIf(candidate -> candidate.id() == entry.id());
+                }
+            }
+            byCell.computeIfAbsent(cellKey(latIndex(entry.latitude()), lonIndex(entry.longitude())), key -> new ArrayList<>())
+                    .add(entry);
+        }
+        byCell.forEach((key, added) -> {
+            if (!added.isEmpty()) {
+                cells.put(key, cells.getOrDefault(key, EMPTY).with(added));
+            }
+        });
+    }
+
+    public synchronized void remove(long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+    }
+
+    /**
+     * @return false if the id isn't in the grid
+     */
+    public synchronized boolean updateRooms(long id, int availableRooms) {
+        Entry previous = entries.get(id);
+        if (previous == null) {
+            return false;
+        }
+        if (previous.availableRooms() != availableRooms) {
+            put(new Entry(id, previous.latitude(), previous.longitude(), previous.price(), availableRooms));
+        }
+        return true;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void removeFromCell(Entry entry) {
+        long key = cellKey(latIndex(entry.latitude()), lonIndex(entry.longitude()));
+        Cell cell = cells.getOrDefault(key, EMPTY);
+        for (int i = 0; i < cell.entries.length; i++) {
+            if (cell.entries[i].id() == entry.id()) {
+                if (cell.entries.length == 1) {
+                    cells.remove(key);
+                } else {
+                    cells.put(key, cell.without(i));
+                }
+                return;
+            }
+        }
+    }
+
+    // Queries
+
+    /**
+     * Entries within {@code radiusKm} of the point, nearest first.
+     */
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm, Filter filter, int limit) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double minLat = latitude - latSpan;
+        double maxLat = latitude + latSpan;
+        // Widest longitude difference of a point within the radius; all of them around a pole
+        double lonSpan = minLat <= -90 || maxLat >= 90 ? 360
+                : Math.toDegrees(Math.asin(Math.min(1, Math.sin(radiusKm / EARTH_RADIUS_KM)
+                / Math.cos(Math.toRadians(latitude)))));
+
+        double[] point = unitVector(latitude, longitude);
+        double minDot = minDot(radiusKm);
+        Hits hits = new Hits(limit);
+        scan(minLat, maxLat, longitude - lonSpan, longitude + lonSpan, cell -> {
+            Entry[] entries = cell.entries;
+            double[] vectors = cell.vectors;
+            for (int i = 0; i < entries.length; i++) {
+                if (dot(point, vectors, i) >= minDot && filter.accepts(entries[i])) {
+                    double distance = distanceKm(latitude, longitude, entries[i].latitude(), entries[i].longitude());
+                    if (distance <= radiusKm) {
+                        hits.offer(entries[i].id(), distance);
+                    }
+                }
+            }
+        });
+        return hits.sorted();
+    }
+
+    /**
+     * Entries inside the box, nearest to its center first. A box with {@code minLongitude}
+     * greater than {@code maxLongitude} crosses the antimeridian.
+     */
+    public List<Hit> withinBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                               Filter filter, int limit) {
+        double maxLon = maxLongitude < minLongitude ? maxLongitude + 360 : maxLongitude;
+        double centerLat = (minLatitude + maxLatitude) / 2;
+        double centerLon = normalizeLongitude((minLongitude + maxLon) / 2);
+
+        Hits hits = new Hits(limit);
+        scan(minLatitude, maxLatitude, minLongitude, maxLon, cell -> {
+            for (Entry entry : cell.entries) {
+                double lon = entry.longitude() < minLongitude ? entry.longitude() + 360 : entry.longitude();
+                if (entry.latitude() >= minLatitude && entry.latitude() <= maxLatitude
+                        && lon >= minLongitude && lon <= maxLon && filter.accepts(entry)) {
+                    hits.offer(entry.id(), distanceKm(centerLat, centerLon, entry.latitude(), entry.longitude()));
+                }
+            }
+        });
+        return hits.sorted();
+    }
+
+    /**
+     * The {@code k} entries nearest to the point, at most {@code maxRadiusKm} away.
+     */
+    public List<Hit> nearest(double latitude, double longitude, int k, double maxRadiusKm, Filter filter) {
+        double[] point = unitVector(latitude, longitude);
+        double minDot = minDot(maxRadiusKm);
+        Hits hits = new Hits(k);
+        int centerLat = latIndex(latitude);
+        int centerLon = lonIndex(longitude);
+        int maxRing = Math.max(latCells, lonCells / 2);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ring > 0) {
+                double bound = ringDistanceBound(latitude, ring);
+                if (bound > maxRadiusKm || (hits.isFull() && bound > hits.worst())) {
+                    break;
+                }
+            }
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                int lat = centerLat + dLat;
+                if (lat < 0 || lat >= latCells) {
+                    continue;
+                }
+                boolean edgeRow = Math.abs(dLat) == ring;
+                int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int dLon = -ring; dLon <= ring; dLon += step) {
+                    // Past half the circle the columns wrap onto ones already visited
+                    if (dLon > lonCells / 2 || dLon <= -(lonCells + 1) / 2) {
+                        continue;
+                    }
+                    Cell cell = cells.get(cellKey(lat, Math.floorMod(centerLon + dLon, lonCells)));
+                    if (cell == null) {
+                        continue;
+                    }
+                    Entry[] entries = cell.entries;
+                    for (int i = 0; i < entries.length; i++) {
+                        // Once k hits are in, only what beats the worst of them is measured
+                        double bound = hits.isFull() ? Math.max(minDot, hits.worstDot) : minDot;
+                        if (dot(point, cell.vectors, i) >= bound && filter.accepts(entries[i])) {
+                            double distance = distanceKm(latitude, longitude, entries[i].latitude(), entries[i].longitude());
+                            if (distance <= maxRadiusKm) {
+                                hits.offer(entries[i].id(), distance);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return hits.sorted();
+    }
+
+    /**
+     * Haversine distance.
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Cells
+
+    private void scan(double minLat, double maxLat, double minLon, double maxLon, Consumer<Cell> visitor) {
+        int fromLat = latIndex(Math.max(-90, minLat));
+        int toLat = latIndex(Math.min(90, maxLat));
+        int fromLon;
+        int count;
+        if (maxLon - minLon >= 360) {
+            fromLon = 0;
+            count = lonCells;
+        } else {
+            fromLon = lonIndex(normalizeLongitude(minLon));
+            count = Math.min(lonCells, Math.floorMod(lonIndex(normalizeLongitude(maxLon)) - fromLon, lonCells) + 1);
+            // The span covers almost the whole circle and both ends fall into the same cell
+            if (maxLon - minLon > 180 && count == 1) {
+                count = lonCells;
+            }
+        }
+        for (int lat = fromLat; lat <= toLat; lat++) {
+            for (int i = 0; i < count; i++) {
+                Cell cell = cells.get(cellKey(lat, (fromLon + i) % lonCells));
+                if (cell != null) {
+                    visitor.accept(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lower bound of the distance from a point to anything in the cells {@code ring} cells away.
+     * At least {@code ring - 1} whole cells separate them along one axis: as a latitude gap that
+     * is a fixed distance, as a longitude gap it is at least the distance to the nearest meridian
+     * that far away.
+     */
+    private double ringDistanceBound(double latitude, int ring) {
+        double latGapKm = (ring - 1) * latCellDegrees * KM_PER_DEGREE;
+        double lonGap = Math.toRadians(Math.min(90, (ring - 1) * lonCellDegrees));
+        double lonGapKm = EARTH_RADIUS_KM * Math.asin(Math.cos(Math.toRadians(latitude)) * Math.sin(lonGap));
+        return Math.min(latGapKm, lonGapKm);
+    }
+
+    private int latIndex(double latitude) {
+        return Math.min(latCells - 1, (int) Math.floor((latitude + 90) / latCellDegrees));
+    }
+
+    private int lonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / lonCellDegrees), lonCells);
+    }
+
+    private long cellKey(int lat, int lon) {
+        return (long) lat * lonCells + lon;
+    }
+
+    private static double[] unitVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[]{Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+    }
+
+    private static double dot(double[] point, double[] vectors, int index) {
+        int i = index * 3;
+        return point[0] * vectors[i] + point[1] * vectors[i + 1] + point[2] * vectors[i + 2];
+    }
+
+    // Smallest dot product of unit vectors at most distanceKm apart
+    private static double minDot(double distanceKm) {
+        return Math.cos(Math.min(Math.PI, distanceKm / EARTH_RADIUS_KM)) - DOT_SLACK;
+    }
+
+    private static double normalizeLongitude(double longitude) {
+        double normalized = ((longitude + 180) % 360 + 360) % 360 - 180;
+        return normalized == -180 && longitude > 0 ? 180 : normalized;
+    }
+
+    // Types
+
+    /**
+     * An indexed lodge: its coordinates plus the attributes the filters test.
+     */
+    public record Entry(long id, double latitude, double longitude, double price, int availableRooms) {
+    }
+
+    public record Filter(double maxPrice, int minRooms) {
+
+        public static final Filter ANY = new Filter(Double.MAX_VALUE, 0);
+
+        boolean accepts(Entry entry) {
+            return entry.price() <= maxPrice && entry.availableRooms() >= minRooms;
+        }
+    }
+
+    public record Hit(long id, double distanceKm) {
+    }
+
+    /**
+     * The entries of one cell and their unit vectors (x, y, z per entry). Immutable.
+     */
+    private static final class Cell {
+
+        final Entry[] entries;
+        final double[] vectors;
+
+        Cell(Entry[] entries, double[] vectors) {
+            this.entries = entries;
+            this.vectors = vectors;
+        }
+
+        Cell with(List<Entry> added) {
+            Entry[] entries = Arrays.copyOf(this.entries, this.entries.length + added.size());
+            double[] vectors = Arrays.copyOf(this.vectors, entries.length * 3);
+            for (int i = this.entries.length; i < entries.length; i++) {
+                entries[i] = added.get(i - this.entries.length);
+                System.arraycopy(unitVector(entries[i].latitude(), entries[i].longitude()), 0, vectors, i * 3, 3);
+            }
+            return new Cell(entries, vectors);
+        }
+
+        Cell without(int index) {
+            Entry[] entries = new Entry[this.entries.length - 1];
+            System.arraycopy(this.entries, 0, entries, 0, index);
+            System.arraycopy(this.entries, index + 1, entries, index, entries.length - index);
+            double[] vectors = new double[this.vectors.length - 3];
+            System.arraycopy(this.vectors, 0, vectors, 0, index * 3);
+            System.arraycopy(this.vectors, index * 3 + 3, vectors, index * 3, vectors.length - index * 3);
+            return new Cell(entries, vectors);
+        }
+    }
+
+    /**
+     * The {@code limit} nearest hits seen so far, in a max-heap on distance.
+     */
+    private static final class Hits {
+
+        private final int limit;
+        private final PriorityQueue<Hit> heap;
+
+        // Dot product prefilter matching the worst hit, once there are limit of them
+        double worstDot = -2;
+
+        Hits(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, Comparator.comparingDouble(Hit::distanceKm).reversed());
+        }
+
+        void offer(long id, double distance) {
+            if (heap.size() < limit) {
+                heap.add(new Hit(id, distance));
+            } else if (distance < heap.peek().distanceKm()) {
+                heap.poll();
+                heap.add(new Hit(id, distance));
+            } else {
+                return;
+            }
+            if (heap.size() >= limit) {
+                worstDot = minDot(heap.peek().distanceKm());
+            }
+        }
+
+        boolean isFull() {
+            return heap.size() >= limit;
+        }
+
+        double worst() {
+            return heap.isEmpty() ? Double.MAX_VALUE : heap.peek().distanceKm();
+        }
+
+        List<Hit> sorted() {
+            List<Hit> sorted = new ArrayList<>(heap);
+            sorted.sort(Comparator.comparingDouble(Hit::distanceKm).thenComparingLong(Hit::id));
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.zubair.travel.service.geo;
+
+import com.zubair.travel.entity.Lodge;
+import com.zubair.travel.repository.LodgeRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.geo.GeoGrid.Entry;
+import com.zubair.travel.service.index.AfterCommitIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory spatial index of the lodges that have coordinates.
+ *
+ * LodgeService keeps it current as lodges are created, updated, deleted and booked, and lodges
+ * changed on other replicas are read again when the stamp poll reports them. A periodic rebuild
+ * from the lodges table picks up the rest, such as rooms reconciled from the inventory backend.
+ */
+@Service
+public class LodgeGeoIndex extends AfterCommitIndex<GeoGrid> {
+
+    @Autowired
+    private LodgeRepository lodgeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.geo.cell-degrees:0.1}")
+    private double cellDegrees;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("lodges.geo_index.entries", this, index -> index.grid().size())
+                .description("Lodges held by the proximity search index")
+                .register(meterRegistry);
+    }
+
+    public GeoGrid grid() {
+        return current();
+    }
+
+    // Changes
+
+    public void put(Lodge lodge) {
+        if (lodge.getLatitude() == null || lodge.getLongitude() == null) {
+            remove(lodge.getId());
+            return;
+        }
+        Entry entry = new Entry(lodge.getId(), lodge.getLatitude(), lodge.getLongitude(),
+                lodge.getPricePerNight(), lodge.getAvailableRooms());
+        afterCommit(grid -> grid.put(entry));
+    }
+
+    public void remove(Long lodgeId) {
+        afterCommit(grid -> grid.remove(lodgeId));
+    }
+
+    public void updateRooms(Long lodgeId, long availableRooms) {
+        int rooms = (int) Math.min(Integer.MAX_VALUE, Math.max(0, availableRooms));
+        afterCommit(grid -> grid.updateRooms(lodgeId, rooms));
+    }
+
+    // Rebuild
+
+    /**
+     * Reloads every lodge with coordinates into a new grid and swaps it in.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.geo.rebuild-interval-ms:300000}", initialDelayString = "${app.geo.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        super.rebuild();
+    }
+
+    @Override
+    protected GeoGrid create() {
+        return new GeoGrid(cellDegrees);
+    }
+
+    @Override
+    protected void load(GeoGrid grid, TransactionTemplate readOnlyTransaction) {
+        List<Object[]> rows = readOnlyTransaction.execute(status -> lodgeRepository.findGeoInputs());
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            double latitude = ((Number) row[1]).doubleValue();
+            double longitude = ((Number) row[2]).doubleValue();
+            if (GeoGrid.isValid(latitude, longitude)) {
+                entries.add(new Entry((Long) row[0], latitude, longitude, ((Number) row[3]).doubleValue(),
+                        ((Number) row[4]).intValue()));
+            }
+        }
+        grid.putAll(entries);
+    }
+
+    @Override
+    protected int size(GeoGrid grid) {
+        return grid.size();
+    }
+
+    @Override
+    protected Catalog catalog() {
+        return Catalog.LODGES;
+    }
+
+    @Override
+    protected void reload(long id, TransactionTemplate readOnlyTransaction) {
+        List<Object[]> rows = readOnlyTransaction.execute(status -> lodgeRepository.findGeoInputsById(id));
+        if (rows.isEmpty()) {
+            remove(id);
+            return;
+        }
+        Object[] row = rows.get(0);
+        double latitude = ((Number) row[1]).doubleValue();
+        double longitude = ((Number) row[2]).doubleValue();
+        if (!GeoGrid.isValid(latitude, longitude)) {
+            remove(id);
+            return;
+        }
+        Entry entry = new Entry(id, latitude, longitude, ((Number) row[3]).doubleValue(), ((Number) row[4]).intValue());
+        afterCommit(grid -> grid.put(entry));
+    }
+}
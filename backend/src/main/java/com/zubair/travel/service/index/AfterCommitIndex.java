@@ -0,0 +1,152 @@
+package com.zubair.travel.service.index;
+
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.CatalogVersionService.CatalogChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory structure of type T that a service keeps current with its own writes.
+ *
+ * Changes are applied after commit, so a rolled back write never shows up in a query. Changes
+ * made on other replicas are read again as the catalog stamp poll reports them, before the new
+ * stamps are handed out, so an ETag never describes data the index doesn't have yet. rebuild()
+ * loads a new structure from the database and swaps it in, which picks up whatever else this
+ * node didn't see; changes applied while the rebuild reads the table are replayed onto the new
+ * structure first, so none is lost by the swap. Subclasses only create, load and reload the
+ * structure; they schedule rebuild() by overriding it with their own interval.
+ */
+public abstract class AfterCommitIndex<T> {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private volatile T current;
+
+    private final Object rebuildLock = new Object();
+
+    // Changes made while a rebuild reads the table, replayed onto the new structure before the swap
+    private List<Consumer<T>> pendingChanges;
+
+    @PostConstruct
+    private void initIndex() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        current = create();
+    }
+
+    /**
+     * An empty structure.
+     */
+    protected abstract T create();
+
+    /**
+     * Fills a new structure from the database, reading in the given read-only transaction.
+     */
+    protected abstract void load(T structure, TransactionTemplate readOnlyTransaction);
+
+    protected abstract int size(T structure);
+
+    /**
+     * The catalog whose changes on other replicas this index follows.
+     */
+    protected abstract Catalog catalog();
+
+    /**
+     * Reads one entity again and applies it with afterCommit, or removes it if it's gone.
+     */
+    protected abstract void reload(long id, TransactionTemplate readOnlyTransaction);
+
+    protected final T current() {
+        return current;
+    }
+
+    // Changes
+
+    protected final void afterCommit(Consumer<T> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private synchronized void apply(Consumer<T> change) {
+        change.accept(current);
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    // Other replicas
+
+    /**
+     * Only remote events: this node's own writes were applied after their commit already. A
+     * failing reload propagates to the stamp poll, which then keeps the old stamps and retries.
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.remote() || event.catalog() != catalog()) {
+            return;
+        }
+        if (event.id() != null) {
+            reload(event.id(), readOnlyTransaction);
+        } else {
+            rebuild();
+        }
+    }
+
+    // Rebuild
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Loads a new structure and swaps it in.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+            T rebuilt = create();
+            try {
+                load(rebuilt, readOnlyTransaction);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                pendingChanges.forEach(change -> change.accept(rebuilt));
+                pendingChanges = null;
+                current = rebuilt;
+            }
+            logger.debug(getClass().getSimpleName() + " rebuilt with " + size(rebuilt) + " entries");
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.zubair.travel.service.inventory;
+
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.CatalogVersionService.CatalogChangedEvent;
+import com.zubair.travel.service.LodgeService;
+import com.zubair.travel.service.TourService;
+import com.zubair.travel.service.TransportService;
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of live seat and room counts to server-sent event subscribers.
+ *
+ * Booking services already touch the catalog stamp of every tour, lodge and transport whose
+ * counter changed; the resulting CatalogChangedEvent only marks the entity dirty. The stamp
+ * poll publishes the same events for changes made on other replicas, so every replica's
+ * streams follow the shared stamps and not just its own bookings. Once per
+ * tick each dirty entity that somebody watches is read once and, if its count changed, the
+ * new value is put into the pending map of every subscriber watching it. A subscriber's
+ * pending map holds one value per entity, so a consumer that can't keep up simply receives
+ * the latest counts instead of a growing backlog.
+ *
+ * Idle streams cost no thread (the servlet request is async and Tomcat's NIO connector only
+ * polls the socket); writes run on a small sender pool with at most one task per subscriber.
+ * Ticks and heartbeats have their own thread, so they never queue behind the scheduled index
+ * rebuilds and jobs.
+ */
+@Service
+public class AvailabilityStreamHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityStreamHub.class);
+
+    @Autowired
+    private TourService tourService;
+
+    @Autowired
+    private LodgeService lodgeService;
+
+    @Autowired
+    private TransportService transportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.availability.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.availability.stream.max-connections:20000}")
+    private int maxConnections;
+
+    @Value("${app.availability.stream.max-keys:50}")
+    private int maxKeys;
+
+    @Value("${app.availability.stream.sender-threads:4}")
+    private int senderThreads;
+
+    private final Map<Key, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> connected = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final Set<Key> dirty = ConcurrentHashMap.newKeySet();
+
+    // Last count fanned out per watched entity, so unchanged counts aren't sent again
+    private final Map<Key, Long> lastValues = new ConcurrentHashMap<>();
+
+    @Value("${app.availability.stream.tick-ms:500}")
+    private long tickMs;
+
+    @Value("${app.availability.stream.heartbeat-ms:25000}")
+    private long heartbeatMs;
+
+    private ExecutorService senders;
+
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "availability-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-stream-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> run("tick", this::tick), tickMs, tickMs, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(() -> run("heartbeat", this::heartbeat), heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("availability.stream.connections", connected, Set::size)
+                .description("Open server-sent event availability streams")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        senders.shutdownNow();
+        connected.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // Subscriptions
+
+    /**
+     * Opens a stream for the given entities. The first event carries their current counts,
+     * later events only the counts that changed.
+     */
+    public SseEmitter subscribe(Map<Resource, List<Long>> requested) {
+        List<Key> keys = new ArrayList<>();
+        requested.forEach((resource, ids) -> ids.stream().distinct().forEach(id -> keys.add(new Key(resource, id))));
+        if (keys.isEmpty() || keys.size() > maxKeys) {
+            throw new InvalidSubscriptionException("Subscribe to between 1 and " + maxKeys + " tours, lodges or transports");
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new TooManySubscribersException("Availability stream is at its limit of " + maxConnections + " connections");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, keys);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        connected.add(subscriber);
+        for (Key key : keys) {
+            subscribers.compute(key, (k, keySubscribers) -> {
+                Set<Subscriber> set = keySubscribers != null ? keySubscribers : ConcurrentHashMap.newKeySet();
+                set.add(subscriber);
+                return set;
+            });
+            Long value = read(key);
+            if (value != null) {
+                lastValues.putIfAbsent(key, value);
+                subscriber.pending.put(key, value);
+            }
+        }
+        schedule(subscriber);
+        return emitter;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connected.remove(subscriber);
+        connections.decrementAndGet();
+        for (Key key : subscriber.keys) {
+            subscribers.computeIfPresent(key, (k, keySubscribers) -> {
+                keySubscribers.remove(subscriber);
+                if (keySubscribers.isEmpty()) {
+                    lastValues.remove(key);
+                    return null;
+                }
+                return keySubscribers;
+            });
+        }
+    }
+
+    public int getConnectionCount() {
+        return connected.size();
+    }
+
+    // Change tracking
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Resource resource = resource(event.catalog());
+        if (resource == null) {
+            return;
+        }
+        if (event.id() != null) {
+            Key key = new Key(resource, event.id());
+            if (subscribers.containsKey(key)) {
+                dirty.add(key);
+            }
+        } else {
+            // Catalog-wide change: every watched entity of the catalog may have moved
+            subscribers.keySet().stream().filter(key -> key.resource() == resource).forEach(dirty::add);
+        }
+    }
+
+    /**
+     * Reads every watched entity that changed since the last tick and queues the new counts.
+     */
+    public void tick() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Set<Subscriber> touched = new HashSet<>();
+        for (Iterator<Key> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            Key key = iterator.next();
+            // Removed before the read, so a change committed meanwhile is picked up next tick
+            iterator.remove();
+            Set<Subscriber> keySubscribers = subscribers.get(key);
+            if (keySubscribers == null) {
+                continue;
+            }
+            Long value = read(key);
+            if (value == null || value.equals(lastValues.put(key, value))) {
+                continue;
+            }
+            for (Subscriber subscriber : keySubscribers) {
+                subscriber.pending.put(key, value);
+                touched.add(subscriber);
+            }
+        }
+        touched.forEach(this::schedule);
+    }
+
+    /**
+     * Keeps idle streams from being cut by proxies and detects clients that went away.
+     */
+    public void heartbeat() {
+        for (Subscriber subscriber : connected) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    // Sending
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            do {
+                List<AvailabilityUpdate> updates = subscriber.takePending();
+                if (!updates.isEmpty()) {
+                    subscriber.emitter.send(SseEmitter.event().name("availability").data(updates, MediaType.APPLICATION_JSON));
+                    subscriber.heartbeatDue = false;
+                } else if (subscriber.heartbeatDue) {
+                    subscriber.heartbeatDue = false;
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+                subscriber.sending.set(false);
+                // Values queued while this write was running are picked up here
+            } while (!subscriber.closed.get()
+                    && (!subscriber.pending.isEmpty() || subscriber.heartbeatDue)
+                    && subscriber.sending.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Closing availability stream: " + e.getMessage());
+            subscriber.sending.set(false);
+            unsubscribe(subscriber);
+        }
+    }
+
+    // Helpers
+
+    // An exception would cancel the fixed-delay task for good, so it is only logged
+    private void run(String task, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (RuntimeException e) {
+            logger.error("Availability stream " + task + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private Long read(Key key) {
+        try {
+            return switch (key.resource()) {
+                case TOUR -> tourService.getAvailableSeatCount(key.id());
+                case LODGE -> lodgeService.getAvailableRoomCount(key.id());
+                case TRANSPORT -> transportService.getAvailableSeatCount(key.id());
+            };
+        } catch (RuntimeException e) {
+            // Deleted or unknown entity, or the counter is unavailable right now
+            logger.debug("Could not read availability of " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Resource resource(Catalog catalog) {
+        return switch (catalog) {
+            case TOURS -> Resource.TOUR;
+            case LODGES -> Resource.LODGE;
+            case TRANSPORTS -> Resource.TRANSPORT;
+            case LOCATIONS -> null;
+        };
+    }
+
+    private record Key(Resource resource, Long id) {
+    }
+
+    /**
+     * One entry of an "availability" event: the current free seats (tours, transports) or rooms (lodges).
+     */
+    public record AvailabilityUpdate(String type, Long id, long available) {
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final List<Key> keys;
+        private final Map<Key, Long> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, List<Key> keys) {
+            this.emitter = emitter;
+            this.keys = keys;
+        }
+
+        // Removes only the values it returns, a newer value put meanwhile stays for the next send
+        private List<AvailabilityUpdate> takePending() {
+            List<AvailabilityUpdate> updates = new ArrayList<>(pending.size());
+            for (Map.Entry<Key, Long> entry : pending.entrySet()) {
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    updates.add(new AvailabilityUpdate(entry.getKey().resource().key(), entry.getKey().id(), entry.getValue()));
+                }
+            }
+            return updates;
+        }
+    }
+
+    // Business Exceptions
+
+    public static class InvalidSubscriptionException extends RuntimeException {
+        public InvalidSubscriptionException(String message) {
+            super(message);
+        }
+    }
+
+    public static class TooManySubscribersException extends RuntimeException {
+        public TooManySubscribersException(String message) {
+            super(message);
+        }
+    }
+}
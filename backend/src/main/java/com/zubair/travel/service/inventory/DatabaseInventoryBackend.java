@@ -0,0 +1,36 @@
+package com.zubair.travel.service.inventory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Default backend: nothing is tracked, so the services keep reserving in the database rows.
+ */
+@Service
+@ConditionalOnProperty(name = "app.inventory.backend", havingValue = "database", matchIfMissing = true)
+public class DatabaseInventoryBackend implements InventoryBackend {
+
+    @Override
+    public boolean isTracked(Resource resource, Long id) {
+        return false;
+    }
+
+    @Override
+    public long reserve(Resource resource, Long id, int quantity) {
+        throw new IllegalStateException(resource + " " + id + " is not tracked outside the database");
+    }
+
+    @Override
+    public long release(Resource resource, Long id, int quantity, int capacity) {
+        throw new IllegalStateException(resource + " " + id + " is not tracked outside the database");
+    }
+
+    @Override
+    public long available(Resource resource, Long id) {
+        throw new IllegalStateException(resource + " " + id + " is not tracked outside the database");
+    }
+
+    @Override
+    public void resync(Resource resource, Long id) {
+    }
+}
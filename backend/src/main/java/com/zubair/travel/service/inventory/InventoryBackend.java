@@ -0,0 +1,67 @@
+package com.zubair.travel.service.inventory;
+
+/**
+ * Where seat and room counters of bookable resources are reserved.
+ *
+ * By default every counter lives in its database row and the services update it there.
+ * With app.inventory.backend=redis, configured hot resources are "tracked": their counters
+ * are reserved atomically in Redis and written back to the database asynchronously.
+ * The services ask isTracked first and only use reserve/release/available for tracked ids.
+ */
+public interface InventoryBackend {
+
+    /**
+     * Bookable resources with a counter column, e.g. tours.available_seats.
+     */
+    enum Resource {
+        TOUR("tour", "tours", "available_seats"),
+        LODGE("lodge", "lodges", "available_rooms"),
+        TRANSPORT("transport", "transport", "available_seats");
+
+        private final String key;
+        private final String table;
+        private final String column;
+
+        Resource(String key, String table, String column) {
+            this.key = key;
+            this.table = table;
+            this.column = column;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public String table() {
+            return table;
+        }
+
+        public String column() {
+            return column;
+        }
+    }
+
+    boolean isTracked(Resource resource, Long id);
+
+    /**
+     * Atomically takes {@code quantity} units if that many are left.
+     *
+     * @return the remaining count, or -1 if not enough units are available
+     */
+    long reserve(Resource resource, Long id, int quantity);
+
+    /**
+     * Atomically gives back {@code quantity} units, refusing to go above {@code capacity}
+     * (pass -1 for no limit).
+     *
+     * @return the new count, or -1 if the capacity would be exceeded
+     */
+    long release(Resource resource, Long id, int quantity, int capacity);
+
+    long available(Resource resource, Long id);
+
+    /**
+     * Reloads a tracked counter from its database row, e.g. after an admin edited the row directly.
+     */
+    void resync(Resource resource, Long id);
+}
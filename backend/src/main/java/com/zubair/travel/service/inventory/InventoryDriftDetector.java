@@ -0,0 +1,103 @@
+package com.zubair.travel.service.inventory;
+
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import com.zubair.travel.service.inventory.RedisInventoryBackend.CounterSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares every tracked Redis counter with its database row plus the deltas still waiting
+ * for the reconciler. A difference seen in two consecutive runs (a single run can race with
+ * a reconciliation) is reported as drift: a WARN log and the "inventory.drift.items" gauge.
+ * Drift is not repaired automatically; an admin update of the resource resyncs its counter.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.backend", havingValue = "redis")
+public class InventoryDriftDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryDriftDetector.class);
+
+    @Autowired
+    private RedisInventoryBackend inventoryBackend;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Resource, AtomicInteger> driftedItems = new EnumMap<>(Resource.class);
+
+    // Drift seen in the previous run, by resource and id
+    private final Map<Resource, Map<Long, Long>> suspects = new EnumMap<>(Resource.class);
+
+    @PostConstruct
+    void registerGauges() {
+        for (Resource resource : Resource.values()) {
+            AtomicInteger items = new AtomicInteger();
+            driftedItems.put(resource, items);
+            suspects.put(resource, new HashMap<>());
+            Gauge.builder("inventory.drift.items", items, AtomicInteger::get)
+                    .tag("resource", resource.key())
+                    .description("Tracked counters whose Redis value disagrees with the database")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.drift-check-interval-ms:60000}")
+    public synchronized void check() {
+        for (Resource resource : Resource.values()) {
+            try {
+                driftedItems.get(resource).set(check(resource).size());
+            } catch (DataAccessException e) {
+                logger.warn("Inventory drift check of " + resource + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the drift (Redis minus expected) of every counter confirmed as drifted in this run
+     */
+    Map<Long, Long> check(Resource resource) {
+        Map<Long, Long> previous = suspects.get(resource);
+        Map<Long, Long> current = new HashMap<>();
+        Map<Long, Long> confirmed = new HashMap<>();
+        for (Long id : inventoryBackend.trackedIds(resource)) {
+            CounterSnapshot snapshot = inventoryBackend.snapshot(resource, id);
+            if (snapshot == null || snapshot.inFlightDelta() != 0) {
+                // Not loaded, or a reconciliation is writing this row right now
+                continue;
+            }
+            Integer databaseValue = jdbcTemplate.queryForObject(
+                    "SELECT " + resource.column() + " FROM " + resource.table() + " WHERE id = ?", Integer.class, id);
+            long expected = (databaseValue == null ? 0 : databaseValue) + snapshot.pendingDelta();
+            long drift = snapshot.available() - expected;
+            if (drift == 0) {
+                continue;
+            }
+            current.put(id, drift);
+            if (Objects.equals(previous.get(id), drift)) {
+                confirmed.put(id, drift);
+                logger.warn("Inventory drift on " + resource + " " + id + ": Redis has " + snapshot.available()
+                        + ", database plus pending deltas is " + expected);
+            }
+        }
+        suspects.put(resource, current);
+        return confirmed;
+    }
+}
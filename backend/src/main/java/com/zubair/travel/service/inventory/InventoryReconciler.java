@@ -0,0 +1,81 @@
+package com.zubair.travel.service.inventory;
+
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes the reservations made in Redis back to the database rows.
+ * Each run drains the pending deltas of a resource type and applies them as relative
+ * updates in one transaction; the drained deltas are only dropped from Redis after that
+ * transaction commits, so a failed run is retried by the next one. A short Redis lock keeps
+ * replicas from applying the same deltas twice.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.backend", havingValue = "redis")
+public class InventoryReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReconciler.class);
+
+    @Autowired
+    private RedisInventoryBackend inventoryBackend;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.inventory.reconcile-lock-ms:30000}")
+    private long lockMillis;
+
+    private final String token = UUID.randomUUID().toString();
+
+    @Scheduled(fixedDelayString = "${app.inventory.reconcile-interval-ms:1000}")
+    public void reconcile() {
+        for (Resource resource : Resource.values()) {
+            try {
+                reconcile(resource);
+            } catch (DataAccessException e) {
+                logger.warn("Inventory reconciliation of " + resource + " failed, retrying next run: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the number of rows updated
+     */
+    public int reconcile(Resource resource) {
+        if (!inventoryBackend.tryLockReconciliation(resource, token, Duration.ofMillis(lockMillis))) {
+            return 0;
+        }
+        try {
+            Map<Long, Long> deltas = inventoryBackend.drainPending(resource);
+            if (!deltas.isEmpty()) {
+                List<Object[]> rows = deltas.entrySet().stream()
+                        .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                        .toList();
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                        "UPDATE " + resource.table() + " SET " + resource.column() + " = " + resource.column()
+                                + " + ? WHERE id = ?", rows));
+            }
+            inventoryBackend.completeReconciliation(resource);
+            return deltas.size();
+        } finally {
+            inventoryBackend.unlockReconciliation(resource, token);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.zubair.travel.service.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inventory backend for multi-node deployments: counters of the configured hot tours,
+ * lodges and transports live in Redis and are reserved/released by Lua scripts, so every
+ * replica sees the same count without locking the database row.
+ *
+ * Every change is also added to a per-resource "pending" hash, which InventoryReconciler
+ * drains into the database tables. Keys share a hash tag per resource type (e.g.
+ * "inventory:{tour}:42" and "inventory:{tour}:pending") so the scripts also work on a cluster.
+ */
+@Service
+@ConditionalOnProperty(name = "app.inventory.backend", havingValue = "redis")
+public class RedisInventoryBackend implements InventoryBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisInventoryBackend.class);
+
+    private static final long NOT_LOADED = -2;
+
+    private static final RedisScript<Long> RESERVE = script("redis/inventory-reserve.lua", Long.class);
+    private static final RedisScript<Long> RELEASE = script("redis/inventory-release.lua", Long.class);
+    private static final RedisScript<Long> ADJUST = script("redis/inventory-adjust.lua", Long.class);
+    private static final RedisScript<Long> LOAD = script("redis/inventory-load.lua", Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN = script("redis/inventory-drain.lua", List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SNAPSHOT = script("redis/inventory-snapshot.lua", List.class);
+    private static final RedisScript<Long> UNLOCK = script("redis/unlock.lua", Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.inventory.redis.tours:}")
+    private List<Long> hotTours;
+
+    @Value("${app.inventory.redis.lodges:}")
+    private List<Long> hotLodges;
+
+    @Value("${app.inventory.redis.transports:}")
+    private List<Long> hotTransports;
+
+    private final Map<Resource, Set<Long>> tracked = new EnumMap<>(Resource.class);
+
+    public RedisInventoryBackend() {
+        for (Resource resource : Resource.values()) {
+            tracked.put(resource, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    // Tracking
+
+    /**
+     * Loads the configured hot resources. Counters that already exist in Redis (another
+     * replica loaded them, or this node restarted) are kept, since they are newer than the rows.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void trackConfigured() {
+        Map<Resource, List<Long>> configured = Map.of(
+                Resource.TOUR, hotTours,
+                Resource.LODGE, hotLodges,
+                Resource.TRANSPORT, hotTransports);
+        configured.forEach((resource, ids) -> ids.forEach(id -> {
+            try {
+                track(resource, id);
+            } catch (DataAccessException e) {
+                logger.error("Could not track " + resource + " " + id + " in Redis: " + e.getMessage());
+            }
+        }));
+    }
+
+    public void track(Resource resource, Long id) {
+        load(resource, id, false);
+        tracked.get(resource).add(id);
+    }
+
+    public Set<Long> trackedIds(Resource resource) {
+        return Set.copyOf(tracked.get(resource));
+    }
+
+    @Override
+    public boolean isTracked(Resource resource, Long id) {
+        return tracked.get(resource).contains(id);
+    }
+
+    // Reservations
+
+    @Override
+    public long reserve(Resource resource, Long id, int quantity) {
+        long remaining = execute(RESERVE, resource, id, String.valueOf(quantity), String.valueOf(id));
+        if (remaining >= 0) {
+            compensateOnRollback(resource, id, quantity);
+        }
+        return remaining;
+    }
+
+    @Override
+    public long release(Resource resource, Long id, int quantity, int capacity) {
+        long available = execute(RELEASE, resource, id, String.valueOf(quantity), String.valueOf(id),
+                String.valueOf(capacity));
+        if (available >= 0) {
+            compensateOnRollback(resource, id, -quantity);
+        }
+        return available;
+    }
+
+    @Override
+    public long available(Resource resource, Long id) {
+        String value = redisTemplate.opsForValue().get(counterKey(resource, id));
+        if (value == null) {
+            return load(resource, id, false);
+        }
+        return Long.parseLong(value);
+    }
+
+    /**
+     * Reloads a counter from its row once the admin change that triggered it has committed.
+     */
+    @Override
+    public void resync(Resource resource, Long id) {
+        if (!isTracked(resource, id)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            load(resource, id, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                load(resource, id, true);
+            }
+        });
+    }
+
+    // Runs a reserve/release script, reloading the counter once if Redis lost it (restart, eviction)
+    private long execute(RedisScript<Long> script, Resource resource, Long id, String... args) {
+        List<String> keys = List.of(counterKey(resource, id), pendingKey(resource));
+        Long result = redisTemplate.execute(script, keys, (Object[]) args);
+        if (result != null && result == NOT_LOADED) {
+            load(resource, id, false);
+            result = redisTemplate.execute(script, keys, (Object[]) args);
+        }
+        if (result == null || result == NOT_LOADED) {
+            throw new InventoryUnavailableException("Inventory counter for " + resource + " " + id + " is not available");
+        }
+        return result;
+    }
+
+    /**
+     * A reservation is applied in Redis immediately, but the booking it belongs to commits
+     * with the surrounding database transaction. If that transaction rolls back, the units
+     * are handed back so they aren't lost.
+     */
+    private void compensateOnRollback(Resource resource, Long id, int taken) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    redisTemplate.execute(ADJUST, List.of(counterKey(resource, id), pendingKey(resource)),
+                            String.valueOf(taken), String.valueOf(id));
+                }
+            }
+        });
+    }
+
+    private long load(Resource resource, Long id, boolean overwrite) {
+        Integer databaseValue = jdbcTemplate.queryForObject(
+                "SELECT " + resource.column() + " FROM " + resource.table() + " WHERE id = ?", Integer.class, id);
+        Long value = redisTemplate.execute(LOAD, List.of(counterKey(resource, id), pendingKey(resource)),
+                String.valueOf(databaseValue == null ? 0 : databaseValue), String.valueOf(id), overwrite ? "1" : "0");
+        return value == null ? 0 : value;
+    }
+
+    // Reconciliation support
+
+    public boolean tryLockReconciliation(Resource resource, String token, Duration timeout) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey(resource), token, timeout));
+    }
+
+    public void unlockReconciliation(Resource resource, String token) {
+        redisTemplate.execute(UNLOCK, List.of(lockKey(resource)), token);
+    }
+
+    /**
+     * Moves the pending deltas into the in-flight hash and returns them by resource id.
+     * They stay in flight until completeReconciliation, so a failed write is retried.
+     */
+    public Map<Long, Long> drainPending(Resource resource) {
+        List<?> flat = redisTemplate.execute(DRAIN, List.of(pendingKey(resource), inFlightKey(resource)));
+        Map<Long, Long> deltas = new HashMap<>();
+        if (flat != null) {
+            for (int i = 0; i + 1 < flat.size(); i += 2) {
+                long delta = Long.parseLong(flat.get(i + 1).toString());
+                if (delta != 0) {
+                    deltas.put(Long.valueOf(flat.get(i).toString()), delta);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    public void completeReconciliation(Resource resource) {
+        redisTemplate.delete(inFlightKey(resource));
+    }
+
+    /**
+     * Reads a counter and its unreconciled deltas in one atomic step.
+     */
+    public CounterSnapshot snapshot(Resource resource, Long id) {
+        List<?> values = redisTemplate.execute(SNAPSHOT,
+                List.of(counterKey(resource, id), pendingKey(resource), inFlightKey(resource)), String.valueOf(id));
+        if (values == null || values.isEmpty() || values.get(0) == null) {
+            return null;
+        }
+        return new CounterSnapshot(parse(values.get(0)), values.size() > 1 ? parse(values.get(1)) : 0,
+                values.size() > 2 ? parse(values.get(2)) : 0);
+    }
+
+    /**
+     * A counter with the deltas not yet in the database: pending (not drained) and in flight
+     * (drained, database write not confirmed yet).
+     */
+    public record CounterSnapshot(long available, long pendingDelta, long inFlightDelta) {
+    }
+
+    // Keys
+
+    private static String counterKey(Resource resource, Long id) {
+        return "inventory:{" + resource.key() + "}:" + id;
+    }
+
+    private static String pendingKey(Resource resource) {
+        return "inventory:{" + resource.key() + "}:pending";
+    }
+
+    private static String inFlightKey(Resource resource) {
+        return "inventory:{" + resource.key() + "}:in-flight";
+    }
+
+    private static String lockKey(Resource resource) {
+        return "inventory:{" + resource.key() + "}:reconcile-lock";
+    }
+
+    private static long parse(Object value) {
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    private static <T> RedisScript<T> script(String location, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(location));
+        script.setResultType(resultType);
+        return script;
+    }
+
+    // Business Exceptions
+
+    public static class InventoryUnavailableException extends RuntimeException {
+        public InventoryUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
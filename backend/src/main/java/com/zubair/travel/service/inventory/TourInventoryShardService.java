@@ -0,0 +1,206 @@
+package com.zubair.travel.service.inventory;
+
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.TourInventoryShard;
+import com.zubair.travel.repository.TourInventoryShardRepository;
+import com.zubair.travel.repository.TourRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seat inventory of sharded tours (Tour.inventoryShards > 0).
+ *
+ * The seats are spread over N rows of tour_inventory_shards. A booking takes its seats
+ * with a conditional update on a random shard and falls back to the siblings, so concurrent
+ * bookings of one tour mostly lock different rows. Only when no single shard has enough seats
+ * left are all shards locked (always in shard order) and the seats gathered across them.
+ * A scheduled job evens out shards that drifted apart, so the fallback stays rare.
+ *
+ * Under REPEATABLE READ a failed conditional update can keep its row locked until commit;
+ * a deadlock with a concurrent rebalance is then resolved by the database aborting one of
+ * the transactions, the same as any other lock conflict on the tours row.
+ */
+@Service
+@Transactional
+public class TourInventoryShardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourInventoryShardService.class);
+
+    @Autowired
+    private TourInventoryShardRepository shardRepository;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Reservations
+
+    /**
+     * @return false if the shards together hold fewer than {@code seats} seats
+     */
+    public boolean reserve(Tour tour, int seats) {
+        int shards = tour.getInventoryShards();
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            if (shardRepository.takeSeats(tour.getId(), (start + i) % shards, seats) == 1) {
+                return true;
+            }
+        }
+        return gather(tour.getId(), seats);
+    }
+
+    public void release(Tour tour, int seats) {
+        int shard = ThreadLocalRandom.current().nextInt(tour.getInventoryShards());
+        shardRepository.giveSeats(tour.getId(), shard, seats);
+    }
+
+    @Transactional(readOnly = true)
+    public long availableSeats(Long tourId) {
+        return shardRepository.sumAvailableSeats(tourId);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, Long> availableSeats(Collection<Long> tourIds) {
+        Map<Long, Long> seats = new HashMap<>();
+        if (!tourIds.isEmpty()) {
+            for (Object[] row : shardRepository.sumAvailableSeatsByTourIds(tourIds)) {
+                seats.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        return seats;
+    }
+
+    // Takes the seats from several shards when none holds enough on its own
+    private boolean gather(Long tourId, int seats) {
+        List<TourInventoryShard> locked = shardRepository.lockByTourId(tourId);
+        long total = locked.stream().mapToLong(TourInventoryShard::getAvailableSeats).sum();
+        if (total < seats) {
+            return false;
+        }
+        int missing = seats;
+        for (TourInventoryShard shard : locked) {
+            int taken = Math.min(missing, shard.getAvailableSeats());
+            shard.setAvailableSeats(shard.getAvailableSeats() - taken);
+            missing -= taken;
+            if (missing == 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    // Shard Management
+
+    /**
+     * Splits the tour's seats over {@code shardCount} shards, or merges them back into
+     * tours.available_seats when {@code shardCount} is 0. Seats held by existing shards are kept.
+     * The tour must have been read with TourRepository.lockById: unsharded bookings change the
+     * tours row, so the lock keeps them out between the sum and the redistribution.
+     */
+    public Tour reshard(Tour tour, int shardCount) {
+        long total = tour.getAvailableSeats() + sumLocked(tour.getId());
+        shardRepository.deleteByTourId(tour.getId());
+        shardRepository.flush();
+        if (shardCount == 0) {
+            tour.setAvailableSeats((int) total);
+        } else {
+            shardRepository.saveAll(split(tour.getId(), total, shardCount));
+            tour.setAvailableSeats(0);
+        }
+        tour.setInventoryShards(shardCount);
+        return tourRepository.save(tour);
+    }
+
+    /**
+     * Replaces the seats of a sharded tour, e.g. after an admin changed its capacity.
+     */
+    public void resetSeats(Tour tour, int seats) {
+        // Holds off concurrent bookings while the shards are replaced
+        shardRepository.lockByTourId(tour.getId());
+        shardRepository.deleteByTourId(tour.getId());
+        shardRepository.flush();
+        shardRepository.saveAll(split(tour.getId(), seats, tour.getInventoryShards()));
+        tour.setAvailableSeats(0);
+    }
+
+    // Rebalancing
+
+    /**
+     * Evens out the shards of every sharded tour whose shards drifted apart by more than
+     * half a fair share. Each tour is rebalanced in its own short transaction; a tour whose
+     * shards are busy is skipped until the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.shards.rebalance-interval-ms:5000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebalanceAll() {
+        int rebalanced = 0;
+        for (Long tourId : tourRepository.findShardedTourIds()) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> rebalance(tourId)))) {
+                    rebalanced++;
+                }
+            } catch (PessimisticLockingFailureException e) {
+                logger.debug("Skipped rebalancing tour " + tourId + ": " + e.getMessage());
+            }
+        }
+        return rebalanced;
+    }
+
+    /**
+     * @return true if the shards were redistributed
+     */
+    public boolean rebalance(Long tourId) {
+        List<TourInventoryShard> locked = shardRepository.lockByTourId(tourId);
+        if (locked.size() < 2) {
+            return false;
+        }
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        long total = 0;
+        for (TourInventoryShard shard : locked) {
+            min = Math.min(min, shard.getAvailableSeats());
+            max = Math.max(max, shard.getAvailableSeats());
+            total += shard.getAvailableSeats();
+        }
+        long fairShare = total / locked.size();
+        if (max - min <= Math.max(1, fairShare / 2)) {
+            return false;
+        }
+        List<TourInventoryShard> even = split(tourId, total, locked.size());
+        for (int i = 0; i < locked.size(); i++) {
+            locked.get(i).setAvailableSeats(even.get(i).getAvailableSeats());
+        }
+        return true;
+    }
+
+    // Helpers
+
+    private long sumLocked(Long tourId) {
+        return shardRepository.lockByTourId(tourId).stream().mapToLong(TourInventoryShard::getAvailableSeats).sum();
+    }
+
+    private static List<TourInventoryShard> split(Long tourId, long seats, int shardCount) {
+        List<TourInventoryShard> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            long share = seats / shardCount + (i < seats % shardCount ? 1 : 0);
+            shards.add(new TourInventoryShard(null, tourId, i, (int) share));
+        }
+        return shards;
+    }
+}
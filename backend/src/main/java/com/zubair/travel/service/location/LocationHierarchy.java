@@ -0,0 +1,389 @@
+package com.zubair.travel.service.location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Locations as a country, state, city tree. Every node counts the locations below it and how
+ * many of those are popular (have attractions listed). Only the cities hold location ids, in
+ * sorted primitive arrays, and the popular ones are also kept in one sorted array for the whole
+ * tree, so a million locations cost under 10 MB of ids plus one small node per distinct place.
+ * States and cities can also be looked up by name alone, whatever country they are in.
+ *
+ * Names are matched trimmed and ignoring case, as the database collation does, and shown as
+ * first written. A location is found again by the country, state and city it was added with,
+ * so updates pass the entry as it was before; nodes left empty are dropped. Reads share a read
+ * lock and copy out what they return.
+ */
+public final class LocationHierarchy {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node(null, "", "");
+
+    // First state or city of each name; the others of that name are chained through Node.sameName
+    private final Map<String, Node> statesByName = new HashMap<>();
+
+    private final Map<String, Node> citiesByName = new HashMap<>();
+
+    // Every popular location's id, popularIds[0, root.popular) ascending
+    private long[] popularIds = NO_IDS;
+
+    // Updates
+
+    /**
+     * @return false if the location was already there
+     */
+    public boolean add(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            Node country = root.children.computeIfAbsent(key(entry.country()), key -> new Node(root, entry.country(), key));
+            Node state = child(country, entry.state(), statesByName);
+            Node city = child(state, entry.city(), citiesByName);
+            if (!city.addId(entry.id())) {
+                return false;
+            }
+            if (entry.popular()) {
+                popularIds = insert(popularIds, root.popular, -Arrays.binarySearch(popularIds, 0, root.popular, entry.id()) - 1,
+                        entry.id());
+            }
+            for (Node node = city; node != null; node = node.parent) {
+                node.count++;
+                node.popular += entry.popular() ? 1 : 0;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false if the location isn't under the entry's country, state and city
+     */
+    public boolean remove(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            Node city = find(entry.country(), entry.state(), entry.city());
+            if (city == null) {
+                return false;
+            }
+            if (!city.removeId(entry.id())) {
+                return false;
+            }
+            int popularAt = Arrays.binarySearch(popularIds, 0, root.popular, entry.id());
+            boolean wasPopular = popularAt >= 0;
+            if (wasPopular) {
+                System.arraycopy(popularIds, popularAt + 1, popularIds, popularAt, root.popular - popularAt - 1);
+            }
+            for (Node node = city; node != null; node = node.parent) {
+                node.count--;
+                node.popular -= wasPopular ? 1 : 0;
+            }
+            drop(city);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void update(Entry previous, Entry current) {
+        lock.writeLock().lock();
+        try {
+            remove(previous);
+            add(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The entry a location is held under, or null; names as shown. Walks every city, so it's
+     * only for changes that arrive without their previous entry, i.e. from other replicas.
+     */
+    public Entry entry(long id) {
+        lock.readLock().lock();
+        try {
+            Node city = cityOf(root, id);
+            if (city == null) {
+                return null;
+            }
+            Node state = city.parent;
+            return new Entry(id, state.parent.name, state.name, city.name,
+                    Arrays.binarySearch(popularIds, 0, root.popular, id) >= 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Node cityOf(Node node, long id) {
+        if (node.isCity()) {
+            return Arrays.binarySearch(node.ids, 0, node.count, id) >= 0 ? node : null;
+        }
+        for (Node child : node.children.values()) {
+            Node city = cityOf(child, id);
+            if (city != null) {
+                return city;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return root.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Node child(Node parent, String name, Map<String, Node> byName) {
+        String key = key(name);
+        Node node = parent.children.get(key);
+        if (node == null) {
+            node = new Node(parent, name, key);
+            parent.children.put(key, node);
+            node.sameName = byName.put(key, node);
+        }
+        return node;
+    }
+
+    // Removes the empty nodes from node up
+    private void drop(Node node) {
+        while (node != root && node.count == 0) {
+            Node parent = node.parent;
+            String key = key(node.name);
+            parent.children.remove(key);
+            Map<String, Node> byName = node.isCity() ? citiesByName : parent == root ? null : statesByName;
+            if (byName != null) {
+                unchain(byName, key, node);
+            }
+            node = parent;
+        }
+    }
+
+    private static void unchain(Map<String, Node> byName, String key, Node node) {
+        Node first = byName.get(key);
+        if (first == node) {
+            if (node.sameName != null) {
+                byName.put(key, node.sameName);
+            } else {
+                byName.remove(key);
+            }
+            return;
+        }
+        Node previous = first;
+        while (previous.sameName != node) {
+            previous = previous.sameName;
+        }
+        previous.sameName = node.sameName;
+    }
+
+    // Queries
+
+    /**
+     * Locations under a country, a state of it or a city of that, 0 if there are none. A null
+     * state counts the whole country, a null city the whole state.
+     */
+    public int count(String country, String state, String city) {
+        lock.readLock().lock();
+        try {
+            Node node = find(country, state, city);
+            return node != null ? node.count : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the locations under a country, state or city as for count, ascending within each
+     * city.
+     */
+    public long[] ids(String country, String state, String city) {
+        lock.readLock().lock();
+        try {
+            Node node = find(country, state, city);
+            return node != null ? collect(List.of(node)) : NO_IDS;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the locations in states of this name, whatever their country.
+     */
+    public long[] idsByState(String state) {
+        lock.readLock().lock();
+        try {
+            return collect(chain(statesByName.get(key(state))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the locations in cities of this name, whatever their country and state.
+     */
+    public long[] idsByCity(String city) {
+        lock.readLock().lock();
+        try {
+            return collect(chain(citiesByName.get(key(city))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] popularIds() {
+        lock.readLock().lock();
+        try {
+            return Arrays.copyOf(popularIds, root.popular);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One level of the tree in name order: the countries for a null country, the states of a
+     * country for a null state, else the cities of a state. Empty if the parent doesn't exist.
+     */
+    public List<Branch> children(String country, String state) {
+        lock.readLock().lock();
+        try {
+            Node parent = country == null ? root : find(country, state, null);
+            if (parent == null || parent.isCity()) {
+                return List.of();
+            }
+            List<Branch> branches = new ArrayList<>(parent.children.size());
+            for (Node child : parent.children.values()) {
+                branches.add(new Branch(child.name, child.count, child.popular));
+            }
+            return branches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Node find(String country, String state, String city) {
+        Node node = root.children.get(key(country));
+        if (node != null && state != null) {
+            node = node.children.get(key(state));
+            if (node != null && city != null) {
+                node = node.children.get(key(city));
+            }
+        }
+        return node;
+    }
+
+    private static List<Node> chain(Node first) {
+        List<Node> nodes = new ArrayList<>();
+        for (Node node = first; node != null; node = node.sameName) {
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static long[] collect(List<Node> nodes) {
+        int total = 0;
+        for (Node node : nodes) {
+            total += node.count;
+        }
+        long[] ids = new long[total];
+        int filled = 0;
+        for (Node node : nodes) {
+            filled = collect(node, ids, filled);
+        }
+        return ids;
+    }
+
+    // Copies the ids of the cities under node into ids from filled on
+    private static int collect(Node node, long[] ids, int filled) {
+        if (node.isCity()) {
+            System.arraycopy(node.ids, 0, ids, filled, node.count);
+            return filled + node.count;
+        }
+        for (Node child : node.children.values()) {
+            filled = collect(child, ids, filled);
+        }
+        return filled;
+    }
+
+    // A rebuild reads ids in ascending order, so each lands at the end and nothing shifts
+    private static long[] insert(long[] array, int size, int at, long id) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, Math.max(1, size + (size >> 1) + 1));
+        }
+        System.arraycopy(array, at, array, at + 1, size - at);
+        array[at] = id;
+        return array;
+    }
+
+    private static String key(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Types
+
+    public record Entry(long id, String country, String state, String city, boolean popular) {
+    }
+
+    /**
+     * A country, state or city with the number of locations in it and how many are popular.
+     */
+    public record Branch(String name, int count, int popularCount) {
+    }
+
+    private static final class Node {
+
+        final Node parent;
+        final int depth;
+        final String name;
+        // Countries and states below a country or state; null for cities, which are the leaves
+        final TreeMap<String, Node> children;
+        Node sameName;
+        int count;
+        int popular;
+        // Cities only: ids[0, count) ascending
+        long[] ids;
+
+        Node(Node parent, String name, String key) {
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            String trimmed = name == null ? "" : name.trim();
+            // Most names are their own key; one string then serves both
+            this.name = trimmed.equals(key) ? key : trimmed;
+            boolean city = depth == 3;
+            this.children = city ? null : new TreeMap<>();
+            this.ids = city ? new long[1] : null;
+        }
+
+        boolean isCity() {
+            return children == null;
+        }
+
+        boolean addId(long id) {
+            int at = Arrays.binarySearch(ids, 0, count, id);
+            if (at >= 0) {
+                return false;
+            }
+            ids = insert(ids, count, -at - 1, id);
+            return true;
+        }
+
+        boolean removeId(long id) {
+            int at = Arrays.binarySearch(ids, 0, count, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, count - at - 1);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.zubair.travel.service.location;
+
+import com.zubair.travel.entity.Location;
+import com.zubair.travel.repository.LocationRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.index.AfterCommitIndex;
+import com.zubair.travel.service.location.LocationHierarchy.Entry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * The country, state and city of every location, kept in memory for LocationService.
+ *
+ * LocationService applies creates, updates and deletes here after commit, and locations changed
+ * on other replicas are read again when the stamp poll reports them; a periodic rebuild from the
+ * locations table catches anything missed. The table is read in id batches, each in its own
+ * read-only transaction, so a rebuild never holds one long query open.
+ */
+@Service
+public class LocationHierarchyIndex extends AfterCommitIndex<LocationHierarchy> {
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.location-hierarchy.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("locations.hierarchy_index.entries", this, index -> index.hierarchy().size())
+                .description("Locations held by the hierarchy index")
+                .register(meterRegistry);
+    }
+
+    public LocationHierarchy hierarchy() {
+        return current();
+    }
+
+    // Changes
+
+    public void add(Location location) {
+        Entry entry = entry(location);
+        afterCommit(hierarchy -> hierarchy.add(entry));
+    }
+
+    /**
+     * @param previous the location's entry from before it was changed, see {@link #entry}
+     */
+    public void update(Entry previous, Location location) {
+        Entry current = entry(location);
+        afterCommit(hierarchy -> hierarchy.update(previous, current));
+    }
+
+    public void remove(Location location) {
+        Entry entry = entry(location);
+        afterCommit(hierarchy -> hierarchy.remove(entry));
+    }
+
+    public static Entry entry(Location location) {
+        String attractions = location.getPopularAttractions();
+        return new Entry(location.getId(), location.getCountry(), location.getState(), location.getCity(),
+                attractions != null && !attractions.trim().isEmpty());
+    }
+
+    // Rebuild
+
+    /**
+     * Reloads every location into a new hierarchy and swaps it in.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.location-hierarchy.rebuild-interval-ms:300000}", initialDelayString = "${app.location-hierarchy.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        super.rebuild();
+    }
+
+    @Override
+    protected LocationHierarchy create() {
+        return new LocationHierarchy();
+    }
+
+    @Override
+    protected void load(LocationHierarchy hierarchy, TransactionTemplate readOnlyTransaction) {
+        PageRequest batch = PageRequest.of(0, rebuildBatchSize);
+        long afterId = 0;
+        List<Object[]> rows;
+        do {
+            long from = afterId;
+            rows = readOnlyTransaction.execute(status -> locationRepository.findHierarchyInputs(from, batch));
+            for (Object[] row : rows) {
+                hierarchy.add(new Entry((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                        Boolean.TRUE.equals(row[4])));
+            }
+            if (!rows.isEmpty()) {
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } while (rows.size() == rebuildBatchSize);
+    }
+
+    @Override
+    protected int size(LocationHierarchy hierarchy) {
+        return hierarchy.size();
+    }
+
+    @Override
+    protected Catalog catalog() {
+        return Catalog.LOCATIONS;
+    }
+
+    @Override
+    protected void reload(long id, TransactionTemplate readOnlyTransaction) {
+        List<Object[]> rows = readOnlyTransaction.execute(status ->
+                locationRepository.findHierarchyInputs(id - 1, PageRequest.of(0, 1)));
+        Entry current = rows.isEmpty() || (Long) rows.get(0)[0] != id ? null
+                : new Entry(id, (String) rows.get(0)[1], (String) rows.get(0)[2], (String) rows.get(0)[3],
+                        Boolean.TRUE.equals(rows.get(0)[4]));
+        // The other replica's previous entry isn't known here, so it is looked up in the tree
+        afterCommit(hierarchy -> {
+            Entry previous = hierarchy.entry(id);
+            if (previous != null) {
+                hierarchy.remove(previous);
+            }
+            if (current != null) {
+                hierarchy.add(current);
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package com.zubair.travel.service.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of the booking currency as a long count of minor units (cents).
+ *
+ * Arithmetic stays in longs: sums and quantities are exact and overflow throws instead of
+ * wrapping, and rates are applied with a single HALF_EVEN rounding to the cent. Conversion
+ * to and from BigDecimal (the entity and report type) happens only at the boundaries and is
+ * exact for any amount with at most two decimals.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    public static final long BASIS_POINTS = 10_000;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    // Conversion
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Rounds to the cent (HALF_EVEN); throws ArithmeticException if the amount doesn't fit a long.
+     */
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+
+    /**
+     * For the legacy Double price columns: takes the shortest decimal that reads back as the
+     * double (what was typed in, e.g. 19.99), not its binary expansion.
+     */
+    public static Money of(Double amount) {
+        return amount == null ? ZERO : of(BigDecimal.valueOf(amount));
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Nearest double, for the Double fields of the catalog DTOs only; never compute with it.
+     */
+    public double toDouble() {
+        return minorUnits / 100.0;
+    }
+
+    // Arithmetic
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long quantity) {
+        return ofMinor(Math.multiplyExact(minorUnits, quantity));
+    }
+
+    /**
+     * This amount times {@code basisPoints} / 10 000, rounded HALF_EVEN to the cent,
+     * e.g. 825 for an 8.25% tax or 12 500 for a 1.25 price multiplier.
+     */
+    public Money applyRate(long basisPoints) {
+        return ofMinor(divideHalfEven(Math.multiplyExact(minorUnits, basisPoints), BASIS_POINTS));
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public static Money sum(Iterable<Money> amounts) {
+        long total = 0;
+        for (Money amount : amounts) {
+            total = Math.addExact(total, amount.minorUnits);
+        }
+        return ofMinor(total);
+    }
+
+    // Truncating division adjusted to HALF_EVEN; the remainder carries the dividend's sign
+    static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        long twiceRemainder = Math.abs(remainder) * 2;
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && money.minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
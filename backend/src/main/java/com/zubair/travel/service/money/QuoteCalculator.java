@@ -0,0 +1,72 @@
+package com.zubair.travel.service.money;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Booking totals from line items (tour seats, lodge nights, transport tickets), an optional
+ * discount and the configured tax, all in Money minor units. Each line is exact; the discount
+ * and the tax are each rounded once, on the subtotal rather than per line, so a total never
+ * depends on how the items were split.
+ */
+@Component
+public class QuoteCalculator {
+
+    @Value("${app.pricing.tax-rate-bp:0}")
+    private long taxRateBasisPoints;
+
+    public QuoteCalculator() {
+    }
+
+    public QuoteCalculator(long taxRateBasisPoints) {
+        this.taxRateBasisPoints = taxRateBasisPoints;
+    }
+
+    public Totals calculate(List<LineItem> items, long discountBasisPoints) {
+        if (discountBasisPoints < 0 || discountBasisPoints > Money.BASIS_POINTS) {
+            throw new IllegalArgumentException("Discount must be between 0 and 10000 basis points");
+        }
+        long subtotal = 0;
+        for (LineItem item : items) {
+            subtotal = Math.addExact(subtotal, Math.multiplyExact(item.unitPrice().minorUnits(), item.quantity()));
+        }
+        Money subtotalAmount = Money.ofMinor(subtotal);
+        Money discount = subtotalAmount.applyRate(discountBasisPoints);
+        Money taxable = subtotalAmount.minus(discount);
+        Money tax = taxable.applyRate(taxRateBasisPoints);
+        return new Totals(subtotalAmount, discount, tax, taxable.plus(tax));
+    }
+
+    public Totals tourBooking(Money seatPrice, int seats) {
+        return calculate(List.of(LineItem.tourSeats(seatPrice, seats)), 0);
+    }
+
+    /**
+     * One priced line: {@code quantity} units at {@code unitPrice}.
+     */
+    public record LineItem(String kind, Money unitPrice, long quantity) {
+
+        public LineItem {
+            if (quantity < 0) {
+                throw new IllegalArgumentException("Quantity cannot be negative");
+            }
+        }
+
+        public static LineItem tourSeats(Money seatPrice, int seats) {
+            return new LineItem("tour", seatPrice, seats);
+        }
+
+        public static LineItem lodgeNights(Money pricePerNight, int rooms, int nights) {
+            return new LineItem("lodge", pricePerNight, Math.multiplyExact((long) rooms, nights));
+        }
+
+        public static LineItem transportTickets(Money fare, int tickets) {
+            return new LineItem("transport", fare, tickets);
+        }
+    }
+
+    public record Totals(Money subtotal, Money discount, Money tax, Money total) {
+    }
+}
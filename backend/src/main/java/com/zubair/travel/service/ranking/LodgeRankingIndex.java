@@ -0,0 +1,120 @@
+package com.zubair.travel.service.ranking;
+
+import com.zubair.travel.entity.Lodge;
+import com.zubair.travel.repository.LodgeRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.index.AfterCommitIndex;
+import com.zubair.travel.service.ranking.LodgeRankings.Entry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Top-rated and cheapest lodges per location, kept in memory for LodgeService.
+ *
+ * Like LodgeGeoIndex, LodgeService applies its writes here after commit, lodges changed on
+ * other replicas are read again when the stamp poll reports them, and a periodic rebuild from
+ * the lodges table brings in rooms reconciled from the inventory backend.
+ */
+@Service
+public class LodgeRankingIndex extends AfterCommitIndex<LodgeRankings> {
+
+    @Autowired
+    private LodgeRepository lodgeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.lodge-ranking.k:20}")
+    private int k;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("lodges.ranking_index.entries", this, index -> index.rankings().size())
+                .description("Lodges held by the ranking index")
+                .register(meterRegistry);
+    }
+
+    public LodgeRankings rankings() {
+        return current();
+    }
+
+    // Changes
+
+    public void put(Lodge lodge) {
+        Entry entry = entry(lodge.getId(), lodge.getLocation() != null ? lodge.getLocation().getId() : null,
+                lodge.getRating(), lodge.getPricePerNight(), lodge.getAvailableRooms());
+        afterCommit(rankings -> rankings.put(entry));
+    }
+
+    public void remove(Long lodgeId) {
+        afterCommit(rankings -> rankings.remove(lodgeId));
+    }
+
+    public void updateRooms(Long lodgeId, long availableRooms) {
+        int rooms = (int) Math.min(Integer.MAX_VALUE, Math.max(0, availableRooms));
+        afterCommit(rankings -> rankings.updateRooms(lodgeId, rooms));
+    }
+
+    private static Entry entry(Long id, Long locationId, Double rating, Double price, Integer availableRooms) {
+        return new Entry(id, locationId, rating != null ? rating : Double.NaN, price,
+                availableRooms != null ? availableRooms : 0);
+    }
+
+    // Rebuild
+
+    /**
+     * Reloads every lodge into new rankings and swaps them in.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.lodge-ranking.rebuild-interval-ms:300000}", initialDelayString = "${app.lodge-ranking.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        super.rebuild();
+    }
+
+    @Override
+    protected LodgeRankings create() {
+        return new LodgeRankings(k);
+    }
+
+    @Override
+    protected void load(LodgeRankings rankings, TransactionTemplate readOnlyTransaction) {
+        List<Object[]> rows = readOnlyTransaction.execute(status -> lodgeRepository.findRankingInputs());
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(entry((Long) row[0], (Long) row[1], (Double) row[2], ((Number) row[3]).doubleValue(),
+                    (Integer) row[4]));
+        }
+        rankings.putAll(entries);
+    }
+
+    @Override
+    protected int size(LodgeRankings rankings) {
+        return rankings.size();
+    }
+
+    @Override
+    protected Catalog catalog() {
+        return Catalog.LODGES;
+    }
+
+    @Override
+    protected void reload(long id, TransactionTemplate readOnlyTransaction) {
+        List<Object[]> rows = readOnlyTransaction.execute(status -> lodgeRepository.findRankingInputsById(id));
+        if (rows.isEmpty()) {
+            remove(id);
+            return;
+        }
+        Object[] row = rows.get(0);
+        Entry entry = entry(id, (Long) row[1], (Double) row[2], ((Number) row[3]).doubleValue(), (Integer) row[4]);
+        afterCommit(rankings -> rankings.put(entry));
+    }
+}
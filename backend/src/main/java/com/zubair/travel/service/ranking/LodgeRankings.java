@@ -0,0 +1,279 @@
+package com.zubair.travel.service.ranking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Lodge rankings per location and over all lodges: the top K by rating, the K cheapest with
+ * rooms available, and the count and price sum for averages.
+ *
+ * Each ranking keeps its lodges in sorted sets and, after every change that can affect them,
+ * publishes an immutable Snapshot of the first K ids and the totals. Reads only take the
+ * current snapshot, so they cost the same however many lodges a location has; writes are
+ * serialized and cost O(log n), plus O(K) when they change one of the first K. Prices are
+ * summed in cents so the average doesn't drift however many updates it has seen.
+ */
+public final class LodgeRankings {
+
+    private static final Comparator<Entry> BY_RATING = Comparator.comparingDouble((Entry entry) -> -entry.rating())
+            .thenComparingLong(Entry::id);
+
+    private static final Comparator<Entry> BY_PRICE = Comparator.comparingDouble(Entry::price)
+            .thenComparingLong(Entry::id);
+
+    private final int k;
+
+    private final Ranking all;
+
+    private final ConcurrentHashMap<Long, Ranking> byLocation = new ConcurrentHashMap<>();
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    public LodgeRankings(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("K must be positive");
+        }
+        this.k = k;
+        this.all = new Ranking(k);
+    }
+
+    public int k() {
+        return k;
+    }
+
+    // Updates
+
+    public synchronized void put(Entry entry) {
+        Entry previous = entries.put(entry.id(), entry);
+        // Edits that don't touch what the lodge is ranked by (name, description, ...) stop here
+        if (previous != null && !rankedDifferently(previous, entry)) {
+            return;
+        }
+        if (previous != null) {
+            rankings(previous).forEach(ranking -> ranking.remove(previous));
+        }
+        rankings(entry).forEach(ranking -> ranking.add(entry));
+    }
+
+    /**
+     * Adds or replaces many entries. Each ranking receives its new entries in sorted order,
+     * which loads a large table about twice as fast as one put per entry.
+     */
+    public synchronized void putAll(Collection<Entry> batch) {
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : batch) {
+            Entry previous = entries.put(entry.id(), entry);
+            // A repeated id replaces an entry of this batch, which isn't ranked yet
+            boolean first = seen.add(entry.id());
+            if (previous != null && first) {
+                rankings(previous).forEach(ranking -> ranking.remove(previous));
+            }
+        }
+        Map<Ranking, List<Entry>> added = new HashMap<>();
+        for (Entry entry : batch) {
+            // Only the last entry of an id in the batch counts
+            if (entries.get(entry.id()) == entry) {
+                rankings(entry).forEach(ranking -> added.computeIfAbsent(ranking, key -> new ArrayList<>()).add(entry));
+            }
+        }
+        added.forEach(Ranking::addAll);
+    }
+
+    public synchronized void remove(long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            rankings(previous).forEach(ranking -> ranking.remove(previous));
+        }
+    }
+
+    /**
+     * @return false if the id isn't ranked
+     */
+    public synchronized boolean updateRooms(long id, int availableRooms) {
+        Entry previous = entries.get(id);
+        if (previous == null) {
+            return false;
+        }
+        // Only a change of availability moves the lodge
+        put(new Entry(id, previous.locationId(), previous.rating(), previous.price(), availableRooms));
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static boolean rankedDifferently(Entry a, Entry b) {
+        return !Objects.equals(a.locationId(), b.locationId())
+                || Double.compare(a.rating(), b.rating()) != 0
+                || Double.compare(a.price(), b.price()) != 0
+                || (a.availableRooms() > 0) != (b.availableRooms() > 0);
+    }
+
+    private List<Ranking> rankings(Entry entry) {
+        if (entry.locationId() == null) {
+            return List.of(all);
+        }
+        return List.of(all, byLocation.computeIfAbsent(entry.locationId(), id -> new Ranking(k)));
+    }
+
+    // Queries
+
+    /**
+     * Rankings of one location, or of all lodges for a null location.
+     */
+    public Snapshot snapshot(Long locationId) {
+        if (locationId == null) {
+            return all.snapshot;
+        }
+        Ranking ranking = byLocation.get(locationId);
+        return ranking != null ? ranking.snapshot : Snapshot.EMPTY;
+    }
+
+    /**
+     * Ids of all lodges rated at least {@code minRating}, best first. Unlike the snapshots this
+     * walks the ranking, in O(log n + results).
+     */
+    public List<Long> ratedAtLeast(double minRating) {
+        synchronized (this) {
+            List<Long> ids = new ArrayList<>();
+            for (Entry entry : all.byRating) {
+                if (entry.rating() < minRating) {
+                    break;
+                }
+                ids.add(entry.id());
+            }
+            return ids;
+        }
+    }
+
+    // Types
+
+    /**
+     * A ranked lodge. {@code rating} is NaN for unrated lodges, which are left out of the
+     * rating ranking but still count towards the average price.
+     */
+    public record Entry(long id, Long locationId, double rating, double price, int availableRooms) {
+    }
+
+    /**
+     * First K ids of each ranking plus the totals, as of the last change. The arrays are
+     * shared by all readers and must not be modified.
+     */
+    public record Snapshot(long[] topRated, long[] cheapestAvailable, int count, long priceSumCents) {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], new long[0], 0, 0);
+
+        public double averagePrice() {
+            return count == 0 ? 0.0 : priceSumCents / 100.0 / count;
+        }
+    }
+
+    private static final class Ranking {
+
+        final int k;
+        final TreeSet<Entry> byRating = new TreeSet<>(BY_RATING);
+        final TreeSet<Entry> cheapest = new TreeSet<>(BY_PRICE);
+        int count;
+        long priceSumCents;
+
+        // Last entry of each published list while the set holds K or more, else null
+        Entry lastTopRated;
+        Entry lastCheapest;
+
+        volatile Snapshot snapshot = Snapshot.EMPTY;
+
+        Ranking(int k) {
+            this.k = k;
+        }
+
+        void add(Entry entry) {
+            boolean ratingChanged = false;
+            boolean priceChanged = false;
+            if (!Double.isNaN(entry.rating())) {
+                byRating.add(entry);
+                ratingChanged = lastTopRated == null || BY_RATING.compare(entry, lastTopRated) < 0;
+            }
+            if (entry.availableRooms() > 0) {
+                cheapest.add(entry);
+                priceChanged = lastCheapest == null || BY_PRICE.compare(entry, lastCheapest) < 0;
+            }
+            count++;
+            priceSumCents += cents(entry.price());
+            publish(ratingChanged, priceChanged);
+        }
+
+        void addAll(List<Entry> batch) {
+            List<Entry> rated = new ArrayList<>(batch.size());
+            List<Entry> available = new ArrayList<>(batch.size());
+            for (Entry entry : batch) {
+                if (!Double.isNaN(entry.rating())) {
+                    rated.add(entry);
+                }
+                if (entry.availableRooms() > 0) {
+                    available.add(entry);
+                }
+                count++;
+                priceSumCents += cents(entry.price());
+            }
+            rated.sort(BY_RATING);
+            available.sort(BY_PRICE);
+            byRating.addAll(rated);
+            cheapest.addAll(available);
+            publish(true, true);
+        }
+
+        void remove(Entry entry) {
+            boolean ratingChanged = byRating.remove(entry)
+                    && (lastTopRated == null || BY_RATING.compare(entry, lastTopRated) <= 0);
+            boolean priceChanged = cheapest.remove(entry)
+                    && (lastCheapest == null || BY_PRICE.compare(entry, lastCheapest) <= 0);
+            count--;
+            priceSumCents -= cents(entry.price());
+            publish(ratingChanged, priceChanged);
+        }
+
+        private void publish(boolean ratingChanged, boolean priceChanged) {
+            Snapshot previous = snapshot;
+            long[] topRated = previous.topRated();
+            long[] cheapestAvailable = previous.cheapestAvailable();
+            if (ratingChanged) {
+                lastTopRated = null;
+                topRated = firstK(byRating, entry -> lastTopRated = entry);
+            }
+            if (priceChanged) {
+                lastCheapest = null;
+                cheapestAvailable = firstK(cheapest, entry -> lastCheapest = entry);
+            }
+            snapshot = new Snapshot(topRated, cheapestAvailable, count, priceSumCents);
+        }
+
+        // First K ids of the set; hands the K-th entry to last if there are that many
+        private long[] firstK(TreeSet<Entry> set, Consumer<Entry> last) {
+            long[] ids = new long[Math.min(k, set.size())];
+            int i = 0;
+            for (Entry entry : set) {
+                ids[i++] = entry.id();
+                if (i == k) {
+                    last.accept(entry);
+                    break;
+                }
+            }
+            return ids;
+        }
+    }
+
+    private static long cents(double price) {
+        return Math.round(price * 100);
+    }
+}
@@ -0,0 +1,125 @@
+package com.zubair.travel.service.route;
+
+import com.zubair.travel.entity.Transport;
+import com.zubair.travel.repository.TransportRepository;
+import com.zubair.travel.service.CatalogVersionService.Catalog;
+import com.zubair.travel.service.index.AfterCommitIndex;
+import com.zubair.travel.service.route.TransportRoutes.Entry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Costs and available seats of the transports per route, kept in memory for TransportService.
+ * A transport's cost is its ticket price; transports without one are left out.
+ *
+ * TransportService applies creates, updates, deletes and seat changes here after commit;
+ * transports changed on other replicas are read again when the stamp poll reports them, and a
+ * periodic rebuild from the transport table brings in what the inventory reconciler changed.
+ */
+@Service
+public class TransportRouteIndex extends AfterCommitIndex<TransportRoutes> {
+
+    @Autowired
+    private TransportRepository transportRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("transports.route_index.entries", this, index -> index.routes().size())
+                .description("Transports held by the route index")
+                .register(meterRegistry);
+        Gauge.builder("transports.route_index.routes", this, index -> index.routes().routeCount())
+                .description("Routes with at least one transport in the route index")
+                .register(meterRegistry);
+    }
+
+    public TransportRoutes routes() {
+        return current();
+    }
+
+    // Changes
+
+    public void put(Transport transport) {
+        // The ticket price is the fare searched by; transports without one aren't offered
+        if (transport.getPricePerTicket() == null) {
+            remove(transport.getId());
+            return;
+        }
+        Entry entry = entry(transport.getId(),
+                transport.getFromLocation() != null ? transport.getFromLocation().getId() : null,
+                transport.getToLocation() != null ? transport.getToLocation().getId() : null,
+                transport.getPricePerTicket(), transport.getAvailableSeats());
+        afterCommit(routes -> routes.put(entry));
+    }
+
+    public void remove(Long transportId) {
+        afterCommit(routes -> routes.remove(transportId));
+    }
+
+    public void updateSeats(Long transportId, long availableSeats) {
+        int seats = (int) Math.min(Integer.MAX_VALUE, Math.max(0, availableSeats));
+        afterCommit(routes -> routes.updateSeats(transportId, seats));
+    }
+
+    private static Entry entry(Long id, Long fromLocationId, Long toLocationId, Number cost, Integer availableSeats) {
+        return new Entry(id, fromLocationId, toLocationId, cost.doubleValue(), availableSeats != null ? availableSeats : 0);
+    }
+
+    // Rebuild
+
+    /**
+     * Reloads every transport into new routes and swaps them in.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.transport-routes.rebuild-interval-ms:300000}", initialDelayString = "${app.transport-routes.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        super.rebuild();
+    }
+
+    @Override
+    protected TransportRoutes create() {
+        return new TransportRoutes();
+    }
+
+    @Override
+    protected void load(TransportRoutes routes, TransactionTemplate readOnlyTransaction) {
+        List<Object[]> rows = readOnlyTransaction.execute(status -> transportRepository.findRouteInputs());
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(entry((Long) row[0], (Long) row[1], (Long) row[2], (Number) row[3], (Integer) row[4]));
+        }
+        routes.putAll(entries);
+    }
+
+    @Override
+    protected int size(TransportRoutes routes) {
+        return routes.size();
+    }
+
+    @Override
+    protected Catalog catalog() {
+        return Catalog.TRANSPORTS;
+    }
+
+    @Override
+    protected void reload(long id, TransactionTemplate readOnlyTransaction) {
+        List<Object[]> rows = readOnlyTransaction.execute(status -> transportRepository.findRouteInputsById(id));
+        if (rows.isEmpty()) {
+            remove(id);
+            return;
+        }
+        Object[] row = rows.get(0);
+        Entry entry = entry(id, (Long) row[1], (Long) row[2], (Number) row[3], (Integer) row[4]);
+        afterCommit(routes -> routes.put(entry));
+    }
+}
@@ -0,0 +1,302 @@
+package com.zubair.travel.service.route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Transports per route (from location, to location) and over all transports, each list held
+ * cheapest first in parallel arrays of ids, costs and available seats.
+ *
+ * Seat changes, by far the most frequent write, find the transport by binary search on
+ * (cost, id) and overwrite its seat count in place. Adding, removing or repricing a transport
+ * shifts the arrays of its route and of the overall list. Queries binary search to the
+ * lowest cost asked for and walk the arrays from there. Reads share a read lock and copy
+ * out what they return, so they never see a list half updated.
+ */
+public final class TransportRoutes {
+
+    private static final Comparator<Entry> BY_COST = Comparator.comparingDouble(Entry::cost)
+            .thenComparingLong(Entry::id);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<RouteKey, Route> routes = new HashMap<>();
+
+    private final Route all = new Route();
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    // Updates
+
+    public void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(entry.id(), entry);
+            if (previous != null && samePlace(previous, entry)) {
+                forEachList(entry, list -> list.setSeats(entry));
+                return;
+            }
+            if (previous != null) {
+                removeFromLists(previous);
+            }
+            forEachList(entry, list -> list.insert(entry));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds many entries. Into empty lists they are loaded with one sort per list instead of
+     * one shifting insert per entry, which is how a rebuild fills a new instance.
+     */
+    public void putAll(Collection<Entry> batch) {
+        lock.writeLock().lock();
+        try {
+            if (!entries.isEmpty()) {
+                batch.forEach(this::put);
+                return;
+            }
+            for (Entry entry : batch) {
+                entries.put(entry.id(), entry);
+            }
+            Map<Route, List<Entry>> added = new HashMap<>();
+            for (Entry entry : entries.values()) {
+                forEachList(entry, list -> added.computeIfAbsent(list, key -> new ArrayList<>()).add(entry));
+            }
+            added.forEach((list, listEntries) -> {
+                listEntries.sort(BY_COST);
+                list.load(listEntries);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                removeFromLists(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false if the id isn't indexed
+     */
+    public boolean updateSeats(long id, int availableSeats) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(id);
+            if (previous == null) {
+                return false;
+            }
+            Entry entry = new Entry(id, previous.fromLocationId(), previous.toLocationId(), previous.cost(), availableSeats);
+            entries.put(id, entry);
+            forEachList(entry, list -> list.setSeats(entry));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int routeCount() {
+        lock.readLock().lock();
+        try {
+            return routes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean samePlace(Entry a, Entry b) {
+        return Objects.equals(RouteKey.of(a), RouteKey.of(b)) && Double.compare(a.cost(), b.cost()) == 0;
+    }
+
+    private void removeFromLists(Entry entry) {
+        all.remove(entry);
+        RouteKey key = RouteKey.of(entry);
+        if (key != null) {
+            Route route = routes.get(key);
+            route.remove(entry);
+            if (route.size == 0) {
+                routes.remove(key);
+            }
+        }
+    }
+
+    private void forEachList(Entry entry, Consumer<Route> action) {
+        action.accept(all);
+        RouteKey key = RouteKey.of(entry);
+        if (key != null) {
+            action.accept(routes.computeIfAbsent(key, k -> new Route()));
+        }
+    }
+
+    // Queries
+
+    /**
+     * Transports from one location to another costing between {@code minCost} and
+     * {@code maxCost} with at least {@code minSeats} seats left, cheapest first, at most
+     * {@code limit} of them.
+     */
+    public List<Fare> route(long fromLocationId, long toLocationId, double minCost, double maxCost, int minSeats, int limit) {
+        lock.readLock().lock();
+        try {
+            Route route = routes.get(new RouteKey(fromLocationId, toLocationId));
+            return route != null ? route.fares(minCost, maxCost, minSeats, limit) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like route, over all transports whatever their locations.
+     */
+    public List<Fare> all(double minCost, double maxCost, int minSeats, int limit) {
+        lock.readLock().lock();
+        try {
+            return all.fares(minCost, maxCost, minSeats, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Types
+
+    /**
+     * An indexed transport; it is on a route only if it has both locations.
+     */
+    public record Entry(long id, Long fromLocationId, Long toLocationId, double cost, int availableSeats) {
+    }
+
+    public record Fare(long transportId, double cost, int availableSeats) {
+    }
+
+    private record RouteKey(long fromLocationId, long toLocationId) {
+
+        static RouteKey of(Entry entry) {
+            if (entry.fromLocationId() == null || entry.toLocationId() == null) {
+                return null;
+            }
+            return new RouteKey(entry.fromLocationId(), entry.toLocationId());
+        }
+    }
+
+    private static final class Route {
+
+        long[] ids = new long[4];
+        double[] costs = new double[4];
+        int[] seats = new int[4];
+        int size;
+
+        void insert(Entry entry) {
+            int at = -find(entry.cost(), entry.id()) - 1;
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                costs = Arrays.copyOf(costs, capacity);
+                seats = Arrays.copyOf(seats, capacity);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(costs, at, costs, at + 1, size - at);
+            System.arraycopy(seats, at, seats, at + 1, size - at);
+            ids[at] = entry.id();
+            costs[at] = entry.cost();
+            seats[at] = entry.availableSeats();
+            size++;
+        }
+
+        void remove(Entry entry) {
+            int at = find(entry.cost(), entry.id());
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            System.arraycopy(costs, at + 1, costs, at, size - at - 1);
+            System.arraycopy(seats, at + 1, seats, at, size - at - 1);
+            size--;
+        }
+
+        void setSeats(Entry entry) {
+            seats[find(entry.cost(), entry.id())] = entry.availableSeats();
+        }
+
+        // Replaces the contents with entries sorted BY_COST
+        void load(List<Entry> sorted) {
+            size = sorted.size();
+            ids = new long[size];
+            costs = new double[size];
+            seats = new int[size];
+            for (int i = 0; i < size; i++) {
+                Entry entry = sorted.get(i);
+                ids[i] = entry.id();
+                costs[i] = entry.cost();
+                seats[i] = entry.availableSeats();
+            }
+        }
+
+        List<Fare> fares(double minCost, double maxCost, int minSeats, int limit) {
+            List<Fare> fares = new ArrayList<>();
+            for (int i = lowerBound(minCost); i < size && costs[i] <= maxCost && fares.size() < limit; i++) {
+                if (seats[i] >= minSeats) {
+                    fares.add(new Fare(ids[i], costs[i], seats[i]));
+                }
+            }
+            return fares;
+        }
+
+        // Index of (cost, id), or -(insertion point) - 1
+        int find(double cost, long id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int order = Double.compare(costs[mid], cost);
+                if (order == 0) {
+                    order = Long.compare(ids[mid], id);
+                }
+                if (order < 0) {
+                    low = mid + 1;
+                } else if (order > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        // First index costing at least cost
+        int lowerBound(double cost) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (costs[mid] < cost) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.zubair.travel.service.seating;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Occupancy of a vehicle's numbered seats, one bit per seat, laid out in rows of
+ * {@code seatsPerRow} (seat 1 is the first seat of the first row).
+ *
+ * A group is seated by the first rule that finds room, so it sits as close together as the
+ * remaining seats allow:
+ * 1. the tightest run of free seats within one row that fits the whole group, so a couple
+ *    takes a free pair rather than splitting a free row of four;
+ * 2. the first run of consecutive free seats anywhere, spilling over into the next row;
+ * 3. the free seats spanning the fewest seat numbers.
+ * The first two work on whole 64-bit words at a time; the last walks the free seats once.
+ *
+ * Not thread-safe: TransportService loads, changes and stores a map under the transport's
+ * row lock. The stored form (toBytes) is the bitmap itself, one byte per 8 seats.
+ */
+public final class SeatMap {
+
+    private final int seats;
+    private final int seatsPerRow;
+    private final long[] taken;
+    private int available;
+
+    public SeatMap(int seats, int seatsPerRow) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("A seat map needs at least one seat");
+        }
+        if (seatsPerRow <= 0 || seatsPerRow > 64) {
+            throw new IllegalArgumentException("Seats per row must be between 1 and 64");
+        }
+        this.seats = seats;
+        this.seatsPerRow = seatsPerRow;
+        this.taken = new long[(seats + 63) >>> 6];
+        this.available = seats;
+    }
+
+    /**
+     * Reads a map written by toBytes.
+     */
+    public static SeatMap fromBytes(byte[] bytes, int seats, int seatsPerRow) {
+        SeatMap map = new SeatMap(seats, seatsPerRow);
+        if (bytes.length != byteLength(seats)) {
+            throw new IllegalArgumentException("Seat map of " + bytes.length + " bytes doesn't hold " + seats + " seats");
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            map.taken[i >>> 3] |= (bytes[i] & 0xFFL) << ((i & 7) << 3);
+        }
+        int lastBits = seats & 63;
+        if (lastBits != 0 && (map.taken[map.taken.length - 1] >>> lastBits) != 0) {
+            throw new IllegalArgumentException("Seat map marks seats beyond " + seats);
+        }
+        int occupied = 0;
+        for (long word : map.taken) {
+            occupied += Long.bitCount(word);
+        }
+        map.available = seats - occupied;
+        return map;
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[byteLength(seats)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (taken[i >>> 3] >>> ((i & 7) << 3));
+        }
+        return bytes;
+    }
+
+    public static int byteLength(int seats) {
+        return (seats + 7) >>> 3;
+    }
+
+    public int seats() {
+        return seats;
+    }
+
+    public int seatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int available() {
+        return available;
+    }
+
+    public boolean isTaken(int seatNumber) {
+        int seat = index(seatNumber);
+        return (taken[seat >>> 6] & (1L << seat)) != 0;
+    }
+
+    /**
+     * Numbers of the taken seats, ascending.
+     */
+    public int[] takenSeats() {
+        int[] numbers = new int[seats - available];
+        int i = 0;
+        for (int w = 0; w < taken.length; w++) {
+            for (long word = taken[w]; word != 0; word &= word - 1) {
+                numbers[i++] = (w << 6) + Long.numberOfTrailingZeros(word) + 1;
+            }
+        }
+        return numbers;
+    }
+
+    // Allocation
+
+    /**
+     * Takes {@code count} seats for a group, see the class comment for which.
+     *
+     * @return the seat numbers taken, ascending, or null if fewer seats are free
+     */
+    public int[] allocate(int count) {
+        int[] seatNumbers = find(count);
+        if (seatNumbers != null) {
+            for (int seatNumber : seatNumbers) {
+                set(seatNumber - 1);
+            }
+            available -= count;
+        }
+        return seatNumbers;
+    }
+
+    /**
+     * The seats allocate would take, without taking them.
+     */
+    public int[] find(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Seat count must be positive");
+        }
+        if (count > available) {
+            return null;
+        }
+        int start = count <= seatsPerRow ? bestRunInRow(count) : -1;
+        if (start < 0) {
+            start = firstRun(count);
+        }
+        if (start >= 0) {
+            return numbers(start, count);
+        }
+        return tightestSpan(count);
+    }
+
+    /**
+     * Takes exactly the given seats, or none of them if any is already taken.
+     *
+     * @return false if one of the seats is taken
+     */
+    public boolean claim(int[] seatNumbers) {
+        int[] seatIndexes = distinctIndexes(seatNumbers);
+        for (int seat : seatIndexes) {
+            if ((taken[seat >>> 6] & (1L << seat)) != 0) {
+                return false;
+            }
+        }
+        for (int seat : seatIndexes) {
+            set(seat);
+        }
+        available -= seatIndexes.length;
+        return true;
+    }
+
+    /**
+     * Frees the given seats, or none of them if any of them isn't taken.
+     *
+     * @return false if one of the seats is free
+     */
+    public boolean release(int[] seatNumbers) {
+        int[] seatIndexes = distinctIndexes(seatNumbers);
+        for (int seat : seatIndexes) {
+            if ((taken[seat >>> 6] & (1L << seat)) == 0) {
+                return false;
+            }
+        }
+        for (int seat : seatIndexes) {
+            taken[seat >>> 6] &= ~(1L << seat);
+        }
+        available += seatIndexes.length;
+        return true;
+    }
+
+    // Start of the shortest free run within a row that holds count seats, or -1
+    private int bestRunInRow(int count) {
+        int bestStart = -1;
+        int bestLength = Integer.MAX_VALUE;
+        int rows = (seats + seatsPerRow - 1) / seatsPerRow;
+        for (int row = 0; row < rows; row++) {
+            int rowStart = row * seatsPerRow;
+            int rowLength = Math.min(seatsPerRow, seats - rowStart);
+            long free = ~bits(rowStart, rowLength) & mask(rowLength);
+            while (free != 0) {
+                int start = Long.numberOfTrailingZeros(free);
+                int length = Long.numberOfTrailingZeros(~(free >>> start));
+                if (length >= count && length < bestLength) {
+                    if (length == count) {
+                        return rowStart + start;
+                    }
+                    bestStart = rowStart + start;
+                    bestLength = length;
+                }
+                free &= ~(mask(length) << start);
+            }
+        }
+        return bestStart;
+    }
+
+    // Start of the first run of count free seats, or -1
+    private int firstRun(int count) {
+        int start = nextFree(0);
+        while (start >= 0) {
+            int end = nextTaken(start);
+            if (end - start >= count) {
+                return start;
+            }
+            start = nextFree(end);
+        }
+        return -1;
+    }
+
+    // The count free seats closest together, by the distance from the first to the last
+    private int[] tightestSpan(int count) {
+        int[] free = new int[available];
+        int n = 0;
+        for (int w = 0; w < taken.length; w++) {
+            long word = ~taken[w];
+            if (w == taken.length - 1 && (seats & 63) != 0) {
+                word &= mask(seats & 63);
+            }
+            for (; word != 0; word &= word - 1) {
+                free[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        int best = 0;
+        for (int i = 1; i + count <= n; i++) {
+            if (free[i + count - 1] - free[i] < free[best + count - 1] - free[best]) {
+                best = i;
+            }
+        }
+        int[] numbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = free[best + i] + 1;
+        }
+        return numbers;
+    }
+
+    // Bit operations
+
+    // Taken bits of seats [from, from + length), length <= 64, in the low bits
+    private long bits(int from, int length) {
+        int word = from >>> 6;
+        int offset = from & 63;
+        long value = taken[word] >>> offset;
+        if (offset != 0 && offset + length > 64 && word + 1 < taken.length) {
+            value |= taken[word + 1] << (64 - offset);
+        }
+        return value & mask(length);
+    }
+
+    private int nextFree(int from) {
+        if (from >= seats) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = ~taken[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == taken.length) {
+                return -1;
+            }
+            word = ~taken[w];
+        }
+        int seat = (w << 6) + Long.numberOfTrailingZeros(word);
+        return seat < seats ? seat : -1;
+    }
+
+    // First taken seat at or after from, or seats if there is none
+    private int nextTaken(int from) {
+        int w = from >>> 6;
+        long word = taken[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == taken.length) {
+                return seats;
+            }
+            word = taken[w];
+        }
+        return Math.min(seats, (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    private void set(int seat) {
+        taken[seat >>> 6] |= 1L << seat;
+    }
+
+    private static long mask(int length) {
+        return length == 64 ? -1L : (1L << length) - 1;
+    }
+
+    private int index(int seatNumber) {
+        if (seatNumber < 1 || seatNumber > seats) {
+            throw new IllegalArgumentException("Seat " + seatNumber + " doesn't exist, seats are 1 to " + seats);
+        }
+        return seatNumber - 1;
+    }
+
+    private int[] distinctIndexes(int[] seatNumbers) {
+        if (seatNumbers.length == 0) {
+            throw new IllegalArgumentException("No seats given");
+        }
+        int[] seatIndexes = new int[seatNumbers.length];
+        for (int i = 0; i < seatNumbers.length; i++) {
+            seatIndexes[i] = index(seatNumbers[i]);
+        }
+        Arrays.sort(seatIndexes);
+        for (int i = 1; i < seatIndexes.length; i++) {
+            if (seatIndexes[i] == seatIndexes[i - 1]) {
+                throw new IllegalArgumentException("Seat " + (seatIndexes[i] + 1) + " is given twice");
+            }
+        }
+        return seatIndexes;
+    }
+
+    private static int[] numbers(int start, int count) {
+        int[] numbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = start + i + 1;
+        }
+        return numbers;
+    }
+
+    // Stored form of a booking's seats
+
+    /**
+     * Seat numbers as "12,13,14", the form bookings store them in.
+     */
+    public static String format(int[] seatNumbers) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (int seatNumber : seatNumbers) {
+            joiner.add(Integer.toString(seatNumber));
+        }
+        return joiner.toString();
+    }
+
+    public static int[] parse(String seatNumbers) {
+        if (seatNumbers == null || seatNumbers.isBlank()) {
+            return new int[0];
+        }
+        return Arrays.stream(seatNumbers.split(",")).mapToInt(number -> Integer.parseInt(number.trim())).toArray();
+    }
+}
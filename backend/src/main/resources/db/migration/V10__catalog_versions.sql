@@ -0,0 +1,17 @@
+-- Version stamps of the catalogs and their entities, behind the ETag / Last-Modified headers of
+-- the catalog endpoints. Shared by all replicas so a write on one invalidates the others' ETags.
+-- entity_id 0 is the whole catalog; version only grows and an entity takes its catalog's
+-- version when it changes. updated_at is epoch milliseconds, 0 for never changed.
+
+CREATE TABLE catalog_versions (
+    catalog VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    updated_at BIGINT NOT NULL,
+    PRIMARY KEY (catalog, entity_id)
+);
+
+INSERT INTO catalog_versions (catalog, entity_id, version, updated_at) VALUES ('TOURS', 0, 0, 0);
+INSERT INTO catalog_versions (catalog, entity_id, version, updated_at) VALUES ('LODGES', 0, 0, 0);
+INSERT INTO catalog_versions (catalog, entity_id, version, updated_at) VALUES ('TRANSPORTS', 0, 0, 0);
+INSERT INTO catalog_versions (catalog, entity_id, version, updated_at) VALUES ('LOCATIONS', 0, 0, 0);
@@ -0,0 +1,9 @@
+-- Guest rating (0-5) and location of a lodge, behind the per-location rankings of
+-- LodgeRankingIndex and the lodge lists by location. Nullable: existing lodges have neither
+-- until an admin sets them; unrated lodges rank last and lodges without a location only
+-- appear in the all-lodges rankings.
+
+ALTER TABLE lodges ADD COLUMN rating DOUBLE NULL;
+ALTER TABLE lodges ADD COLUMN location_id BIGINT NULL;
+
+ALTER TABLE lodges ADD CONSTRAINT fk_lodges_location FOREIGN KEY (location_id) REFERENCES locations (id);
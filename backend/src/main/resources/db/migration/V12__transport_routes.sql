@@ -0,0 +1,9 @@
+-- Origin and destination of a transport, behind TransportRouteIndex and the transport lists by
+-- location. Nullable: existing transports have no route until an admin sets one, and the
+-- route searches only find transports with both ends set.
+
+ALTER TABLE transport ADD COLUMN from_location_id BIGINT NULL;
+ALTER TABLE transport ADD COLUMN to_location_id BIGINT NULL;
+
+ALTER TABLE transport ADD CONSTRAINT fk_transport_from_location FOREIGN KEY (from_location_id) REFERENCES locations (id);
+ALTER TABLE transport ADD CONSTRAINT fk_transport_to_location FOREIGN KEY (to_location_id) REFERENCES locations (id);
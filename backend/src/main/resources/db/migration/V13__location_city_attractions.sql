@@ -0,0 +1,7 @@
+-- City of a location and its popular attractions, behind LocationHierarchyIndex: the city is the
+-- leaf level of the country/state/city tree, and locations listing attractions are the popular
+-- ones. Nullable: existing locations are grouped under an unnamed city of their state, and are
+-- not popular, until an admin fills them in.
+
+ALTER TABLE locations ADD COLUMN city VARCHAR(255) NULL;
+ALTER TABLE locations ADD COLUMN popular_attractions TEXT NULL;
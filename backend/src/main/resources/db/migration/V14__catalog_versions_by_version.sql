@@ -0,0 +1,4 @@
+-- Lets every replica poll catalog_versions for the rows written since its last poll
+-- (WHERE catalog = ? AND version > ?) without scanning all entity stamps of the catalog.
+
+CREATE INDEX idx_catalog_versions_version ON catalog_versions (catalog, version);
@@ -0,0 +1,95 @@
+-- Baseline schema, matching what spring.jpa.hibernate.ddl-auto=update produced for the entities.
+-- Kept to portable MySQL syntax so the same scripts run on H2 (MODE=MySQL) in tests.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE locations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    state VARCHAR(255) NOT NULL,
+    country VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tours (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(1000),
+    from_location VARCHAR(255) NOT NULL,
+    to_location VARCHAR(255) NOT NULL,
+    date DATE NOT NULL,
+    price DOUBLE NOT NULL,
+    available_seats INT NOT NULL,
+    guide VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE lodges (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    address VARCHAR(255) NOT NULL,
+    price_per_night DOUBLE NOT NULL,
+    description TEXT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE transport (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    type VARCHAR(255),
+    price_per_ticket DOUBLE,
+    description VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE bookings (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    tour_id BIGINT NOT NULL,
+    booking_date DATETIME(6) NOT NULL,
+    total_passengers INT NOT NULL,
+    total_amount DECIMAL(38, 2) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_bookings_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_bookings_tour FOREIGN KEY (tour_id) REFERENCES tours (id)
+);
+
+CREATE TABLE payments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    booking_id BIGINT NOT NULL,
+    amount DECIMAL(38, 2) NOT NULL,
+    payment_date DATETIME(6) NOT NULL,
+    payment_status VARCHAR(255) NOT NULL,
+    payment_method VARCHAR(255) NOT NULL,
+    transaction_id VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_payments_transaction_id UNIQUE (transaction_id),
+    CONSTRAINT fk_payments_booking FOREIGN KEY (booking_id) REFERENCES bookings (id)
+);
+
+CREATE TABLE booking_summaries (
+    booking_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    tour_name VARCHAR(255),
+    tour_date DATE,
+    booking_date DATETIME(6) NOT NULL,
+    total_passengers INT,
+    total_amount DECIMAL(38, 2),
+    status VARCHAR(255) NOT NULL,
+    payment_status VARCHAR(255),
+    PRIMARY KEY (booking_id)
+);
+
+CREATE INDEX idx_booking_summaries_user_date ON booking_summaries (user_id, booking_date);
@@ -0,0 +1,30 @@
+-- Indexes for the finder methods on the hot request paths.
+-- Each index is checked by QueryPlanRegressionTest; add the matching EXPLAIN case there
+-- when introducing a new finder.
+
+-- BookingRepository.findByUserId / findByUser (dashboard fallback, per-user counts)
+CREATE INDEX idx_bookings_user_status ON bookings (user_id, status);
+
+-- BookingRepository.findByTourId / findByTour (per-tour booking lists, cancellations)
+CREATE INDEX idx_bookings_tour_status ON bookings (tour_id, status);
+
+-- BookingRepository.findByStatus (pending/confirmed lists, revenue reports)
+CREATE INDEX idx_bookings_status_date ON bookings (status, booking_date);
+
+-- PaymentRepository.findByBookingId / findByBooking and the summary rebuild lookup
+CREATE INDEX idx_payments_booking_date ON payments (booking_id, payment_date);
+
+-- PaymentRepository.findByPaymentStatus (pending/completed payment reports)
+CREATE INDEX idx_payments_status_date ON payments (payment_status, payment_date);
+
+-- TourRepository date range and upcoming-tour queries
+CREATE INDEX idx_tours_date ON tours (date);
+
+-- TourRepository.findByPriceBetween
+CREATE INDEX idx_tours_price ON tours (price);
+
+-- TourRepository.findByAvailableSeatsGreaterThan (available tours catalog)
+CREATE INDEX idx_tours_available_seats ON tours (available_seats);
+
+-- LodgeRepository.findByPricePerNightBetween
+CREATE INDEX idx_lodges_price_per_night ON lodges (price_per_night);
@@ -0,0 +1,9 @@
+-- Seat and room counters for lodges and transports, reserved by LodgeService.bookRoom and
+-- TransportService.bookTransportSeat and, for Redis-tracked resources, written back by
+-- InventoryReconciler as relative updates.
+
+ALTER TABLE lodges ADD COLUMN total_rooms INT NOT NULL DEFAULT 0;
+ALTER TABLE lodges ADD COLUMN available_rooms INT NOT NULL DEFAULT 0;
+
+ALTER TABLE transport ADD COLUMN capacity INT NOT NULL DEFAULT 0;
+ALTER TABLE transport ADD COLUMN available_seats INT NOT NULL DEFAULT 0;
@@ -0,0 +1,16 @@
+-- Optional split of a hot tour's seat counter into sub-counter rows, so concurrent bookings
+-- update different rows instead of serializing on tours.available_seats.
+-- tours.inventory_shards is 0 for unsharded tours; for sharded tours all seats live in the
+-- shard rows and tours.available_seats stays 0.
+
+ALTER TABLE tours ADD COLUMN inventory_shards INT NOT NULL DEFAULT 0;
+
+CREATE TABLE tour_inventory_shards (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    tour_id BIGINT NOT NULL,
+    shard_index INT NOT NULL,
+    available_seats INT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_tour_inventory_shards_tour_shard UNIQUE (tour_id, shard_index),
+    CONSTRAINT fk_tour_inventory_shards_tour FOREIGN KEY (tour_id) REFERENCES tours (id) ON DELETE CASCADE
+);
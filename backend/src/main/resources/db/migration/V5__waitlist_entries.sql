@@ -0,0 +1,24 @@
+-- Per-tour waitlist for sold-out tours. Entries are promoted into PENDING bookings in queue
+-- order (highest priority first, then first come) when seats are released.
+
+CREATE TABLE waitlist_entries (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    tour_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    seats INT NOT NULL,
+    priority INT NOT NULL DEFAULT 0,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    promoted_at TIMESTAMP NULL,
+    booking_id BIGINT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_waitlist_entries_tour FOREIGN KEY (tour_id) REFERENCES tours (id) ON DELETE CASCADE,
+    CONSTRAINT fk_waitlist_entries_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+-- WaitlistEntryRepository.lockHead / countAhead: the queue of one tour is a range of this index,
+-- already in promotion order
+CREATE INDEX idx_waitlist_entries_queue ON waitlist_entries (tour_id, status, priority DESC, id);
+
+-- WaitlistEntryRepository.findByUserIdAndStatus (a user's open entries)
+CREATE INDEX idx_waitlist_entries_user_status ON waitlist_entries (user_id, status);
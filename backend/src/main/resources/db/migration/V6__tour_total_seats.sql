@@ -0,0 +1,9 @@
+-- Seat capacity of a tour, the denominator of the occupancy PricingService derives its
+-- multipliers from. Existing tours get their free seats (row or shards) plus the seats of
+-- their bookings that still hold them.
+
+ALTER TABLE tours ADD COLUMN total_seats INT NOT NULL DEFAULT 0;
+
+UPDATE tours SET total_seats = available_seats
+    + COALESCE((SELECT SUM(s.available_seats) FROM tour_inventory_shards s WHERE s.tour_id = tours.id), 0)
+    + COALESCE((SELECT SUM(b.total_passengers) FROM bookings b WHERE b.tour_id = tours.id AND b.status <> 'CANCELLED'), 0);
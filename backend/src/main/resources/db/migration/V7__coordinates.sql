@@ -0,0 +1,8 @@
+-- WGS84 coordinates of lodges and locations, in degrees. Nullable: lodges without them are
+-- simply left out of LodgeGeoIndex and the proximity searches.
+
+ALTER TABLE lodges ADD COLUMN latitude DOUBLE NULL;
+ALTER TABLE lodges ADD COLUMN longitude DOUBLE NULL;
+
+ALTER TABLE locations ADD COLUMN latitude DOUBLE NULL;
+ALTER TABLE locations ADD COLUMN longitude DOUBLE NULL;
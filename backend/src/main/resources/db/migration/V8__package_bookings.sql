@@ -0,0 +1,11 @@
+-- Lodge rooms and transport seats booked together with the tour seats of a package booking.
+-- Nullable: plain tour bookings leave them empty. Cancelling a booking releases all three.
+
+ALTER TABLE bookings ADD COLUMN lodge_id BIGINT NULL;
+ALTER TABLE bookings ADD COLUMN lodge_rooms INT NULL;
+ALTER TABLE bookings ADD COLUMN lodge_nights INT NULL;
+ALTER TABLE bookings ADD COLUMN transport_id BIGINT NULL;
+ALTER TABLE bookings ADD COLUMN transport_seats INT NULL;
+
+ALTER TABLE bookings ADD CONSTRAINT fk_bookings_lodge FOREIGN KEY (lodge_id) REFERENCES lodges (id);
+ALTER TABLE bookings ADD CONSTRAINT fk_bookings_transport FOREIGN KEY (transport_id) REFERENCES transport (id);
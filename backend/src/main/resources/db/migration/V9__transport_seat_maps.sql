@@ -0,0 +1,9 @@
+-- Numbered seats for transports: seat_map holds one bit per seat (SeatMap.toBytes, 63 bytes
+-- for 500 seats), laid out in rows of seats_per_row. NULL for transports sold by counter only;
+-- available_seats is kept equal to the free seats of the map.
+
+ALTER TABLE transport ADD COLUMN seats_per_row INT NULL;
+ALTER TABLE transport ADD COLUMN seat_map VARBINARY(2048) NULL;
+
+-- Seats a package booking holds on a seat-mapped transport, as "12,13,14"
+ALTER TABLE bookings ADD COLUMN transport_seat_numbers VARCHAR(1024) NULL;
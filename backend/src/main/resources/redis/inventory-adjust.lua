@@ -0,0 +1,9 @@
+-- Applies ARGV[1] (positive or negative) unconditionally; used to undo a reservation whose
+-- database transaction rolled back.
+-- KEYS[1] counter, KEYS[2] pending deltas hash; ARGV[1] delta, ARGV[2] resource id
+-- Returns the new count, or -2 if the counter is not loaded
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -2
+end
+redis.call('HINCRBY', KEYS[2], ARGV[2], ARGV[1])
+return redis.call('INCRBY', KEYS[1], ARGV[1])
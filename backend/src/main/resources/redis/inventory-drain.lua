@@ -0,0 +1,13 @@
+-- Hands the pending deltas of one resource type to the reconciler.
+-- KEYS[1] pending deltas hash, KEYS[2] in-flight hash
+-- The pending hash is renamed to the in-flight hash, which is only deleted once the deltas
+-- are committed to the database. An in-flight hash left by a failed run is returned again.
+-- Returns a flat list: id1, delta1, id2, delta2, ...
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return redis.call('HGETALL', KEYS[2])
+end
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return {}
+end
+redis.call('RENAME', KEYS[1], KEYS[2])
+return redis.call('HGETALL', KEYS[2])
@@ -0,0 +1,11 @@
+-- Loads a counter from its database value unless Redis already holds a newer one.
+-- KEYS[1] counter, KEYS[2] pending deltas hash; ARGV[1] database value,
+-- ARGV[2] resource id, ARGV[3] "1" to overwrite an existing counter
+-- Overwriting drops the resource's pending delta: the database row is taken as the truth.
+if ARGV[3] == '1' then
+    redis.call('HDEL', KEYS[2], ARGV[2])
+    redis.call('SET', KEYS[1], ARGV[1])
+    return tonumber(ARGV[1])
+end
+redis.call('SET', KEYS[1], ARGV[1], 'NX')
+return tonumber(redis.call('GET', KEYS[1]))
@@ -0,0 +1,14 @@
+-- Gives ARGV[1] units back to a tracked counter without exceeding ARGV[3] (-1 for no limit).
+-- KEYS[1] counter, KEYS[2] pending deltas hash; ARGV[1] quantity, ARGV[2] resource id, ARGV[3] capacity
+-- Returns the new count, -1 if the capacity would be exceeded, -2 if the counter is not loaded
+local available = redis.call('GET', KEYS[1])
+if not available then
+    return -2
+end
+local quantity = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[3])
+if capacity >= 0 and tonumber(available) + quantity > capacity then
+    return -1
+end
+redis.call('HINCRBY', KEYS[2], ARGV[2], quantity)
+return redis.call('INCRBY', KEYS[1], quantity)
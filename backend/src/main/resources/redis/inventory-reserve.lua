@@ -0,0 +1,13 @@
+-- Takes ARGV[1] units from a tracked counter if enough are left.
+-- KEYS[1] counter, KEYS[2] pending deltas hash; ARGV[1] quantity, ARGV[2] resource id
+-- Returns the remaining count, -1 if not enough units are left, -2 if the counter is not loaded
+local available = redis.call('GET', KEYS[1])
+if not available then
+    return -2
+end
+local quantity = tonumber(ARGV[1])
+if tonumber(available) < quantity then
+    return -1
+end
+redis.call('HINCRBY', KEYS[2], ARGV[2], -quantity)
+return redis.call('DECRBY', KEYS[1], quantity)
@@ -0,0 +1,8 @@
+-- Reads a counter together with its not yet reconciled deltas, for drift detection.
+-- KEYS[1] counter, KEYS[2] pending deltas hash, KEYS[3] in-flight hash; ARGV[1] resource id
+-- Returns counter, pending delta, in-flight delta (each false/nil when absent)
+return {
+    redis.call('GET', KEYS[1]),
+    redis.call('HGET', KEYS[2], ARGV[1]),
+    redis.call('HGET', KEYS[3], ARGV[1])
+}
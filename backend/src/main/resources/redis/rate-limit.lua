@@ -0,0 +1,15 @@
+-- Takes a token from a GCRA bucket.
+-- KEYS[1] bucket; ARGV[1] microseconds per token, ARGV[2] burst
+-- Returns 0 if the request is admitted, otherwise microseconds until it would be
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+local interval = tonumber(ARGV[1])
+local arrival = tonumber(redis.call('GET', KEYS[1]) or now)
+local next = math.max(arrival, now) + interval
+local excess = next - now - interval * tonumber(ARGV[2])
+if excess > 0 then
+    return excess
+end
+-- %d keeps all digits, plain number formatting would round the timestamp
+redis.call('SET', KEYS[1], string.format('%d', next), 'PX', string.format('%d', math.ceil((next - now) / 1000)))
+return 0
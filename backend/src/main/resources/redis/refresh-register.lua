@@ -0,0 +1,5 @@
+-- Stores the first token of a new refresh-token family.
+-- KEYS[1] family hash; ARGV[1] token hash, ARGV[2] seconds until the token expires
+redis.call('HSET', KEYS[1], ARGV[1], 'A')
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return 1
@@ -0,0 +1,7 @@
+-- Revokes a refresh-token family; a family that already expired is left alone.
+-- KEYS[1] family hash
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'revoked', '1')
+return 1
@@ -0,0 +1,19 @@
+-- Replaces a refresh token by the next one of its family.
+-- KEYS[1] family hash; ARGV[1] presented token hash, ARGV[2] next token hash,
+-- ARGV[3] seconds until the next token expires
+-- Returns 0 rotated, 1 reused (the family is revoked now), 2 family revoked, 3 unknown token
+if redis.call('HEXISTS', KEYS[1], 'revoked') == 1 then
+    return 2
+end
+local state = redis.call('HGET', KEYS[1], ARGV[1])
+if not state then
+    return 3
+end
+if state == 'U' then
+    redis.call('HSET', KEYS[1], 'revoked', '1')
+    return 1
+end
+redis.call('HSET', KEYS[1], ARGV[1], 'U', ARGV[2], 'A')
+-- The next token is the family's newest, so its lifetime is the family's
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+return 0
@@ -1,6 +1,7 @@
 package com.zubair.travel;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zubair.travel.config.security.BoundedPasswordEncoder.PasswordHashingBusyException;
 import com.zubair.travel.controller.AuthController;
 import com.zubair.travel.entity.User;
 import com.zubair.travel.security.JwtTokenProvider;
@@ -14,9 +15,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -180,6 +183,41 @@ public class AuthControllerTest {
         verify(tokenProvider, never()).generateToken(any(Authentication.class));
     }
 
+    @Test
+    public void testLoginUser_HashingBusyForUnknownUser() throws Exception {
+        Map<String, String> loginRequest = new HashMap<>();
+        loginRequest.put("username", "nonexistent");
+        loginRequest.put("password", "password123");
+
+        // What DaoAuthenticationProvider throws when the dummy hash for an unknown user is refused
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new InternalAuthenticationServiceException("busy",
+                        new PasswordHashingBusyException("Too many concurrent sign-ins, please retry shortly")));
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.error").value("Too many concurrent sign-ins, please retry shortly"));
+    }
+
+    @Test
+    public void testLoginUser_HashingBusyForKnownUser() throws Exception {
+        Map<String, String> loginRequest = new HashMap<>();
+        loginRequest.put("username", "testuser");
+        loginRequest.put("password", "password123");
+
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new PasswordHashingBusyException("Too many concurrent sign-ins, please retry shortly"));
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
     @Test
     public void testLoginUser_UserNotFound() throws Exception {
         Map<String, String> loginRequest = new HashMap<>();
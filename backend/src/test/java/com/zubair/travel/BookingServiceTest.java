@@ -195,7 +195,7 @@ public class BookingServiceTest {
         List<Booking> bookings = Arrays.asList(testBooking, booking2);
         when(bookingRepository.findAll()).thenReturn(bookings);
 
-        double totalRevenue = bookingService.calculateTotalRevenue();
+        double totalRevenue = bookingService.calculateTotalRevenue().doubleValue();
 
         assertEquals(3500.00, totalRevenue);
         verify(bookingRepository, times(1)).findAll();
@@ -0,0 +1,85 @@
+package com.zubair.travel;
+
+import com.zubair.travel.config.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    public void setUp() {
+        passwordEncoder = new BoundedPasswordEncoder();
+        ReflectionTestUtils.setField(passwordEncoder, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(passwordEncoder, "strength", 5);
+        ReflectionTestUtils.setField(passwordEncoder, "threads", 1);
+        ReflectionTestUtils.setField(passwordEncoder, "queueCapacity", 1);
+        ReflectionTestUtils.setField(passwordEncoder, "waitTimeoutMs", 5000L);
+        ReflectionTestUtils.invokeMethod(passwordEncoder, "start");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    public void testEncodesAndMatchesOnThePool() {
+        String hash = passwordEncoder.encode("secret");
+
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertTrue(passwordEncoder.matches("secret", hash));
+        assertFalse(passwordEncoder.matches("wrong", hash));
+        assertEquals(2, meterRegistry.get("security.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    public void testHashesWithAnotherCostNeedRehash() {
+        assertFalse(passwordEncoder.upgradeEncoding(passwordEncoder.encode("secret")));
+        assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(passwordEncoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    public void testRejectsRightAwayWhenSaturated() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordEncoder, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        // Occupy the only thread and the only queue slot
+        executor.execute(() -> {
+            running.countDown();
+            awaitQuietly(release);
+        });
+        running.await();
+        executor.execute(() -> { });
+
+        long start = System.nanoTime();
+        assertThrows(BoundedPasswordEncoder.PasswordHashingBusyException.class, () -> passwordEncoder.encode("secret"));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        assertEquals(1.0, meterRegistry.get("security.password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertNotNull(passwordEncoder.encode("secret"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
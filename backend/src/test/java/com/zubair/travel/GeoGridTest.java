@@ -0,0 +1,114 @@
+package com.zubair.travel;
+
+import com.zubair.travel.service.geo.GeoGrid;
+import com.zubair.travel.service.geo.GeoGrid.Entry;
+import com.zubair.travel.service.geo.GeoGrid.Filter;
+import com.zubair.travel.service.geo.GeoGrid.Hit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeoGridTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testQueriesMatchBruteForce() {
+        GeoGrid grid = new GeoGrid(0.5);
+        Map<Long, Entry> entries = new HashMap<>();
+        // Clusters around the antimeridian and the north pole plus a uniform spread
+        for (long id = 0; id < 5000; id++) {
+            double latitude = id % 3 == 0 ? 85 + random.nextDouble() * 5 : -90 + random.nextDouble() * 180;
+            double longitude = id % 5 == 0 ? wrap(180 + random.nextDouble() * 4 - 2) : -180 + random.nextDouble() * 360;
+            Entry entry = new Entry(id, latitude, longitude, random.nextInt(300), random.nextInt(5));
+            entries.put(id, entry);
+            grid.put(entry);
+        }
+        // Moves, room changes and removals go through the same cells
+        for (long id = 0; id < 1000; id++) {
+            if (id % 2 == 0) {
+                grid.remove(id);
+                entries.remove(id);
+            } else if (id % 3 == 0) {
+                Entry moved = new Entry(id, -60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360, 100, 3);
+                grid.put(moved);
+                entries.put(id, moved);
+            } else {
+                grid.updateRooms(id, 4);
+                Entry entry = entries.get(id);
+                entries.put(id, new Entry(id, entry.latitude(), entry.longitude(), entry.price(), 4));
+            }
+        }
+        assertEquals(entries.size(), grid.size());
+
+        Filter filter = new Filter(150, 2);
+        for (int query = 0; query < 200; query++) {
+            double latitude = query % 4 == 0 ? 88 : -90 + random.nextDouble() * 180;
+            double longitude = query % 4 == 0 ? 179.9 : -180 + random.nextDouble() * 360;
+            double radiusKm = random.nextDouble() * 3000;
+
+            List<Hit> expected = bruteForce(entries.values(), latitude, longitude, filter, radiusKm);
+            assertEquals(ids(expected), ids(grid.withinRadius(latitude, longitude, radiusKm, filter, Integer.MAX_VALUE)));
+
+            int k = 1 + random.nextInt(20);
+            List<Hit> all = bruteForce(entries.values(), latitude, longitude, filter, Double.MAX_VALUE);
+            assertEquals(ids(all.subList(0, k)), ids(grid.nearest(latitude, longitude, k, 20_000, filter)));
+        }
+    }
+
+    @Test
+    public void testBoxAcrossTheAntimeridian() {
+        GeoGrid grid = new GeoGrid(0.1);
+        grid.put(new Entry(1, -17.7, 178.4, 80, 2));    // Suva
+        grid.put(new Entry(2, -13.8, -171.8, 90, 1));   // Apia
+        grid.put(new Entry(3, -36.8, 174.8, 120, 5));   // Auckland
+        grid.put(new Entry(4, -18.1, 178.5, 300, 5));
+
+        List<Hit> hits = grid.withinBox(-20, 175, -10, -170, Filter.ANY, 10);
+        assertEquals(List.of(1L, 2L, 4L), hits.stream().map(Hit::id).sorted().toList());
+        assertEquals(List.of(1L), ids(grid.withinBox(-20, 175, -10, -170, new Filter(100, 2), 10)));
+    }
+
+    @Test
+    public void testNearestStopsAtTheRadiusAndLimit() {
+        GeoGrid grid = new GeoGrid(0.1);
+        grid.put(new Entry(1, 48.8566, 2.3522, 100, 1));   // Paris
+        grid.put(new Entry(2, 48.8049, 2.1204, 100, 1));   // Versailles, ~18 km
+        grid.put(new Entry(3, 51.5074, -0.1278, 100, 1));  // London, ~344 km
+
+        assertEquals(List.of(1L, 2L), ids(grid.nearest(48.8566, 2.3522, 5, 100, Filter.ANY)));
+        assertEquals(List.of(1L), ids(grid.nearest(48.8566, 2.3522, 1, 1000, Filter.ANY)));
+
+        List<Hit> hits = grid.nearest(48.8566, 2.3522, 5, 1000, Filter.ANY);
+        assertEquals(List.of(1L, 2L, 3L), ids(hits));
+        assertEquals(344, hits.get(2).distanceKm(), 2);
+    }
+
+    private static List<Hit> bruteForce(Iterable<Entry> entries, double latitude, double longitude, Filter filter,
+                                        double radiusKm) {
+        List<Hit> hits = new ArrayList<>();
+        for (Entry entry : entries) {
+            double distance = GeoGrid.distanceKm(latitude, longitude, entry.latitude(), entry.longitude());
+            if (entry.price() <= filter.maxPrice() && entry.availableRooms() >= filter.minRooms() && distance <= radiusKm) {
+                hits.add(new Hit(entry.id(), distance));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm).thenComparingLong(Hit::id));
+        return hits;
+    }
+
+    private static List<Long> ids(List<Hit> hits) {
+        return hits.stream().map(Hit::id).toList();
+    }
+
+    private static double wrap(double longitude) {
+        return longitude > 180 ? longitude - 360 : longitude;
+    }
+}
@@ -0,0 +1,110 @@
+package com.zubair.travel;
+
+import com.zubair.travel.config.ratelimit.InMemoryRateLimiter;
+import com.zubair.travel.config.ratelimit.RateLimitPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // 10 requests per second, bursts of 5
+    private final RateLimitPolicy policy = RateLimitPolicy.of("test", 10, 5);
+
+    @Test
+    public void testBurstThenOneTokenPerInterval() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(100);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.acquire(policy, "client", now));
+        }
+        long wait = limiter.acquire(policy, "client", now);
+        assertEquals(SECOND / 10, wait);
+
+        assertTrue(limiter.acquire(policy, "client", now + wait - 1) > 0);
+        assertEquals(0, limiter.acquire(policy, "client", now + wait));
+        // Other clients have their own buckets
+        assertEquals(0, limiter.acquire(policy, "other", now));
+    }
+
+    @Test
+    public void testHotClientCannotTakeTheTokensOfOthers() throws Exception {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(100);
+        int clients = 8;
+        int hotThreads = 8;
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(hotThreads + clients - 1);
+        try {
+            for (int round = 0; round < 3; round++) {
+                // Two seconds later every bucket has refilled its whole burst
+                long now = start + round * 2 * SECOND;
+                AtomicIntegerArray admitted = new AtomicIntegerArray(clients);
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < hotThreads + clients - 1; thread++) {
+                    // Client 0 hammers from many threads, the others from one each
+                    int client = thread < hotThreads ? 0 : thread - hotThreads + 1;
+                    futures.add(pool.submit(() -> {
+                        go.await();
+                        for (int i = 0; i < 10_000; i++) {
+                            if (limiter.acquire(policy, "client-" + client, now) == 0) {
+                                admitted.incrementAndGet(client);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                go.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+                for (int client = 0; client < clients; client++) {
+                    assertEquals(5, admitted.get(client), "client " + client + " in round " + round);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNewClientsShareAnOverflowBucketWhenFull() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(2);
+        long now = System.nanoTime();
+        limiter.acquire(policy, "a", now);
+        limiter.acquire(policy, "b", now);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.acquire(policy, "new-" + i, now));
+        }
+        assertTrue(limiter.acquire(policy, "another", now) > 0);
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    public void testSweepDropsOnlyRefilledBuckets() {
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(100);
+        long now = System.nanoTime();
+        limiter.acquire(policy, "idle", now);
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(policy, "busy", now + SECOND);
+        }
+
+        assertEquals(1, limiter.sweep(now + SECOND));
+        assertEquals(1, limiter.size());
+        // The busy client's bucket survived with its state
+        assertTrue(limiter.acquire(policy, "busy", now + SECOND) > 0);
+    }
+}
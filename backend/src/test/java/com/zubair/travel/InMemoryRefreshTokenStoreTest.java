@@ -0,0 +1,98 @@
+package com.zubair.travel;
+
+import com.zubair.travel.service.auth.InMemoryRefreshTokenStore;
+import com.zubair.travel.service.auth.InMemoryRefreshTokenStore.RefreshTokenCapacityException;
+import com.zubair.travel.service.auth.RefreshTokenStore.Rotation;
+import com.zubair.travel.service.auth.RefreshTokenStore.TokenHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryRefreshTokenStoreTest {
+
+    private static final long FAMILY = 42L;
+
+    private InMemoryRefreshTokenStore store;
+
+    private long now;
+
+    @BeforeEach
+    public void setUp() {
+        store = new InMemoryRefreshTokenStore(10_000);
+        now = System.currentTimeMillis() / 1000;
+    }
+
+    @Test
+    public void testRotationReplacesThePresentedToken() {
+        store.register(token(1), FAMILY, now + 60, now);
+
+        assertEquals(Rotation.ROTATED, store.rotate(token(1), token(2), FAMILY, now + 60, now));
+        assertEquals(Rotation.ROTATED, store.rotate(token(2), token(3), FAMILY, now + 60, now));
+        assertEquals(Rotation.UNKNOWN, store.rotate(token(99), token(4), FAMILY, now + 60, now));
+    }
+
+    @Test
+    public void testReuseRevokesTheFamily() {
+        store.register(token(1), FAMILY, now + 60, now);
+        store.rotate(token(1), token(2), FAMILY, now + 60, now);
+
+        assertEquals(Rotation.REUSED, store.rotate(token(1), token(3), FAMILY, now + 60, now));
+        // The legitimate successor is logged out as well
+        assertEquals(Rotation.REVOKED, store.rotate(token(2), token(4), FAMILY, now + 60, now));
+    }
+
+    @Test
+    public void testRevokedFamilyCannotRotate() {
+        store.register(token(1), FAMILY, now + 60, now);
+        store.revokeFamily(FAMILY);
+
+        assertEquals(Rotation.REVOKED, store.rotate(token(1), token(2), FAMILY, now + 60, now));
+    }
+
+    @Test
+    public void testTokenOfAnotherFamilyIsUnknown() {
+        store.register(token(1), FAMILY, now + 60, now);
+        store.register(token(2), FAMILY + 1, now + 60, now);
+
+        assertEquals(Rotation.UNKNOWN, store.rotate(token(2), token(3), FAMILY, now + 60, now));
+    }
+
+    @Test
+    public void testSweepDropsExpiredEntriesAndKeepsTheOthersReachable() {
+        // Enough entries to grow the tables and build long probe chains
+        for (int i = 0; i < 2000; i++) {
+            long expiresAt = i % 2 == 0 ? now + 10 : now + 1000;
+            store.register(token(i), i, expiresAt, now);
+        }
+        assertEquals(4000, store.size());
+
+        assertEquals(2000, store.sweep(now + 100));
+        assertEquals(2000, store.size());
+        for (int i = 0; i < 2000; i++) {
+            Rotation expected = i % 2 == 0 ? Rotation.UNKNOWN : Rotation.ROTATED;
+            assertEquals(expected, store.rotate(token(i), token(10_000 + i), i, now + 1000, now + 100), "family " + i);
+        }
+    }
+
+    @Test
+    public void testExpiredTokenIsUnknownBeforeItIsSwept() {
+        store.register(token(1), FAMILY, now + 10, now);
+
+        assertEquals(Rotation.UNKNOWN, store.rotate(token(1), token(2), FAMILY, now + 100, now + 20));
+    }
+
+    @Test
+    public void testFullStoreRefusesNewFamilies() {
+        InMemoryRefreshTokenStore small = new InMemoryRefreshTokenStore(0);
+        assertThrows(RefreshTokenCapacityException.class, () -> {
+            for (int i = 0; i < 1_000_000; i++) {
+                small.register(token(i), FAMILY, now + 60, now);
+            }
+        });
+    }
+
+    private static TokenHash token(long id) {
+        return new TokenHash(id * 0x9E3779B97F4A7C15L, id + 1);
+    }
+}
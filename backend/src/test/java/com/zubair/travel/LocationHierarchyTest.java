@@ -0,0 +1,115 @@
+package com.zubair.travel;
+
+import com.zubair.travel.service.location.LocationHierarchy;
+import com.zubair.travel.service.location.LocationHierarchy.Branch;
+import com.zubair.travel.service.location.LocationHierarchy.Entry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocationHierarchyTest {
+
+    private static final String[] COUNTRIES = {"Nepal", "India", "Peru"};
+    private static final String[] STATES = {"Bagmati", "Gandaki", "Cusco"};
+    private static final String[] CITIES = {"Pokhara", "Kathmandu", "Lima", "Cusco"};
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testCountsAndIdsMatchFullScanAfterEveryChange() {
+        LocationHierarchy hierarchy = new LocationHierarchy();
+        Map<Long, Entry> locations = new HashMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            long id = random.nextInt(300);
+            Entry current = locations.get(id);
+            if (current == null) {
+                Entry entry = randomEntry(id);
+                assertTrue(hierarchy.add(entry));
+                locations.put(id, entry);
+            } else if (random.nextInt(3) == 0) {
+                assertTrue(hierarchy.remove(current));
+                locations.remove(id);
+            } else {
+                Entry entry = randomEntry(id);
+                hierarchy.update(current, entry);
+                locations.put(id, entry);
+            }
+
+            String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+            String state = STATES[random.nextInt(STATES.length)];
+            String city = CITIES[random.nextInt(CITIES.length)];
+            assertIds(locations.values(), entry -> entry.country().equals(country), hierarchy.ids(country, null, null));
+            assertIds(locations.values(), entry -> entry.country().equals(country) && entry.state().equals(state),
+                    hierarchy.ids(country, state, null));
+            assertEquals(matching(locations.values(), entry -> entry.country().equals(country)
+                    && entry.state().equals(state) && entry.city().equals(city)).length, hierarchy.count(country, state, city));
+            assertIds(locations.values(), entry -> entry.state().equals(state), hierarchy.idsByState(state));
+            assertIds(locations.values(), entry -> entry.city().equals(city), hierarchy.idsByCity(city));
+            assertIds(locations.values(), Entry::popular, hierarchy.popularIds());
+        }
+        assertEquals(locations.size(), hierarchy.size());
+    }
+
+    @Test
+    public void testChildrenAreSortedCaseInsensitiveAndDroppedWhenEmpty() {
+        LocationHierarchy hierarchy = new LocationHierarchy();
+        hierarchy.add(new Entry(1, "Nepal", "Gandaki", "Pokhara", true));
+        hierarchy.add(new Entry(2, " nepal", "BAGMATI", "Kathmandu", false));
+        hierarchy.add(new Entry(3, "Nepal", "Bagmati", "Patan", true));
+        hierarchy.add(new Entry(4, "India", "Kerala", "Kochi", false));
+        assertFalse(hierarchy.add(new Entry(3, "NEPAL", "bagmati", "patan", true)));
+
+        assertEquals(List.of(new Branch("India", 1, 0), new Branch("Nepal", 3, 2)), hierarchy.children(null, null));
+        assertEquals(List.of(new Branch("BAGMATI", 2, 1), new Branch("Gandaki", 1, 1)), hierarchy.children("nepal", null));
+        assertEquals(List.of(new Branch("Kathmandu", 1, 0), new Branch("Patan", 1, 1)), hierarchy.children("Nepal", "Bagmati"));
+        assertEquals(List.of(), hierarchy.children("Chile", null));
+
+        hierarchy.remove(new Entry(4, "India", "Kerala", "Kochi", false));
+        assertFalse(hierarchy.remove(new Entry(1, "Nepal", "Bagmati", "Pokhara", true)));
+        assertEquals(List.of(new Branch("Nepal", 3, 2)), hierarchy.children(null, null));
+        assertEquals(0, hierarchy.idsByState("Kerala").length);
+        assertEquals(2, hierarchy.count("Nepal", "Bagmati", null));
+    }
+
+    @Test
+    public void testEntryIsFoundByIdAlone() {
+        LocationHierarchy hierarchy = new LocationHierarchy();
+        hierarchy.add(new Entry(1, "Nepal", "Gandaki", "Pokhara", true));
+        hierarchy.add(new Entry(2, "nepal", "gandaki", "Besisahar", false));
+        hierarchy.add(new Entry(3, "Peru", "Cusco", "Cusco", false));
+
+        // Names as first written, which is how the tree shows them
+        assertEquals(new Entry(2, "Nepal", "Gandaki", "Besisahar", false), hierarchy.entry(2));
+        assertEquals(new Entry(1, "Nepal", "Gandaki", "Pokhara", true), hierarchy.entry(1));
+        assertNull(hierarchy.entry(4));
+
+        assertTrue(hierarchy.remove(hierarchy.entry(1)));
+        assertNull(hierarchy.entry(1));
+        assertEquals(0, hierarchy.popularIds().length);
+        assertEquals(2, hierarchy.size());
+    }
+
+    private Entry randomEntry(long id) {
+        return new Entry(id, COUNTRIES[random.nextInt(COUNTRIES.length)], STATES[random.nextInt(STATES.length)],
+                CITIES[random.nextInt(CITIES.length)], random.nextInt(4) == 0);
+    }
+
+    private static void assertIds(Collection<Entry> locations, Predicate<Entry> filter, long[] actual) {
+        long[] sorted = actual.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(matching(locations, filter), sorted);
+    }
+
+    private static long[] matching(Collection<Entry> locations, Predicate<Entry> filter) {
+        return locations.stream().filter(filter).mapToLong(Entry::id).sorted().toArray();
+    }
+}
@@ -0,0 +1,125 @@
+package com.zubair.travel;
+
+import com.zubair.travel.service.ranking.LodgeRankings;
+import com.zubair.travel.service.ranking.LodgeRankings.Entry;
+import com.zubair.travel.service.ranking.LodgeRankings.Snapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LodgeRankingsTest {
+
+    private static final int K = 5;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testSnapshotsMatchFullScanAfterEveryChange() {
+        LodgeRankings rankings = new LodgeRankings(K);
+        Map<Long, Entry> lodges = new HashMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            long id = random.nextInt(300);
+            Entry current = lodges.get(id);
+            int operation = random.nextInt(10);
+            if (current == null || operation < 4) {
+                // Create or update; ratings and prices collide often to exercise the id tie-break
+                Entry entry = new Entry(id, random.nextInt(10) == 0 ? null : (long) random.nextInt(4),
+                        random.nextInt(8) == 0 ? Double.NaN : random.nextInt(11) / 2.0,
+                        50 + random.nextInt(20) * 2.5, random.nextInt(3));
+                rankings.put(entry);
+                lodges.put(id, entry);
+            } else if (operation < 5) {
+                rankings.remove(id);
+                lodges.remove(id);
+            } else {
+                int rooms = random.nextInt(3);
+                assertTrue(rankings.updateRooms(id, rooms));
+                lodges.put(id, new Entry(id, current.locationId(), current.rating(), current.price(), rooms));
+            }
+
+            assertMatches(lodges.values(), null, rankings.snapshot(null));
+            for (long location = 0; location < 4; location++) {
+                long locationId = location;
+                assertMatches(lodges.values().stream().filter(entry -> Objects.equals(entry.locationId(), locationId)).toList(),
+                        locationId, rankings.snapshot(locationId));
+            }
+        }
+        assertEquals(lodges.size(), rankings.size());
+    }
+
+    @Test
+    public void testBulkLoadMatchesSinglePuts() {
+        LodgeRankings single = new LodgeRankings(K);
+        LodgeRankings bulk = new LodgeRankings(K);
+        List<Entry> batch = new ArrayList<>();
+        for (long id = 0; id < 2000; id++) {
+            Entry entry = new Entry(id % 1500, id % 7, random.nextInt(11) / 2.0, 50 + random.nextInt(40), random.nextInt(3));
+            batch.add(entry);
+            single.put(entry);
+        }
+        // Loaded over existing entries, with repeated ids inside the batch
+        bulk.put(new Entry(3, 6L, 5.0, 1, 1));
+        bulk.putAll(batch);
+
+        assertEquals(single.size(), bulk.size());
+        for (Long location : new Long[]{null, 0L, 3L, 6L}) {
+            Snapshot expected = single.snapshot(location);
+            Snapshot actual = bulk.snapshot(location);
+            assertArrayEquals(expected.topRated(), actual.topRated());
+            assertArrayEquals(expected.cheapestAvailable(), actual.cheapestAvailable());
+            assertEquals(expected.count(), actual.count());
+            assertEquals(expected.priceSumCents(), actual.priceSumCents());
+        }
+    }
+
+    @Test
+    public void testRatedAtLeastIsOrderedAndComplete() {
+        LodgeRankings rankings = new LodgeRankings(K);
+        rankings.put(new Entry(1, 1L, 4.5, 100, 1));
+        rankings.put(new Entry(2, 1L, 3.0, 80, 1));
+        rankings.put(new Entry(3, 2L, 4.5, 90, 0));
+        rankings.put(new Entry(4, 2L, Double.NaN, 70, 1));
+        rankings.put(new Entry(5, null, 5.0, 60, 1));
+
+        assertEquals(List.of(5L, 1L, 3L), rankings.ratedAtLeast(4.0));
+        assertEquals(List.of(5L, 1L, 3L, 2L), rankings.ratedAtLeast(0));
+        // Unrated lodges count towards the average but aren't ranked by rating
+        assertEquals(80.0, rankings.snapshot(2L).averagePrice(), 1e-9);
+        assertArrayEquals(new long[]{3}, rankings.snapshot(2L).topRated());
+        assertArrayEquals(new long[]{4}, rankings.snapshot(2L).cheapestAvailable());
+        assertEquals(0, rankings.snapshot(9L).count());
+    }
+
+    private static void assertMatches(Collection<Entry> lodges, Long locationId, Snapshot snapshot) {
+        long[] topRated = lodges.stream()
+                .filter(entry -> !Double.isNaN(entry.rating()))
+                .sorted(Comparator.comparingDouble((Entry entry) -> -entry.rating()).thenComparingLong(Entry::id))
+                .limit(K)
+                .mapToLong(Entry::id)
+                .toArray();
+        long[] cheapest = lodges.stream()
+                .filter(entry -> entry.availableRooms() > 0)
+                .sorted(Comparator.comparingDouble(Entry::price).thenComparingLong(Entry::id))
+                .limit(K)
+                .mapToLong(Entry::id)
+                .toArray();
+        double average = lodges.stream().mapToDouble(Entry::price).average().orElse(0.0);
+
+        String where = "location " + locationId;
+        assertEquals(Arrays.toString(topRated), Arrays.toString(snapshot.topRated()), where);
+        assertEquals(Arrays.toString(cheapest), Arrays.toString(snapshot.cheapestAvailable()), where);
+        assertEquals(lodges.size(), snapshot.count(), where);
+        assertEquals(average, snapshot.averagePrice(), 1e-9, where);
+    }
+}
@@ -0,0 +1,100 @@
+package com.zubair.travel;
+
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import com.zubair.travel.service.money.QuoteCalculator.LineItem;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.LongRange;
+import net.jqwik.api.constraints.Size;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the minor-unit arithmetic against plain BigDecimal arithmetic on the same inputs,
+ * which is slow but obviously exact.
+ */
+public class MoneyPropertiesTest {
+
+    private static final long MAX_PRICE = 100_000_000L;
+
+    @Property
+    public void bigDecimalRoundTripIsExact(@ForAll @LongRange(min = -MAX_PRICE * 1000, max = MAX_PRICE * 1000) long minorUnits) {
+        BigDecimal amount = Money.ofMinor(minorUnits).toBigDecimal();
+
+        assertEquals(minorUnits, amount.unscaledValue().longValueExact());
+        assertEquals(Money.ofMinor(minorUnits), Money.of(amount));
+    }
+
+    @Property
+    public void parsesDoublesAsTheirDecimalText(@ForAll @LongRange(min = 0, max = MAX_PRICE) long minorUnits) {
+        double price = Money.ofMinor(minorUnits).toDouble();
+
+        assertEquals(Money.ofMinor(minorUnits), Money.of(price));
+    }
+
+    @Property
+    public void sumsAndQuantitiesMatchBigDecimal(@ForAll @Size(max = 50) List<@LongRange(min = 0, max = MAX_PRICE) Long> prices,
+                                                 @ForAll @IntRange(min = 0, max = 1000) int quantity) {
+        Money money = Money.ZERO;
+        BigDecimal expected = BigDecimal.ZERO.setScale(Money.SCALE);
+        for (long price : prices) {
+            money = money.plus(Money.ofMinor(price).times(quantity));
+            expected = expected.add(BigDecimal.valueOf(price, Money.SCALE).multiply(BigDecimal.valueOf(quantity)));
+        }
+
+        assertEquals(expected, money.toBigDecimal());
+    }
+
+    @Property
+    public void ratesRoundHalfEvenLikeBigDecimal(@ForAll @LongRange(min = -MAX_PRICE, max = MAX_PRICE) long minorUnits,
+                                                 @ForAll @LongRange(min = 0, max = 20_000) long basisPoints) {
+        BigDecimal expected = BigDecimal.valueOf(minorUnits, Money.SCALE)
+                .multiply(BigDecimal.valueOf(basisPoints))
+                .divide(BigDecimal.valueOf(Money.BASIS_POINTS))
+                .setScale(Money.SCALE, RoundingMode.HALF_EVEN);
+
+        assertEquals(expected, Money.ofMinor(minorUnits).applyRate(basisPoints).toBigDecimal());
+    }
+
+    @Property
+    public void totalsMatchBigDecimalAndAddUp(@ForAll @LongRange(min = 0, max = MAX_PRICE) long seatPrice,
+                                              @ForAll @IntRange(min = 1, max = 20) int seats,
+                                              @ForAll @LongRange(min = 0, max = MAX_PRICE) long nightPrice,
+                                              @ForAll @IntRange(min = 0, max = 5) int rooms,
+                                              @ForAll @IntRange(min = 0, max = 30) int nights,
+                                              @ForAll @LongRange(min = 0, max = 10_000) long discountBasisPoints,
+                                              @ForAll @LongRange(min = 0, max = 3_000) long taxBasisPoints) {
+        QuoteCalculator calculator = new QuoteCalculator(taxBasisPoints);
+        QuoteCalculator.Totals totals = calculator.calculate(List.of(
+                LineItem.tourSeats(Money.ofMinor(seatPrice), seats),
+                LineItem.lodgeNights(Money.ofMinor(nightPrice), rooms, nights)), discountBasisPoints);
+
+        BigDecimal subtotal = BigDecimal.valueOf(seatPrice, Money.SCALE).multiply(BigDecimal.valueOf(seats))
+                .add(BigDecimal.valueOf(nightPrice, Money.SCALE).multiply(BigDecimal.valueOf((long) rooms * nights)));
+        BigDecimal discount = percentage(subtotal, discountBasisPoints);
+        BigDecimal tax = percentage(subtotal.subtract(discount), taxBasisPoints);
+
+        assertEquals(subtotal, totals.subtotal().toBigDecimal());
+        assertEquals(discount, totals.discount().toBigDecimal());
+        assertEquals(tax, totals.tax().toBigDecimal());
+        assertEquals(subtotal.subtract(discount).add(tax), totals.total().toBigDecimal());
+        assertEquals(totals.total(), totals.subtotal().minus(totals.discount()).plus(totals.tax()));
+    }
+
+    @Property
+    public void overflowThrowsInsteadOfWrapping(@ForAll @LongRange(min = 2, max = 1000) long quantity) {
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE / 2 + 1).times(quantity));
+    }
+
+    private static BigDecimal percentage(BigDecimal amount, long basisPoints) {
+        return amount.multiply(BigDecimal.valueOf(basisPoints))
+                .divide(BigDecimal.valueOf(Money.BASIS_POINTS))
+                .setScale(Money.SCALE, RoundingMode.HALF_EVEN);
+    }
+}
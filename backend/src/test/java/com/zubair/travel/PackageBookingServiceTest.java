@@ -0,0 +1,213 @@
+package com.zubair.travel;
+
+import com.zubair.travel.dto.PackageBookingRequest;
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.Lodge;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.Transport;
+import com.zubair.travel.entity.User;
+import com.zubair.travel.repository.BookingRepository;
+import com.zubair.travel.repository.LodgeRepository;
+import com.zubair.travel.repository.TourRepository;
+import com.zubair.travel.repository.TransportRepository;
+import com.zubair.travel.repository.UserRepository;
+import com.zubair.travel.service.BookingSummaryService;
+import com.zubair.travel.service.LodgeService;
+import com.zubair.travel.service.PackageBookingService;
+import com.zubair.travel.service.PackageBookingService.PackageNotAvailableException;
+import com.zubair.travel.service.PricingService;
+import com.zubair.travel.service.TourService;
+import com.zubair.travel.service.TransportService;
+import com.zubair.travel.service.TransportService.InsufficientSeatsException;
+import com.zubair.travel.service.TransportService.SeatAllocation;
+import com.zubair.travel.service.inventory.InventoryBackend;
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PackageBookingServiceTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private LodgeRepository lodgeRepository;
+
+    @Mock
+    private TransportRepository transportRepository;
+
+    @Mock
+    private TourService tourService;
+
+    @Mock
+    private LodgeService lodgeService;
+
+    @Mock
+    private TransportService transportService;
+
+    @Mock
+    private InventoryBackend inventoryBackend;
+
+    @Mock
+    private BookingSummaryService bookingSummaryService;
+
+    @Mock
+    private PricingService pricingService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private QuoteCalculator quoteCalculator = new QuoteCalculator();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private PackageBookingService packageBookingService;
+
+    private final PackageBookingRequest request = new PackageBookingRequest(1L, 10L, 2, null, 20L, 1, 3, 30L, null, null);
+
+    private Tour tour;
+    private Lodge lodge;
+    private Transport transport;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(packageBookingService, "checkThreads", 3);
+        ReflectionTestUtils.setField(packageBookingService, "checkTimeoutMs", 2000L);
+        ReflectionTestUtils.invokeMethod(packageBookingService, "start");
+
+        tour = new Tour();
+        tour.setId(10L);
+        tour.setPrice(100.0);
+        lodge = new Lodge();
+        lodge.setId(20L);
+        lodge.setPricePerNight(50.0);
+        transport = new Transport();
+        transport.setId(30L);
+        transport.setPricePerTicket(20.0);
+
+        when(tourService.getTourById(10L)).thenReturn(tour);
+        when(lodgeService.getLodgeById(20L)).thenReturn(lodge);
+        when(transportService.getTransportById(30L)).thenReturn(transport);
+        when(pricingService.unitPriceForBooking(tour, 2, null)).thenReturn(Money.ofMinor(10_000));
+        when(pricingService.lodgeUnitPrice(lodge)).thenReturn(Money.ofMinor(5_000));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        packageBookingService.shutdown();
+    }
+
+    @Test
+    public void testLocksRowsInResourceOrderBeforeReserving() {
+        availableEverywhere();
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(tourService.bookSeat(10L, 2)).thenReturn(tour);
+        when(lodgeService.bookRoom(20L, 1)).thenReturn(lodge);
+        when(transportService.bookTransportSeats(30L, 2)).thenReturn(new SeatAllocation(transport, new int[]{7, 8}));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking booking = packageBookingService.bookPackage(request);
+
+        InOrder order = inOrder(tourRepository, lodgeRepository, transportRepository, tourService, lodgeService,
+                transportService);
+        order.verify(tourRepository).lockById(10L);
+        order.verify(lodgeRepository).lockById(20L);
+        order.verify(transportRepository).lockById(30L);
+        order.verify(tourService).bookSeat(10L, 2);
+        order.verify(lodgeService).bookRoom(20L, 1);
+        order.verify(transportService).bookTransportSeats(30L, 2);
+
+        // 2 x 100 tour seats, 1 room x 3 nights x 50, 2 x 20 transport seats
+        assertEquals(new BigDecimal("390.00"), booking.getTotalAmount());
+        assertEquals(3, booking.getLodgeNights());
+        assertEquals(2, booking.getTransportSeats());
+        assertEquals("7,8", booking.getTransportSeatNumbers());
+        assertEquals("PENDING", booking.getStatus());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void testTrackedResourcesAreNotRowLocked() {
+        availableEverywhere();
+        when(inventoryBackend.isTracked(Resource.LODGE, 20L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        packageBookingService.bookPackage(request);
+
+        verify(tourRepository).lockById(10L);
+        verify(lodgeRepository, never()).lockById(anyLong());
+        verify(lodgeService).bookRoom(20L, 1);
+    }
+
+    @Test
+    public void testUnavailableComponentFailsBeforeAnyLock() {
+        when(tourService.isTourAvailable(10L, 2)).thenReturn(true);
+        when(lodgeService.getAvailableRoomCount(20L)).thenReturn(5L);
+        when(transportService.getAvailableSeatCount(30L)).thenReturn(1L);
+
+        assertThrows(PackageNotAvailableException.class, () -> packageBookingService.bookPackage(request));
+        verifyNoInteractions(transactionManager, tourRepository, lodgeRepository, transportRepository);
+        verify(tourService, never()).bookSeat(anyLong(), anyInt());
+    }
+
+    @Test
+    public void testFailedReservationRollsBackWholePackage() {
+        availableEverywhere();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        // Taken by another booking between the check and the reservation
+        when(transportService.bookTransportSeats(30L, 2)).thenThrow(new InsufficientSeatsException("Only 1 seats available"));
+
+        assertThrows(InsufficientSeatsException.class, () -> packageBookingService.bookPackage(request));
+        verify(tourService).bookSeat(10L, 2);
+        verify(lodgeService).bookRoom(20L, 1);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        assertEquals(1.0, meterRegistry.counter("bookings.package", "outcome", "rolled_back").count());
+    }
+
+    private void availableEverywhere() {
+        when(tourService.isTourAvailable(10L, 2)).thenReturn(true);
+        when(lodgeService.getAvailableRoomCount(20L)).thenReturn(5L);
+        when(transportService.getAvailableSeatCount(30L)).thenReturn(40L);
+    }
+}
@@ -0,0 +1,107 @@
+package com.zubair.travel;
+
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.service.PricingService;
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PricingServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T10:00:00Z");
+
+    private PricingService pricingService;
+
+    private Tour tour;
+
+    @BeforeEach
+    public void setUp() {
+        pricingService = new PricingService();
+        ReflectionTestUtils.setField(pricingService, "occupancyThreshold", 0.6);
+        ReflectionTestUtils.setField(pricingService, "occupancySurcharge", 0.4);
+        ReflectionTestUtils.setField(pricingService, "leadDays", 30);
+        ReflectionTestUtils.setField(pricingService, "leadSurcharge", 0.15);
+        ReflectionTestUtils.setField(pricingService, "lastMinuteDays", 3);
+        ReflectionTestUtils.setField(pricingService, "lastMinuteDiscount", 0.2);
+        ReflectionTestUtils.setField(pricingService, "minMultiplier", 0.8);
+        ReflectionTestUtils.setField(pricingService, "maxMultiplier", 1.6);
+        ReflectionTestUtils.setField(pricingService, "quoteTtlSeconds", 900L);
+        ReflectionTestUtils.setField(pricingService, "quoteSecret", "test-secret");
+        ReflectionTestUtils.setField(pricingService, "quoteCalculator", new QuoteCalculator());
+        setClock(NOW);
+        ReflectionTestUtils.invokeMethod(pricingService, "initQuoteKey");
+
+        tour = new Tour();
+        tour.setId(7L);
+        tour.setPrice(200.0);
+    }
+
+    @Test
+    public void testMultiplierGrowsWithOccupancyAndProximity() {
+        assertEquals(1.0, multiplier(100, 100, 90));
+        // 80% sold: half way from the threshold to full
+        assertEquals(1.2, multiplier(20, 100, 90));
+        assertEquals(1.4, multiplier(0, 100, 90));
+        // 10 of 30 lead days left adds two thirds of the lead surcharge
+        assertEquals(1.3, multiplier(20, 100, 10));
+        // Mostly empty just before departure
+        assertEquals(0.94, multiplier(90, 100, 2));
+        assertEquals(1.55, multiplier(0, 100, 0));
+    }
+
+    @Test
+    public void testQuotedPriceIsHonouredUntilExpiry() {
+        PricingService.Quote quote = pricingService.quoteTour(tour, 3);
+
+        assertEquals(new BigDecimal("200.00"), quote.unitPrice());
+        assertEquals(new BigDecimal("600.00"), quote.totalPrice());
+        assertEquals(Money.ofMinor(20_000), pricingService.unitPriceForBooking(tour, 3, quote.token()));
+
+        setClock(NOW.plusSeconds(901));
+        assertThrows(PricingService.QuoteExpiredException.class,
+                () -> pricingService.unitPriceForBooking(tour, 3, quote.token()));
+    }
+
+    @Test
+    public void testQuoteIsBoundToTourAndSeats() {
+        String token = pricingService.quoteTour(tour, 3).token();
+
+        assertThrows(PricingService.InvalidQuoteException.class, () -> pricingService.unitPriceForBooking(tour, 4, token));
+        Tour otherTour = new Tour();
+        otherTour.setId(8L);
+        otherTour.setPrice(200.0);
+        assertThrows(PricingService.InvalidQuoteException.class, () -> pricingService.unitPriceForBooking(otherTour, 3, token));
+    }
+
+    @Test
+    public void testTamperedQuoteIsRejected() {
+        String token = pricingService.quoteTour(tour, 1).token();
+        String[] parts = token.split("\\.");
+        String cheaper = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("7:1:100:" + NOW.plusSeconds(900).getEpochSecond()).getBytes());
+
+        assertThrows(PricingService.InvalidQuoteException.class,
+                () -> pricingService.unitPriceForBooking(tour, 1, cheaper + "." + parts[1]));
+        assertThrows(PricingService.InvalidQuoteException.class,
+                () -> pricingService.unitPriceForBooking(tour, 1, "not-a-token"));
+    }
+
+    private double multiplier(long available, long capacity, long daysLeft) {
+        Double multiplier = ReflectionTestUtils.invokeMethod(pricingService, "tourMultiplier", available, capacity, daysLeft);
+        return multiplier;
+    }
+
+    private void setClock(Instant instant) {
+        ReflectionTestUtils.setField(pricingService, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,63 @@
+package com.zubair.travel;
+
+import com.zubair.travel.config.metrics.RequestQueryStats;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Query budget assertions for tests running against the proxied DataSource
+ * (any @SpringBootTest with app.metrics.instrumentation.enabled, the default).
+ *
+ * <pre>
+ * QueryAssertions.assertMaxQueries(3, () -> mockMvc.perform(get("/api/bookings/tour/1")));
+ * </pre>
+ *
+ * The action runs inside its own RequestQueryStats scope on the calling thread, so it works
+ * for direct service calls as well as MockMvc requests (whose filter scope nests inside it).
+ */
+public final class QueryAssertions {
+
+    private QueryAssertions() {
+    }
+
+    public static void assertMaxQueries(int maxStatements, Executable action) {
+        assertMaxQueries(maxStatements, () -> {
+            action.execute();
+            return null;
+        });
+    }
+
+    public static <T> T assertMaxQueries(int maxStatements, ThrowingSupplier<T> action) {
+        RequestQueryStats stats = RequestQueryStats.begin();
+        T result;
+        try {
+            result = action.get();
+        } catch (Throwable e) {
+            throw new AssertionError("Action under query budget failed", e);
+        } finally {
+            RequestQueryStats.end();
+        }
+        if (stats.getStatements() > maxStatements) {
+            fail("Expected at most " + maxStatements + " JDBC statements but " + stats.getStatements()
+                    + " were executed:" + stats.describeStatements());
+        }
+        return result;
+    }
+
+    public static void assertMaxRows(long maxRows, Executable action) {
+        RequestQueryStats stats = RequestQueryStats.begin();
+        try {
+            action.execute();
+        } catch (Throwable e) {
+            throw new AssertionError("Action under query budget failed", e);
+        } finally {
+            RequestQueryStats.end();
+        }
+        if (stats.getRows() > maxRows) {
+            fail("Expected at most " + maxRows + " fetched rows but " + stats.getRows() + " were read:"
+                    + stats.describeStatements());
+        }
+    }
+}
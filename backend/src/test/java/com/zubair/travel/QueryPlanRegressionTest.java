@@ -0,0 +1,372 @@
+package com.zubair.travel;
+
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.BookingSummary;
+import com.zubair.travel.entity.Location;
+import com.zubair.travel.entity.Lodge;
+import com.zubair.travel.entity.Payment;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.Transport;
+import com.zubair.travel.entity.User;
+import com.zubair.travel.entity.WaitlistEntry;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query-plan regression tests for the hot finder methods
+ * Applies the Flyway migrations to an embedded H2 database (MySQL mode), seeds it with
+ * realistic volumes and fails if EXPLAIN shows a full table scan for any hot query.
+ * Each finder's query runs through Hibernate over the entity mappings; the SQL it sends is
+ * captured by a datasource-proxy listener and EXPLAINed with the same parameters.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryPlanRegressionTest {
+
+    private static final String URL = "jdbc:h2:mem:query_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final int USERS = 2_000;
+    private static final int TOURS = 5_000;
+    private static final int LODGES = 5_000;
+    private static final int BOOKINGS = 50_000;
+    private static final int WAITLIST_ENTRIES = 20_000;
+
+    private static final int PAGE_SIZE = 50;
+
+    private Connection connection;
+
+    private SessionFactory sessionFactory;
+
+    private final List<QueryInfo> captured = new ArrayList<>();
+
+    @BeforeAll
+    void setUp() throws SQLException {
+        Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(URL, "sa", "");
+        seed(new Random(42));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL(URL);
+        h2.setUser("sa");
+        DataSource dataSource = ProxyDataSourceBuilder.create(h2)
+                .afterQuery((execInfo, queryInfoList) -> captured.addAll(queryInfoList))
+                .build();
+        // Column names as Spring Boot derives them, so the entities map onto the migrated schema;
+        // eager associations of the results are loaded in batches to keep the runs short
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DATASOURCE, dataSource)
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, new CamelCaseToUnderscoresNamingStrategy())
+                .applySetting(AvailableSettings.DEFAULT_BATCH_FETCH_SIZE, 100)
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClasses(User.class, Tour.class, Lodge.class, Location.class, Transport.class,
+                        Booking.class, Payment.class, BookingSummary.class, WaitlistEntry.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @AfterAll
+    void tearDown() throws SQLException {
+        sessionFactory.close();
+        connection.close();
+    }
+
+    /**
+     * One case per hot finder. Finders with @Query run that query; for derived finders the case
+     * gives the JPQL Spring Data derives from the method name.
+     */
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("BookingRepository.findByUserId",
+                        "select b from Booking b where b.user.id = :userId",
+                        Map.of("userId", 42L),
+                        "idx_bookings_user_status"),
+                Arguments.of("BookingRepository.findByTourId",
+                        "select b from Booking b where b.tour.id = :tourId",
+                        Map.of("tourId", 42L),
+                        "idx_bookings_tour_status"),
+                Arguments.of("BookingRepository.findByStatus",
+                        "select b from Booking b where b.status = :status",
+                        Map.of("status", "PENDING"),
+                        "idx_bookings_status_date"),
+                Arguments.of("PaymentRepository.findByBookingId",
+                        null,
+                        Map.of("bookingId", 42L),
+                        "idx_payments_booking_date"),
+                Arguments.of("PaymentRepository.findByPaymentStatus",
+                        "select p from Payment p where p.paymentStatus = :paymentStatus",
+                        Map.of("paymentStatus", "PENDING"),
+                        "idx_payments_status_date"),
+                Arguments.of("PaymentRepository.findPaymentStatusesByBookingIds",
+                        null,
+                        Map.of("bookingIds", List.of(1L, 2L, 3L, 4L, 5L)),
+                        "idx_payments_booking_date"),
+                Arguments.of("TourRepository.findByDateBetween",
+                        "select t from Tour t where t.date between :from and :to",
+                        Map.of("from", LocalDate.of(2026, 7, 1), "to", LocalDate.of(2026, 7, 14)),
+                        "idx_tours_date"),
+                Arguments.of("TourRepository.findByPriceBetween",
+                        "select t from Tour t where t.price between :minPrice and :maxPrice",
+                        Map.of("minPrice", 100.0, "maxPrice", 120.0),
+                        "idx_tours_price"),
+                Arguments.of("TourRepository.findByAvailableSeatsGreaterThan",
+                        "select t from Tour t where t.availableSeats > :seats",
+                        Map.of("seats", 0),
+                        "idx_tours_available_seats"),
+                Arguments.of("LodgeRepository.findByPricePerNightBetween",
+                        "select l from Lodge l where l.pricePerNight between :minPrice and :maxPrice",
+                        Map.of("minPrice", 80.0, "maxPrice", 90.0),
+                        "idx_lodges_price_per_night"),
+                Arguments.of("BookingSummaryRepository.findByUserIdOrderByBookingDateDesc",
+                        "select s from BookingSummary s where s.userId = :userId order by s.bookingDate desc",
+                        Map.of("userId", 42L),
+                        "idx_booking_summaries_user_date"),
+                Arguments.of("WaitlistEntryRepository.lockHead",
+                        null,
+                        Map.of("tourId", 42L),
+                        "idx_waitlist_entries_queue"),
+                Arguments.of("WaitlistEntryRepository.countAhead",
+                        null,
+                        Map.of("tourId", 42L, "priority", 0, "id", 500L),
+                        "idx_waitlist_entries_queue"),
+                Arguments.of("WaitlistEntryRepository.findByUserIdAndStatus",
+                        "select w from WaitlistEntry w where w.userId = :userId and w.status = :status",
+                        Map.of("userId", 42L, "status", "WAITING"),
+                        "idx_waitlist_entries_user_status")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    public void testHotQueryUsesIndex(String finder, String derivedJpql, Map<String, Object> parameters,
+                                      String expectedIndex) throws Exception {
+        Method method = finderMethod(finder);
+        Query query = method.getAnnotation(Query.class);
+        assertTrue(query != null || derivedJpql != null, finder + " has neither @Query nor a derived query");
+
+        QueryInfo sql = renderedSql(query != null ? query.value() : derivedJpql, parameters,
+                method.getAnnotation(Lock.class), Arrays.asList(method.getParameterTypes()).contains(Pageable.class));
+        String plan = explain(sql);
+
+        assertFalse(plan.toLowerCase().contains("tablescan"),
+                finder + " does a full table scan:\n" + sql.getQuery() + "\n" + plan);
+        assertTrue(plan.toLowerCase().contains(expectedIndex),
+                finder + " does not use " + expectedIndex + ":\n" + sql.getQuery() + "\n" + plan);
+    }
+
+    // Helpers
+
+    // The finder must be declared on its repository, so a case can't outlive or invent one
+    private Method finderMethod(String finder) throws ClassNotFoundException {
+        String[] parts = finder.split("\\.");
+        Class<?> repository = Class.forName("com.zubair.travel.repository." + parts[0]);
+        return Arrays.stream(repository.getMethods())
+                .filter(method -> method.getName().equals(parts[1]))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(finder + " is not declared"));
+    }
+
+    // Runs the query through Hibernate and returns the first statement it sent, with its parameters;
+    // any later ones load the results' eager associations
+    private QueryInfo renderedSql(String jpql, Map<String, Object> parameters, Lock lock, boolean paged) {
+        captured.clear();
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                org.hibernate.query.Query<?> query = session.createQuery(jpql, Object.class);
+                parameters.forEach(query::setParameter);
+                if (lock != null) {
+                    query.setLockMode(lock.value());
+                }
+                if (paged) {
+                    query.setMaxResults(PAGE_SIZE);
+                }
+                query.getResultList();
+            } finally {
+                transaction.rollback();
+            }
+        }
+        assertFalse(captured.isEmpty(), "No statement was sent for " + jpql);
+        return captured.get(0);
+    }
+
+    private String explain(QueryInfo sql) throws Exception {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql.getQuery())) {
+            if (!sql.getParametersList().isEmpty()) {
+                for (ParameterSetOperation operation : sql.getParametersList().get(0)) {
+                    operation.getMethod().invoke(statement, operation.getArgs());
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Seeds a production-shaped distribution: most tours are in the past and sold out,
+     * most bookings are confirmed and paid, and only a small share is still pending.
+     */
+    private void seed(Random random) throws SQLException {
+        connection.setAutoCommit(false);
+        LocalDate today = LocalDate.of(2026, 6, 1);
+
+        try (PreparedStatement users = connection.prepareStatement(
+                "INSERT INTO users (username, email, password, role, created_at) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= USERS; i++) {
+                users.setString(1, "user" + i);
+                users.setString(2, "user" + i + "@example.com");
+                users.setString(3, "$2a$10$hash");
+                users.setString(4, "USER");
+                users.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+                users.addBatch();
+            }
+            users.executeBatch();
+        }
+
+        try (PreparedStatement tours = connection.prepareStatement(
+                "INSERT INTO tours (name, from_location, to_location, date, price, available_seats) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= TOURS; i++) {
+                LocalDate date = today.plusDays(random.nextInt(730) - 640);
+                boolean upcoming = date.isAfter(today);
+                tours.setString(1, "Tour " + i);
+                tours.setString(2, "City " + random.nextInt(200));
+                tours.setString(3, "City " + random.nextInt(200));
+                tours.setDate(4, Date.valueOf(date));
+                tours.setDouble(5, 50 + random.nextInt(2_000));
+                tours.setInt(6, upcoming ? random.nextInt(40) : 0);
+                tours.addBatch();
+            }
+            tours.executeBatch();
+        }
+
+        try (PreparedStatement lodges = connection.prepareStatement(
+                "INSERT INTO lodges (name, address, price_per_night) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= LODGES; i++) {
+                lodges.setString(1, "Lodge " + i);
+                lodges.setString(2, i + " Main Street");
+                lodges.setDouble(3, 20 + random.nextInt(800));
+                lodges.addBatch();
+            }
+            lodges.executeBatch();
+        }
+
+        try (PreparedStatement bookings = connection.prepareStatement(
+                "INSERT INTO bookings (user_id, tour_id, booking_date, total_passengers, total_amount, status) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement payments = connection.prepareStatement(
+                "INSERT INTO payments (booking_id, amount, payment_date, payment_status, payment_method, transaction_id) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement summaries = connection.prepareStatement(
+                "INSERT INTO booking_summaries (booking_id, user_id, tour_name, booking_date, status) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= BOOKINGS; i++) {
+                int roll = random.nextInt(100);
+                String status = roll < 5 ? "PENDING" : roll < 15 ? "CANCELLED" : "CONFIRMED";
+                String paymentStatus = roll < 5 ? "PENDING" : roll < 15 ? "REFUNDED" : "COMPLETED";
+                long userId = 1 + random.nextInt(USERS);
+                Timestamp bookedAt = Timestamp.valueOf(today.atStartOfDay().minusMinutes(random.nextInt(500_000)));
+
+                bookings.setLong(1, userId);
+                bookings.setLong(2, 1 + random.nextInt(TOURS));
+                bookings.setTimestamp(3, bookedAt);
+                bookings.setInt(4, 1 + random.nextInt(4));
+                bookings.setBigDecimal(5, BigDecimal.valueOf(100 + random.nextInt(5_000)));
+                bookings.setString(6, status);
+                bookings.addBatch();
+
+                payments.setLong(1, i);
+                payments.setBigDecimal(2, BigDecimal.valueOf(100 + random.nextInt(5_000)));
+                payments.setTimestamp(3, bookedAt);
+                payments.setString(4, paymentStatus);
+                payments.setString(5, "CARD");
+                payments.setString(6, "txn-" + i);
+                payments.addBatch();
+
+                summaries.setLong(1, i);
+                summaries.setLong(2, userId);
+                summaries.setString(3, "Tour");
+                summaries.setTimestamp(4, bookedAt);
+                summaries.setString(5, status);
+                summaries.addBatch();
+
+                if (i % 5_000 == 0) {
+                    bookings.executeBatch();
+                    payments.executeBatch();
+                    summaries.executeBatch();
+                }
+            }
+            bookings.executeBatch();
+            payments.executeBatch();
+            summaries.executeBatch();
+        }
+
+        try (PreparedStatement entries = connection.prepareStatement(
+                "INSERT INTO waitlist_entries (tour_id, user_id, seats, priority, status, created_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= WAITLIST_ENTRIES; i++) {
+                int roll = random.nextInt(100);
+                entries.setLong(1, 1 + random.nextInt(TOURS));
+                entries.setLong(2, 1 + random.nextInt(USERS));
+                entries.setInt(3, 1 + random.nextInt(4));
+                entries.setInt(4, roll < 5 ? 10 : 0);
+                entries.setString(5, roll < 30 ? "WAITING" : roll < 90 ? "PROMOTED" : "CANCELLED");
+                entries.setTimestamp(6, Timestamp.valueOf(today.atStartOfDay().minusMinutes(random.nextInt(100_000))));
+                entries.addBatch();
+            }
+            entries.executeBatch();
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+}
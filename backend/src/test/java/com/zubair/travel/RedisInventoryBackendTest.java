@@ -0,0 +1,193 @@
+package com.zubair.travel;
+
+import com.zubair.travel.service.inventory.InventoryBackend.Resource;
+import com.zubair.travel.service.inventory.RedisInventoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the inventory Lua scripts against an embedded Redis server.
+ * The database side is a JdbcTemplate stub returning the row values set by each test.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RedisInventoryBackendTest {
+
+    private RedisServer redisServer;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+
+    private final Map<Long, Integer> databaseValues = new HashMap<>();
+    private RedisInventoryBackend inventoryBackend;
+
+    @BeforeAll
+    void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        databaseValues.clear();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+                return (T) databaseValues.get((Long) args[0]);
+            }
+        };
+        inventoryBackend = new RedisInventoryBackend();
+        ReflectionTestUtils.setField(inventoryBackend, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(inventoryBackend, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    public void testReserveUntilSoldOut() {
+        databaseValues.put(1L, 10);
+        inventoryBackend.track(Resource.TOUR, 1L);
+
+        assertEquals(7, inventoryBackend.reserve(Resource.TOUR, 1L, 3));
+        assertEquals(4, inventoryBackend.reserve(Resource.TOUR, 1L, 3));
+        assertEquals(1, inventoryBackend.reserve(Resource.TOUR, 1L, 3));
+        assertEquals(-1, inventoryBackend.reserve(Resource.TOUR, 1L, 2));
+        assertEquals(1, inventoryBackend.available(Resource.TOUR, 1L));
+        assertEquals(Map.of(1L, -9L), inventoryBackend.drainPending(Resource.TOUR));
+    }
+
+    @Test
+    public void testConcurrentReservationsNeverOversell() throws Exception {
+        databaseValues.put(1L, 100);
+        inventoryBackend.track(Resource.TOUR, 1L);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        Callable<Integer> buyer = () -> {
+            int bought = 0;
+            for (int i = 0; i < 50; i++) {
+                if (inventoryBackend.reserve(Resource.TOUR, 1L, 1) >= 0) {
+                    bought++;
+                }
+            }
+            return bought;
+        };
+        int sold = 0;
+        for (Future<Integer> result : executor.invokeAll(Collections.nCopies(16, buyer))) {
+            sold += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(100, sold);
+        assertEquals(0, inventoryBackend.available(Resource.TOUR, 1L));
+        assertEquals(Map.of(1L, -100L), inventoryBackend.drainPending(Resource.TOUR));
+    }
+
+    @Test
+    public void testReleaseIsCappedAtCapacity() {
+        databaseValues.put(7L, 4);
+        inventoryBackend.track(Resource.LODGE, 7L);
+
+        assertEquals(5, inventoryBackend.release(Resource.LODGE, 7L, 1, 5));
+        assertEquals(-1, inventoryBackend.release(Resource.LODGE, 7L, 1, 5));
+        assertEquals(5, inventoryBackend.available(Resource.LODGE, 7L));
+    }
+
+    @Test
+    public void testDrainedDeltasAreRetriedUntilCompleted() {
+        databaseValues.put(1L, 10);
+        databaseValues.put(2L, 10);
+        inventoryBackend.track(Resource.TOUR, 1L);
+        inventoryBackend.track(Resource.TOUR, 2L);
+        inventoryBackend.reserve(Resource.TOUR, 1L, 2);
+        inventoryBackend.reserve(Resource.TOUR, 2L, 1);
+
+        assertEquals(Map.of(1L, -2L, 2L, -1L), inventoryBackend.drainPending(Resource.TOUR));
+        // A reservation after the drain goes to the next batch
+        inventoryBackend.reserve(Resource.TOUR, 1L, 1);
+        assertEquals(Map.of(1L, -2L, 2L, -1L), inventoryBackend.drainPending(Resource.TOUR));
+
+        inventoryBackend.completeReconciliation(Resource.TOUR);
+        assertEquals(Map.of(1L, -1L), inventoryBackend.drainPending(Resource.TOUR));
+    }
+
+    @Test
+    public void testRolledBackReservationIsCompensated() {
+        databaseValues.put(1L, 10);
+        inventoryBackend.track(Resource.TOUR, 1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(6, inventoryBackend.reserve(Resource.TOUR, 1L, 4));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(10, inventoryBackend.available(Resource.TOUR, 1L));
+        assertTrue(inventoryBackend.drainPending(Resource.TOUR).isEmpty());
+    }
+
+    @Test
+    public void testLostCounterIsReloadedFromDatabase() {
+        databaseValues.put(1L, 10);
+        inventoryBackend.track(Resource.TOUR, 1L);
+        redisTemplate.delete("inventory:{tour}:1");
+
+        assertEquals(8, inventoryBackend.reserve(Resource.TOUR, 1L, 2));
+    }
+
+    @Test
+    public void testSnapshotIncludesUnreconciledDeltas() {
+        databaseValues.put(1L, 10);
+        inventoryBackend.track(Resource.TOUR, 1L);
+        inventoryBackend.reserve(Resource.TOUR, 1L, 3);
+        inventoryBackend.drainPending(Resource.TOUR);
+        inventoryBackend.reserve(Resource.TOUR, 1L, 1);
+
+        RedisInventoryBackend.CounterSnapshot snapshot = inventoryBackend.snapshot(Resource.TOUR, 1L);
+
+        assertEquals(6, snapshot.available());
+        assertEquals(-1, snapshot.pendingDelta());
+        assertEquals(-3, snapshot.inFlightDelta());
+    }
+}
@@ -0,0 +1,95 @@
+package com.zubair.travel;
+
+import com.zubair.travel.config.metrics.RequestQueryStats;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class RequestQueryStatsTest {
+
+    private final RequestQueryStats.Listener listener = new RequestQueryStats.Listener();
+
+    @AfterEach
+    public void tearDown() {
+        while (RequestQueryStats.current() != null) {
+            RequestQueryStats.end();
+        }
+    }
+
+    @Test
+    public void testStatementsAndRowsAreCountedPerScope() throws Exception {
+        RequestQueryStats stats = RequestQueryStats.begin();
+
+        execute("select * from bookings where tour_id = ?");
+        execute("select * from bookings where tour_id = ?");
+        execute("select * from tours where id = ?");
+        fetchRow(true);
+        fetchRow(true);
+        fetchRow(false);
+        RequestQueryStats.end();
+
+        assertEquals(3, stats.getStatements());
+        assertEquals(2, stats.getRows());
+        assertEquals(2, stats.getStatementStats().get("select * from bookings where tour_id = ?").getCount());
+        assertTrue(stats.describeStatements().contains("2x"));
+        assertNull(RequestQueryStats.current());
+    }
+
+    @Test
+    public void testNestedScopeIsAddedToEnclosingScope() {
+        RequestQueryStats outer = RequestQueryStats.begin();
+        execute("select 1");
+
+        RequestQueryStats inner = RequestQueryStats.begin();
+        inner.setHandler("BookingController.getBookingsByTourId");
+        execute("select 2");
+        execute("select 2");
+        RequestQueryStats.end();
+
+        assertSame(outer, RequestQueryStats.current());
+        assertEquals(2, inner.getStatements());
+        assertEquals(3, outer.getStatements());
+        assertEquals("BookingController.getBookingsByTourId", outer.getHandler());
+    }
+
+    @Test
+    public void testStatementsOutsideScopeAreIgnored() {
+        execute("select 1");
+
+        assertNull(RequestQueryStats.current());
+    }
+
+    @Test
+    public void testQueryAssertionsFailsWhenBudgetIsExceeded() {
+        assertThrows(AssertionError.class, () -> QueryAssertions.assertMaxQueries(1, () -> {
+            execute("select 1");
+            execute("select 2");
+        }));
+        assertDoesNotThrow(() -> QueryAssertions.assertMaxQueries(2, () -> execute("select 1")));
+    }
+
+    // Helpers
+
+    private void execute(String sql) {
+        List<QueryInfo> queries = List.of(new QueryInfo(sql));
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        listener.beforeQuery(executionInfo, queries);
+        listener.afterQuery(executionInfo, queries);
+    }
+
+    private void fetchRow(boolean hasRow) throws NoSuchMethodException {
+        listener.afterMethod(MethodExecutionContext.Builder.create()
+                .target(mock(ResultSet.class))
+                .method(ResultSet.class.getMethod("next"))
+                .result(hasRow)
+                .build());
+    }
+}
@@ -0,0 +1,88 @@
+package com.zubair.travel;
+
+import com.zubair.travel.config.SecurityConfig;
+import com.zubair.travel.config.security.RouteAuthorizationTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteAuthorizationTableTest {
+
+    private final RouteAuthorizationTable table = SecurityConfig.routeAuthorizationTable();
+
+    private final Authentication anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+    private final Authentication user = UsernamePasswordAuthenticationToken.authenticated("jane", null,
+            AuthorityUtils.createAuthorityList("ROLE_USER"));
+    private final Authentication admin = UsernamePasswordAuthenticationToken.authenticated("root", null,
+            AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+
+    @Test
+    public void testOnlyCatalogSnapshotsArePublicAndOnlyForReads() {
+        assertTrue(table.isPublic("GET", "/api/tours/available"));
+        assertTrue(table.isPublic("GET", "/api/lodges/available"));
+        assertFalse(table.isPublic("GET", "/api/tours"));
+        assertFalse(table.isPublic("GET", "/api/tours/42"));
+        assertFalse(table.isPublic("GET", "/api/lodges/search"));
+        assertFalse(table.isPublic("POST", "/api/tours/available"));
+        assertFalse(table.isPublic("GET", "/api/tours/availablex"));
+
+        assertTrue(allowed(anonymous, "GET", "/api/tours/available"));
+        assertFalse(allowed(anonymous, "GET", "/api/tours/42"));
+        assertTrue(allowed(user, "GET", "/api/tours/42"));
+        assertFalse(allowed(anonymous, "POST", "/api/tours"));
+        assertTrue(allowed(user, "POST", "/api/tours"));
+    }
+
+    @Test
+    public void testFirstDeclaredRuleWins() {
+        // /api/auth/** is public for every method, /actuator/health before /actuator/**
+        assertTrue(allowed(anonymous, "POST", "/api/auth/login"));
+        assertTrue(allowed(anonymous, "GET", "/actuator/health"));
+        assertFalse(allowed(user, "GET", "/actuator/metrics"));
+        assertTrue(allowed(admin, "GET", "/actuator/metrics"));
+    }
+
+    @Test
+    public void testRolesAndDefault() {
+        assertFalse(allowed(anonymous, "GET", "/api/bookings/7"));
+        assertTrue(allowed(user, "GET", "/api/bookings/7"));
+        assertTrue(allowed(admin, "POST", "/api/bookings"));
+        assertFalse(allowed(user, "GET", "/api/users/all"));
+        assertTrue(allowed(admin, "GET", "/api/users/all"));
+        // Not listed: any authenticated user
+        assertFalse(allowed(anonymous, "GET", "/api/payments/1"));
+        assertTrue(allowed(user, "GET", "/api/payments/1"));
+    }
+
+    @Test
+    public void testContextPathIsStripped() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/travel/api/tours/available");
+        request.setContextPath("/travel");
+
+        assertTrue(table.check(() -> anonymous, new RequestAuthorizationContext(request)).isGranted());
+    }
+
+    @Test
+    public void testEncodedPathsMatchTheirDecodedRules() {
+        // %61 is "a": these reach the admin handlers, so they need the admin rule
+        assertFalse(allowed(user, "GET", "/api/users/%61ll"));
+        assertFalse(allowed(user, "DELETE", "/api/%61dmin/users/3"));
+        assertTrue(allowed(admin, "DELETE", "/api/%61dmin/users/3"));
+        assertFalse(allowed(user, "GET", "/api/users/all;x=1"));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tours/%61vailable");
+        assertEquals("/api/tours/available", RouteAuthorizationTable.requestPath(request));
+    }
+
+    private boolean allowed(Authentication authentication, String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        return table.check(() -> authentication, new RequestAuthorizationContext(request)).isGranted();
+    }
+}
@@ -0,0 +1,134 @@
+package com.zubair.travel;
+
+import com.zubair.travel.service.seating.SeatMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeatMapTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testAllocationsSeatGroupsTogetherWheneverPossible() {
+        // 130 seats in rows of 6 spans three words and ends on a partial row
+        SeatMap map = new SeatMap(130, 6);
+        boolean[] model = new boolean[131];
+        List<int[]> groups = new ArrayList<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            if (!groups.isEmpty() && (random.nextInt(3) == 0 || map.available() < 10)) {
+                int[] group = groups.remove(random.nextInt(groups.size()));
+                assertTrue(map.release(group));
+                for (int seat : group) {
+                    model[seat] = false;
+                }
+                continue;
+            }
+            int count = 1 + random.nextInt(random.nextInt(5) == 0 ? 14 : 4);
+            int[] seats = map.allocate(count);
+            if (freeSeats(model) < count) {
+                assertNull(seats);
+                continue;
+            }
+            assertNotNull(seats);
+            assertEquals(count, seats.length);
+            for (int seat : seats) {
+                assertFalse(model[seat], "seat " + seat + " handed out twice");
+                model[seat] = true;
+            }
+            boolean consecutive = seats[count - 1] - seats[0] == count - 1;
+            if (count <= 6 && hasRunInRow(model, seats, count, 6)) {
+                assertTrue(consecutive && (seats[0] - 1) / 6 == (seats[count - 1] - 1) / 6, "group split up a row");
+            }
+            if (hasRun(model, seats, count)) {
+                assertTrue(consecutive, "group not seated consecutively");
+            }
+            groups.add(seats);
+            assertEquals(freeSeats(model), map.available());
+        }
+    }
+
+    @Test
+    public void testPrefersTightestRunInRow() {
+        SeatMap map = new SeatMap(12, 4);
+        // Row 1 fully free, row 2 has a free pair (seats 7-8), row 3 a free single (seat 12)
+        assertTrue(map.claim(new int[]{5, 6, 9, 10, 11}));
+
+        assertArrayEquals(new int[]{7, 8}, map.allocate(2));
+        assertArrayEquals(new int[]{12}, map.allocate(1));
+        assertArrayEquals(new int[]{1, 2, 3}, map.allocate(3));
+        // Only seat 4 left
+        assertNull(map.allocate(2));
+        assertFalse(map.claim(new int[]{4, 5}));
+        assertFalse(map.isTaken(4));
+    }
+
+    @Test
+    public void testScatteredSeatsSpanTheFewestNumbers() {
+        SeatMap map = new SeatMap(20, 4);
+        assertTrue(map.claim(new int[]{1, 2, 3, 5, 6, 7, 8, 10, 12, 13, 14, 15, 16, 17, 19}));
+
+        // Free: 4, 9, 11, 18 and 20, no two of them adjacent; 4 to 11 is the shortest span of three
+        assertArrayEquals(new int[]{4, 9, 11}, map.allocate(3));
+    }
+
+    @Test
+    public void testBytesRoundTrip() {
+        SeatMap map = new SeatMap(500, 5);
+        map.claim(new int[]{1, 64, 65, 128, 250, 499, 500});
+        map.allocate(7);
+
+        byte[] bytes = map.toBytes();
+        assertEquals(63, bytes.length);
+        SeatMap copy = SeatMap.fromBytes(bytes, 500, 5);
+        assertEquals(map.available(), copy.available());
+        assertArrayEquals(map.takenSeats(), copy.takenSeats());
+        assertArrayEquals(new int[]{3, 4, 5}, SeatMap.parse(SeatMap.format(new int[]{3, 4, 5})));
+    }
+
+    private static int freeSeats(boolean[] model) {
+        int free = 0;
+        for (int seat = 1; seat < model.length; seat++) {
+            free += model[seat] ? 0 : 1;
+        }
+        return free;
+    }
+
+    // Whether count consecutive seats in one row were free before the group was seated
+    private static boolean hasRunInRow(boolean[] model, int[] group, int count, int seatsPerRow) {
+        for (int start = 1; start + count - 1 < model.length; start++) {
+            int end = start + count - 1;
+            if ((start - 1) / seatsPerRow == (end - 1) / seatsPerRow && freeBefore(model, group, start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasRun(boolean[] model, int[] group, int count) {
+        for (int start = 1; start + count - 1 < model.length; start++) {
+            if (freeBefore(model, group, start, start + count - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean freeBefore(boolean[] model, int[] group, int start, int end) {
+        for (int seat = start; seat <= end; seat++) {
+            boolean inGroup = false;
+            for (int member : group) {
+                inGroup |= member == seat;
+            }
+            if (model[seat] && !inGroup) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,86 @@
+package com.zubair.travel;
+
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.TourInventoryShard;
+import com.zubair.travel.repository.TourInventoryShardRepository;
+import com.zubair.travel.repository.TourRepository;
+import com.zubair.travel.service.inventory.TourInventoryShardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TourInventoryShardServiceTest {
+
+    @Mock
+    private TourInventoryShardRepository shardRepository;
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @InjectMocks
+    private TourInventoryShardService shardService;
+
+    private Tour tour;
+
+    @BeforeEach
+    public void setUp() {
+        tour = new Tour();
+        tour.setId(1L);
+        tour.setAvailableSeats(0);
+        tour.setInventoryShards(4);
+    }
+
+    @Test
+    public void testReserveFallsBackToSiblingShard() {
+        when(shardRepository.takeSeats(eq(1L), anyInt(), eq(2))).thenReturn(0, 1);
+
+        assertTrue(shardService.reserve(tour, 2));
+        verify(shardRepository, times(2)).takeSeats(eq(1L), anyInt(), eq(2));
+        verify(shardRepository, never()).lockByTourId(1L);
+    }
+
+    @Test
+    public void testReserveGathersSeatsAcrossShards() {
+        List<TourInventoryShard> shards = List.of(shard(0, 1), shard(1, 2), shard(2, 0), shard(3, 1));
+        when(shardRepository.takeSeats(eq(1L), anyInt(), eq(3))).thenReturn(0);
+        when(shardRepository.lockByTourId(1L)).thenReturn(shards);
+
+        assertTrue(shardService.reserve(tour, 3));
+        assertEquals(List.of(0, 0, 0, 1), shards.stream().map(TourInventoryShard::getAvailableSeats).toList());
+    }
+
+    @Test
+    public void testReserveFailsWhenShardsAreSoldOut() {
+        List<TourInventoryShard> shards = List.of(shard(0, 1), shard(1, 0), shard(2, 0), shard(3, 1));
+        when(shardRepository.takeSeats(eq(1L), anyInt(), eq(3))).thenReturn(0);
+        when(shardRepository.lockByTourId(1L)).thenReturn(shards);
+
+        assertFalse(shardService.reserve(tour, 3));
+        assertEquals(List.of(1, 0, 0, 1), shards.stream().map(TourInventoryShard::getAvailableSeats).toList());
+    }
+
+    @Test
+    public void testRebalanceEvensOutShards() {
+        List<TourInventoryShard> shards = List.of(shard(0, 10), shard(1, 0), shard(2, 1), shard(3, 0));
+        when(shardRepository.lockByTourId(1L)).thenReturn(shards);
+
+        assertTrue(shardService.rebalance(1L));
+        assertEquals(List.of(3, 3, 3, 2), shards.stream().map(TourInventoryShard::getAvailableSeats).toList());
+        assertFalse(shardService.rebalance(1L));
+    }
+
+    private static TourInventoryShard shard(int index, int seats) {
+        return new TourInventoryShard((long) index, 1L, index, seats);
+    }
+}
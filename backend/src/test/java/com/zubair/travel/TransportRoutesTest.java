@@ -0,0 +1,115 @@
+package com.zubair.travel;
+
+import com.zubair.travel.service.route.TransportRoutes;
+import com.zubair.travel.service.route.TransportRoutes.Entry;
+import com.zubair.travel.service.route.TransportRoutes.Fare;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransportRoutesTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testQueriesMatchFullScanAfterEveryChange() {
+        TransportRoutes routes = new TransportRoutes();
+        Map<Long, Entry> transports = new HashMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            long id = random.nextInt(200);
+            Entry current = transports.get(id);
+            int operation = random.nextInt(10);
+            if (current == null || operation < 3) {
+                // Costs collide often to exercise the id tie-break; some transports have no route
+                Entry entry = new Entry(id, random.nextInt(10) == 0 ? null : (long) random.nextInt(3),
+                        (long) random.nextInt(3), 20 + random.nextInt(10) * 5.0, random.nextInt(4));
+                routes.put(entry);
+                transports.put(id, entry);
+            } else if (operation < 4) {
+                routes.remove(id);
+                transports.remove(id);
+            } else {
+                int seats = random.nextInt(4);
+                assertTrue(routes.updateSeats(id, seats));
+                transports.put(id, new Entry(id, current.fromLocationId(), current.toLocationId(), current.cost(), seats));
+            }
+
+            double minCost = 20 + random.nextInt(10) * 5.0;
+            double maxCost = minCost + random.nextInt(4) * 5.0;
+            int minSeats = random.nextInt(3);
+            assertEquals(scan(transports.values(), null, null, minCost, maxCost, minSeats),
+                    routes.all(minCost, maxCost, minSeats, Integer.MAX_VALUE));
+            long from = random.nextInt(3);
+            long to = random.nextInt(3);
+            assertEquals(scan(transports.values(), from, to, 0, Double.MAX_VALUE, minSeats),
+                    routes.route(from, to, 0, Double.MAX_VALUE, minSeats, Integer.MAX_VALUE));
+        }
+        assertEquals(transports.size(), routes.size());
+    }
+
+    @Test
+    public void testPutAllMatchesOnePutPerEntry() {
+        List<Entry> batch = new ArrayList<>();
+        for (long id = 0; id < 500; id++) {
+            batch.add(new Entry(id, (long) random.nextInt(5), (long) random.nextInt(5), random.nextInt(50), random.nextInt(40)));
+        }
+        // A repeated id keeps its last entry
+        batch.add(new Entry(7, 1L, 2L, 5.0, 3));
+
+        TransportRoutes loaded = new TransportRoutes();
+        loaded.putAll(batch);
+        TransportRoutes inserted = new TransportRoutes();
+        batch.forEach(inserted::put);
+
+        assertEquals(500, loaded.size());
+        assertEquals(inserted.all(0, Double.MAX_VALUE, 0, Integer.MAX_VALUE), loaded.all(0, Double.MAX_VALUE, 0, Integer.MAX_VALUE));
+        for (long from = 0; from < 5; from++) {
+            for (long to = 0; to < 5; to++) {
+                assertEquals(inserted.route(from, to, 0, Double.MAX_VALUE, 0, Integer.MAX_VALUE),
+                        loaded.route(from, to, 0, Double.MAX_VALUE, 0, Integer.MAX_VALUE));
+            }
+        }
+    }
+
+    @Test
+    public void testRepricingMovesTransportAndEmptyRoutesAreDropped() {
+        TransportRoutes routes = new TransportRoutes();
+        routes.put(new Entry(1, 10L, 20L, 50.0, 4));
+        routes.put(new Entry(2, 10L, 20L, 40.0, 0));
+        routes.put(new Entry(3, 10L, 20L, 60.0, 9));
+
+        assertEquals(List.of(new Fare(2, 40.0, 0), new Fare(1, 50.0, 4)), routes.route(10, 20, 0, 55, 0, 10));
+        assertEquals(List.of(new Fare(1, 50.0, 4)), routes.route(10, 20, 0, Double.MAX_VALUE, 1, 1));
+
+        routes.put(new Entry(3, 10L, 20L, 30.0, 9));
+        assertEquals(3, routes.route(10, 20, 0, Double.MAX_VALUE, 0, 10).get(0).transportId());
+
+        routes.put(new Entry(1, 10L, 21L, 50.0, 4));
+        routes.remove(2);
+        routes.remove(3);
+        assertEquals(1, routes.routeCount());
+        assertTrue(routes.route(10, 20, 0, Double.MAX_VALUE, 0, 10).isEmpty());
+        assertFalse(routes.updateSeats(2, 1));
+    }
+
+    // What the route or, for a null from, all transports should return, by filtering and sorting everything
+    private static List<Fare> scan(Collection<Entry> transports, Long from, Long to, double minCost, double maxCost,
+                                   int minSeats) {
+        return transports.stream()
+                .filter(entry -> from == null || Objects.equals(entry.fromLocationId(), from) && Objects.equals(entry.toLocationId(), to))
+                .filter(entry -> entry.cost() >= minCost && entry.cost() <= maxCost && entry.availableSeats() >= minSeats)
+                .sorted(Comparator.comparingDouble(Entry::cost).thenComparingLong(Entry::id))
+                .map(entry -> new Fare(entry.id(), entry.cost(), entry.availableSeats()))
+                .toList();
+    }
+}
@@ -0,0 +1,134 @@
+package com.zubair.travel;
+
+import com.zubair.travel.entity.Booking;
+import com.zubair.travel.entity.Tour;
+import com.zubair.travel.entity.WaitlistEntry;
+import com.zubair.travel.repository.BookingRepository;
+import com.zubair.travel.repository.TourRepository;
+import com.zubair.travel.repository.UserRepository;
+import com.zubair.travel.repository.WaitlistEntryRepository;
+import com.zubair.travel.service.BookingSummaryService;
+import com.zubair.travel.service.PricingService;
+import com.zubair.travel.service.TourService;
+import com.zubair.travel.service.WaitlistService;
+import com.zubair.travel.service.money.Money;
+import com.zubair.travel.service.money.QuoteCalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WaitlistServiceTest {
+
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private TourService tourService;
+
+    @Mock
+    private BookingSummaryService bookingSummaryService;
+
+    @Mock
+    private PricingService pricingService;
+
+    @Spy
+    private QuoteCalculator quoteCalculator = new QuoteCalculator();
+
+    @InjectMocks
+    private WaitlistService waitlistService;
+
+    private Tour tour;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(waitlistService, "promotionBatchSize", 3);
+        tour = new Tour();
+        tour.setId(1L);
+        tour.setPrice(100.0);
+        when(tourRepository.findById(1L)).thenReturn(Optional.of(tour));
+    }
+
+    @Test
+    public void testPromoteStopsAtFirstEntryThatDoesNotFit() {
+        List<WaitlistEntry> head = List.of(entry(1L, 2), entry(2L, 1), entry(3L, 4));
+        when(waitlistEntryRepository.lockHead(eq(1L), any())).thenReturn(head);
+        when(tourService.getAvailableSeatCount(1L)).thenReturn(4L);
+        when(tourService.tryBookSeat(1L, 3)).thenReturn(true);
+        when(pricingService.tourUnitPrice(tour)).thenReturn(Money.ofMinor(10_000));
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> savedBookings(invocation.getArgument(0)));
+
+        assertEquals(2, waitlistService.promote(1L));
+        // Entry 3 needs 4 seats, only 1 is left; the release doesn't skip ahead to smaller entries
+        verify(tourService).tryBookSeat(1L, 3);
+        assertEquals(List.of("PROMOTED", "PROMOTED", "WAITING"), head.stream().map(WaitlistEntry::getStatus).toList());
+        assertEquals(101L, head.get(0).getBookingId());
+        assertEquals(102L, head.get(1).getBookingId());
+        verify(waitlistEntryRepository, times(1)).lockHead(eq(1L), any());
+    }
+
+    @Test
+    public void testPromoteContinuesWithNextBatch() {
+        List<WaitlistEntry> first = List.of(entry(1L, 1), entry(2L, 1), entry(3L, 1));
+        List<WaitlistEntry> second = List.of(entry(4L, 1));
+        when(waitlistEntryRepository.lockHead(eq(1L), any())).thenReturn(first, second);
+        when(tourService.getAvailableSeatCount(1L)).thenReturn(10L);
+        when(tourService.tryBookSeat(eq(1L), anyInt())).thenReturn(true);
+        when(pricingService.tourUnitPrice(tour)).thenReturn(Money.ofMinor(10_000));
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> savedBookings(invocation.getArgument(0)));
+
+        assertEquals(4, waitlistService.promote(1L));
+        verify(tourService).tryBookSeat(1L, 3);
+        verify(tourService).tryBookSeat(1L, 1);
+        verify(bookingSummaryService, times(4)).refresh(any(Booking.class));
+    }
+
+    @Test
+    public void testPromoteKeepsEntriesWaitingWhenSeatsAreTakenMeanwhile() {
+        List<WaitlistEntry> head = List.of(entry(1L, 2));
+        when(waitlistEntryRepository.lockHead(eq(1L), any())).thenReturn(head);
+        when(tourService.getAvailableSeatCount(1L)).thenReturn(2L);
+        when(tourService.tryBookSeat(1L, 2)).thenReturn(false);
+
+        assertEquals(0, waitlistService.promote(1L));
+        assertEquals("WAITING", head.get(0).getStatus());
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    private static WaitlistEntry entry(Long id, int seats) {
+        return new WaitlistEntry(id, 1L, id, seats, 0, WaitlistService.WAITING, null, null, null);
+    }
+
+    private static List<Booking> savedBookings(List<Booking> bookings) {
+        List<Booking> saved = new ArrayList<>(bookings);
+        for (int i = 0; i < saved.size(); i++) {
+            saved.get(i).setId(101L + i);
+        }
+        return saved;
+    }
+}
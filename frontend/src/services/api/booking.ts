@@ -14,6 +14,19 @@ export interface Booking {
   createdAt?: string;
 }
 
+// Dashboard row from the booking summary read model
+export interface BookingSummary {
+  bookingId: number;
+  userId: number;
+  tourName: string;
+  tourDate: string;
+  bookingDate: string;
+  totalPassengers: number;
+  totalAmount: number;
+  status: string;
+  paymentStatus?: string;
+}
+
 export interface BookingResponse {
   booking: Booking;
   message: string;
@@ -32,6 +45,12 @@ export const bookingService = {
     return response.data;
   },
 
+  // Get the dashboard summaries of a user's bookings
+  getUserBookingSummaries: async (userId: string): Promise<BookingSummary[]> => {
+    const response = await apiClient.get(`/bookings/user/${userId}/summaries`);
+    return response.data;
+  },
+
   // Get a single booking by ID
   getBookingById: async (bookingId: string): Promise<Booking> => {
     const response = await apiClient.get(`/bookings/${bookingId}`);